@@ -137,6 +137,8 @@ public interface AnalysisDAO extends BaseDAO<Analysis, String> {
 
     List<Analysis> getAnalysesBySampleId(String id) throws LIMSRuntimeException;
 
+    List<Analysis> getAnalysesBySampleIds(List<String> sampleIds) throws LIMSRuntimeException;
+
     List<Analysis> getAnalysesBySampleIdExcludedByStatusId(String id, Set<Integer> statusIds)
             throws LIMSRuntimeException;
 
@@ -1325,6 +1325,29 @@ public class AnalysisDAOImpl extends BaseDAOImpl<Analysis, String> implements An
         return list;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Analysis> getAnalysesBySampleIds(List<String> sampleIds) throws LIMSRuntimeException {
+        List<Analysis> list = new ArrayList<>();
+        if (sampleIds.isEmpty()) {
+            return list;
+        }
+        List<Integer> ids = new ArrayList<>(sampleIds.size());
+        for (String sampleId : sampleIds) {
+            ids.add(Integer.parseInt(sampleId));
+        }
+        try {
+            String sql = "from Analysis a where a.sampleItem.sample.id in (:sampleIds)";
+            org.hibernate.Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setParameterList("sampleIds", ids);
+
+            list = query.list();
+        } catch (RuntimeException e) {
+            handleException(e, "getAnalysesBySampleIds");
+        }
+        return list;
+    }
+
     @Override
 
     @Transactional(readOnly = true)
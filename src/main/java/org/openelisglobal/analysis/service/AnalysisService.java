@@ -93,6 +93,8 @@ public interface AnalysisService extends BaseObjectService<Analysis, String> {
 
     List<Analysis> getAnalysesBySampleId(String id);
 
+    List<Analysis> getAnalysesBySampleIds(List<String> sampleIds);
+
     List<Analysis> getAnalysesReadyToBeReported();
 
     List<Analysis> getAnalysisBySampleAndTestIds(String sampleKey, List<Integer> testIds);
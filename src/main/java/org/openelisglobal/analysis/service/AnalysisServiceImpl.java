@@ -308,6 +308,12 @@ public class AnalysisServiceImpl extends BaseObjectServiceImpl<Analysis, String>
         return baseObjectDAO.getAnalysesBySampleId(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Analysis> getAnalysesBySampleIds(List<String> sampleIds) {
+        return baseObjectDAO.getAnalysesBySampleIds(sampleIds);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Analysis> getAnalysisByAccessionAndTestId(String accessionNumber, String testId) {
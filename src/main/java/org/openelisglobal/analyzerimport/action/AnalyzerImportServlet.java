@@ -16,10 +16,14 @@
 */
 package org.openelisglobal.analyzerimport.action;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -49,7 +53,9 @@ public class AnalyzerImportServlet extends HttpServlet {
     private static final String USER_FIELD_NAME = "user";
     private static final String PASSWORD_FIELD_NAME = "password";
 
-    private static final long FILE_SIZE_MAX = 5 * 1024 * 1024;
+    // the upload is spooled to disk and streamed into the database so the size is
+    // not bound by memory
+    private static final long FILE_SIZE_MAX = 200 * 1024 * 1024;
     private static final long FIELD_SIZE_MAX = 1024;
     private static final long TOTAL_SIZE_MAX = FILE_SIZE_MAX + (2 * FIELD_SIZE_MAX);
 
@@ -60,7 +66,8 @@ public class AnalyzerImportServlet extends HttpServlet {
         String password = null;
         String user = null;
         AnalyzerReader reader = null;
-        boolean fileRead = false;
+        String fileName = null;
+        File uploadedFile = null;
 
         InputStream stream = null;
 
@@ -74,8 +81,6 @@ public class AnalyzerImportServlet extends HttpServlet {
                 FileItemStream item = iterator.next();
                 stream = item.openStream();
 
-                String name = null;
-
                 if (item.isFormField()) {
 
                     if (PASSWORD_FIELD_NAME.equals(item.getFieldName())) {
@@ -86,20 +91,22 @@ public class AnalyzerImportServlet extends HttpServlet {
 
                 } else {
 
-                    name = item.getName();
-
-                    reader = AnalyzerReaderFactory.getReaderFor(name);
-
-                    if (reader != null) {
-                        fileRead = reader.readStream(new InputStreamReader(stream));
+                    fileName = item.getName();
+                    if (uploadedFile == null) {
+                        uploadedFile = File.createTempFile("analyzerImport", null);
                     }
+                    Files.copy(stream, uploadedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 }
 
                 stream.close();
             }
         } catch (FileUploadException e) {
             LogEvent.logError(e.getMessage(), e);
+            deleteUploadedFile(uploadedFile);
             throw new ServletException(e);
+        } catch (IOException e) {
+            deleteUploadedFile(uploadedFile);
+            throw e;
         } finally {
             if (stream != null) {
                 try {
@@ -110,20 +117,46 @@ public class AnalyzerImportServlet extends HttpServlet {
             }
         }
 
-        if (GenericValidator.isBlankOrNull(user) || GenericValidator.isBlankOrNull(password)) {
-            response.getWriter().print("missing user");
-            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-            return;
-        }
+        try {
+            if (GenericValidator.isBlankOrNull(user) || GenericValidator.isBlankOrNull(password)) {
+                response.getWriter().print("missing user");
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                return;
+            }
 
-        if (!userValid(user, password)) {
-            response.getWriter().print("invalid user/password");
-            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-            return;
+            if (!userValid(user, password)) {
+                response.getWriter().print("invalid user/password");
+                response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+
+            if (uploadedFile != null) {
+                reader = AnalyzerReaderFactory.getReaderFor(fileName);
+            }
+
+            if (reader == null) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+
+            try (InputStreamReader fileReader = new InputStreamReader(new FileInputStream(uploadedFile))) {
+                boolean fileRead = reader.readStream(fileReader);
+                importFile(reader, fileRead, getSysUserId(user, password), response);
+            }
+        } finally {
+            deleteUploadedFile(uploadedFile);
         }
 
+    }
+
+    /*
+     * The reader may still be consuming the file when inserting so this has to run
+     * before the file is closed
+     */
+    private void importFile(AnalyzerReader reader, boolean fileRead, String sysUserId, HttpServletResponse response)
+            throws IOException {
         if (fileRead) {
-            boolean successful = reader.insertAnalyzerData(getSysUserId(user, password));
+            boolean successful = reader.insertAnalyzerData(sysUserId);
 
             if (successful) {
                 response.getWriter().print("success");
@@ -143,7 +176,13 @@ public class AnalyzerImportServlet extends HttpServlet {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             return;
         }
+    }
 
+    private void deleteUploadedFile(File uploadedFile) {
+        if (uploadedFile != null && !uploadedFile.delete()) {
+            LogEvent.logWarn(this.getClass().getName(), "deleteUploadedFile",
+                    "unable to delete " + uploadedFile.getAbsolutePath());
+        }
     }
 
     private String getSysUserId(String user, String password) {
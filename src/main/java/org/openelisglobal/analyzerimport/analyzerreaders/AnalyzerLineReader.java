@@ -22,6 +22,9 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.openelisglobal.analyzerresults.valueholder.AnalyzerResults;
+import org.openelisglobal.common.exception.LIMSRuntimeException;
+import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.plugin.AnalyzerImporterPlugin;
 
 public class AnalyzerLineReader extends AnalyzerReader {
@@ -40,7 +43,16 @@ public class AnalyzerLineReader extends AnalyzerReader {
     private static final CharSequence COBAS_TAQMAN_DBS_INDICATOR = "AMPLIPREP";
     private static final CharSequence COBAS_C311_INDICATOR = "R_Type1";
 
+    /*
+     * Enough lines to identify the analyzer and to hold the header of any of the
+     * streaming inserters
+     */
+    private static final int HEADER_WINDOW_SIZE = 10;
+    private static final int PERSIST_BATCH_SIZE = 500;
+
     private List<String> lines;
+    private List<String> headerLines;
+    private BufferedReader bufferedReader;
     private AnalyzerLineInserter inserter;
     private String error;
     private static ArrayList<AnalyzerImporterPlugin> analyzerPlugins = new ArrayList<>();
@@ -49,38 +61,69 @@ public class AnalyzerLineReader extends AnalyzerReader {
         analyzerPlugins.add(plugin);
     }
 
+    /*
+     * Only the header window is read here when the analyzer can be streamed, the
+     * remaining lines are read by insertAnalyzerData so the reader must not be
+     * closed in between
+     */
     @Override
     public boolean readStream(InputStreamReader reader) {
         error = null;
         inserter = null;
-        lines = new ArrayList<>();
+        lines = null;
+        headerLines = new ArrayList<>();
 
-        BufferedReader bufferedReader = new BufferedReader(reader);
+        bufferedReader = new BufferedReader(reader);
+        boolean endOfFile = false;
 
         try {
-            for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
-                lines.add(line);
+            while (headerLines.size() < HEADER_WINDOW_SIZE) {
+                String line = bufferedReader.readLine();
+                if (line == null) {
+                    endOfFile = true;
+                    break;
+                }
+                headerLines.add(line);
+            }
+
+            if (headerLines.isEmpty()) {
+                error = "Empty file";
+                return false;
+            }
+
+            setInserter(headerLines);
+
+            if (inserter == null && !endOfFile) {
+                // the analyzer may only be identifiable further into the file
+                readRemainingLines();
+                setInserter(lines);
+            } else if (inserter != null && !(inserter instanceof StreamingAnalyzerLineInserter)) {
+                readRemainingLines();
             }
         } catch (IOException e) {
             error = "Unable to read file";
             return false;
         }
 
-        if (!lines.isEmpty()) {
-            setInserter();
-            if (inserter == null) {
-                error = "Unable to understand which analyzer sent the file";
-                return false;
-            }
-            return true;
-        } else {
-            error = "Empty file";
+        if (inserter == null) {
+            error = "Unable to understand which analyzer sent the file";
             return false;
         }
+        return true;
+
+    }
 
+    private void readRemainingLines() throws IOException {
+        if (lines != null) {
+            return;
+        }
+        lines = new ArrayList<>(headerLines);
+        for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+            lines.add(line);
+        }
     }
 
-    private void setInserter() {
+    private void setInserter(List<String> lines) {
 
         for (AnalyzerImporterPlugin plugin : analyzerPlugins) {
             if (plugin.isTargetAnalyzer(lines)) {
@@ -92,25 +135,23 @@ public class AnalyzerLineReader extends AnalyzerReader {
         // file
         // being sent
 
-        if (lines.get(0).contains(COBAS_INDICATOR)) { // Cobas is found on the first line
+        if (lineContains(lines, 0, COBAS_INDICATOR)) { // Cobas is found on the first line
             inserter = new CobasReader();
-        } else if (lines.get(0).contains(EVOLIS_INTEGRAL_INDICATOR)
-                || lines.get(0).contains(EVOLIS_INTEGRAL_DBS_INDICATOR) || lines.get(0).contains(EVOLIS_MUREX_INDICATOR)
-                || lines.get(0).contains(EVOLIS_MUREX_DBS_INDICATOR)) { // Evolis is found on the first line
+        } else if (lineContains(lines, 0, EVOLIS_INTEGRAL_INDICATOR)
+                || lineContains(lines, 0, EVOLIS_INTEGRAL_DBS_INDICATOR)
+                || lineContains(lines, 0, EVOLIS_MUREX_INDICATOR)
+                || lineContains(lines, 0, EVOLIS_MUREX_DBS_INDICATOR)) { // Evolis is found on the first line
             inserter = new EvolisReader();
-        } else if (lines.get(1) != null && lines.get(1).contains(SYSMEX_XT_INDICATOR)) { // Sysmex model found on data
-                                                                                         // line
+        } else if (lineContains(lines, 1, SYSMEX_XT_INDICATOR)) { // Sysmex model found on data line
             inserter = new SysmexReader();
-        } else if (lines.get(1) != null && lines.get(1).contains(FACSCALIBUR_INDICATOR)) { // Fascalibur software found
-                                                                                           // on data line
+        } else if (lineContains(lines, 1, FACSCALIBUR_INDICATOR)) { // Fascalibur software found on data line
             inserter = new FacscaliburReader();
-        } else if (lines.get(1) != null
-                && (lines.get(1).contains(COBAS_TAQMAN_INDICATOR) || lines.get(1).contains(COBAS_TAQMAN_INDICATOR_2)
-                        || lines.get(1).contains(COBAS_TAQMAN_INDICATOR_3))) {
+        } else if (lineContains(lines, 1, COBAS_TAQMAN_INDICATOR) || lineContains(lines, 1, COBAS_TAQMAN_INDICATOR_2)
+                || lineContains(lines, 1, COBAS_TAQMAN_INDICATOR_3)) {
             inserter = new CobasTaqmanReader();
-        } else if (lines.get(1) != null && lines.get(1).contains(FACSCANTO_INDICATOR)) {
+        } else if (lineContains(lines, 1, FACSCANTO_INDICATOR)) {
             inserter = new FACSCantoReader();
-        } else if (lines.get(1) != null && lines.get(1).toUpperCase().contains(COBAS_TAQMAN_DBS_INDICATOR)) {
+        } else if (lines.size() > 1 && lines.get(1).toUpperCase().contains(COBAS_TAQMAN_DBS_INDICATOR)) {
             inserter = new CobasTaqmanDBSReader();
         } else {
             // we're into squishy territory. It could be be TAQMAN with no test on first row
@@ -119,12 +160,16 @@ public class AnalyzerLineReader extends AnalyzerReader {
                     inserter = new CobasTaqmanReader();
                 }
             }
-            if (inserter == null && lines.get(3).contains(COBAS_C311_INDICATOR)) {
+            if (inserter == null && lineContains(lines, 3, COBAS_C311_INDICATOR)) {
                 inserter = new CobasC311Reader();
             }
         }
     }
 
+    private boolean lineContains(List<String> lines, int index, CharSequence indicator) {
+        return lines.size() > index && lines.get(index).contains(indicator);
+    }
+
     /*
      * For testing purposes only
      */
@@ -137,6 +182,8 @@ public class AnalyzerLineReader extends AnalyzerReader {
         if (inserter == null) {
             error = "Unable to understand which analyzer sent the file";
             return false;
+        } else if (lines == null && inserter instanceof StreamingAnalyzerLineInserter) {
+            return streamAnalyzerData((StreamingAnalyzerLineInserter) inserter, systemUserId);
         } else {
             boolean success = inserter.insert(lines, systemUserId);
             if (!success) {
@@ -148,6 +195,62 @@ public class AnalyzerLineReader extends AnalyzerReader {
 
     }
 
+    /*
+     * Each batch is committed on its own. A failed import can be resent as
+     * AnalyzerResultsService recognizes results which have already been read
+     */
+    private boolean streamAnalyzerData(StreamingAnalyzerLineInserter streamingInserter, String systemUserId) {
+        int headerLineCount = streamingInserter.getHeaderLineCount();
+        if (headerLines.size() < headerLineCount) {
+            error = "Unable to read file header";
+            return false;
+        }
+
+        if (!streamingInserter.readHeader(headerLines.subList(0, headerLineCount))) {
+            error = inserter.getError();
+            return false;
+        }
+
+        List<AnalyzerResults> results = new ArrayList<>();
+
+        try {
+            for (String line : headerLines.subList(headerLineCount, headerLines.size())) {
+                streamingInserter.addResultsFromLine(results, line);
+                if (results.size() >= PERSIST_BATCH_SIZE && !persistBatch(results, systemUserId)) {
+                    return false;
+                }
+            }
+
+            for (String line = bufferedReader.readLine(); line != null; line = bufferedReader.readLine()) {
+                streamingInserter.addResultsFromLine(results, line);
+                if (results.size() >= PERSIST_BATCH_SIZE && !persistBatch(results, systemUserId)) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            error = "Unable to read file";
+            return false;
+        }
+
+        return persistBatch(results, systemUserId);
+    }
+
+    private boolean persistBatch(List<AnalyzerResults> results, String systemUserId) {
+        if (results.isEmpty()) {
+            return true;
+        }
+
+        try {
+            inserter.persistResults(results, systemUserId);
+        } catch (LIMSRuntimeException e) {
+            LogEvent.logDebug(e);
+            error = inserter.getError();
+            return false;
+        }
+        results.clear();
+        return true;
+    }
+
     @Override
     public String getError() {
         return error;
@@ -27,7 +27,7 @@ import org.openelisglobal.analyzerresults.valueholder.AnalyzerResults;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.util.DateUtil;
 
-public class CobasC311Reader extends AnalyzerLineInserter {
+public class CobasC311Reader extends AnalyzerLineInserter implements StreamingAnalyzerLineInserter {
 
     private static final double ROUND_UP_KICKER = 0.000001;
     private int ORDER_NUMBER = 0;
@@ -55,15 +55,12 @@ public class CobasC311Reader extends AnalyzerLineInserter {
 
         List<AnalyzerResults> results = new ArrayList<>();
 
-        boolean columnsFound = manageColumns(lines.get(0), lines.get(3));
-
-        if (!columnsFound) {
-            error = "Cobas C311 analyzer: Unable to find correct columns in file";
+        if (!readHeader(lines)) {
             return false;
         }
 
         for (int i = 4; i < lines.size(); ++i) {
-            createAnalyzerResultFromLine(lines.get(i), results);
+            addResultsFromLine(results, lines.get(i));
         }
 
         if (results.size() > 0) {
@@ -121,7 +118,8 @@ public class CobasC311Reader extends AnalyzerLineInserter {
         }
     }
 
-    private void createAnalyzerResultFromLine(String line, List<AnalyzerResults> resultList) {
+    @Override
+    public void addResultsFromLine(List<AnalyzerResults> resultList, String line) {
         String[] fields = line.split(DELIMITER);
 
         if (fields.length <= ORDER_DATE) {
@@ -201,6 +199,21 @@ public class CobasC311Reader extends AnalyzerLineInserter {
         return result;
     }
 
+    @Override
+    public int getHeaderLineCount() {
+        return 4;
+    }
+
+    @Override
+    public boolean readHeader(List<String> headerLines) {
+        boolean columnsFound = manageColumns(headerLines.get(0), headerLines.get(3));
+
+        if (!columnsFound) {
+            error = "Cobas C311 analyzer: Unable to find correct columns in file";
+        }
+        return columnsFound;
+    }
+
     @Override
     public String getError() {
         return error;
@@ -32,7 +32,7 @@ import org.openelisglobal.test.valueholder.Test;
 import org.openelisglobal.testresult.service.TestResultService;
 import org.openelisglobal.testresult.valueholder.TestResult;
 
-public class CobasTaqmanDBSReader extends AnalyzerLineInserter {
+public class CobasTaqmanDBSReader extends AnalyzerLineInserter implements StreamingAnalyzerLineInserter {
 
     protected DictionaryService dictionaryService = SpringContext.getBean(DictionaryService.class);
     protected TestService testService = SpringContext.getBean(TestService.class);
@@ -51,6 +51,7 @@ public class CobasTaqmanDBSReader extends AnalyzerLineInserter {
     private String POSITIVE_ID;
 
     private AnalyzerReaderUtil readerUtil = new AnalyzerReaderUtil();
+    private MappedTestName mappedName;
     private String error;
 
     public CobasTaqmanDBSReader() {
@@ -74,23 +75,12 @@ public class CobasTaqmanDBSReader extends AnalyzerLineInserter {
 
         List<AnalyzerResults> results = new ArrayList<>();
 
-        boolean columnsFound = manageColumns(lines.get(0));
-
-        if (!columnsFound) {
-            error = "Cobas Taqman DBS analyzer: Unable to find correct columns in file #";
+        if (!readHeader(lines)) {
             return false;
         }
 
-        MappedTestName mappedName = AnalyzerTestNameCache.getInstance().getMappedTest(AnalyzerTestNameCache.COBAS_DBS,
-                TEST_NAME);
-
-        if (mappedName == null) {
-            mappedName = AnalyzerTestNameCache.getInstance().getEmptyMappedTestName(AnalyzerTestNameCache.COBAS_DBS,
-                    TEST_NAME);
-        }
-
         for (int i = 1; i < lines.size(); ++i) {
-            createAnalyzerResultFromLine(lines.get(i), results, mappedName);
+            addResultsFromLine(results, lines.get(i));
         }
 
         if (results.size() > 0) {
@@ -132,8 +122,8 @@ public class CobasTaqmanDBSReader extends AnalyzerLineInserter {
         }
     }
 
-    private void createAnalyzerResultFromLine(String line, List<AnalyzerResults> resultList,
-            MappedTestName mappedName) {
+    @Override
+    public void addResultsFromLine(List<AnalyzerResults> resultList, String line) {
         String[] fields = line.split(DELIMITER);
 
         AnalyzerResults analyzerResults = new AnalyzerResults();
@@ -180,6 +170,29 @@ public class CobasTaqmanDBSReader extends AnalyzerLineInserter {
         return result;
     }
 
+    @Override
+    public int getHeaderLineCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean readHeader(List<String> headerLines) {
+        boolean columnsFound = manageColumns(headerLines.get(0));
+
+        if (!columnsFound) {
+            error = "Cobas Taqman DBS analyzer: Unable to find correct columns in file #";
+            return false;
+        }
+
+        mappedName = AnalyzerTestNameCache.getInstance().getMappedTest(AnalyzerTestNameCache.COBAS_DBS, TEST_NAME);
+
+        if (mappedName == null) {
+            mappedName = AnalyzerTestNameCache.getInstance().getEmptyMappedTestName(AnalyzerTestNameCache.COBAS_DBS,
+                    TEST_NAME);
+        }
+        return true;
+    }
+
     @Override
     public String getError() {
         return error;
@@ -25,7 +25,7 @@ import org.openelisglobal.analyzerresults.valueholder.AnalyzerResults;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.util.DateUtil;
 
-public class CobasTaqmanReader extends AnalyzerLineInserter {
+public class CobasTaqmanReader extends AnalyzerLineInserter implements StreamingAnalyzerLineInserter {
 
     private static final String UNDER_THREASHOLD = "< LL";
     private static final double THREASHOLD = 20.0;
@@ -58,7 +58,7 @@ public class CobasTaqmanReader extends AnalyzerLineInserter {
         List<AnalyzerResults> results = new ArrayList<>();
 
         for (int i = 1; i < lines.size(); ++i) {
-            createAnalyzerResultFromLine(lines.get(i), results);
+            addResultsFromLine(results, lines.get(i));
         }
 
         if (results.size() > 0) {
@@ -83,7 +83,8 @@ public class CobasTaqmanReader extends AnalyzerLineInserter {
 
     }
 
-    private void createAnalyzerResultFromLine(String line, List<AnalyzerResults> resultList) {
+    @Override
+    public void addResultsFromLine(List<AnalyzerResults> resultList, String line) {
         String[] fields = line.split(ALT_DELIMITER);
         if (fields.length < 5) {
             fields = line.split(DELIMITER);
@@ -139,6 +140,16 @@ public class CobasTaqmanReader extends AnalyzerLineInserter {
         return result;
     }
 
+    @Override
+    public int getHeaderLineCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean readHeader(List<String> headerLines) {
+        return true;
+    }
+
     @Override
     public String getError() {
         return "Cobas Taqman unable to write to database";
@@ -35,7 +35,7 @@ import org.openelisglobal.test.valueholder.Test;
 import org.openelisglobal.testresult.service.TestResultService;
 import org.openelisglobal.testresult.valueholder.TestResult;
 
-public class EvolisReader extends AnalyzerLineInserter {
+public class EvolisReader extends AnalyzerLineInserter implements StreamingAnalyzerLineInserter {
 
     protected DictionaryService dictionaryService = SpringContext.getBean(DictionaryService.class);
     protected TestService testService = SpringContext.getBean(TestService.class);
@@ -82,7 +82,7 @@ public class EvolisReader extends AnalyzerLineInserter {
         List<AnalyzerResults> results = new ArrayList<>();
 
         for (int i = 1; i < lines.size(); i++) {
-            addAnalyzerResultFromLine(results, lines.get(i));
+            addResultsFromLine(results, lines.get(i));
         }
 
         if (results.size() > 0) {
@@ -100,7 +100,8 @@ public class EvolisReader extends AnalyzerLineInserter {
 
     }
 
-    private void addAnalyzerResultFromLine(List<AnalyzerResults> results, String line) {
+    @Override
+    public void addResultsFromLine(List<AnalyzerResults> results, String line) {
         line = line.replace("\"", "").replace(DELIMITER, ":");
         String[] fields = line.split(":");
 
@@ -142,6 +143,16 @@ public class EvolisReader extends AnalyzerLineInserter {
         return null;
     }
 
+    @Override
+    public int getHeaderLineCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean readHeader(List<String> headerLines) {
+        return true;
+    }
+
     @Override
     public String getError() {
         return "Evolis analyzer unable to write to database";
@@ -28,7 +28,7 @@ import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.util.DateUtil;
 import org.openelisglobal.common.util.StringUtil;
 
-public class FACSCantoReader extends AnalyzerLineInserter {
+public class FACSCantoReader extends AnalyzerLineInserter implements StreamingAnalyzerLineInserter {
 
     private static final String CONTROL_ACCESSION_PREFIX = "IMM";
 
@@ -54,10 +54,10 @@ public class FACSCantoReader extends AnalyzerLineInserter {
 
         List<AnalyzerResults> results = new ArrayList<>();
 
-        manageColumns(lines.get(0));
+        readHeader(lines);
 
         for (int i = 1; i < lines.size(); i++) {
-            addAnalyzerResultFromLine(results, lines.get(i));
+            addResultsFromLine(results, lines.get(i));
         }
 
         if (results.size() > 0) {
@@ -107,7 +107,8 @@ public class FACSCantoReader extends AnalyzerLineInserter {
 
     }
 
-    private void addAnalyzerResultFromLine(List<AnalyzerResults> results, String line) {
+    @Override
+    public void addResultsFromLine(List<AnalyzerResults> results, String line) {
         String[] fields = StringUtil.separateCSVWithMixedEmbededQuotes(line);
 
         // This insures that the row has not been truncated
@@ -177,6 +178,17 @@ public class FACSCantoReader extends AnalyzerLineInserter {
         }
     }
 
+    @Override
+    public int getHeaderLineCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean readHeader(List<String> headerLines) {
+        manageColumns(headerLines.get(0));
+        return true;
+    }
+
     @Override
     public String getError() {
         return "FacsCANTO analyzer unable to write to database";
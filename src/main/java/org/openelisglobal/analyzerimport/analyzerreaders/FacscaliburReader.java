@@ -28,7 +28,7 @@ import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.util.DateUtil;
 
 @SuppressWarnings("unused")
-public class FacscaliburReader extends AnalyzerLineInserter {
+public class FacscaliburReader extends AnalyzerLineInserter implements StreamingAnalyzerLineInserter {
 
     private static final String CONTROL_ACCESSION_PREFIX = "IMM";
 
@@ -124,7 +124,7 @@ public class FacscaliburReader extends AnalyzerLineInserter {
         List<AnalyzerResults> results = new ArrayList<>();
 
         for (int i = 1; i < lines.size(); i++) {
-            addAnalyzerResultFromLine(results, lines.get(i));
+            addResultsFromLine(results, lines.get(i));
         }
 
         if (results.size() > 0) {
@@ -139,7 +139,8 @@ public class FacscaliburReader extends AnalyzerLineInserter {
         return successful;
     }
 
-    private void addAnalyzerResultFromLine(List<AnalyzerResults> results, String line) {
+    @Override
+    public void addResultsFromLine(List<AnalyzerResults> results, String line) {
         String[] fields = line.split(DELIMITER);
 
         AnalyzerReaderUtil readerUtil = new AnalyzerReaderUtil();
@@ -213,6 +214,16 @@ public class FacscaliburReader extends AnalyzerLineInserter {
         return month + ".";
     }
 
+    @Override
+    public int getHeaderLineCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean readHeader(List<String> headerLines) {
+        return true;
+    }
+
     @Override
     public String getError() {
         return "Facscalibur analyzer unable to write to database";
@@ -0,0 +1,50 @@
+/**
+* The contents of this file are subject to the Mozilla Public License
+* Version 1.1 (the "License"); you may not use this file except in
+* compliance with the License. You may obtain a copy of the License at
+* http://www.mozilla.org/MPL/ 
+* 
+* Software distributed under the License is distributed on an "AS IS"
+* basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+* License for the specific language governing rights and limitations under
+* the License.
+* 
+* The Original Code is OpenELIS code.
+* 
+* Copyright (C) The Minnesota Department of Health.  All Rights Reserved.
+*
+* Contributor(s): CIRG, University of Washington, Seattle WA.
+*/
+package org.openelisglobal.analyzerimport.analyzerreaders;
+
+import java.util.List;
+
+import org.openelisglobal.analyzerresults.valueholder.AnalyzerResults;
+
+/**
+ * Implemented by inserters whose data lines can be turned into results without
+ * seeing the rest of the file. The reader hands them the header lines once and
+ * then one data line at a time, persisting the results in fixed size batches so
+ * the file never has to be held in memory.
+ */
+public interface StreamingAnalyzerLineInserter {
+
+    /**
+     * @return the number of lines at the start of the file which are not data
+     */
+    public int getHeaderLineCount();
+
+    /**
+     * Called once with the header lines before any data line is read.
+     *
+     * @return false if the columns needed could not be found
+     */
+    public boolean readHeader(List<String> headerLines);
+
+    /**
+     * Adds the results for a single data line, including any matching results
+     * already in the database, to results.
+     */
+    public void addResultsFromLine(List<AnalyzerResults> results, String line);
+
+}
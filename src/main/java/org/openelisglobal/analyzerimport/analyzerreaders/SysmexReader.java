@@ -30,7 +30,7 @@ import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.util.DateUtil;
 
 @SuppressWarnings("unused")
-public class SysmexReader extends AnalyzerLineInserter {
+public class SysmexReader extends AnalyzerLineInserter implements StreamingAnalyzerLineInserter {
 
     private static final String CONTROL_ACCESSION_PREFIX = "QC-";
 
@@ -329,7 +329,7 @@ public class SysmexReader extends AnalyzerLineInserter {
         List<AnalyzerResults> results = new ArrayList<>();
 
         for (int i = 1; i < lines.size(); i++) {
-            addAnalyzerResultFromLine(results, lines.get(i));
+            addResultsFromLine(results, lines.get(i));
         }
 
         if (results.size() > 0) {
@@ -343,7 +343,8 @@ public class SysmexReader extends AnalyzerLineInserter {
         return successful;
     }
 
-    private void addAnalyzerResultFromLine(List<AnalyzerResults> results, String line) {
+    @Override
+    public void addResultsFromLine(List<AnalyzerResults> results, String line) {
         String[] fields = line.split(DELIMITER);
 
         AnalyzerReaderUtil readerUtil = new AnalyzerReaderUtil();
@@ -409,6 +410,16 @@ public class SysmexReader extends AnalyzerLineInserter {
         results.addAll(readOnlyResults);
     }
 
+    @Override
+    public int getHeaderLineCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean readHeader(List<String> headerLines) {
+        return true;
+    }
+
     @Override
     public String getError() {
         return "Sysmex analyzer unable to write to database";
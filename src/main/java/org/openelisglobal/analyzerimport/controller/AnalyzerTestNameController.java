@@ -10,7 +10,6 @@ import org.openelisglobal.analyzer.service.AnalyzerService;
 import org.openelisglobal.analyzer.valueholder.Analyzer;
 import org.openelisglobal.analyzerimport.form.AnalyzerTestNameForm;
 import org.openelisglobal.analyzerimport.service.AnalyzerTestMappingService;
-import org.openelisglobal.analyzerimport.util.AnalyzerTestNameCache;
 import org.openelisglobal.analyzerimport.validator.AnalyzerTestMappingValidator;
 import org.openelisglobal.analyzerimport.valueholder.AnalyzerTestMapping;
 import org.openelisglobal.common.controller.BaseController;
@@ -178,8 +177,6 @@ public class AnalyzerTestNameController extends BaseController {
             forward = FWD_FAIL_INSERT;
         }
 
-        AnalyzerTestNameCache.getInstance().reloadCache();
-
         return forward;
     }
 
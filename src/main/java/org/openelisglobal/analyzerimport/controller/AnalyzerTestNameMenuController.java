@@ -181,7 +181,6 @@ public class AnalyzerTestNameMenuController extends BaseMenuController {
             }
         }
 
-        AnalyzerTestNameCache.getInstance().reloadCache();
         request.setAttribute("menuDefinition", "AnalyzerTestNameDefinition");
         redirectAttributes.addFlashAttribute(Constants.SUCCESS_MSG, MessageUtil.getMessage("message.success.delete"));
         return findForward(FWD_SUCCESS_DELETE, form);
@@ -17,12 +17,17 @@
 */
 package org.openelisglobal.analyzerimport.dao;
 
+import java.util.List;
+
 import org.openelisglobal.analyzerimport.valueholder.AnalyzerTestMapping;
 import org.openelisglobal.analyzerimport.valueholder.AnalyzerTestMappingPK;
 import org.openelisglobal.common.dao.BaseDAO;
+import org.openelisglobal.common.exception.LIMSRuntimeException;
 
 public interface AnalyzerTestMappingDAO extends BaseDAO<AnalyzerTestMapping, AnalyzerTestMappingPK> {
 
+    List<AnalyzerTestMapping> getAllForAnalyzer(String analyzerId) throws LIMSRuntimeException;
+
 //	List<AnalyzerTestMapping> getAllAnalyzerTestMappings() throws LIMSRuntimeException;
 
 //	void deleteData(List<AnalyzerTestMapping> testMappingList, String currentUserId) throws LIMSRuntimeException;
@@ -17,10 +17,15 @@
  */
 package org.openelisglobal.analyzerimport.daoimpl;
 
+import java.util.List;
+
+import org.hibernate.Session;
 import org.openelisglobal.analyzerimport.dao.AnalyzerTestMappingDAO;
 import org.openelisglobal.analyzerimport.valueholder.AnalyzerTestMapping;
 import org.openelisglobal.analyzerimport.valueholder.AnalyzerTestMappingPK;
 import org.openelisglobal.common.daoimpl.BaseDAOImpl;
+import org.openelisglobal.common.exception.LIMSRuntimeException;
+import org.openelisglobal.common.log.LogEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,6 +38,21 @@ public class AnalyzerTestMappingDAOImpl extends BaseDAOImpl<AnalyzerTestMapping,
         super(AnalyzerTestMapping.class);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<AnalyzerTestMapping> getAllForAnalyzer(String analyzerId) throws LIMSRuntimeException {
+        try {
+            String sql = "from AnalyzerTestMapping atm where atm.compoundId.analyzerId = :analyzerId";
+            org.hibernate.Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setInteger("analyzerId", Integer.parseInt(analyzerId));
+            return query.list();
+        } catch (RuntimeException e) {
+            LogEvent.logError(e.toString(), e);
+            throw new LIMSRuntimeException("Error in AnalyzerTestMappingDAOImpl getAllForAnalyzer()", e);
+        }
+    }
+
 //	@Override
 //	public void deleteData(List<AnalyzerTestMapping> analyzerTestMappingList, String currentUserId)
 //			throws LIMSRuntimeException {
@@ -1,13 +1,18 @@
 package org.openelisglobal.analyzerimport.service;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.openelisglobal.analyzerimport.dao.AnalyzerTestMappingDAO;
+import org.openelisglobal.analyzerimport.util.AnalyzerTestNameCache;
 import org.openelisglobal.analyzerimport.valueholder.AnalyzerTestMapping;
 import org.openelisglobal.analyzerimport.valueholder.AnalyzerTestMappingPK;
 import org.openelisglobal.common.service.BaseObjectServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class AnalyzerTestMappingServiceImpl extends BaseObjectServiceImpl<AnalyzerTestMapping, AnalyzerTestMappingPK>
@@ -25,4 +30,49 @@ public class AnalyzerTestMappingServiceImpl extends BaseObjectServiceImpl<Analyz
         return baseObjectDAO;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<AnalyzerTestMapping> getAllForAnalyzer(String analyzerId) {
+        return baseObjectDAO.getAllForAnalyzer(analyzerId);
+    }
+
+    @Override
+    @Transactional
+    public AnalyzerTestMappingPK insert(AnalyzerTestMapping analyzerTestMapping) {
+        AnalyzerTestMappingPK id = super.insert(analyzerTestMapping);
+        reloadCacheAfterCommit(analyzerTestMapping.getAnalyzerId());
+        return id;
+    }
+
+    @Override
+    protected AnalyzerTestMapping update(AnalyzerTestMapping analyzerTestMapping, String auditTrailType) {
+        AnalyzerTestMapping updated = super.update(analyzerTestMapping, auditTrailType);
+        reloadCacheAfterCommit(analyzerTestMapping.getAnalyzerId());
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public void delete(AnalyzerTestMapping analyzerTestMapping) {
+        super.delete(analyzerTestMapping);
+        reloadCacheAfterCommit(analyzerTestMapping.getAnalyzerId());
+    }
+
+    /*
+     * Only the mappings of the changed analyzer are reloaded, and only once they
+     * are visible to other transactions
+     */
+    private void reloadCacheAfterCommit(String analyzerId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    AnalyzerTestNameCache.getInstance().reloadAnalyzer(analyzerId);
+                }
+            });
+        } else {
+            AnalyzerTestNameCache.getInstance().reloadAnalyzer(analyzerId);
+        }
+    }
+
 }
@@ -18,9 +18,12 @@
 package org.openelisglobal.analyzerimport.util;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.openelisglobal.analyzer.service.AnalyzerService;
 import org.openelisglobal.analyzer.valueholder.Analyzer;
@@ -28,21 +31,40 @@ import org.openelisglobal.analyzerimport.service.AnalyzerTestMappingService;
 import org.openelisglobal.analyzerimport.valueholder.AnalyzerTestMapping;
 import org.openelisglobal.internationalization.MessageUtil;
 import org.openelisglobal.spring.util.SpringContext;
-import org.openelisglobal.test.service.TestService;
 import org.openelisglobal.test.service.TestServiceImpl;
-import org.openelisglobal.test.valueholder.Test;
 
+/**
+ * Readers see an immutable snapshot of the analyzer and test mappings which is
+ * replaced as a whole when the mappings change, so lookups never lock. A
+ * snapshot is built with one query for the analyzers and one for the mappings.
+ */
 public class AnalyzerTestNameCache {
 
     protected AnalyzerService analyzerService = SpringContext.getBean(AnalyzerService.class);
     protected AnalyzerTestMappingService analyzerTestMappingService = SpringContext
             .getBean(AnalyzerTestMappingService.class);
-    protected TestService testService = SpringContext.getBean(TestService.class);
 
     private static class SingletonHelper {
         private static final AnalyzerTestNameCache INSTANCE = new AnalyzerTestNameCache();
     }
 
+    private static class Snapshot {
+        private final Map<String, Map<String, MappedTestName>> analyzerNameToTestNameMap;
+        private final Map<String, String> analyzerNameToIdMap;
+        private final Map<String, String> analyzerIdToNameMap;
+
+        private Snapshot(Map<String, Map<String, MappedTestName>> analyzerNameToTestNameMap,
+                Map<String, String> analyzerNameToIdMap) {
+            this.analyzerNameToTestNameMap = Collections.unmodifiableMap(analyzerNameToTestNameMap);
+            this.analyzerNameToIdMap = Collections.unmodifiableMap(analyzerNameToIdMap);
+            Map<String, String> idToName = new HashMap<>();
+            for (Map.Entry<String, String> entry : analyzerNameToIdMap.entrySet()) {
+                idToName.put(entry.getValue(), entry.getKey());
+            }
+            analyzerIdToNameMap = Collections.unmodifiableMap(idToName);
+        }
+    }
+
     public final static String SYSMEX_XT2000_NAME = "Sysmex XT 2000";
     public final static String COBAS_INTEGRA400_NAME = "Cobas Integra";
     public final static String FACSCALIBUR = "Facscalibur";
@@ -51,10 +73,9 @@ public class AnalyzerTestNameCache {
     public final static String FACSCANTO = "FacsCanto";
     public final static String COBAS_DBS = "CobasDBS";
     public final static String COBAS_C311 = "Cobas C311";
-    private final HashMap<String, Map<String, MappedTestName>> analyzerNameToTestNameMap = new HashMap<>();
-    private Map<String, String> analyzerNameToIdMap;
-    private Map<String, String> requestTODBName = new HashMap<>();
-    private boolean isMapped = false;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final Object loadLock = new Object();
+    private Map<String, String> requestTODBName = new ConcurrentHashMap<>();
 
     private AnalyzerTestNameCache() {
         requestTODBName.put("sysmex", SYSMEX_XT2000_NAME);
@@ -76,9 +97,8 @@ public class AnalyzerTestNameCache {
     }
 
     public List<String> getAnalyzerNames() {
-        insureMapsLoaded();
         List<String> nameList = new ArrayList<>();
-        nameList.addAll(analyzerNameToIdMap.keySet());
+        nameList.addAll(getSnapshot().analyzerNameToIdMap.keySet());
         return nameList;
     }
 
@@ -96,66 +116,118 @@ public class AnalyzerTestNameCache {
 
     public void registerPluginAnalyzer(String analyzerName, String analyzerId) {
         requestTODBName.put(analyzerName, analyzerName);
-        if (isMapped) {
-            analyzerNameToIdMap.put(analyzerName, analyzerId);
+        Snapshot current = snapshot.get();
+        while (current != null) {
+            Map<String, String> nameToId = new HashMap<>(current.analyzerNameToIdMap);
+            nameToId.put(analyzerName, analyzerId);
+            Snapshot updated = new Snapshot(new HashMap<>(current.analyzerNameToTestNameMap), nameToId);
+            if (snapshot.compareAndSet(current, updated)) {
+                return;
+            }
+            current = snapshot.get();
         }
     }
 
-    private synchronized void insureMapsLoaded() {
-        if (!isMapped) {
-            loadMaps();
-            isMapped = true;
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            // only the first load blocks, and only against other first loads
+            synchronized (loadLock) {
+                current = snapshot.get();
+                if (current == null) {
+                    current = loadSnapshot();
+                    snapshot.set(current);
+                }
+            }
         }
+        return current;
     }
 
     public Map<String, MappedTestName> getMappedTestsForAnalyzer(String analyzerName) {
-        insureMapsLoaded();
-        return analyzerNameToTestNameMap.get(analyzerName);
+        return getSnapshot().analyzerNameToTestNameMap.get(analyzerName);
     }
 
-    public synchronized void reloadCache() {
-        isMapped = false;
+    /**
+     * Rebuilds all of the mappings. Readers continue to use the previous snapshot
+     * until the new one is complete.
+     */
+    public void reloadCache() {
+        snapshot.set(loadSnapshot());
     }
 
-    private void loadMaps() {
-        List<Analyzer> analyzerList = analyzerService.getAll();
-        analyzerNameToTestNameMap.clear();
+    /**
+     * Reloads only the mappings of one analyzer, falling back to a full reload if
+     * the analyzer is not yet known to the cache
+     */
+    public void reloadAnalyzer(String analyzerId) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            // nothing loaded yet, the first reader will load everything
+            return;
+        }
 
-        analyzerNameToIdMap = new HashMap<>();
+        String analyzerName = current.analyzerIdToNameMap.get(analyzerId);
+        if (analyzerName == null) {
+            reloadCache();
+            return;
+        }
 
-        for (Analyzer analyzer : analyzerList) {
-            analyzerNameToIdMap.put(analyzer.getName(), analyzer.getId());
-            analyzerNameToTestNameMap.put(analyzer.getName(), new HashMap<String, MappedTestName>());
+        Map<String, MappedTestName> testMap = new HashMap<>();
+        for (AnalyzerTestMapping mapping : analyzerTestMappingService.getAllForAnalyzer(analyzerId)) {
+            testMap.put(mapping.getAnalyzerTestName(), createMappedTestName(mapping));
+        }
+        Map<String, MappedTestName> immutableTestMap = Collections.unmodifiableMap(testMap);
+
+        while (current != null) {
+            Map<String, Map<String, MappedTestName>> nameToTestNames = new HashMap<>(
+                    current.analyzerNameToTestNameMap);
+            nameToTestNames.put(analyzerName, immutableTestMap);
+            Snapshot updated = new Snapshot(nameToTestNames, new HashMap<>(current.analyzerNameToIdMap));
+            if (snapshot.compareAndSet(current, updated)) {
+                return;
+            }
+            current = snapshot.get();
         }
+    }
 
-        List<AnalyzerTestMapping> mappingList = analyzerTestMappingService.getAll();
+    private Snapshot loadSnapshot() {
+        List<Analyzer> analyzerList = analyzerService.getAll();
 
-        for (AnalyzerTestMapping mapping : mappingList) {
-            MappedTestName mappedTestName = createMappedTestName(testService, mapping);
+        Map<String, String> analyzerNameToIdMap = new HashMap<>();
+        Map<String, String> analyzerIdToNameMap = new HashMap<>();
+        Map<String, Map<String, MappedTestName>> testMapsByAnalyzerId = new HashMap<>();
 
-            Analyzer analyzer = new Analyzer();
-            analyzer.setId(mapping.getAnalyzerId());
-            analyzer = analyzerService.get(analyzer.getId());
+        for (Analyzer analyzer : analyzerList) {
+            analyzerNameToIdMap.put(analyzer.getName(), analyzer.getId());
+            analyzerIdToNameMap.put(analyzer.getId(), analyzer.getName());
+            testMapsByAnalyzerId.put(analyzer.getId(), new HashMap<String, MappedTestName>());
+        }
 
-            Map<String, MappedTestName> testMap = analyzerNameToTestNameMap.get(analyzer.getName());
+        for (AnalyzerTestMapping mapping : analyzerTestMappingService.getAll()) {
+            Map<String, MappedTestName> testMap = testMapsByAnalyzerId.get(mapping.getAnalyzerId());
             if (testMap != null) {
-                testMap.put(mapping.getAnalyzerTestName(), mappedTestName);
+                testMap.put(mapping.getAnalyzerTestName(), createMappedTestName(mapping));
             }
         }
 
+        Map<String, Map<String, MappedTestName>> analyzerNameToTestNameMap = new HashMap<>();
+        for (Map.Entry<String, Map<String, MappedTestName>> entry : testMapsByAnalyzerId.entrySet()) {
+            analyzerNameToTestNameMap.put(analyzerIdToNameMap.get(entry.getKey()),
+                    Collections.unmodifiableMap(entry.getValue()));
+        }
+
+        return new Snapshot(analyzerNameToTestNameMap, analyzerNameToIdMap);
     }
 
-    private MappedTestName createMappedTestName(TestService testService, AnalyzerTestMapping mapping) {
+    private MappedTestName createMappedTestName(AnalyzerTestMapping mapping) {
 
         MappedTestName mappedTest = new MappedTestName();
         mappedTest.setAnalyzerTestName(mapping.getAnalyzerTestName());
         mappedTest.setTestId(mapping.getTestId());
         mappedTest.setAnalyzerId(mapping.getAnalyzerId());
         if (mapping.getTestId() != null) {
-            Test test = new Test();
-            test.setId(mapping.getTestId());
-            testService.getData(test);
-            mappedTest.setOpenElisTestName(TestServiceImpl.getUserLocalizedTestName(test));
+            // test names are already held in memory by TestServiceImpl
+            mappedTest.setOpenElisTestName(TestServiceImpl.getUserLocalizedTestName(mapping.getTestId()));
         } else {
             mappedTest.setTestId("-1");
             mappedTest.setOpenElisTestName(MessageUtil.getMessage("warning.configuration.needed"));
@@ -165,19 +237,16 @@ public class AnalyzerTestNameCache {
     }
 
     public MappedTestName getEmptyMappedTestName(String analyzerName, String analyzerTestName) {
-        insureMapsLoaded();
         MappedTestName mappedTest = new MappedTestName();
         mappedTest.setAnalyzerTestName(analyzerTestName);
         mappedTest.setTestId(null);
         mappedTest.setOpenElisTestName(analyzerTestName);
-        mappedTest.setAnalyzerId(analyzerNameToIdMap.get(analyzerName));
+        mappedTest.setAnalyzerId(getSnapshot().analyzerNameToIdMap.get(analyzerName));
 
         return mappedTest;
     }
 
     public String getAnalyzerIdForName(String analyzerName) {
-        insureMapsLoaded();
-
-        return analyzerNameToIdMap.get(analyzerName);
+        return getSnapshot().analyzerNameToIdMap.get(analyzerName);
     }
 }
@@ -35,7 +35,7 @@ import org.openelisglobal.result.form.AnalyzerResultsForm;
 
 public class AnalyzerResultsPaging {
 
-    private PagingUtility<List<AnalyzerResultItem>> paging = new PagingUtility<>();
+    private PagingUtility<AnalyzerResultItem> paging = new PagingUtility<>();
     private static TestItemPageHelper pagingHelper = new TestItemPageHelper();
 
     public void setDatabaseResults(HttpServletRequest request, AnalyzerResultsForm form, List<AnalyzerResultItem> tests)
@@ -12,4 +12,6 @@ public interface HistoryDAO extends BaseDAO<History, String> {
 
     List<History> getHistoryByRefIdAndRefTableId(History history) throws LIMSRuntimeException;
 
+    List<History> getHistoryByRefIdsAndRefTableId(List<String> refIds, String tableId) throws LIMSRuntimeException;
+
 }
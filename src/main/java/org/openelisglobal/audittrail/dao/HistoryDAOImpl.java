@@ -1,5 +1,6 @@
 package org.openelisglobal.audittrail.dao;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.hibernate.HibernateException;
@@ -45,4 +46,30 @@ public class HistoryDAOImpl extends BaseDAOImpl<History, String> implements Hist
         }
         return list;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<History> getHistoryByRefIdsAndRefTableId(List<String> refIds, String tableId)
+            throws LIMSRuntimeException {
+        if (refIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> ids = new ArrayList<>(refIds.size());
+        for (String refId : refIds) {
+            ids.add(Integer.parseInt(refId));
+        }
+        List<History> list;
+
+        try {
+            String sql = "from History h where h.referenceTable = :tableId and h.referenceId in (:refIds) order by h.timestamp desc, h.activity desc";
+            org.hibernate.Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setInteger("tableId", Integer.parseInt(tableId));
+            query.setParameterList("refIds", ids);
+            list = query.list();
+        } catch (HibernateException e) {
+            LogEvent.logError(e.toString(), e);
+            throw new LIMSRuntimeException("Error in AuditTrail getHistoryByRefIdsAndRefTableId()", e);
+        }
+        return list;
+    }
 }
@@ -0,0 +1,222 @@
+package org.openelisglobal.audittrail.daoimpl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openelisglobal.common.exception.LIMSRuntimeException;
+import org.openelisglobal.common.log.LogEvent;
+import org.openelisglobal.common.util.LabelValuePair;
+
+/**
+ * The audited fields of a value holder class and how each one is rendered in
+ * the history record. A plan is built the first time a class is audited, so an
+ * update only has to read and compare the field values.
+ */
+final class AuditDiffPlan {
+
+    private static final ConcurrentMap<Class<?>, AuditDiffPlan> PLANS = new ConcurrentHashMap<>();
+
+    private static final Set<String> IGNORED_FIELDS = new HashSet<>(
+            Arrays.asList("id", "sysUserId", "systemUser", "originalLastupdated"));
+
+    // referenced value holders print as {org.openelisglobal...}, those are not
+    // compared
+    private static final String VALUE_HOLDER_PREFIX = "{org.openelisglobal";
+
+    private final AuditedField[] fields;
+
+    static AuditDiffPlan forClass(Class<?> objectClass) {
+        return PLANS.computeIfAbsent(objectClass, AuditDiffPlan::new);
+    }
+
+    private AuditDiffPlan(Class<?> objectClass) {
+        List<AuditedField> audited = new ArrayList<>();
+        for (Class<?> current = objectClass; current != null
+                && !current.equals(Object.class); current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                AuditedField auditedField = compile(objectClass, field);
+                if (auditedField != null) {
+                    audited.add(auditedField);
+                }
+            }
+        }
+        fields = audited.toArray(new AuditedField[audited.size()]);
+    }
+
+    /**
+     * @return the label and previous value of every audited field that differs
+     *         between the two objects
+     */
+    List<LabelValuePair> diff(Object newObject, Object existingObject) {
+        List<LabelValuePair> changes = new ArrayList<>();
+        for (AuditedField field : fields) {
+            LabelValuePair change = field.compare(newObject, existingObject);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    private static AuditedField compile(Class<?> objectClass, Field field) {
+        // if the current field is static, transient or final then don't log it as
+        // these modifiers are v.unlikely to be part of the data model.
+        int modifiers = field.getModifiers();
+        if (Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) {
+            return null;
+        }
+        if (IGNORED_FIELDS.contains(field.getName())) {
+            return null;
+        }
+        for (Class<?> fieldInterface : field.getType().getInterfaces()) {
+            if (fieldInterface.equals(Collection.class)) {
+                return null;
+            }
+        }
+
+        // bugzilla 2134 fixed the analysis_qaevent completed date problem
+        // bugzilla 2122 fixed the sample collection date problem
+        if (field.getName().equals("qaEvent")) {
+            return new DerivedField("completedDate", publicGetter(objectClass, "getCompletedDate"), true);
+        }
+        if (field.getName().equals("sample")) {
+            MethodHandle getter = publicGetter(objectClass, "getCollectionDate");
+            if (getter == null) {
+                // ignore for SampleItem (which does not have getCollectionDate method
+                LogEvent.logInfo(AuditDiffPlan.class.getName(), "compile",
+                        "ignoring sample field for object of type: " + objectClass.getName());
+            }
+            return new DerivedField("collectionDate", getter, false);
+        }
+
+        // make private fields accessible so we can access their values.
+        // This is discouraged as it can introduce security vulnerabilities so care
+        // should be taken in this section of the code to not do anything other than
+        // read from this field so it can be saved in the audit log
+        field.setAccessible(true);
+        try {
+            return new PlainField(field.getName(), MethodHandles.lookup().unreflectGetter(field));
+        } catch (IllegalAccessException e) {
+            LogEvent.logError(e.toString(), e);
+            throw new LIMSRuntimeException("Error in AuditTrail compiling audit for " + objectClass.getName(), e);
+        }
+    }
+
+    private static MethodHandle publicGetter(Class<?> objectClass, String name) {
+        try {
+            Method method = objectClass.getMethod(name);
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static String asString(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static Object invoke(MethodHandle getter, Object target) {
+        try {
+            return getter.invoke(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new LIMSRuntimeException("Error in AuditTrail reading audited value", e);
+        }
+    }
+
+    private abstract static class AuditedField {
+        protected final String label;
+
+        protected AuditedField(String label) {
+            this.label = label;
+        }
+
+        abstract LabelValuePair compare(Object newObject, Object existingObject);
+
+        protected LabelValuePair change(String previousValue) {
+            if (previousValue.equals("{null}") || previousValue.equals("null")) {
+                return new LabelValuePair(label, "");
+            }
+            return new LabelValuePair(label, previousValue);
+        }
+    }
+
+    /**
+     * A field read directly, recorded with its previous value when it changes
+     */
+    private static final class PlainField extends AuditedField {
+        private final MethodHandle getter;
+
+        private PlainField(String name, MethodHandle getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        LabelValuePair compare(Object newObject, Object existingObject) {
+            String propertyNewState = newObject == null ? "" : asString(invoke(getter, newObject));
+            String propertyPreUpdateState;
+            try {
+                propertyPreUpdateState = asString(invoke(getter, existingObject));
+            } catch (ClassCastException e) {
+                propertyPreUpdateState = "";
+            }
+
+            // Ignore the parent class if any, only compare the current level
+            if (propertyNewState.startsWith(VALUE_HOLDER_PREFIX)) {
+                propertyNewState = propertyPreUpdateState;
+            }
+            if (propertyPreUpdateState.startsWith(VALUE_HOLDER_PREFIX)) {
+                propertyPreUpdateState = propertyNewState;
+            }
+            if (propertyNewState.equals(propertyPreUpdateState)) {
+                return null;
+            }
+            return change(propertyPreUpdateState);
+        }
+    }
+
+    /**
+     * A reference whose change is recorded through a value read from the owning
+     * object, recorded with the new value when it changes
+     */
+    private static final class DerivedField extends AuditedField {
+        private final MethodHandle getter;
+        private final boolean required;
+
+        private DerivedField(String label, MethodHandle getter, boolean required) {
+            super(label);
+            this.getter = getter;
+            this.required = required;
+        }
+
+        @Override
+        LabelValuePair compare(Object newObject, Object existingObject) {
+            if (getter == null) {
+                if (required) {
+                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValueFixes(), no "
+                            + label + " for " + existingObject.getClass().getName());
+                }
+                return null;
+            }
+            String oldValue = asString(invoke(getter, existingObject));
+            String newValue = asString(invoke(getter, newObject));
+            if (oldValue.equals(newValue) || newValue.isEmpty()) {
+                return null;
+            }
+            return change(newValue);
+        }
+    }
+}
@@ -15,27 +15,33 @@
  */
 package org.openelisglobal.audittrail.daoimpl;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
+import java.io.IOException;
 import java.sql.Timestamp;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
 import org.openelisglobal.audittrail.dao.AuditTrailService;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.common.action.IActionConstants;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.util.LabelValuePair;
-import org.openelisglobal.common.util.XMLUtil;
 import org.openelisglobal.common.valueholder.BaseObject;
+import org.openelisglobal.history.service.HistoryBatchWriter;
+import org.openelisglobal.history.service.HistoryJournal;
 import org.openelisglobal.history.service.HistoryService;
 import org.openelisglobal.referencetables.service.ReferenceTablesService;
 import org.openelisglobal.referencetables.valueholder.ReferenceTables;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Component
 @Transactional
@@ -45,6 +51,14 @@ public class AuditTrailServiceImpl implements AuditTrailService {
     private ReferenceTablesService referenceTablesService;
     @Autowired
     private HistoryService historyService;
+    @Autowired
+    private HistoryJournal historyJournal;
+    @Autowired
+    private HistoryBatchWriter historyBatchWriter;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final Object PENDING_HISTORY_KEY = new Object();
 
     // For an insert log the id, sys_user_id, ref id, reftable, timestamp, activity
     // (='I'). The change column would be blank, since the
@@ -145,9 +159,9 @@ public class AuditTrailServiceImpl implements AuditTrailService {
         }
 
         try {
-            String xml = getChanges(newObject, existingObject, tableName);
+            byte[] changes = getChanges(newObject, existingObject, tableName);
 
-            if ((xml != null) && (xml.length() > 0)) {
+            if (changes != null) {
                 History hist = new History();
 
                 String referenceId = null;
@@ -159,8 +173,7 @@ public class AuditTrailServiceImpl implements AuditTrailService {
                 hist.setReferenceId(referenceId);
                 hist.setSysUserId(sysUserId);
 
-                byte[] bytes = xml.getBytes();
-                hist.setChanges(bytes);
+                hist.setChanges(changes);
 
 //                Method m3 = existingObject.getClass().getMethod("getLastupdated", new Class[0]);
                 // java.sql.Timestamp ts = (java.sql.Timestamp)m3.invoke(existingObject,
@@ -181,52 +194,6 @@ public class AuditTrailServiceImpl implements AuditTrailService {
         }
     }
 
-    /**
-     * Returns an array of all fields used by this object from it's class and all
-     * superclasses.
-     *
-     * @param objectClass the class
-     * @param fields      the current field list
-     * @return an array of fields
-     */
-    private Field[] getAllFields(Class objectClass, Field[] fields) {
-
-        Field[] newFields = objectClass.getDeclaredFields();
-
-        int fieldsSize = 0;
-        int newFieldsSize = 0;
-
-        if (fields != null) {
-            fieldsSize = fields.length;
-        }
-
-        if (newFields != null) {
-            newFieldsSize = newFields.length;
-        }
-
-        Field[] totalFields = new Field[fieldsSize + newFieldsSize];
-
-        if (fieldsSize > 0) {
-            System.arraycopy(fields, 0, totalFields, 0, fieldsSize);
-        }
-
-        if (newFieldsSize > 0) {
-            System.arraycopy(newFields, 0, totalFields, fieldsSize, newFieldsSize);
-        }
-
-        Class superClass = objectClass.getSuperclass();
-
-        Field[] finalFieldsArray;
-
-        if (superClass != null && !superClass.equals(Object.class)) {
-            finalFieldsArray = getAllFields(superClass, totalFields);
-        } else {
-            finalFieldsArray = totalFields;
-        }
-
-        return finalFieldsArray;
-    }
-
     /**
      * Logs changes to persistent data
      *
@@ -234,982 +201,18 @@ public class AuditTrailServiceImpl implements AuditTrailService {
      * @param existingObject the existing object in the database. Used only for
      *                       updates
      * @param tableName      the name of the table being logged.
-     * @throws IllegalArgumentException
-     * @throws IllegalAccessException
-     * @throws InvocationTargetException
-     */
-    private String getChanges(BaseObject newObject, BaseObject existingObject, String tableName) {
-
-        // bugzilla 1857
-        Vector<Object> optionList = new Vector<>();
-        Class objectClass = existingObject.getClass();
-        // get an array of all fields in the class including those in superclasses if
-        // this is a subclass.
-        Field[] fields = getAllFields(objectClass, null);
-
-        // Iterate through all the fields in the object
-        fieldIteration: for (int ii = 0; ii < fields.length; ii++) {
-
-            // make private fields accessible so we can access their values.
-            // This is discouraged as it can introduce security vulnerabilities so care
-            // should be taken in this section of the code to not do anything other than
-            // read from this field so it can be saved in the audit log
-            fields[ii].setAccessible(true);
-
-            // if the current field is static, transient or final then don't log it as
-            // these modifiers are v.unlikely to be part of the data model.
-            if (Modifier.isTransient(fields[ii].getModifiers()) || Modifier.isFinal(fields[ii].getModifiers())
-                    || Modifier.isStatic(fields[ii].getModifiers())) {
-                continue fieldIteration;
-            }
-
-            String fieldName = fields[ii].getName();
-            if ((!fieldName.equals("id"))
-                    // bugzilla 2574
-                    // && (!fieldName.equals("lastupdated"))
-                    && (!fieldName.equals("sysUserId")) && (!fieldName.equals("systemUser"))
-                    && (!fieldName.equals("originalLastupdated"))) {
-                // bugzilla 2578
-                // && (!fieldName.equals("collectionDateForDisplay"))
-                // && (!fieldName.equals("collectionTimeForDisplay")) ) {
-                Class interfaces[] = fields[ii].getType().getInterfaces();
-                for (int i = 0; i < interfaces.length;) {
-                    if (interfaces[i].equals(java.util.Collection.class)) {
-                        continue fieldIteration;
-                    }
-                    i++;
-                }
-
-                String propertyNewState;
-                String propertyPreUpdateState;
-
-                // get new field values
-                try {
-                    if (newObject != null) {
-                        Object objPropNewState = fields[ii].get(newObject);
-                        if (objPropNewState != null) {
-                            propertyNewState = objPropNewState.toString();
-                        } else {
-                            propertyNewState = "";
-                        }
-                    } else {
-                        propertyNewState = "";
-                    }
-                } catch (IllegalAccessException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    LogEvent.logDebug(e);
-                    propertyNewState = "";
-                }
-
-                try {
-                    Object objPreUpdateState = fields[ii].get(existingObject);
-                    if (objPreUpdateState != null) {
-                        propertyPreUpdateState = objPreUpdateState.toString();
-                    } else {
-                        propertyPreUpdateState = "";
-                    }
-                } catch (IllegalArgumentException e) {
-                    propertyPreUpdateState = "";
-                } catch (IllegalAccessException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    LogEvent.logDebug(e);
-                    propertyPreUpdateState = "";
-                }
-
-                // bugzilla 2134 fixed the analysis_qaevent completed date problem
-                // bugzilla 2122 fixed the sample collection date problem
-                if (fieldName.equals("qaEvent") || fieldName.equals("sample")) {
-                    LabelValuePair lvb = processLabelValueFixes(fieldName, propertyPreUpdateState, existingObject,
-                            newObject);
-                    if (lvb != null) {
-                        String label = lvb.getLabel();
-                        String value = lvb.getValue();
-                        optionList.add(new LabelValuePair(label, value));
-                    }
-                } else {
-                    // Ignore the parent class if any, only compare the current level
-                    if (propertyNewState.startsWith("{org.openelisglobal")) {
-                        propertyNewState = propertyPreUpdateState;
-                    }
-                    if (propertyPreUpdateState.startsWith("{org.openelisglobal")) {
-                        propertyPreUpdateState = propertyNewState;
-                    }
-
-                    // LogEvent.logInfo("AuditTrailDAOImpl","getChanges","TABLE NAME: " +
-                    // tableName);
-                    // LogEvent.logInfo("AuditTrailDAOImpl","getChanges","FIELD NAME: " +
-                    // fieldName);
-                    // LogEvent.logInfo("AuditTrailDAOImpl","getChanges","PRE UPDATE: " +
-                    // propertyPreUpdateState);
-                    // LogEvent.logInfo("AuditTrailDAOImpl","getChanges","NEW UPDATE: " +
-                    // propertyNewState);
-                    // LogEvent.logInfo("","","\n");
-
-                    // Now we have the two property values - compare them
-                    if (propertyNewState.equals(propertyPreUpdateState)) {
-                        continue; // Values haven't changed so loop to next property
-                    } else {
-                        LabelValuePair lvb = processLabelValue(fieldName, propertyPreUpdateState, existingObject,
-                                newObject);
-                        if (lvb != null) {
-                            optionList.add(new LabelValuePair(lvb.getLabel(), lvb.getValue()));
-                        }
-                    }
-                }
-            }
-        }
-
-        String xml = null;
-        if (optionList.size() > 0) {
-            xml = getXMLFormat(optionList);
-        }
-
-        return xml;
-    }
-
-    /**
-     * Process and compare the child value objects using java reflection
-     *
-     * @param fieldName              the method name
-     * @param propertyPreUpdateState the previous value
-     * @param existingObject         the old data object
-     * @param newObject              the new data object
-     * @return a label value object bugzilla 2134 fixed the analysis_qaevent
-     *         completed date problem bugzilla 2122 fixed the sample collection_date
-     *         problem
-     */
-    private LabelValuePair processLabelValueFixes(String fieldName, String propertyPreUpdateState,
-            Object existingObject, Object newObject) {
-        LabelValuePair lvb = null;
-        Method m1;
-        Method m2;
-        Object o1 = null;
-        Object o2 = null;
-
-        try {
-            if (fieldName.equals("qaEvent")) {
-                fieldName = "completedDate";
-                m1 = existingObject.getClass().getMethod("getCompletedDate", new Class[0]);
-                o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                m2 = newObject.getClass().getMethod("getCompletedDate", new Class[0]);
-                o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-            }
-            if (fieldName.equals("sample")) {
-                fieldName = "collectionDate";
-                try {
-                    m1 = existingObject.getClass().getMethod("getCollectionDate", new Class[0]);
-                    o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    m2 = newObject.getClass().getMethod("getCollectionDate", new Class[0]);
-                    o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-                } catch (NoSuchMethodException e) {
-                    LogEvent.logInfo(this.getClass().getName(), "processLabelValueFixes",
-                            "ignoring NoSuchMethodException getCollectionDate() for object of type: "
-                                    + existingObject.getClass().getName());
-                    // ignore for SampleItem (which does not have getCollectionDate method
-                }
-            }
-
-            String oldID = "";
-            String newID = "";
-            if (o1 != null) {
-                oldID = o1.toString();
-            }
-
-            if (o2 != null) {
-                newID = o2.toString();
-            }
-
-            if (oldID.compareTo(newID) == 0) {
-                fieldName = null;
-                propertyPreUpdateState = null;
-            } else {
-                propertyPreUpdateState = newID;
-            }
-
-        } catch (NoSuchMethodException | IllegalAccessException | IllegalArgumentException
-                | InvocationTargetException e) {
-            // buzilla 2154
-            LogEvent.logError(e.toString(), e);
-            throw new LIMSRuntimeException("Error in AuditTrail processLabelValueFixes()", e);
-        }
-
-        if (((fieldName != null) && (fieldName.length() > 0))
-                && ((propertyPreUpdateState != null) && (propertyPreUpdateState.length() > 0))) {
-            if (propertyPreUpdateState.equals("{null}") || propertyPreUpdateState.equals("null")) {
-                lvb = new LabelValuePair();
-                lvb.setLabel(fieldName);
-                lvb.setValue("");
-            } else {
-                lvb = new LabelValuePair();
-                lvb.setLabel(fieldName);
-                lvb.setValue(propertyPreUpdateState);
-            }
-        }
-
-        return lvb;
-    }
-
-    /**
-     * Process and compare the child value objects using java reflection
-     *
-     * @param fieldName              the method name
-     * @param propertyPreUpdateState the previous value
-     * @param existingObject         the old data object
-     * @param newObject              the new data object
-     * @return a label value object
-     */
-    private LabelValuePair processLabelValue(String fieldName, String propertyPreUpdateState, Object existingObject,
-            Object newObject) {
-
-        LabelValuePair lvb = null;
-        if (propertyPreUpdateState.startsWith("{org.openelisglobal")) {
-            if (fieldName.equals("test")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getTest", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getTest", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("testSection")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getTestSection", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getTestSection", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | IllegalArgumentException
-                        | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("county")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getCounty", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getCounty", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (RuntimeException | NoSuchMethodException | IllegalAccessException
-                        | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("region")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getRegion", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getRegion", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException
-                        | SecurityException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("scriptlet")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getScriptlet", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getScriptlet", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (RuntimeException | NoSuchMethodException | IllegalAccessException
-                        | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("organization")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getOrganization", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getOrganization", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("panel")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getPanel", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getPanel", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("person")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getPerson", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getPerson", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("testResult")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getTestResult", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getTestResult", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("analysis")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getAnalysis", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getAnalysis", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (RuntimeException | NoSuchMethodException | IllegalAccessException
-                        | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("analyte")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getAnalyte", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getAnalyte", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("sampleItem")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getSampleItem", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getSampleItem", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("parentAnalysis")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getParentAnalysis", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getParentAnalysis", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("parentResult")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getParentResult", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getParentResult", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("sample")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getSample", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getSample", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("method")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getMethod", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getMethod", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("testTrailer")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getTestTrailer", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getTestTrailer", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("unitOfMeasure")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getUnitOfMeasure", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getUnitOfMeasure", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("testAnalyte")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getTestAnalyte", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getTestAnalyte", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("label")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getLabel", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getLabel", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("city")) {
-                try {
-                    Method m1 = existingObject.getClass().getMethod("getCity", new Class[0]);
-                    Object o1 = m1.invoke(existingObject, (Object[]) new Class[0]);
-
-                    Method m2 = newObject.getClass().getMethod("getCity", new Class[0]);
-                    Object o2 = m2.invoke(newObject, (Object[]) new Class[0]);
-
-                    String oldID = "";
-                    String newID = "";
-                    if (o1 != null) {
-                        Method m11 = o1.getClass().getMethod("getStringId", new Class[0]);
-                        oldID = (String) m11.invoke(o1, (Object[]) new Class[0]);
-                    }
-
-                    if (o2 != null) {
-                        Method m22 = o2.getClass().getMethod("getStringId", new Class[0]);
-                        newID = (String) m22.invoke(o2, (Object[]) new Class[0]);
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            } else if (fieldName.equals("addedTest")) {
-                // testreflex
-                try {
-                    org.openelisglobal.testreflex.valueholder.TestReflex data = (org.openelisglobal.testreflex.valueholder.TestReflex) existingObject;
-
-                    org.openelisglobal.testreflex.valueholder.TestReflex data2 = (org.openelisglobal.testreflex.valueholder.TestReflex) newObject;
-
-                    String oldID = "";
-                    String newID = "";
-                    if ((data.getAddedTest().getId() != null)) {
-                        oldID = data.getAddedTest().getId();
-                    }
-
-                    if ((data2.getAddedTest().getId() != null)) {
-                        newID = data2.getAddedTest().getId();
-                    }
-
-                    if (oldID.compareTo(newID) == 0) {
-                        fieldName = null;
-                        propertyPreUpdateState = null;
-                    } else {
-                        propertyPreUpdateState = oldID;
-                    }
-
-                } catch (RuntimeException e) {
-                    // buzilla 2154
-                    LogEvent.logError(e.toString(), e);
-                    throw new LIMSRuntimeException("Error in AuditTrail processLabelValue()", e);
-                }
-            }
-        }
-
-        if (((fieldName != null) && (fieldName.length() > 0)) &&
-        // bugzilla 2578 (blank to filled in collection date does not appear in history
-                ((propertyPreUpdateState != null))) {
-            if (propertyPreUpdateState.equals("{null}") || propertyPreUpdateState.equals("null")) {
-                lvb = new LabelValuePair();
-                lvb.setLabel(fieldName);
-                lvb.setValue("");
-            } else {
-                lvb = new LabelValuePair();
-                lvb.setLabel(fieldName);
-                lvb.setValue(propertyPreUpdateState);
-            }
-        }
-
-        return lvb;
-    }
-
-    /**
-     * Convert to xml format
-     *
-     * @param list the list to be converted
-     * @return xml string
      */
-    private String getXMLFormat(Vector list) {
-        StringBuilder xml = new StringBuilder();
-
-        for (int i = 0; i < list.size(); i++) {
-            LabelValuePair lvp = (LabelValuePair) list.elementAt(i);
-            XMLUtil.appendKeyValue(lvp.getLabel(), lvp.getValue(), xml);
-            xml.append("\n");
+    private byte[] getChanges(BaseObject newObject, BaseObject existingObject, String tableName) {
+        // the audited fields of each class are worked out once, see AuditDiffPlan
+        List<LabelValuePair> changes = AuditDiffPlan.forClass(existingObject.getClass()).diff(newObject,
+                existingObject);
+
+        byte[] encoded = null;
+        if (changes.size() > 0) {
+            encoded = HistoryChanges.encode(changes);
         }
 
-        return xml.toString();
+        return encoded;
     }
 
     /**
@@ -1455,22 +458,107 @@ public class AuditTrailServiceImpl implements AuditTrailService {
     // }
 
     /**
-     * Save the object into history table
+     * Save the object into history table. Inside a transaction the history is
+     * collected and journaled when the transaction commits, then written by the
+     * background writer. Without a transaction, or if the journal is unavailable,
+     * it is inserted directly.
      *
      * @param history the history object being saved
      */
     private void insertData(History history) throws LIMSRuntimeException {
-        historyService.insert(history);
-        // try {
-        // String id = (String) sessionFactory.getCurrentSession().save(history);
-        // history.setId(id);
-        // // sessionFactory.getCurrentSession().flush(); // CSL remove old
-        // // sessionFactory.getCurrentSession().clear(); // CSL remove old
-        // } catch (RuntimeException e) {
-        // // buzilla 2154
-        // LogEvent.logError("AuditTrailDAOImpl", "insertData()", e.toString());
-        // throw new LIMSRuntimeException("Error in AuditTrail insertData()", e);
-        // }
+        if (historyBatchWriter.isRunning() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            getTransactionHistory().add(history);
+        } else {
+            historyService.insert(history);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<History> getTransactionHistory() {
+        List<History> pending = (List<History>) TransactionSynchronizationManager.getResource(PENDING_HISTORY_KEY);
+        if (pending == null) {
+            pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(PENDING_HISTORY_KEY, pending);
+            TransactionSynchronizationManager.registerSynchronization(new HistoryJournalSynchronization(pending));
+        }
+        return pending;
+    }
+
+    /**
+     * Journals the history of one transaction before it commits so that a
+     * committed change can never lose its audit record, then hands it to the
+     * background writer once the outcome is known. The transaction also records
+     * itself in history_commit, so the writer never writes history for a change
+     * that did not commit.
+     */
+    private class HistoryJournalSynchronization extends TransactionSynchronizationAdapter {
+
+        private final List<History> pending;
+        private HistoryJournal.Block block;
+
+        HistoryJournalSynchronization(List<History> pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_HISTORY_KEY);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(PENDING_HISTORY_KEY, pending);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                // history is only written after the commit, anything that would stop it being
+                // written has to fail the transaction now
+                long transactionId = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+                    historyBatchWriter.validate(connection, pending);
+                    return historyBatchWriter.recordCommit(connection);
+                });
+                block = historyJournal.append(pending, transactionId);
+            } catch (IOException | RuntimeException e) {
+                LogEvent.logError(e.toString(), e);
+                // if logging failes an exception should be thrown so that INSERT/UPDATE is
+                // rolled back
+                throw new LIMSRuntimeException("Error journaling audit trail", e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_HISTORY_KEY);
+            if (block == null) {
+                return;
+            }
+            if (status == STATUS_UNKNOWN) {
+                // the commit failed part way, whether it happened can only be told from
+                // history_commit once the transaction has finished in the database
+                historyBatchWriter.submitUnresolved(block);
+                return;
+            }
+            try {
+                if (status == STATUS_ROLLED_BACK) {
+                    historyJournal.markRolledBack(block);
+                    return;
+                }
+                historyJournal.markCommitted(block);
+            } catch (IOException e) {
+                // the block is already durable, without a marker it is checked against
+                // history_commit on the next start
+                LogEvent.logError(e.toString(), e);
+                if (status == STATUS_ROLLED_BACK) {
+                    return;
+                }
+            }
+            historyBatchWriter.submit(block);
+        }
     }
 
 }
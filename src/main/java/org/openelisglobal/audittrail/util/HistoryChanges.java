@@ -0,0 +1,248 @@
+package org.openelisglobal.audittrail.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.validator.GenericValidator;
+import org.openelisglobal.common.exception.LIMSRuntimeException;
+import org.openelisglobal.common.util.LabelValuePair;
+import org.openelisglobal.common.util.XMLUtil;
+import org.owasp.encoder.Encode;
+
+/**
+ * The changes column of a history row.
+ *
+ * New rows are written in a compact form: a marker byte, a format version, a
+ * flags byte and then the entries, each a field reference followed by the
+ * UTF-8 value. Field names found in {@link #FIELD_DICTIONARY} are written as
+ * their position in it, other names are written out in full. The entries are
+ * deflated when that makes them smaller. Rows written before this format are
+ * the xml fragments from getXMLFormat and are still read.
+ *
+ * Values are only decoded when asked for, so a view that shows two fields of a
+ * row does not pay for the rest of it.
+ */
+public final class HistoryChanges {
+
+    private static final byte COMPACT_MARKER = 0;
+    private static final byte VERSION_1 = 1;
+    private static final byte FLAG_DEFLATED = 1;
+    private static final int HEADER_LENGTH = 3;
+
+    // append only, the position of a name is what is stored in the history table
+    private static final List<String> FIELD_DICTIONARY = Arrays.asList("lastupdated", "statusId", "status",
+            "value", "accessionNumber", "analysis", "analyte", "testResult", "sortOrder", "isReportable",
+            "resultType", "minNormal", "maxNormal", "significantDigits", "parentResult", "grouping", "test",
+            "testSection", "testName", "testSectionName", "sampleItem", "analysisType", "revision", "startedDate",
+            "completedDate", "enteredDate", "releasedDate", "printedDate", "parentAnalysis", "panel",
+            "triggeredReflex", "referredOut", "collectionDate", "receivedTimestamp", "clientReference", "domain",
+            "referringId", "clinicalOrderId", "isConfirmation", "quantity", "typeOfSample", "typeOfSampleId",
+            "externalId", "collector", "gender", "birthDate", "nationalId", "birthPlace", "person", "lastName",
+            "firstName", "middleName", "streetAddress", "city", "state", "zipCode", "country", "workPhone",
+            "homePhone", "cellPhone", "primaryPhone", "fax", "email", "requesterId", "text", "subject",
+            "noteType", "referenceId", "referenceTableId", "observationHistoryTypeId", "valueType", "patientId",
+            "sampleId", "identityData", "identityTypeId");
+
+    private static final Map<String, Integer> FIELD_CODES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < FIELD_DICTIONARY.size(); i++) {
+            FIELD_CODES.put(FIELD_DICTIONARY.get(i), i + 1);
+        }
+    }
+
+    private final byte[] data;
+
+    // lazily built on the first read
+    private String legacyXml;
+    private byte[] entries;
+    private Map<String, int[]> valuePositions;
+
+    private HistoryChanges(byte[] data) {
+        this.data = data;
+    }
+
+    public static HistoryChanges read(byte[] data) {
+        return new HistoryChanges(data == null ? new byte[0] : data);
+    }
+
+    /**
+     * Encode the changed fields of an object for the history table. As with the
+     * xml form, blank values are left out and values are trimmed.
+     */
+    public static byte[] encode(List<LabelValuePair> changes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * changes.size() + 8);
+        int count = 0;
+        for (LabelValuePair change : changes) {
+            if (!GenericValidator.isBlankOrNull(change.getValue()) && change.getValue().trim().length() > 0) {
+                count++;
+            }
+        }
+        writeVarInt(out, count);
+        for (LabelValuePair change : changes) {
+            if (GenericValidator.isBlankOrNull(change.getValue()) || change.getValue().trim().length() == 0) {
+                continue;
+            }
+            String name = XMLUtil.makeTagName(change.getLabel());
+            Integer code = FIELD_CODES.get(name);
+            if (code == null) {
+                writeVarInt(out, 0);
+                writeString(out, name);
+            } else {
+                writeVarInt(out, code);
+            }
+            writeString(out, change.getValue().trim());
+        }
+        byte[] body = out.toByteArray();
+        byte flags = 0;
+
+        byte[] deflated = deflate(body);
+        if (deflated.length < body.length) {
+            body = deflated;
+            flags |= FLAG_DEFLATED;
+        }
+
+        byte[] encoded = new byte[HEADER_LENGTH + body.length];
+        encoded[0] = COMPACT_MARKER;
+        encoded[1] = VERSION_1;
+        encoded[2] = flags;
+        System.arraycopy(body, 0, encoded, HEADER_LENGTH, body.length);
+        return encoded;
+    }
+
+    /**
+     * @return the previous value of the field as the xml form would have carried
+     *         it, or null if the field did not change
+     */
+    public String get(String field) {
+        if (!isCompact()) {
+            return getLegacy(field);
+        }
+        if (valuePositions == null) {
+            index();
+        }
+        int[] position = valuePositions.get(field);
+        if (position == null) {
+            return null;
+        }
+        return Encode.forXmlContent(new String(entries, position[0], position[1], StandardCharsets.UTF_8));
+    }
+
+    private boolean isCompact() {
+        return data.length >= HEADER_LENGTH && data[0] == COMPACT_MARKER;
+    }
+
+    private String getLegacy(String field) {
+        if (legacyXml == null) {
+            legacyXml = new String(data, StandardCharsets.UTF_8);
+        }
+        String startTag = "<" + field + ">";
+        int begin = legacyXml.indexOf(startTag);
+        if (begin > -1) {
+            begin += startTag.length();
+            int end = legacyXml.indexOf("</" + field + ">");
+
+            return legacyXml.substring(begin, end);
+        }
+        return null;
+    }
+
+    private void index() {
+        if (data[1] != VERSION_1) {
+            throw new LIMSRuntimeException("Unknown history changes format version " + data[1]);
+        }
+        byte[] body = Arrays.copyOfRange(data, HEADER_LENGTH, data.length);
+        entries = (data[2] & FLAG_DEFLATED) != 0 ? inflate(body) : body;
+
+        Map<String, int[]> positions = new HashMap<>();
+        int[] cursor = { 0 };
+        int count = readVarInt(entries, cursor);
+        for (int i = 0; i < count; i++) {
+            int code = readVarInt(entries, cursor);
+            String name;
+            if (code == 0) {
+                int length = readVarInt(entries, cursor);
+                name = new String(entries, cursor[0], length, StandardCharsets.UTF_8);
+                cursor[0] += length;
+            } else {
+                name = FIELD_DICTIONARY.get(code - 1);
+            }
+            int length = readVarInt(entries, cursor);
+            positions.putIfAbsent(name, new int[] { cursor[0], length });
+            cursor[0] += length;
+        }
+        valuePositions = positions;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        Inflater inflater = new Inflater(true);
+        try {
+            // nowrap streams need a trailing dummy byte
+            inflater.setInput(Arrays.copyOf(bytes, bytes.length + 1));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new LIMSRuntimeException("Truncated history changes");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new LIMSRuntimeException("Unreadable history changes", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -241,7 +241,6 @@ public interface IActionConstants {
     String SAMPLE_EDIT_WRITABLE = "SampleEditWritable";
 
     String RESULTS_SESSION_CACHE = "ResultsSessionCache";
-    String RESULTS_PAGE_MAPPING_SESSION_CACHE = "ResultsPageMappingSessionCache";
     int PAGING_SIZE = 60;
 
     /**
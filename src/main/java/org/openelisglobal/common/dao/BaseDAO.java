@@ -16,6 +16,7 @@
 package org.openelisglobal.common.dao;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -35,6 +36,12 @@ public interface BaseDAO<T extends BaseObject<PK>, PK extends Serializable> {
      */
     Optional<T> get(PK id);
 
+    /**
+     * @param ids the ids of the objects to get
+     * @return the objects that exist, in no particular order
+     */
+    List<T> getAllById(Collection<PK> ids);
+
     /**
      * @return all data type for the object type
      */
@@ -267,12 +274,30 @@ public interface BaseDAO<T extends BaseObject<PK>, PK extends Serializable> {
      */
     PK insert(T object);
 
+    /**
+     * Inserts all of the objects before flushing, so the inserts reach the
+     * database as JDBC batches
+     *
+     * @param objects the data to insert
+     * @return the ids of the inserted objects
+     */
+    List<PK> insertAll(List<T> objects);
+
     /**
      * @param object the new data to update the database with.
      * @return the object as it was saved to the database
      */
     T update(T baseObject);
 
+    /**
+     * Updates all of the objects before flushing, so the updates reach the
+     * database as JDBC batches
+     *
+     * @param objects the new data to update the database with
+     * @return the objects as they were saved to the database
+     */
+    List<T> updateAll(List<T> objects);
+
     /**
      * @param object the data to delete from the database. Must have primary key
      *               fields filled in
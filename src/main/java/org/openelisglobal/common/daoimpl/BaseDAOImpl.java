@@ -17,6 +17,7 @@ package org.openelisglobal.common.daoimpl;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +40,8 @@ import javax.persistence.criteria.Root;
 
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.openelisglobal.common.action.IActionConstants;
 import org.openelisglobal.common.dao.BaseDAO;
@@ -67,6 +70,8 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
     protected static final int DEFAULT_PAGE_SIZE = SystemConfiguration.getInstance().getDefaultPageSize();
 
     private final Class<T> classType;
+    // whether classType has a second level cache region, looked up on first use
+    private volatile Boolean cachedEntity;
 
     @PersistenceContext
     protected EntityManager entityManager;
@@ -87,6 +92,22 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<T> getAllById(Collection<PK> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            TypedQuery<T> query = entityManager
+                    .createQuery("from " + getObjectName() + " o where o.id in (:ids)", classType);
+            query.setParameter("ids", ids);
+            return query.getResultList();
+        } catch (HibernateException e) {
+            throw new LIMSRuntimeException("Error in " + this.getClass().getSimpleName() + " " + "getAllById", e);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<T> getAll() {
@@ -191,7 +212,7 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
             }
             this.addOrder(criteriaBuilder, criteriaQuery, root, orderByMap);
 
-            return entityManager.createQuery(criteriaQuery).getResultList();
+            return createQuery(criteriaQuery).getResultList();
 
             // Map<String, String> aliases = new HashMap<>();
             // Session session = entityManager.unwrap(Session.class);
@@ -262,7 +283,7 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
             }
             this.addOrder(criteriaBuilder, criteriaQuery, root, orderByMap);
 
-            return entityManager.createQuery(criteriaQuery).getResultList();
+            return createQuery(criteriaQuery).getResultList();
 
             // Map<String, String> aliases = new HashMap<>();
             // Session session = entityManager.unwrap(Session.class);
@@ -385,7 +406,7 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
             }
             this.addOrder(criteriaBuilder, criteriaQuery, root, orderByMap);
 
-            TypedQuery<T> typedQuery = entityManager.createQuery(criteriaQuery);
+            TypedQuery<T> typedQuery = createQuery(criteriaQuery);
             typedQuery.setFirstResult(startingRecNo - 1);
             typedQuery.setMaxResults(DEFAULT_PAGE_SIZE + 1);
             return typedQuery.getResultList();
@@ -463,7 +484,7 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
             }
             this.addOrder(criteriaBuilder, criteriaQuery, root, orderByMap);
 
-            TypedQuery<T> typedQuery = entityManager.createQuery(criteriaQuery);
+            TypedQuery<T> typedQuery = createQuery(criteriaQuery);
             typedQuery.setFirstResult(startingRecNo - 1);
             typedQuery.setMaxResults(DEFAULT_PAGE_SIZE + 1);
             return typedQuery.getResultList();
@@ -501,6 +522,21 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
         }
     }
 
+    @Override
+    public List<PK> insertAll(List<T> objects) {
+        try {
+            List<PK> ids = new ArrayList<>(objects.size());
+            for (T object : objects) {
+                entityManager.persist(object);
+                ids.add(object.getId());
+            }
+            entityManager.flush();
+            return ids;
+        } catch (HibernateException e) {
+            throw new LIMSRuntimeException("Error in " + this.getClass().getSimpleName() + " " + "insertAll", e);
+        }
+    }
+
     @Override
     public T update(T object) {
         try {
@@ -516,6 +552,20 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
         }
     }
 
+    @Override
+    public List<T> updateAll(List<T> objects) {
+        try {
+            List<T> dbObjects = new ArrayList<>(objects.size());
+            for (T object : objects) {
+                dbObjects.add(entityManager.merge(object));
+            }
+            entityManager.flush();
+            return dbObjects;
+        } catch (HibernateException e) {
+            throw new LIMSRuntimeException("Error in " + this.getClass().getSimpleName() + " " + "updateAll", e);
+        }
+    }
+
     @Override
     public void delete(T object) {
         try {
@@ -616,6 +666,28 @@ public abstract class BaseDAOImpl<T extends BaseObject<PK>, PK extends Serializa
         }
     }
 
+    /**
+     * Queries over entities kept in the second level cache also have their results
+     * cached, they are invalidated when hibernate writes to the table
+     */
+    private TypedQuery<T> createQuery(CriteriaQuery<T> criteriaQuery) {
+        TypedQuery<T> query = entityManager.createQuery(criteriaQuery);
+        if (isCachedEntity()) {
+            query.setHint(QueryHints.HINT_CACHEABLE, true);
+        }
+        return query;
+    }
+
+    private boolean isCachedEntity() {
+        Boolean cached = cachedEntity;
+        if (cached == null) {
+            cached = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getMetamodel()
+                    .entityPersister(classType).canReadFromCache();
+            cachedEntity = cached;
+        }
+        return cached;
+    }
+
     /**
      * @return object name that Hibernate uses
      */
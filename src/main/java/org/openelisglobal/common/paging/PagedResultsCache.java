@@ -0,0 +1,75 @@
+/**
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations under
+ * the License.
+ *
+ * The Original Code is OpenELIS code.
+ *
+ * Copyright (C) CIRG, University of Washington, Seattle WA.  All Rights Reserved.
+ *
+ */
+package org.openelisglobal.common.paging;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * The items of every paged worklist that is open, shared by all sessions. The
+ * cache holds at most {@link #MAX_CACHED_ITEMS} items and drops the least
+ * recently used worklists beyond that, a user whose worklist was dropped gets
+ * an empty page as if the session had timed out. Edits are kept in the
+ * {@link PagingCursor} so they are not lost with it.
+ */
+final class PagedResultsCache {
+
+    private static final int MAX_CACHED_ITEMS = 50000;
+
+    private static final PagedResultsCache INSTANCE = new PagedResultsCache();
+
+    private final LinkedHashMap<String, List<?>> resultsByKey = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedItems = 0;
+
+    private PagedResultsCache() {
+    }
+
+    static PagedResultsCache getInstance() {
+        return INSTANCE;
+    }
+
+    synchronized void put(String key, List<?> items) {
+        remove(key);
+        resultsByKey.put(key, new ArrayList<>(items));
+        cachedItems += items.size();
+
+        Iterator<Entry<String, List<?>>> iterator = resultsByKey.entrySet().iterator();
+        while (cachedItems > MAX_CACHED_ITEMS && iterator.hasNext()) {
+            Entry<String, List<?>> entry = iterator.next();
+            // never drop the worklist that is being loaded
+            if (!entry.getKey().equals(key)) {
+                cachedItems -= entry.getValue().size();
+                iterator.remove();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized <T> List<T> get(String key) {
+        return (List<T>) resultsByKey.get(key);
+    }
+
+    synchronized void remove(String key) {
+        List<?> items = resultsByKey.remove(key);
+        if (items != null) {
+            cachedItems -= items.size();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations under
+ * the License.
+ *
+ * The Original Code is OpenELIS code.
+ *
+ * Copyright (C) CIRG, University of Washington, Seattle WA.  All Rights Reserved.
+ *
+ */
+package org.openelisglobal.common.paging;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import org.openelisglobal.common.util.IdValuePair;
+
+/**
+ * What a user's session keeps of a paged worklist: where each page starts in
+ * the shared {@link PagedResultsCache} entry, the search term to page mapping
+ * and the items the user has edited. The items themselves stay out of the
+ * session.
+ */
+class PagingCursor<T> implements HttpSessionBindingListener, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String resultsKey = UUID.randomUUID().toString();
+    // pageStarts[i] is the index of the first item of page i, the last entry is
+    // the item count
+    private final int[] pageStarts;
+    private final List<IdValuePair> searchTermToPage;
+    private final Map<Integer, T> modifiedItems = new HashMap<>();
+
+    PagingCursor(int[] pageStarts, List<IdValuePair> searchTermToPage) {
+        this.pageStarts = pageStarts;
+        this.searchTermToPage = searchTermToPage;
+    }
+
+    String getResultsKey() {
+        return resultsKey;
+    }
+
+    int getTotalPages() {
+        return pageStarts.length - 1;
+    }
+
+    int getPageStart(int pageIndex) {
+        return pageStarts[pageIndex];
+    }
+
+    int getPageEnd(int pageIndex) {
+        return pageStarts[pageIndex + 1];
+    }
+
+    List<IdValuePair> getSearchTermToPage() {
+        return searchTermToPage;
+    }
+
+    T getModifiedItem(int index) {
+        return modifiedItems.get(index);
+    }
+
+    void setModifiedItem(int index, T item) {
+        modifiedItems.put(index, item);
+    }
+
+    @Override
+    public void valueBound(HttpSessionBindingEvent event) {
+    }
+
+    /**
+     * The session no longer refers to these results, either a new worklist was
+     * loaded or the session ended, so the shared copy can go.
+     */
+    @Override
+    public void valueUnbound(HttpSessionBindingEvent event) {
+        PagedResultsCache.getInstance().remove(resultsKey);
+    }
+}
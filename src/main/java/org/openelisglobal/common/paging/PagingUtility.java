@@ -24,7 +24,12 @@ import javax.servlet.http.HttpSession;
 import org.openelisglobal.common.action.IActionConstants;
 import org.openelisglobal.common.util.IdValuePair;
 
-public class PagingUtility<E> {
+/**
+ * Pages a worklist for a user. The session only holds a {@link PagingCursor},
+ * the items are kept once in the shared {@link PagedResultsCache} and a page is
+ * put together from them and the user's edits when it is asked for.
+ */
+public class PagingUtility<T> {
     private int totalPages = 0;
 
     /**
@@ -32,29 +37,39 @@ public class PagingUtility<E> {
      * @param items   The items which will be divided into pages
      * @param divider The object which knows how to divide the objects into pages
      */
-    public void setDatabaseResults(HttpSession session, E items, IPageDivider<E> divider) {
+    public void setDatabaseResults(HttpSession session, List<T> items, IPageDivider<List<T>> divider) {
 
-        List<E> pagedResults = new ArrayList<>();
+        List<List<T>> pagedResults = new ArrayList<>();
         divider.createPages(items, pagedResults);
-        session.setAttribute(IActionConstants.RESULTS_SESSION_CACHE, pagedResults);
-        List<IdValuePair> searchPageMapping = divider.createSearchToPageMapping(pagedResults);
-        session.setAttribute(IActionConstants.RESULTS_PAGE_MAPPING_SESSION_CACHE, searchPageMapping);
-        totalPages = pagedResults.size();
+
+        List<T> allItems = new ArrayList<>();
+        int[] pageStarts = new int[pagedResults.size() + 1];
+        for (int i = 0; i < pagedResults.size(); i++) {
+            pageStarts[i] = allItems.size();
+            allItems.addAll(pagedResults.get(i));
+        }
+        pageStarts[pagedResults.size()] = allItems.size();
+
+        PagingCursor<T> cursor = new PagingCursor<>(pageStarts, divider.createSearchToPageMapping(pagedResults));
+        PagedResultsCache.getInstance().put(cursor.getResultsKey(), allItems);
+        // replacing an earlier cursor releases its cached items
+        session.setAttribute(IActionConstants.RESULTS_SESSION_CACHE, cursor);
+        totalPages = cursor.getTotalPages();
     }
 
-    @SuppressWarnings("unchecked")
     /*
      * @param page First page is page 1
      *
      * @param session Session for this request
      */
-    public E getPage(int page, HttpSession session) {
-        if (page > 0) {
-            List<E> pagedResults = (List<E>) session.getAttribute(IActionConstants.RESULTS_SESSION_CACHE);
-
-            if (pagedResults != null && pagedResults.size() >= page) {
-                return pagedResults.get(page - 1);
-            }
+    public List<T> getPage(int page, HttpSession session) {
+        PagingCursor<T> cursor = getCursor(session);
+
+        if (page > 0 && cursor != null && cursor.getTotalPages() >= page) {
+            totalPages = cursor.getTotalPages();
+            List<T> pageItems = getPageSlots(cursor, page - 1);
+            // the shared copy was dropped, there is nothing to show
+            return pageItems.contains(null) ? null : pageItems;
         }
 
         return null;
@@ -66,13 +81,15 @@ public class PagingUtility<E> {
      * @param paging      The paging bean, it knows the current page
      * @param updater     The object which knows how to update the cache
      */
-    @SuppressWarnings("unchecked")
-    public void updatePagedResults(HttpSession session, E clientItems, PagingBean paging, IPageUpdater<E> updater) {
-        List<E> pagedResults = (List<E>) session.getAttribute(IActionConstants.RESULTS_SESSION_CACHE);
-
-        if (pagedResults != null) {
-            updateSessionResultCache(pagedResults, clientItems, paging, updater);
-            totalPages = pagedResults.size();
+    public void updatePagedResults(HttpSession session, List<T> clientItems, PagingBean paging,
+            IPageUpdater<List<T>> updater) {
+        PagingCursor<T> cursor = getCursor(session);
+
+        if (cursor != null) {
+            updateModifiedItems(cursor, clientItems, paging, updater);
+            // set again so that a replicated session picks up the edits
+            session.setAttribute(IActionConstants.RESULTS_SESSION_CACHE, cursor);
+            totalPages = cursor.getTotalPages();
         }
     }
 
@@ -82,20 +99,59 @@ public class PagingUtility<E> {
      *                  it into a flat list.
      * @return The flattened list
      */
-    public E getAllResults(HttpSession session, IPageFlattener<E> flattener) {
-        List<E> pagedResults = getAllPages(session);
-        return flattener.flattenPages(pagedResults);
+    public List<T> getAllResults(HttpSession session, IPageFlattener<List<T>> flattener) {
+        List<List<T>> pagedResults = getAllPages(session);
+        return flattener.flattenPages(pagedResults == null ? new ArrayList<>() : pagedResults);
     }
 
-    private void updateSessionResultCache(List<E> pagedResults, E clientTests, PagingBean paging,
-            IPageUpdater<E> updater) {
+    /*
+     * Only the items the updater replaced are kept, as the user's edits to the
+     * shared items
+     */
+    private void updateModifiedItems(PagingCursor<T> cursor, List<T> clientItems, PagingBean paging,
+            IPageUpdater<List<T>> updater) {
 
         int currentPage = Integer.parseInt(paging.getCurrentPage()) - 1;
+        if (currentPage < 0 || currentPage >= cursor.getTotalPages() || clientItems == null) {
+            return;
+        }
+
+        List<T> sessionItems = getPageSlots(cursor, currentPage);
+        List<T> updatedItems = new ArrayList<>(sessionItems);
+
+        updater.updateCache(updatedItems, clientItems);
 
-        E sessionTests = pagedResults.get(currentPage);
+        int pageStart = cursor.getPageStart(currentPage);
+        for (int i = 0; i < sessionItems.size(); i++) {
+            if (updatedItems.get(i) != sessionItems.get(i)) {
+                cursor.setModifiedItem(pageStart + i, updatedItems.get(i));
+            }
+        }
+    }
 
-        updater.updateCache(sessionTests, clientTests);
+    /*
+     * The items of one page, the user's edit of an item if there is one, otherwise
+     * the shared item. Items which are in neither are null
+     */
+    private List<T> getPageSlots(PagingCursor<T> cursor, int pageIndex) {
+        List<T> allItems = PagedResultsCache.getInstance().get(cursor.getResultsKey());
+        List<T> pageItems = new ArrayList<>();
+
+        for (int i = cursor.getPageStart(pageIndex); i < cursor.getPageEnd(pageIndex); i++) {
+            T item = cursor.getModifiedItem(i);
+            if (item == null && allItems != null) {
+                item = allItems.get(i);
+            }
+            pageItems.add(item);
+        }
 
+        return pageItems;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PagingCursor<T> getCursor(HttpSession session) {
+        Object cursor = session.getAttribute(IActionConstants.RESULTS_SESSION_CACHE);
+        return cursor instanceof PagingCursor ? (PagingCursor<T>) cursor : null;
     }
 
     /**
@@ -126,18 +182,27 @@ public class PagingUtility<E> {
 
     /**
      *
-     * @param session The session object which holds the pages
-     * @return The pages as a list
+     * @param session The session object which holds the paging cursor
+     * @return The pages as a list, items no longer cached are left out
      */
-    @SuppressWarnings("unchecked")
-    public List<E> getAllPages(HttpSession session) {
-        return (List<E>) session.getAttribute(IActionConstants.RESULTS_SESSION_CACHE);
+    public List<List<T>> getAllPages(HttpSession session) {
+        PagingCursor<T> cursor = getCursor(session);
+        if (cursor == null) {
+            return null;
+        }
+
+        List<List<T>> pages = new ArrayList<>();
+        for (int i = 0; i < cursor.getTotalPages(); i++) {
+            List<T> page = getPageSlots(cursor, i);
+            page.removeIf(item -> item == null);
+            pages.add(page);
+        }
+        return pages;
     }
 
-    @SuppressWarnings("unchecked")
     public List<IdValuePair> getPageMapping(HttpSession session) {
-        List<IdValuePair> pairList = (List<IdValuePair>) session
-                .getAttribute(IActionConstants.RESULTS_PAGE_MAPPING_SESSION_CACHE);
+        PagingCursor<T> cursor = getCursor(session);
+        List<IdValuePair> pairList = cursor == null ? null : cursor.getSearchTermToPage();
         if (pairList == null) {
             pairList = new ArrayList<>();
         }
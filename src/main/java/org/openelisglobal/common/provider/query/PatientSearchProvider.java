@@ -19,6 +19,7 @@ package org.openelisglobal.common.provider.query;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.List;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -41,6 +42,7 @@ import org.openelisglobal.person.service.PersonService;
 import org.openelisglobal.sample.service.SampleService;
 import org.openelisglobal.sample.valueholder.Sample;
 import org.openelisglobal.samplehuman.service.SampleHumanService;
+import org.openelisglobal.search.service.SearchResultsService;
 import org.openelisglobal.spring.util.SpringContext;
 
 public class PatientSearchProvider extends BaseQueryProvider {
@@ -49,6 +51,7 @@ public class PatientSearchProvider extends BaseQueryProvider {
 
     SampleService sampleService = SpringContext.getBean(SampleService.class);
     SampleHumanService sampleHumanService = SpringContext.getBean(SampleHumanService.class);
+    SearchResultsService searchResultsService = SpringContext.getBean(SearchResultsService.class);
 
     @Override
     public void processRequest(HttpServletRequest request, HttpServletResponse response)
@@ -96,6 +99,17 @@ public class PatientSearchProvider extends BaseQueryProvider {
     }
 
     private PatientSearchResults getSearchResultsForPatient(Patient patient) {
+        // the search index already holds the denormalized patient so one lookup
+        // replaces the per-field service calls
+        List<PatientSearchResults> indexed = searchResultsService.getSearchResults(null, null, null, null, null, null,
+                patient.getId(), null);
+        if (!indexed.isEmpty()) {
+            PatientSearchResults searchResults = indexed.get(0);
+            searchResults.setReferringSitePatientId(SpringContext.getBean(ObservationHistoryService.class)
+                    .getMostRecentValueForPatient(ObservationType.REFERRERS_PATIENT_ID, patient.getId()));
+            return searchResults;
+        }
+
         PatientService patientPatientService = SpringContext.getBean(PatientService.class);
         PersonService personService = SpringContext.getBean(PersonService.class);
         personService.getData(patient.getPerson());
@@ -41,10 +41,11 @@ import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.util.DateUtil;
 import org.openelisglobal.common.util.SystemConfiguration;
 import org.openelisglobal.common.validator.BaseErrors;
+import org.openelisglobal.reports.service.JasperReportService;
+import org.openelisglobal.spring.util.SpringContext;
 import org.springframework.validation.Errors;
 
 import net.sf.jasperreports.engine.JRException;
-import net.sf.jasperreports.engine.JasperRunManager;
 
 /**
  * @author benzd1
@@ -70,7 +71,6 @@ public class MycologyWorksheetProvider extends BaseReportsProvider {
 
         ServletOutputStream servletOutputStream = response.getOutputStream();
 
-        byte[] bytes = null;
         Connection conn = null;
 
         Errors errors = new BaseErrors();
@@ -102,12 +102,9 @@ public class MycologyWorksheetProvider extends BaseReportsProvider {
 
             parameters.put("Param_Received_Date", date);
 
-            bytes = JasperRunManager.runReportToPdf(reportFile.getPath(), parameters, conn);
-
             response.setContentType("application/pdf");
-            response.setContentLength(bytes.length);
-
-            servletOutputStream.write(bytes, 0, bytes.length);
+            SpringContext.getBean(JasperReportService.class).writePdf(reportFile.getPath(), parameters, conn,
+                    servletOutputStream);
             servletOutputStream.flush();
             servletOutputStream.close();
         } catch (JRException e) {
@@ -55,6 +55,7 @@ import org.openelisglobal.person.service.PersonService;
 import org.openelisglobal.person.valueholder.Person;
 import org.openelisglobal.provider.service.ProviderService;
 import org.openelisglobal.provider.valueholder.Provider;
+import org.openelisglobal.reports.service.JasperReportService;
 import org.openelisglobal.reports.valueholder.common.JRHibernateDataSource;
 import org.openelisglobal.reports.valueholder.resultsreport.ResultsReportAnalyteResult;
 import org.openelisglobal.reports.valueholder.resultsreport.ResultsReportAnalyteResultComparator;
@@ -87,8 +88,6 @@ import org.springframework.validation.Errors;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JasperReport;
-import net.sf.jasperreports.engine.JasperRunManager;
-import net.sf.jasperreports.engine.util.JRLoader;
 
 /**
  * @author benzd1 bugzilla 2264 bugzilla 1856 move pending tests to top section
@@ -103,6 +102,7 @@ public class ResultsReportProvider extends BaseReportsProvider {
 
     protected AnalysisService analysisService = SpringContext.getBean(AnalysisService.class);
     protected SampleService sampleService = SpringContext.getBean(SampleService.class);
+    protected JasperReportService jasperReportService = SpringContext.getBean(JasperReportService.class);
     protected ResultService resultService = SpringContext.getBean(ResultService.class);
     protected DictionaryService dictionaryService = SpringContext.getBean(DictionaryService.class);
 
@@ -206,18 +206,18 @@ public class ResultsReportProvider extends BaseReportsProvider {
 
                     // turn subreport jasper files into JasperReport objects to pass in as
                     // parameters
-                    JasperReport providerDetailsReport = (JasperReport) JRLoader
-                            .loadObjectFromFile(providerDetailsReportFile.getPath());
-                    JasperReport projectDetailsReport = (JasperReport) JRLoader
-                            .loadObjectFromFile(projectDetailsReportFile.getPath());
-                    JasperReport sourceTypeDetailsReport = (JasperReport) JRLoader
-                            .loadObjectFromFile(sourceTypeDetailsReportFile.getPath());
-                    JasperReport patientDetailsReport = (JasperReport) JRLoader
-                            .loadObjectFromFile(patientDetailsReportFile.getPath());
-                    JasperReport testResultsReport = (JasperReport) JRLoader
-                            .loadObjectFromFile(testResultsReportFile.getPath());
-                    JasperReport resultValueReport = (JasperReport) JRLoader
-                            .loadObjectFromFile(resultValueReportFile.getPath());
+                    JasperReport providerDetailsReport = jasperReportService
+                            .getReport(providerDetailsReportFile.getPath());
+                    JasperReport projectDetailsReport = jasperReportService
+                            .getReport(projectDetailsReportFile.getPath());
+                    JasperReport sourceTypeDetailsReport = jasperReportService
+                            .getReport(sourceTypeDetailsReportFile.getPath());
+                    JasperReport patientDetailsReport = jasperReportService
+                            .getReport(patientDetailsReportFile.getPath());
+                    JasperReport testResultsReport = jasperReportService
+                            .getReport(testResultsReportFile.getPath());
+                    JasperReport resultValueReport = jasperReportService
+                            .getReport(resultValueReportFile.getPath());
 
                     parameters.put("Provider_Details", providerDetailsReport);
                     parameters.put("Project_Details", projectDetailsReport);
@@ -548,16 +548,11 @@ public class ResultsReportProvider extends BaseReportsProvider {
                     // to generate the report :
 
                     // bugzilla 1900 moved this to here
-                    byte[] bytes = null;
-                    bytes = JasperRunManager.runReportToPdf(mainReportFile.getPath(), parameters, ds);
-
                     // bugzilla 1900 moved this to here to fix java.lang.IllegalStateException:
                     // getOutputStream() has already been called
-                    ServletOutputStream servletOutputStream = response.getOutputStream();
                     response.setContentType("application/pdf");
-                    response.setContentLength(bytes.length);
-
-                    servletOutputStream.write(bytes, 0, bytes.length);
+                    ServletOutputStream servletOutputStream = response.getOutputStream();
+                    jasperReportService.writePdf(mainReportFile.getPath(), parameters, ds, servletOutputStream);
                     servletOutputStream.flush();
                     servletOutputStream.close();
 
@@ -0,0 +1,144 @@
+package org.openelisglobal.common.provider.validation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.openelisglobal.common.exception.LIMSRuntimeException;
+import org.openelisglobal.common.log.LogEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out the incrementing part of accession numbers. Each counter (one per
+ * accession format, prefix and year) lives in the accession_number_counter
+ * table. A node reserves a block of numbers from it at a time and hands those
+ * out from memory, so concurrent requests and other nodes never suggest the
+ * same number and the sample table is only searched once per block.
+ *
+ * When a block is reserved the counter is moved past the largest number
+ * already used in the sample table, so numbers typed in by hand are skipped.
+ * The unused part of a block is given back at shutdown if no other node has
+ * reserved after it.
+ */
+@Component
+public class AccessionNumberAllocator {
+
+    private static final int BLOCK_SIZE = 20;
+
+    private static final String RESERVE_BLOCK = "INSERT INTO clinlims.accession_number_counter (counter_key, last_reserved)"
+            + " VALUES (?, ? + ?) ON CONFLICT (counter_key) DO UPDATE SET last_reserved ="
+            + " greatest(accession_number_counter.last_reserved, ?) + ? RETURNING last_reserved";
+    private static final String RELEASE_BLOCK = "UPDATE clinlims.accession_number_counter SET last_reserved = ?"
+            + " WHERE counter_key = ? AND last_reserved = ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * @param counterKey the counter to take the number from
+     * @param largestUsed the increment of the largest accession number of this
+     *                    counter in use, only asked for when a new block is
+     *                    reserved
+     * @return the next increment, starting from 1
+     */
+    public long next(String counterKey, LongSupplier largestUsed) {
+        Block block = blocks.computeIfAbsent(counterKey, key -> new Block());
+        while (true) {
+            long increment = block.take();
+            if (increment > 0) {
+                return increment;
+            }
+            synchronized (block) {
+                if (block.isExhausted()) {
+                    long end = reserve(counterKey, largestUsed.getAsLong());
+                    block.reset(end - BLOCK_SIZE + 1, end);
+                }
+            }
+        }
+    }
+
+    private long reserve(String counterKey, long largestUsed) {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(RESERVE_BLOCK)) {
+            statement.setString(1, counterKey);
+            statement.setLong(2, largestUsed);
+            statement.setInt(3, BLOCK_SIZE);
+            statement.setLong(4, largestUsed);
+            statement.setInt(5, BLOCK_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        } catch (SQLException e) {
+            LogEvent.logError(e.toString(), e);
+            throw new LIMSRuntimeException("Error in AccessionNumberAllocator reserve()", e);
+        }
+    }
+
+    @PreDestroy
+    public void releaseUnusedNumbers() {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(RELEASE_BLOCK)) {
+            for (Entry<String, Block> entry : blocks.entrySet()) {
+                Range range = entry.getValue().range;
+                long firstUnused = range == null ? 0 : range.next.get();
+                if (range != null && firstUnused <= range.end) {
+                    statement.setLong(1, firstUnused - 1);
+                    statement.setString(2, entry.getKey());
+                    statement.setLong(3, range.end);
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            LogEvent.logError(e.toString(), e);
+        }
+    }
+
+    private static final class Block {
+        private volatile Range range;
+
+        /**
+         * @return the next number of the block or -1 if it is used up
+         */
+        private long take() {
+            Range current = range;
+            if (current == null) {
+                return -1;
+            }
+            long increment = current.next.getAndIncrement();
+            return increment <= current.end ? increment : -1;
+        }
+
+        private boolean isExhausted() {
+            Range current = range;
+            return current == null || current.next.get() > current.end;
+        }
+
+        private void reset(long start, long end) {
+            range = new Range(start, end);
+        }
+    }
+
+    private static final class Range {
+        private final AtomicLong next;
+        private final long end;
+
+        private Range(long start, long end) {
+            next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -18,8 +18,6 @@ package org.openelisglobal.common.provider.validation;
 
 import java.util.Calendar;
 import java.util.GregorianCalendar;
-import java.util.HashSet;
-import java.util.Set;
 
 import org.openelisglobal.common.provider.validation.IAccessionNumberValidator.ValidationResults;
 import org.openelisglobal.common.util.ConfigurationProperties;
@@ -32,6 +30,8 @@ import org.openelisglobal.spring.util.SpringContext;
 public abstract class BaseSiteYearAccessionValidator {
 
     protected SampleService sampleService = SpringContext.getBean(SampleService.class);
+    protected AccessionNumberAllocator accessionNumberAllocator = SpringContext
+            .getBean(AccessionNumberAllocator.class);
 
     protected static final String INCREMENT_STARTING_VALUE = "000001";
     protected static final int UPPER_INC_RANGE = 999999;
@@ -43,7 +43,6 @@ public abstract class BaseSiteYearAccessionValidator {
     protected int INCREMENT_END = getMaxAccessionLength();
     protected int LENGTH = getMaxAccessionLength();
     protected static final boolean NEED_PROGRAM_CODE = false;
-    private static Set<String> REQUESTED_NUMBERS = new HashSet<>();
 
     public boolean needProgramCode() {
         return NEED_PROGRAM_CODE;
@@ -64,30 +63,37 @@ public abstract class BaseSiteYearAccessionValidator {
 
     // input parameter is not used in this case
     public String getNextAvailableAccessionNumber(String nullPrefix) {
-
+        String prefix = getPrefix();
+        String year = DateUtil.getTwoDigitYear();
         String nextAccessionNumber;
 
+        // the allocator hands out each number once, the check only skips numbers
+        // that were entered by hand after the block was reserved
+        do {
+            long increment = accessionNumberAllocator.next("SITEYEARNUM:" + prefix + ":" + year,
+                    () -> getLargestUsedIncrement(year));
+            if (increment > UPPER_INC_RANGE) {
+                throw new IllegalArgumentException("AccessionNumber has no next value");
+            }
+            nextAccessionNumber = prefix + year + String.format("%06d", increment);
+        } while (accessionNumberIsUsed(nextAccessionNumber, null));
+
+        return nextAccessionNumber;
+    }
+
+    private long getLargestUsedIncrement(String year) {
         String curLargestAccessionNumber = sampleService.getLargestAccessionNumberMatchingPattern(
                 ConfigurationProperties.getInstance().getPropertyValue(Property.ACCESSION_NUMBER_PREFIX),
                 getMaxAccessionLength());
-
-        if (curLargestAccessionNumber == null) {
-            if (REQUESTED_NUMBERS.isEmpty()) {
-                nextAccessionNumber = createFirstAccessionNumber(null);
-            } else {
-                nextAccessionNumber = REQUESTED_NUMBERS.iterator().next();
-            }
-        } else {
-            nextAccessionNumber = incrementAccessionNumber(curLargestAccessionNumber);
+        if (curLargestAccessionNumber == null
+                || !year.equals(curLargestAccessionNumber.substring(YEAR_START, YEAR_END))) {
+            return 0;
         }
-
-        while (REQUESTED_NUMBERS.contains(nextAccessionNumber)) {
-            nextAccessionNumber = incrementAccessionNumber(nextAccessionNumber);
+        try {
+            return Long.parseLong(curLargestAccessionNumber.substring(INCREMENT_START));
+        } catch (NumberFormatException e) {
+            return 0;
         }
-
-        REQUESTED_NUMBERS.add(nextAccessionNumber);
-
-        return nextAccessionNumber;
     }
 
     public String incrementAccessionNumber(String currentHighAccessionNumber) throws IllegalArgumentException {
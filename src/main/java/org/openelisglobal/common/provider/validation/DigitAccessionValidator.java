@@ -17,9 +17,6 @@
  */
 package org.openelisglobal.common.provider.validation;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.openelisglobal.internationalization.MessageUtil;
 import org.openelisglobal.sample.service.SampleService;
 import org.openelisglobal.spring.util.SpringContext;
@@ -27,12 +24,13 @@ import org.openelisglobal.spring.util.SpringContext;
 public class DigitAccessionValidator implements IAccessionNumberValidator {
 
     protected SampleService sampleService = SpringContext.getBean(SampleService.class);
+    protected AccessionNumberAllocator accessionNumberAllocator = SpringContext
+            .getBean(AccessionNumberAllocator.class);
 
     private String incrementStartingValue = "0000001";
     private int upperIncRange = 9999999;
     private int maxLength = 7;
     private static final boolean NEED_PROGRAM_CODE = false;
-    private static Set<String> REQUESTED_NUMBERS = new HashSet<>();
     private String format;
 
     public DigitAccessionValidator(int length) {
@@ -115,23 +113,30 @@ public class DigitAccessionValidator implements IAccessionNumberValidator {
     @Override
     public String getNextAvailableAccessionNumber(String prefix) throws IllegalStateException {
         String nextAccessionNumber;
-        String curLargestAccessionNumber = sampleService.getLargestAccessionNumber();
-
-        if (curLargestAccessionNumber == null) {
-            nextAccessionNumber = incrementStartingValue;
-        } else {
-            nextAccessionNumber = incrementAccessionNumber(curLargestAccessionNumber);
 
-            while (REQUESTED_NUMBERS.contains(nextAccessionNumber)) {
-                nextAccessionNumber = incrementAccessionNumber(nextAccessionNumber);
+        do {
+            long increment = accessionNumberAllocator.next("DIGIT", this::getLargestUsedIncrement);
+            if (increment > upperIncRange) {
+                throw new IllegalStateException("AccessionNumber has no next value");
             }
-
-            REQUESTED_NUMBERS.add(nextAccessionNumber);
-        }
+            nextAccessionNumber = String.format(format, increment);
+        } while (accessionNumberIsUsed(nextAccessionNumber, null));
 
         return nextAccessionNumber;
     }
 
+    private long getLargestUsedIncrement() {
+        String curLargestAccessionNumber = sampleService.getLargestAccessionNumber();
+        if (curLargestAccessionNumber == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(curLargestAccessionNumber);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     @Override
     public int getMaxAccessionLength() {
         return maxLength;
@@ -44,6 +44,8 @@ public class ProgramAccessionValidator implements IAccessionNumberValidator {
 
     protected SampleService sampleService = SpringContext.getBean(SampleService.class);
     protected ProjectService projectService = SpringContext.getBean(ProjectService.class);
+    protected AccessionNumberAllocator accessionNumberAllocator = SpringContext
+            .getBean(AccessionNumberAllocator.class);
     protected static ObservationHistoryService observationHistoryService = SpringContext
             .getBean(ObservationHistoryService.class);
 
@@ -149,17 +151,30 @@ public class ProgramAccessionValidator implements IAccessionNumberValidator {
 
     @Override
     public String getNextAvailableAccessionNumber(String prefix) {
-        String nextAccessionNumber = null;
+        String nextAccessionNumber;
 
-        String curLargestAccessionNumber = sampleService.getLargestAccessionNumberWithPrefix(prefix);
+        do {
+            long increment = accessionNumberAllocator.next("PROGRAMNUM:" + prefix.toUpperCase(),
+                    () -> getLargestUsedIncrement(prefix));
+            if (increment > UPPER_INC_RANGE) {
+                throw new IllegalArgumentException("AccessionNumber has no next value");
+            }
+            nextAccessionNumber = prefix + String.format("%05d", increment);
+        } while (accessionNumberIsUsed(nextAccessionNumber, null));
+
+        return nextAccessionNumber;
+    }
 
+    private long getLargestUsedIncrement(String prefix) {
+        String curLargestAccessionNumber = sampleService.getLargestAccessionNumberWithPrefix(prefix);
         if (curLargestAccessionNumber == null) {
-            nextAccessionNumber = createFirstAccessionNumber(prefix);
-        } else {
-            nextAccessionNumber = incrementAccessionNumber(curLargestAccessionNumber);
+            return 0;
+        }
+        try {
+            return Long.parseLong(curLargestAccessionNumber.substring(INCREMENT_START));
+        } catch (NumberFormatException e) {
+            return 0;
         }
-
-        return nextAccessionNumber;
     }
 
     @Override
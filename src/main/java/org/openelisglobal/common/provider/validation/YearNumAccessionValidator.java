@@ -17,9 +17,6 @@
  */
 package org.openelisglobal.common.provider.validation;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.openelisglobal.common.util.DateUtil;
 import org.openelisglobal.internationalization.MessageUtil;
 import org.openelisglobal.sample.service.SampleService;
@@ -28,6 +25,8 @@ import org.openelisglobal.spring.util.SpringContext;
 public class YearNumAccessionValidator implements IAccessionNumberValidator {
 
     protected SampleService sampleService = SpringContext.getBean(SampleService.class);
+    protected AccessionNumberAllocator accessionNumberAllocator = SpringContext
+            .getBean(AccessionNumberAllocator.class);
 
     private String incrementStartingValue = "000001";
     private static int upperIncrementValue = 999999;
@@ -36,7 +35,6 @@ public class YearNumAccessionValidator implements IAccessionNumberValidator {
     private static final int YEAR_END = 2;
     private int acccessionLength = 8;
     private static final boolean NEED_PROGRAM_CODE = false;
-    private static Set<String> REQUESTED_NUMBERS = new HashSet<>();
     private final boolean useSeparator;
     private final String separator;
     private final int separatorLength;
@@ -125,29 +123,32 @@ public class YearNumAccessionValidator implements IAccessionNumberValidator {
 
     @Override
     public String getNextAvailableAccessionNumber(String prefix) {
+        String year = DateUtil.getTwoDigitYear();
         String nextAccessionNumber;
 
-        String curLargestAccessionNumber = sampleService.getLargestAccessionNumberWithPrefix(prefix);
-
-        if (curLargestAccessionNumber == null) {
-            if (REQUESTED_NUMBERS.isEmpty()) {
-                nextAccessionNumber = createFirstAccessionNumber(prefix);
-            } else {
-                nextAccessionNumber = REQUESTED_NUMBERS.iterator().next();
+        do {
+            long increment = accessionNumberAllocator.next("YEARNUM:" + year, () -> getLargestUsedIncrement(year));
+            if (increment > upperIncrementValue) {
+                throw new IllegalArgumentException("AccessionNumber has no next value");
             }
-        } else {
-            nextAccessionNumber = incrementAccessionNumber(curLargestAccessionNumber);
-        }
-
-        while (REQUESTED_NUMBERS.contains(nextAccessionNumber)) {
-            nextAccessionNumber = incrementAccessionNumber(nextAccessionNumber);
-        }
-
-        REQUESTED_NUMBERS.add(nextAccessionNumber);
+            nextAccessionNumber = year + separator + String.format(incrementFormat, increment);
+        } while (accessionNumberIsUsed(nextAccessionNumber, null));
 
         return nextAccessionNumber;
     }
 
+    private long getLargestUsedIncrement(String year) {
+        String curLargestAccessionNumber = sampleService.getLargestAccessionNumberWithPrefix(year + separator);
+        if (curLargestAccessionNumber == null || curLargestAccessionNumber.length() != acccessionLength) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(curLargestAccessionNumber.substring(INCREMENT_START + separatorLength));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     @Override
     public int getMaxAccessionLength() {
         return acccessionLength;
@@ -210,6 +210,16 @@ public interface BaseObjectService<T extends BaseObject<PK>, PK extends Serializ
      */
     List<PK> insertAll(List<T> baseObjects);
 
+    /**
+     * Inserts the objects with one flush and writes their audit trail in the same
+     * transaction. Unlike {@link #insertAll(List)} this does not go through
+     * {@link #insert(BaseObject)}, so checks a service adds there are not made.
+     *
+     * @param baseObjects the data to insert
+     * @return the ids of the inserted baseObjects
+     */
+    List<PK> batchInsert(List<T> baseObjects);
+
     /**
      * @param baseObject the new data to update the database with. Will insert if it
      *                   doesn't already exist
@@ -238,6 +248,17 @@ public interface BaseObjectService<T extends BaseObject<PK>, PK extends Serializ
      */
     List<T> updateAll(List<T> baseObjects);
 
+    /**
+     * Updates the objects with one flush, reading the existing rows for the audit
+     * trail in one query. Unlike {@link #updateAll(List)} this does not go through
+     * {@link #update(BaseObject)}, so checks a service adds there are not made.
+     *
+     * @param baseObjects the new data to update the database with. Must have an id
+     *                    parameter
+     * @return the baseObjects as they were saved to the database
+     */
+    List<T> batchUpdate(List<T> baseObjects);
+
     /**
      * @param baseObject the data to delete from the database. Must have primary key
      *                   fields filled in
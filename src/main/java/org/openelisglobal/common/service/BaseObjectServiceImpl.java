@@ -201,6 +201,19 @@ public abstract class BaseObjectServiceImpl<T extends BaseObject<PK>, PK extends
         return ids;
     }
 
+    @Override
+    @Transactional
+    public List<PK> batchInsert(List<T> baseObjects) {
+        List<PK> ids = getBaseObjectDAO().insertAll(baseObjects);
+        if (auditTrailLog) {
+            String tableName = getBaseObjectDAO().getTableName();
+            for (T baseObject : baseObjects) {
+                auditTrailDAO.saveNewHistory(baseObject, baseObject.getSysUserId(), tableName);
+            }
+        }
+        return ids;
+    }
+
     @Override
     @Transactional
     public T save(T baseObject) {
@@ -250,6 +263,35 @@ public abstract class BaseObjectServiceImpl<T extends BaseObject<PK>, PK extends
         return resultObjects;
     }
 
+    @Override
+    @Transactional
+    public List<T> batchUpdate(List<T> baseObjects) {
+        if (baseObjects.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<PK> ids = new ArrayList<>(baseObjects.size());
+        for (T baseObject : baseObjects) {
+            ids.add(baseObject.getId());
+        }
+        Map<PK, T> oldObjects = new HashMap<>();
+        for (T oldObject : getBaseObjectDAO().getAllById(ids)) {
+            oldObjects.put(oldObject.getId(), oldObject);
+        }
+
+        String tableName = getBaseObjectDAO().getTableName();
+        for (T baseObject : baseObjects) {
+            T oldObject = oldObjects.get(baseObject.getId());
+            if (oldObject == null) {
+                throw new ObjectNotFoundException(baseObject.getId(), classType.getName());
+            }
+            if (auditTrailLog) {
+                auditTrailDAO.saveHistory(baseObject, oldObject, baseObject.getSysUserId(),
+                        IActionConstants.AUDIT_TRAIL_UPDATE, tableName);
+            }
+        }
+        return getBaseObjectDAO().updateAll(baseObjects);
+    }
+
     // used for "deleting" an object but operation is actually an update
     protected void updateDelete(T baseObject) {
         update(baseObject, IActionConstants.AUDIT_TRAIL_DELETE);
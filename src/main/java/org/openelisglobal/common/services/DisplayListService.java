@@ -19,13 +19,18 @@ package org.openelisglobal.common.services;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.commons.validator.GenericValidator;
+import org.openelisglobal.common.util.ConfigurationChangeListener;
 import org.openelisglobal.common.util.ConfigurationProperties;
 import org.openelisglobal.common.util.ConfigurationProperties.Property;
 import org.openelisglobal.common.util.IdValuePair;
@@ -58,10 +63,11 @@ import org.openelisglobal.typeoftestresult.valueholder.TypeOfTestResult;
 import org.openelisglobal.unitofmeasure.service.UnitOfMeasureService;
 import org.openelisglobal.unitofmeasure.valueholder.UnitOfMeasure;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
 
 @Service
-public class DisplayListService implements LocaleChangeListener {
+public class DisplayListService implements LocaleChangeListener, ConfigurationChangeListener {
 
     private static DisplayListService instance;
 
@@ -76,8 +82,27 @@ public class DisplayListService implements LocaleChangeListener {
         SEVERITY_RECURRENCE_LIST, ACTION_TYPE_LIST, LABORATORY_COMPONENT
     }
 
-    private static Map<ListType, List<IdValuePair>> typeToListMap;
-    private static Map<String, List<IdValuePair>> dictionaryToListMap = new HashMap<>();
+    /**
+     * Lists whose values are translated. These are kept per locale and built the
+     * first time they are asked for in that locale.
+     */
+    private static final Set<ListType> LOCALIZED_LISTS = Collections.unmodifiableSet(EnumSet.of(
+            ListType.SAMPLE_TYPE, ListType.SAMPLE_TYPE_ACTIVE, ListType.SAMPLE_TYPE_INACTIVE,
+            ListType.INITIAL_SAMPLE_CONDITION, ListType.PATIENT_HEALTH_REGIONS, ListType.PATIENT_MARITAL_STATUS,
+            ListType.PATIENT_NATIONALITY, ListType.PATIENT_EDUCATION, ListType.GENDERS, ListType.QA_EVENTS,
+            ListType.TEST_SECTION, ListType.TEST_SECTION_INACTIVE, ListType.TEST_SECTION_BY_NAME,
+            ListType.SAMPLE_PATIENT_PAYMENT_OPTIONS, ListType.PATIENT_SEARCH_CRITERIA, ListType.PANELS,
+            ListType.PANELS_ACTIVE, ListType.PANELS_INACTIVE, ListType.ORDERABLE_TESTS, ListType.ALL_TESTS,
+            ListType.REJECTION_REASONS, ListType.REFERRAL_REASONS, ListType.TEST_LOCATION_CODE, ListType.PROGRAM,
+            ListType.RESULT_TYPE_LOCALIZED, ListType.UNIT_OF_MEASURE, ListType.UNIT_OF_MEASURE_ACTIVE,
+            ListType.UNIT_OF_MEASURE_INACTIVE, ListType.DICTIONARY_TEST_RESULTS, ListType.SEVERITY_CONSEQUENCES_LIST,
+            ListType.SEVERITY_RECURRENCE_LIST, ListType.ACTION_TYPE_LIST, ListType.LABORATORY_COMPONENT));
+
+    private static final Map<ListType, List<IdValuePair>> typeToListMap = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Locale, Map<ListType, List<IdValuePair>>> localeToListMap =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Locale, Map<String, List<IdValuePair>>> localeToDictionaryListMap =
+            new ConcurrentHashMap<>();
 
     @Autowired
     private TypeOfSampleService typeOfSampleService;
@@ -109,53 +134,15 @@ public class DisplayListService implements LocaleChangeListener {
 
     @PostConstruct
     private void setupGlobalVariables() {
-        typeToListMap = new HashMap<>();
         typeToListMap.put(ListType.HOURS, createHourList());
         typeToListMap.put(ListType.MINS, createMinList());
-        typeToListMap.put(ListType.SAMPLE_TYPE, createTypeOfSampleList());
-        typeToListMap.put(ListType.SAMPLE_TYPE_ACTIVE, createSampleTypeList(false));
-        typeToListMap.put(ListType.SAMPLE_TYPE_INACTIVE, createSampleTypeList(true));
-        typeToListMap.put(ListType.INITIAL_SAMPLE_CONDITION,
-                createFromDictionaryCategoryLocalizedSort("specimen reception condition"));
-        typeToListMap.put(ListType.PATIENT_HEALTH_REGIONS, createPatientHealthRegions());
-        typeToListMap.put(ListType.PATIENT_MARITAL_STATUS,
-                createFromDictionaryCategoryLocalizedSort("Marital Status Demographic Information"));
-        typeToListMap.put(ListType.PATIENT_NATIONALITY,
-                createFromDictionaryCategoryLocalizedSort("Nationality Demographic Information"));
-        typeToListMap.put(ListType.PATIENT_EDUCATION,
-                createFromDictionaryCategoryLocalizedSort("Education Level Demographic Information"));
-        typeToListMap.put(ListType.GENDERS, createGenderList());
         typeToListMap.put(ListType.SAMPLE_PATIENT_REFERRING_CLINIC, createReferringClinicList());
-        typeToListMap.put(ListType.QA_EVENTS, createSortedQAEvents());
-        typeToListMap.put(ListType.TEST_SECTION, createTestSectionList());
-        typeToListMap.put(ListType.TEST_SECTION_INACTIVE, createInactiveTestSection());
-        typeToListMap.put(ListType.TEST_SECTION_BY_NAME, createTestSectionByNameList());
         typeToListMap.put(ListType.HAITI_DEPARTMENTS, createAddressDepartmentList());
-        typeToListMap.put(ListType.SAMPLE_PATIENT_PAYMENT_OPTIONS,
-                createFromDictionaryCategoryLocalizedSort("patientPayment"));
-        typeToListMap.put(ListType.PATIENT_SEARCH_CRITERIA, createPatientSearchCriteria());
-        typeToListMap.put(ListType.PANELS, createPanelList());
-        typeToListMap.put(ListType.PANELS_ACTIVE, createPanelList(false));
-        typeToListMap.put(ListType.PANELS_INACTIVE, createPanelList(true));
-        typeToListMap.put(ListType.ORDERABLE_TESTS, createOrderableTestList());
-        typeToListMap.put(ListType.ALL_TESTS, createTestList());
-        typeToListMap.put(ListType.REJECTION_REASONS, createDictionaryListForCategory("resultRejectionReasons"));
-        typeToListMap.put(ListType.REFERRAL_REASONS, createReferralReasonList());
         typeToListMap.put(ListType.REFERRAL_ORGANIZATIONS, createReferralOrganizationList());
-        typeToListMap.put(ListType.TEST_LOCATION_CODE, createDictionaryListForCategory("testLocationCode"));
-        typeToListMap.put(ListType.PROGRAM, createDictionaryListForCategory("programs"));
-        typeToListMap.put(ListType.RESULT_TYPE_LOCALIZED, createLocalizedResultTypeList());
         typeToListMap.put(ListType.RESULT_TYPE_RAW, createRawResultTypeList());
-        typeToListMap.put(ListType.UNIT_OF_MEASURE, createUOMList());
-        typeToListMap.put(ListType.UNIT_OF_MEASURE_ACTIVE, createUOMList());
-        typeToListMap.put(ListType.UNIT_OF_MEASURE_INACTIVE, createUOMList());
-        typeToListMap.put(ListType.DICTIONARY_TEST_RESULTS, createDictionaryTestResults());
-        typeToListMap.put(ListType.SEVERITY_CONSEQUENCES_LIST, createConsequencesList());
-        typeToListMap.put(ListType.SEVERITY_RECURRENCE_LIST, createRecurrenceList());
-        typeToListMap.put(ListType.ACTION_TYPE_LIST, createActionTypeList());
-        typeToListMap.put(ListType.LABORATORY_COMPONENT, createLaboratoryComponentList());
 
         SystemConfiguration.getInstance().addLocalChangeListener(this);
+        ConfigurationProperties.addChangeListener(this);
     }
 
     public static DisplayListService getInstance() {
@@ -180,52 +167,124 @@ public class DisplayListService implements LocaleChangeListener {
         return testResults;
     }
 
+    @Override
+    public void configurationChanged(Set<Property> changedProperties) {
+        // refreshes those lists which are dependent on the changed properties
+        if (changedProperties.contains(Property.QA_SORT_EVENT_LIST)) {
+            dropLocalizedList(ListType.QA_EVENTS);
+        }
+        if (changedProperties.contains(Property.TEST_NAME_AUGMENTED)) {
+            dropLocalizedList(ListType.ORDERABLE_TESTS);
+            dropLocalizedList(ListType.ALL_TESTS);
+        }
+    }
+
     @Override
     public void localeChanged(String locale) {
-        // refreshes those lists which are dependent on local
-        typeToListMap.put(ListType.SAMPLE_TYPE, createTypeOfSampleList());
-        typeToListMap.put(ListType.SAMPLE_TYPE_ACTIVE, createSampleTypeList(false));
-        typeToListMap.put(ListType.SAMPLE_TYPE_INACTIVE, createSampleTypeList(true));
-        typeToListMap.put(ListType.INITIAL_SAMPLE_CONDITION,
-                createFromDictionaryCategoryLocalizedSort("specimen reception condition"));
-        typeToListMap.put(ListType.PATIENT_HEALTH_REGIONS, createPatientHealthRegions());
-        typeToListMap.put(ListType.PATIENT_MARITAL_STATUS,
-                createFromDictionaryCategoryLocalizedSort("Marital Status Demographic Information"));
-        typeToListMap.put(ListType.PATIENT_NATIONALITY,
-                createFromDictionaryCategoryLocalizedSort("Nationality Demographic Information"));
-        typeToListMap.put(ListType.PATIENT_EDUCATION,
-                createFromDictionaryCategoryLocalizedSort("Education Level Demographic Information"));
-        typeToListMap.put(ListType.GENDERS, createGenderList());
-        typeToListMap.put(ListType.QA_EVENTS, createSortedQAEvents());
-        typeToListMap.put(ListType.TEST_SECTION, createTestSectionList());
-        typeToListMap.put(ListType.TEST_SECTION_INACTIVE, createInactiveTestSection());
-        typeToListMap.put(ListType.TEST_SECTION_BY_NAME, createTestSectionByNameList());
-        typeToListMap.put(ListType.SAMPLE_PATIENT_PAYMENT_OPTIONS,
-                createFromDictionaryCategoryLocalizedSort("patientPayment"));
-        typeToListMap.put(ListType.PATIENT_SEARCH_CRITERIA, createPatientSearchCriteria());
-        typeToListMap.put(ListType.PANELS, createPanelList());
-        typeToListMap.put(ListType.PANELS_ACTIVE, createPanelList(false));
-        typeToListMap.put(ListType.PANELS_INACTIVE, createPanelList(true));
-        testService.localeChanged(locale);
-        dictionaryToListMap = new HashMap<>();
-        typeToListMap.put(ListType.REJECTION_REASONS, createDictionaryListForCategory("resultRejectionReasons"));
-        typeToListMap.put(ListType.REFERRAL_REASONS, createReferralReasonList());
-
-        typeToListMap.put(ListType.ORDERABLE_TESTS, createOrderableTestList());
-        typeToListMap.put(ListType.ALL_TESTS, createTestList());
-        typeToListMap.put(ListType.TEST_LOCATION_CODE, createDictionaryListForCategory("testLocationCode"));
-        typeToListMap.put(ListType.PROGRAM, createDictionaryListForCategory("programs"));
-        typeToListMap.put(ListType.RESULT_TYPE_LOCALIZED, createLocalizedResultTypeList());
-        typeToListMap.put(ListType.UNIT_OF_MEASURE, createUOMList());
-        typeToListMap.put(ListType.DICTIONARY_TEST_RESULTS, createDictionaryTestResults());
-        typeToListMap.put(ListType.SEVERITY_CONSEQUENCES_LIST, createConsequencesList());
-        typeToListMap.put(ListType.SEVERITY_RECURRENCE_LIST, createRecurrenceList());
-        typeToListMap.put(ListType.ACTION_TYPE_LIST, createActionTypeList());
-        typeToListMap.put(ListType.LABORATORY_COMPONENT, createLaboratoryComponentList());
+        // the lists of every locale are kept, the lists for the new locale are built
+        // when they are first asked for
     }
 
     public List<IdValuePair> getList(ListType listType) {
-        return typeToListMap.get(listType);
+        if (!LOCALIZED_LISTS.contains(listType)) {
+            return typeToListMap.get(listType);
+        }
+
+        Map<ListType, List<IdValuePair>> listMap = getLocaleLists(LocaleContextHolder.getLocale());
+        List<IdValuePair> list = listMap.get(listType);
+        if (list == null) {
+            // two requests may both build the list, the lists are the same so either
+            // can be kept
+            list = createLocalizedList(listType);
+            listMap.put(listType, list);
+        }
+        return list;
+    }
+
+    private Map<ListType, List<IdValuePair>> getLocaleLists(Locale locale) {
+        Map<ListType, List<IdValuePair>> listMap = localeToListMap.get(locale);
+        if (listMap == null) {
+            localeToListMap.putIfAbsent(locale, new ConcurrentHashMap<>());
+            listMap = localeToListMap.get(locale);
+        }
+        return listMap;
+    }
+
+    private void dropLocalizedList(ListType listType) {
+        for (Map<ListType, List<IdValuePair>> listMap : localeToListMap.values()) {
+            listMap.remove(listType);
+        }
+    }
+
+    private List<IdValuePair> createLocalizedList(ListType listType) {
+        switch (listType) {
+        case SAMPLE_TYPE:
+            return createTypeOfSampleList();
+        case SAMPLE_TYPE_ACTIVE:
+            return createSampleTypeList(false);
+        case SAMPLE_TYPE_INACTIVE:
+            return createSampleTypeList(true);
+        case INITIAL_SAMPLE_CONDITION:
+            return createFromDictionaryCategoryLocalizedSort("specimen reception condition");
+        case PATIENT_HEALTH_REGIONS:
+            return createPatientHealthRegions();
+        case PATIENT_MARITAL_STATUS:
+            return createFromDictionaryCategoryLocalizedSort("Marital Status Demographic Information");
+        case PATIENT_NATIONALITY:
+            return createFromDictionaryCategoryLocalizedSort("Nationality Demographic Information");
+        case PATIENT_EDUCATION:
+            return createFromDictionaryCategoryLocalizedSort("Education Level Demographic Information");
+        case GENDERS:
+            return createGenderList();
+        case QA_EVENTS:
+            return createSortedQAEvents();
+        case TEST_SECTION:
+            return createTestSectionList();
+        case TEST_SECTION_INACTIVE:
+            return createInactiveTestSection();
+        case TEST_SECTION_BY_NAME:
+            return createTestSectionByNameList();
+        case SAMPLE_PATIENT_PAYMENT_OPTIONS:
+            return createFromDictionaryCategoryLocalizedSort("patientPayment");
+        case PATIENT_SEARCH_CRITERIA:
+            return createPatientSearchCriteria();
+        case PANELS:
+            return createPanelList();
+        case PANELS_ACTIVE:
+            return createPanelList(false);
+        case PANELS_INACTIVE:
+            return createPanelList(true);
+        case ORDERABLE_TESTS:
+            return createOrderableTestList();
+        case ALL_TESTS:
+            return createTestList();
+        case REJECTION_REASONS:
+            return createDictionaryListForCategory("resultRejectionReasons");
+        case REFERRAL_REASONS:
+            return createReferralReasonList();
+        case TEST_LOCATION_CODE:
+            return createDictionaryListForCategory("testLocationCode");
+        case PROGRAM:
+            return createDictionaryListForCategory("programs");
+        case RESULT_TYPE_LOCALIZED:
+            return createLocalizedResultTypeList();
+        case UNIT_OF_MEASURE:
+        case UNIT_OF_MEASURE_ACTIVE:
+        case UNIT_OF_MEASURE_INACTIVE:
+            return createUOMList();
+        case DICTIONARY_TEST_RESULTS:
+            return createDictionaryTestResults();
+        case SEVERITY_CONSEQUENCES_LIST:
+            return createConsequencesList();
+        case SEVERITY_RECURRENCE_LIST:
+            return createRecurrenceList();
+        case ACTION_TYPE_LIST:
+            return createActionTypeList();
+        case LABORATORY_COMPONENT:
+            return createLaboratoryComponentList();
+        default:
+            throw new IllegalArgumentException("not a localized list: " + listType);
+        }
     }
 
     public List<IdValuePair> getListWithLeadingBlank(ListType listType) {
@@ -247,6 +306,12 @@ public class DisplayListService implements LocaleChangeListener {
     }
 
     public List<IdValuePair> getDictionaryListByCategory(String category) {
+        Locale locale = LocaleContextHolder.getLocale();
+        Map<String, List<IdValuePair>> dictionaryToListMap = localeToDictionaryListMap.get(locale);
+        if (dictionaryToListMap == null) {
+            localeToDictionaryListMap.putIfAbsent(locale, new ConcurrentHashMap<>());
+            dictionaryToListMap = localeToDictionaryListMap.get(locale);
+        }
         List<IdValuePair> list = dictionaryToListMap.get(category);
         if (list == null) {
             list = createDictionaryListForCategory(category);
@@ -329,7 +394,7 @@ public class DisplayListService implements LocaleChangeListener {
 
     public List<IdValuePair> getFreshList(ListType listType) {
         refreshList(listType);
-        return typeToListMap.get(listType);
+        return getList(listType);
     }
 
     public void refreshList(ListType listType) {
@@ -339,57 +404,28 @@ public class DisplayListService implements LocaleChangeListener {
             typeToListMap.put(ListType.SAMPLE_PATIENT_REFERRING_CLINIC, createReferringClinicList());
             break;
         }
-        case ALL_TESTS: {
-            testService.refreshTestNames();
-            typeToListMap.put(ListType.ALL_TESTS, createTestList());
-            break;
-        }
-        case ORDERABLE_TESTS: {
-            testService.refreshTestNames();
-            typeToListMap.put(ListType.ORDERABLE_TESTS, createOrderableTestList());
-            break;
-        }
-        case SAMPLE_TYPE: {
-            typeToListMap.put(ListType.SAMPLE_TYPE, createTypeOfSampleList());
-            break;
-        }
-        case SAMPLE_TYPE_ACTIVE: {
-            typeToListMap.put(ListType.SAMPLE_TYPE_ACTIVE, createSampleTypeList(false));
-            break;
-        }
-        case SAMPLE_TYPE_INACTIVE: {
-            typeToListMap.put(ListType.SAMPLE_TYPE_INACTIVE, createSampleTypeList(true));
-            break;
-        }
-        case TEST_SECTION: {
-            testSectionService.refreshNames();
-            typeToListMap.put(ListType.TEST_SECTION, createTestSectionList());
-            break;
-        }
-        case TEST_SECTION_INACTIVE: {
-            testSectionService.refreshNames();
-            typeToListMap.put(ListType.TEST_SECTION_INACTIVE, createInactiveTestSection());
+        // the names are kept up to date by the test and test section services as each
+        // one is saved, only the lists built from them are dropped
+        case ALL_TESTS:
+        case ORDERABLE_TESTS:
+        case TEST_SECTION:
+        case TEST_SECTION_INACTIVE:
+        case SAMPLE_TYPE:
+        case SAMPLE_TYPE_ACTIVE:
+        case SAMPLE_TYPE_INACTIVE:
+        case PANELS:
+        case PANELS_ACTIVE:
+        case PANELS_INACTIVE: {
+            dropLocalizedList(listType);
             break;
         }
         case REFERRAL_ORGANIZATIONS: {
             typeToListMap.put(ListType.REFERRAL_ORGANIZATIONS, createReferralOrganizationList());
             break;
         }
-        case PANELS: {
-            typeToListMap.put(ListType.PANELS, createPanelList());
-            break;
-        }
-        case PANELS_ACTIVE: {
-            typeToListMap.put(ListType.PANELS_ACTIVE, createPanelList(false));
-            break;
-        }
-        case PANELS_INACTIVE: {
-            typeToListMap.put(ListType.PANELS_INACTIVE, createPanelList(true));
-            break;
-        }
         case UNIT_OF_MEASURE: {
             unitOfMeasureService.refreshNames();
-            typeToListMap.put(ListType.UNIT_OF_MEASURE, createUnitOfMeasureList());
+            dropLocalizedList(ListType.UNIT_OF_MEASURE);
             break;
         }
         }
@@ -606,18 +642,6 @@ public class DisplayListService implements LocaleChangeListener {
         return testSectionsPairs;
     }
 
-    private List<IdValuePair> createUnitOfMeasureList() {
-        List<IdValuePair> unitOfMeasuresPairs = new ArrayList<>();
-//		List<UnitOfMeasure> unitOfMeasures = unitOfMeasureService.getAllActiveUnitOfMeasures();
-        List<UnitOfMeasure> unitOfMeasures = unitOfMeasureService.getAll();
-
-        for (UnitOfMeasure unitOfMeasure : unitOfMeasures) {
-            unitOfMeasuresPairs.add(new IdValuePair(unitOfMeasure.getId(), unitOfMeasure.getLocalizedName()));
-        }
-
-        return unitOfMeasuresPairs;
-    }
-
     private List<IdValuePair> createTypeOfSampleList() {
         List<IdValuePair> typeOfSamplePairs = new ArrayList<>();
         List<TypeOfSample> typeOfSamples = typeOfSampleService.getAllTypeOfSamplesSortOrdered();
@@ -0,0 +1,278 @@
+package org.openelisglobal.common.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.validator.GenericValidator;
+import org.openelisglobal.common.log.LogEvent;
+import org.openelisglobal.common.util.ConfigurationProperties;
+import org.openelisglobal.common.util.ConfigurationProperties.Property;
+
+/**
+ * Work queued in a database table and handled on a fixed set of threads. The
+ * table needs the columns id, status (Q queued, P in progress, D done or F
+ * failed), attempts, next_attempt, claimed, processed, the key columns and a
+ * column for the result of the last attempt.
+ *
+ * Rows with the same key are handled one at a time in id order: a row is only
+ * claimed when no earlier row with its key is queued, in progress or waiting
+ * for a retry, and it is handed to the thread chosen by its key. A row that
+ * fails is tried again after a delay that grows with each attempt, and is
+ * given up on after maxAttempts, letting the later rows of its key go ahead.
+ * A claim left behind by a restart is queued again once it is stale.
+ *
+ * @param <T> the row as read by the owner of the queue
+ */
+public class TableQueue<T> {
+
+    public interface RowReader<T> {
+        T read(ResultSet resultSet) throws SQLException;
+    }
+
+    public interface RowHandler<T> {
+        /**
+         * @return the result to record for the row, may be null
+         * @throws Exception to have the row tried again later
+         */
+        String handle(T row) throws Exception;
+    }
+
+    private static final long STALE_CLAIM_MILLIS = 1000L * 60 * 10;
+    private static final int ROWS_PER_THREAD = 20;
+
+    private final DataSource dataSource;
+    private final String table;
+    private final String[] keyColumns;
+    private final String resultColumn;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private ExecutorService[] threads = new ExecutorService[0];
+
+    public TableQueue(DataSource dataSource, String table, String[] keyColumns, String resultColumn,
+            int maxAttempts, long retryDelayMillis) {
+        this.dataSource = dataSource;
+        this.table = table;
+        this.keyColumns = keyColumns;
+        this.resultColumn = resultColumn;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * @return the number of threads configured by the property, or defaultThreads
+     *         if it is not set to a number
+     */
+    public static int getConfiguredThreads(Property property, int defaultThreads) {
+        try {
+            return Math.max(1,
+                    Integer.parseInt(ConfigurationProperties.getInstance().getPropertyValue(property).trim()));
+        } catch (NumberFormatException | NullPointerException e) {
+            return defaultThreads;
+        }
+    }
+
+    public void start(int threadCount) {
+        threads = new ExecutorService[threadCount];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = Executors.newSingleThreadExecutor();
+        }
+    }
+
+    public void shutdown() {
+        // rows being handled are left claimed and are queued again once the claim is
+        // stale
+        for (ExecutorService thread : threads) {
+            thread.shutdownNow();
+        }
+    }
+
+    public int getThreadCount() {
+        return threads.length;
+    }
+
+    /**
+     * Claims the rows that are due, as many as there is room for, and hands them
+     * to their threads
+     *
+     * @param columns the columns of the table the reader needs
+     */
+    public void dispatch(String columns, RowReader<T> reader, RowHandler<T> handler) {
+        int capacity = threads.length * ROWS_PER_THREAD - inProgress.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<ClaimedRow<T>> rows;
+        try (Connection connection = dataSource.getConnection()) {
+            requeueStaleClaims(connection);
+            rows = claim(connection, columns, reader, capacity);
+        } catch (SQLException e) {
+            LogEvent.logError("TableQueue", "dispatch()", "unable to claim rows of " + table + ": " + e.getMessage());
+            return;
+        }
+
+        for (ClaimedRow<T> row : rows) {
+            inProgress.incrementAndGet();
+            try {
+                threads[Math.floorMod(row.key.hashCode(), threads.length)].execute(() -> handle(row, handler));
+            } catch (RejectedExecutionException e) {
+                // shutting down, the claim goes stale and the row is queued again
+                inProgress.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return true if any row is queued or in progress
+     */
+    public boolean hasPending() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "select exists (select 1 from " + table + " where status in ('Q', 'P'))");
+                ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+
+    /**
+     * @return the number of rows with the status
+     */
+    public long count(String status) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection
+                        .prepareStatement("select count(*) from " + table + " where status = ?")) {
+            statement.setString(1, status);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Deletes the rows that were done before the retention time
+     */
+    public void purgeDone(long retentionMillis) {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection
+                        .prepareStatement("delete from " + table + " where status = 'D' and processed < ?")) {
+            statement.setTimestamp(1, new Timestamp(System.currentTimeMillis() - retentionMillis));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            LogEvent.logError("TableQueue", "purgeDone()", "unable to purge " + table + ": " + e.getMessage());
+        }
+    }
+
+    private void handle(ClaimedRow<T> row, RowHandler<T> handler) {
+        try {
+            markDone(row.id, handler.handle(row.row));
+        } catch (Exception e) {
+            LogEvent.logError("TableQueue", "handle()",
+                    "unable to handle row " + row.id + " of " + table + ": " + e.toString());
+            markFailedAttempt(row.id, e);
+        } finally {
+            inProgress.decrementAndGet();
+        }
+    }
+
+    private List<ClaimedRow<T>> claim(Connection connection, String columns, RowReader<T> reader, int maxRows)
+            throws SQLException {
+        StringBuilder earlierRowOfKey = new StringBuilder();
+        for (String keyColumn : keyColumns) {
+            earlierRowOfKey.append(" and e.").append(keyColumn).append(" = q.").append(keyColumn);
+        }
+        List<ClaimedRow<T>> rows = new ArrayList<>();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement statement = connection.prepareStatement("update " + table
+                + " set status = 'P', claimed = ?, attempts = attempts + 1 where id in (select q.id from " + table
+                + " q where q.status = 'Q' and q.next_attempt <= ? and not exists (select 1 from " + table
+                + " e where e.id < q.id and e.status in ('Q', 'P')" + earlierRowOfKey + ")"
+                + " order by q.id limit ? for update skip locked) returning id, "
+                + String.join(", ", keyColumns) + ", " + columns)) {
+            statement.setTimestamp(1, now);
+            statement.setTimestamp(2, now);
+            statement.setInt(3, maxRows);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    StringBuilder key = new StringBuilder();
+                    for (String keyColumn : keyColumns) {
+                        key.append(resultSet.getString(keyColumn)).append('\u0000');
+                    }
+                    rows.add(new ClaimedRow<>(resultSet.getLong("id"), key.toString(), reader.read(resultSet)));
+                }
+            }
+        }
+        // returning does not keep the order of the sub select
+        rows.sort(Comparator.comparingLong(row -> row.id));
+        return rows;
+    }
+
+    private void requeueStaleClaims(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection
+                .prepareStatement("update " + table + " set status = 'Q' where status = 'P' and claimed < ?")) {
+            statement.setTimestamp(1, new Timestamp(System.currentTimeMillis() - STALE_CLAIM_MILLIS));
+            statement.executeUpdate();
+        }
+    }
+
+    private void markDone(long id, String result) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("update " + table
+                        + " set status = 'D', processed = ?, " + resultColumn + " = ? where id = ?")) {
+            statement.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+            statement.setString(2, truncate(result));
+            statement.setLong(3, id);
+            statement.executeUpdate();
+        }
+    }
+
+    private void markFailedAttempt(long id, Exception cause) {
+        String error = GenericValidator.isBlankOrNull(cause.getMessage()) ? cause.toString() : cause.getMessage();
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("update " + table
+                        + " set status = case when attempts >= ? then 'F' else 'Q' end,"
+                        + " next_attempt = ? + attempts * ? * interval '1 millisecond', processed = ?, "
+                        + resultColumn + " = ? where id = ?")) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            statement.setInt(1, maxAttempts);
+            statement.setTimestamp(2, now);
+            statement.setLong(3, retryDelayMillis);
+            statement.setTimestamp(4, now);
+            statement.setString(5, truncate(error));
+            statement.setLong(6, id);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            LogEvent.logError("TableQueue", "markFailedAttempt()",
+                    "unable to record failure of row " + id + " of " + table + ": " + e.getMessage());
+        }
+    }
+
+    private String truncate(String result) {
+        return result != null && result.length() > 255 ? result.substring(0, 255) : result;
+    }
+
+    private static class ClaimedRow<T> {
+        private final long id;
+        private final String key;
+        private final T row;
+
+        private ClaimedRow(long id, String key, T row) {
+            this.id = id;
+            this.key = key;
+            this.row = row;
+        }
+    }
+}
@@ -17,7 +17,6 @@
 package org.openelisglobal.common.services.historyservices;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -28,6 +27,7 @@ import java.util.Map;
 
 import org.apache.commons.validator.GenericValidator;
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.services.IStatusService;
@@ -62,7 +62,8 @@ public abstract class AbstractHistoryService {
 
     protected abstract String getObjectName();
 
-    protected abstract void getObservableChanges(History history, Map<String, String> changeMap, String changes);
+    protected abstract void getObservableChanges(History history, Map<String, String> changeMap,
+            HistoryChanges changes);
 
     // should be overridden if needed
     protected boolean showAttribute() {
@@ -154,10 +155,8 @@ public abstract class AbstractHistoryService {
         // LogEvent.logInfo(this.getClass().getName(), "method unkown",  history.getId() + " : " + history.getActivity() );
         if ("U".equals(history.getActivity()) || "D".equals(history.getActivity())) {
 
-            byte[] bindata = history.getChanges();
-
-            String changes = new String(bindata, StandardCharsets.UTF_8);
-            // LogEvent.logInfo(this.getClass().getName(), "method unkown", history.getActivity() + " : "+ changes);
+            // only the fields asked for are decoded
+            HistoryChanges changes = HistoryChanges.read(history.getChanges());
             getObservableChanges(history, changeMap, changes);
 
         }
@@ -165,26 +164,18 @@ public abstract class AbstractHistoryService {
         return changeMap;
     }
 
-    protected void simpleChange(Map<String, String> changeMap, String changesString, String attribute) {
-        String value = extractSimple(changesString, attribute);
+    protected void simpleChange(Map<String, String> changeMap, HistoryChanges changes, String attribute) {
+        String value = extractSimple(changes, attribute);
         if (value != null) {
             changeMap.put(attribute, value);
         }
     }
 
-    protected String extractSimple(String changes, String attribute) {
-        String startTag = "<" + attribute + ">";
-        int begin = changes.indexOf(startTag);
-        if (begin > -1) {
-            begin += startTag.length();
-            int end = changes.indexOf("</" + attribute + ">");
-
-            return changes.substring(begin, end);
-        }
-        return null;
+    protected String extractSimple(HistoryChanges changes, String attribute) {
+        return changes.get(attribute);
     }
 
-    protected String extractStatus(String changes) {
+    protected String extractStatus(HistoryChanges changes) {
         String statusId = extractSimple(changes, "statusId");
         return statusId == null ? null : SpringContext.getBean(IStatusService.class).getStatusNameFromId(statusId);
     }
@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.openelisglobal.analysis.valueholder.Analysis;
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.common.services.IStatusService;
 import org.openelisglobal.history.service.HistoryService;
@@ -67,7 +68,7 @@ public class AnalysisHistoryService extends AbstractHistoryService {
     }
 
     @Override
-    protected void getObservableChanges(History history, Map<String, String> changeMap, String changes) {
+    protected void getObservableChanges(History history, Map<String, String> changeMap, HistoryChanges changes) {
         String status = extractStatus(changes);
         if (status != null) {
             changeMap.put(STATUS_ATTRIBUTE, status);
@@ -24,6 +24,7 @@ import java.util.Map;
 import org.openelisglobal.analysis.service.AnalysisServiceImpl;
 import org.openelisglobal.analysis.valueholder.Analysis;
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.common.services.QAService;
 import org.openelisglobal.history.service.HistoryService;
@@ -61,8 +62,7 @@ public class NoteHistoryService extends AbstractHistoryService {
     }
 
     private void addAnalysisNotes(Sample sample) {
-        History searchHistory = new History();
-        searchHistory.setReferenceTable(NoteServiceImpl.getTableReferenceId());
+        List<String> noteIds = new ArrayList<>();
         SampleService sampleSampleService = SpringContext.getBean(SampleService.class);
         List<Analysis> analysisList = sampleSampleService.getAnalysis(sample);
         Note searchNote = new Note();
@@ -73,16 +73,16 @@ public class NoteHistoryService extends AbstractHistoryService {
             List<Note> notes = noteService.getAllNotesByRefIdRefTable(searchNote);
 
             for (Note note : notes) {
-                searchHistory.setReferenceId(note.getId());
+                noteIds.add(note.getId());
                 noteIdToIndicatorMap.put(note.getId(), analysis.getTest().getLocalizedName());
-                historyList.addAll(historyService.getHistoryByRefIdAndRefTableId(searchHistory));
             }
         }
+        historyList.addAll(
+                historyService.getHistoryByRefIdsAndRefTableId(noteIds, NoteServiceImpl.getTableReferenceId()));
     }
 
     private void addOrderNotes(Sample sample) {
-        History searchHistory = new History();
-        searchHistory.setReferenceTable(NoteServiceImpl.getTableReferenceId());
+        List<String> noteIds = new ArrayList<>();
 
         Note searchNote = new Note();
         searchNote.setReferenceTableId(SampleServiceImpl.getTableReferenceId());
@@ -91,15 +91,15 @@ public class NoteHistoryService extends AbstractHistoryService {
         List<Note> notes = noteService.getAllNotesByRefIdRefTable(searchNote);
 
         for (Note note : notes) {
-            searchHistory.setReferenceId(note.getId());
+            noteIds.add(note.getId());
             noteIdToIndicatorMap.put(note.getId(), MessageUtil.getMessage("auditTrail.order"));
-            historyList.addAll(historyService.getHistoryByRefIdAndRefTableId(searchHistory));
         }
+        historyList.addAll(
+                historyService.getHistoryByRefIdsAndRefTableId(noteIds, NoteServiceImpl.getTableReferenceId()));
     }
 
     private void addQANotes(Sample sample) {
-        History searchHistory = new History();
-        searchHistory.setReferenceTable(NoteServiceImpl.getTableReferenceId());
+        List<String> noteIds = new ArrayList<>();
 
         Note searchNote = new Note();
         searchNote.setReferenceTableId(QAService.TABLE_REFERENCE_ID);
@@ -112,11 +112,12 @@ public class NoteHistoryService extends AbstractHistoryService {
             List<Note> notes = noteService.getAllNotesByRefIdRefTable(searchNote);
 
             for (Note note : notes) {
-                searchHistory.setReferenceId(note.getId());
+                noteIds.add(note.getId());
                 noteIdToIndicatorMap.put(note.getId(), qaEvent.getQaEvent().getLocalizedName());
-                historyList.addAll(historyService.getHistoryByRefIdAndRefTableId(searchHistory));
             }
         }
+        historyList.addAll(
+                historyService.getHistoryByRefIdsAndRefTableId(noteIds, NoteServiceImpl.getTableReferenceId()));
     }
 
     @Override
@@ -129,7 +130,7 @@ public class NoteHistoryService extends AbstractHistoryService {
     }
 
     @Override
-    protected void getObservableChanges(History history, Map<String, String> changeMap, String changes) {
+    protected void getObservableChanges(History history, Map<String, String> changeMap, HistoryChanges changes) {
 
     }
 
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.common.services.IStatusService;
 //import org.openelisglobal.common.services.PersonService;
@@ -123,7 +124,7 @@ public class OrderHistoryService extends AbstractHistoryService {
     }
 
     @Override
-    protected void getObservableChanges(History history, Map<String, String> changeMap, String changes) {
+    protected void getObservableChanges(History history, Map<String, String> changeMap, HistoryChanges changes) {
         String status = extractStatus(changes);
         if (status != null) {
             changeMap.put(STATUS_ATTRIBUTE, status);
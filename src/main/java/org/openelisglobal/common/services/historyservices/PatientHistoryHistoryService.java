@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.apache.commons.validator.GenericValidator;
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.dictionary.valueholder.Dictionary;
 import org.openelisglobal.history.service.HistoryService;
@@ -110,7 +111,7 @@ public class PatientHistoryHistoryService extends AbstractHistoryService {
     }
 
     @Override
-    protected void getObservableChanges(History history, Map<String, String> changeMap, String changes) {
+    protected void getObservableChanges(History history, Map<String, String> changeMap, HistoryChanges changes) {
 
         String status = extractStatus(changes);
         if (status != null) {
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.history.service.HistoryService;
 import org.openelisglobal.internationalization.MessageUtil;
@@ -95,7 +96,7 @@ public class PatientHistoryService extends AbstractHistoryService {
     }
 
     @Override
-    protected void getObservableChanges(History history, Map<String, String> changeMap, String changes) {
+    protected void getObservableChanges(History history, Map<String, String> changeMap, HistoryChanges changes) {
         // LogEvent.logInfo(this.getClass().getName(), "method unkown",  changes );
         // this may get more complicated
 
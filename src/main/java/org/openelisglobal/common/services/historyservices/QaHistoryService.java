@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.common.services.QAService;
 import org.openelisglobal.history.service.HistoryService;
@@ -30,14 +31,11 @@ public class QaHistoryService extends AbstractHistoryService {
         SampleService sampleSampleService = SpringContext.getBean(SampleService.class);
         List<SampleQaEvent> qaEventList = sampleSampleService.getSampleQAEventList(sample);
 
-        History searchHistory = new History();
-        searchHistory.setReferenceTable(QAService.TABLE_REFERENCE_ID);
-        historyList = new ArrayList<>();
-
+        List<String> qaEventIds = new ArrayList<>();
         for (SampleQaEvent event : qaEventList) {
-            searchHistory.setReferenceId(event.getId());
-            historyList.addAll(historyService.getHistoryByRefIdAndRefTableId(searchHistory));
+            qaEventIds.add(event.getId());
         }
+        historyList = historyService.getHistoryByRefIdsAndRefTableId(qaEventIds, QAService.TABLE_REFERENCE_ID);
 
         newValueMap = new HashMap<>();
     }
@@ -54,7 +52,7 @@ public class QaHistoryService extends AbstractHistoryService {
     }
 
     @Override
-    protected void getObservableChanges(History history, Map<String, String> changeMap, String changes) {
+    protected void getObservableChanges(History history, Map<String, String> changeMap, HistoryChanges changes) {
         changeMap.put(STATUS_ATTRIBUTE, "Gail");
 
     }
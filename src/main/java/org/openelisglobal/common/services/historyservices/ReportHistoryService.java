@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.common.services.IReportTrackingService;
 import org.openelisglobal.common.services.ReportTrackingService.ReportType;
@@ -48,13 +49,11 @@ public class ReportHistoryService extends AbstractHistoryService {
         List<DocumentTrack> documentList = SpringContext.getBean(IReportTrackingService.class)
                 .getReportsForSample(sample, ReportType.PATIENT);
 
-        historyList = new ArrayList<>();
+        List<String> documentIds = new ArrayList<>();
         for (DocumentTrack docTrack : documentList) {
-            History searchHistory = new History();
-            searchHistory.setReferenceId(docTrack.getId());
-            searchHistory.setReferenceTable(REPORT_TABLE_ID);
-            historyList.addAll(historyService.getHistoryByRefIdAndRefTableId(searchHistory));
+            documentIds.add(docTrack.getId());
         }
+        historyList = historyService.getHistoryByRefIdsAndRefTableId(documentIds, REPORT_TABLE_ID);
     }
 
     @Override
@@ -66,7 +65,7 @@ public class ReportHistoryService extends AbstractHistoryService {
     }
 
     @Override
-    protected void getObservableChanges(History history, Map<String, String> changeMap, String changes) {
+    protected void getObservableChanges(History history, Map<String, String> changeMap, HistoryChanges changes) {
         String status = extractStatus(changes);
         if (status != null) {
             changeMap.put(STATUS_ATTRIBUTE, status);
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.openelisglobal.audittrail.action.workers.AuditTrailItem;
+import org.openelisglobal.audittrail.util.HistoryChanges;
 import org.openelisglobal.audittrail.valueholder.History;
 import org.openelisglobal.common.services.IStatusService;
 import org.openelisglobal.history.service.HistoryService;
@@ -49,14 +50,11 @@ public class SampleHistoryService extends AbstractHistoryService {
     private void setUpForSample(Sample sample) {
         List<SampleItem> sampleItems = sampleItemService.getSampleItemsBySampleId(sample.getId());
 
-        History searchHistory = new History();
-        searchHistory.setReferenceTable(SAMPLE_ITEM_TABLE_ID);
-        historyList = new ArrayList<History>();
-
+        List<String> sampleItemIds = new ArrayList<>();
         for (SampleItem item : sampleItems) {
-            searchHistory.setReferenceId(item.getId());
-            historyList.addAll(historyService.getHistoryByRefIdAndRefTableId(searchHistory));
+            sampleItemIds.add(item.getId());
         }
+        historyList = historyService.getHistoryByRefIdsAndRefTableId(sampleItemIds, SAMPLE_ITEM_TABLE_ID);
 
         newValueMap = new HashMap<String, String>();
     }
@@ -68,7 +66,7 @@ public class SampleHistoryService extends AbstractHistoryService {
     }
 
     @Override
-    protected void getObservableChanges(History history, Map<String, String> changeMap, String changes) {
+    protected void getObservableChanges(History history, Map<String, String> changeMap, HistoryChanges changes) {
         SampleItem item = sampleItemService.getData(history.getReferenceId());
         String statusId = item.getStatusId();
         if (statusId != null) {
@@ -0,0 +1,224 @@
+package org.openelisglobal.common.services.registration;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.commons.validator.GenericValidator;
+import org.hibernate.ObjectNotFoundException;
+import org.hibernate.Session;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openelisglobal.analysis.service.AnalysisService;
+import org.openelisglobal.common.services.IResultSaveService;
+import org.openelisglobal.common.services.registration.interfaces.IResultUpdate;
+import org.openelisglobal.dataexchange.orderresult.OrderResponseWorker.Event;
+import org.openelisglobal.patient.service.PatientService;
+import org.openelisglobal.patient.valueholder.Patient;
+import org.openelisglobal.result.action.util.ResultSet;
+import org.openelisglobal.result.service.ResultService;
+import org.openelisglobal.result.valueholder.Result;
+import org.openelisglobal.sample.service.SampleService;
+import org.openelisglobal.sample.valueholder.Sample;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Hands saved results to the registered result updaters after the save has
+ * committed, without making the user wait for them. Publishing writes one
+ * result_event row per updater (see liquibase result_event_bus) in the
+ * transaction of the save, so the updaters hear about exactly the saves that
+ * committed. ResultEventDispatcher delivers the rows on its own threads and
+ * retries the ones that fail.
+ *
+ * Only the ids of the results, patients and samples and the result event are
+ * kept in a row, the objects are read again when the row is delivered.
+ */
+@Component
+public class ResultEventBus {
+
+    public enum Register {
+        RESULT, VALIDATION;
+
+        public List<IResultUpdate> getRegisteredUpdaters() {
+            return this == VALIDATION ? ValidationUpdateRegister.getRegisteredUpdaters()
+                    : ResultUpdateRegister.getRegisteredUpdaters();
+        }
+    }
+
+    private static final String INSERT_EVENT = "insert into clinlims.result_event"
+            + " (register, subscriber, partition_key, payload, created, next_attempt) values (?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private ResultService resultService;
+    @Autowired
+    private AnalysisService analysisService;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private SampleService sampleService;
+
+    /**
+     * Queue the new and modified results of a save for each of the updaters. Must
+     * be called in the transaction of the save, after the results have been
+     * inserted.
+     */
+    @Transactional
+    public void publish(Register register, List<IResultUpdate> updaters, IResultSaveService resultSaveService) {
+        if (updaters.isEmpty()
+                || (resultSaveService.getNewResults().isEmpty() && resultSaveService.getModifiedResults().isEmpty())) {
+            return;
+        }
+
+        String payload = toPayload(resultSaveService);
+        String partitionKey = getPartitionKey(resultSaveService);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_EVENT)) {
+                for (IResultUpdate updater : updaters) {
+                    statement.setString(1, register.name());
+                    statement.setString(2, updater.getClass().getName());
+                    statement.setString(3, partitionKey);
+                    statement.setString(4, payload);
+                    statement.setTimestamp(5, now);
+                    statement.setTimestamp(6, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * @return the results of a published save, read again from the database.
+     *         Results deleted since are left out.
+     */
+    public IResultSaveService readPayload(String payload) throws ParseException {
+        JSONObject event = (JSONObject) new JSONParser().parse(payload);
+        PublishedResults results = new PublishedResults((String) event.get("userId"));
+        addResultSets(results.newResults, (JSONArray) event.get("new"));
+        addResultSets(results.modifiedResults, (JSONArray) event.get("modified"));
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String toPayload(IResultSaveService resultSaveService) {
+        JSONArray newResults = new JSONArray();
+        for (ResultSet resultSet : resultSaveService.getNewResults()) {
+            newResults.add(toJson(resultSet));
+        }
+        JSONArray modifiedResults = new JSONArray();
+        for (ResultSet resultSet : resultSaveService.getModifiedResults()) {
+            modifiedResults.add(toJson(resultSet));
+        }
+
+        JSONObject event = new JSONObject();
+        event.put("userId", resultSaveService.getCurrentUserId());
+        event.put("new", newResults);
+        event.put("modified", modifiedResults);
+        return event.toJSONString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private JSONObject toJson(ResultSet resultSet) {
+        Result result = resultSet.result;
+        JSONObject json = new JSONObject();
+        json.put("result", result.getId());
+        if (result.getId() == null) {
+            // results that are reported without being saved, e.g. for a cancelled test
+            json.put("analysis", result.getAnalysis() == null ? null : result.getAnalysis().getId());
+            json.put("value", result.getValue());
+        }
+        json.put("event", result.getResultEvent() == null ? null : result.getResultEvent().name());
+        json.put("patient", resultSet.patient == null ? null : resultSet.patient.getId());
+        json.put("sample", resultSet.sample == null ? null : resultSet.sample.getId());
+        json.put("multipleResultsForAnalysis", resultSet.multipleResultsForAnalysis);
+        return json;
+    }
+
+    private void addResultSets(List<ResultSet> resultSets, JSONArray json) {
+        for (Object resultSet : json) {
+            try {
+                resultSets.add(toResultSet((JSONObject) resultSet));
+            } catch (ObjectNotFoundException e) {
+                // deleted since it was saved, there is nothing left to report
+            }
+        }
+    }
+
+    private ResultSet toResultSet(JSONObject json) {
+        Result result;
+        String resultId = (String) json.get("result");
+        if (resultId == null) {
+            result = new Result();
+            String analysisId = (String) json.get("analysis");
+            result.setAnalysis(analysisId == null ? null : analysisService.get(analysisId));
+            result.setMinNormal((double) 0);
+            result.setMaxNormal((double) 0);
+            result.setValue((String) json.get("value"));
+        } else {
+            result = resultService.get(resultId);
+        }
+        String event = (String) json.get("event");
+        result.setResultEvent(event == null ? null : Event.valueOf(event));
+
+        String patientId = (String) json.get("patient");
+        Patient patient = patientId == null ? null : patientService.get(patientId);
+        String sampleId = (String) json.get("sample");
+        Sample sample = sampleId == null ? null : sampleService.get(sampleId);
+        return new ResultSet(result, null, null, patient, sample, null,
+                Boolean.TRUE.equals(json.get("multipleResultsForAnalysis")));
+    }
+
+    /*
+     * the events of one patient, or of one sample if there is no patient, are
+     * delivered in the order they were published
+     */
+    private String getPartitionKey(IResultSaveService resultSaveService) {
+        List<ResultSet> resultSets = new ArrayList<>(resultSaveService.getNewResults());
+        resultSets.addAll(resultSaveService.getModifiedResults());
+        for (ResultSet resultSet : resultSets) {
+            if (resultSet.patient != null && !GenericValidator.isBlankOrNull(resultSet.patient.getId())) {
+                return "patient:" + resultSet.patient.getId();
+            }
+            if (resultSet.sample != null && !GenericValidator.isBlankOrNull(resultSet.sample.getId())) {
+                return "sample:" + resultSet.sample.getId();
+            }
+        }
+        return "none";
+    }
+
+    private static class PublishedResults implements IResultSaveService {
+        private final String currentUserId;
+        private final List<ResultSet> newResults = new ArrayList<>();
+        private final List<ResultSet> modifiedResults = new ArrayList<>();
+
+        private PublishedResults(String currentUserId) {
+            this.currentUserId = currentUserId;
+        }
+
+        @Override
+        public String getCurrentUserId() {
+            return currentUserId;
+        }
+
+        @Override
+        public List<ResultSet> getNewResults() {
+            return newResults;
+        }
+
+        @Override
+        public List<ResultSet> getModifiedResults() {
+            return modifiedResults;
+        }
+    }
+}
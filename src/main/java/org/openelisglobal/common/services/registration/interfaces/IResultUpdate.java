@@ -30,7 +30,9 @@ public interface IResultUpdate {
 
     /**
      * Will be called after the transaction has been committed. If the transaction
-     * has been rolled back this will not be called
+     * has been rolled back this will not be called. It is called on a background
+     * thread on a new instance, with the results read again from the database (see
+     * ResultEventBus), and is called again later if it throws
      */
     public void postTransactionalCommitUpdate(IResultSaveService resultService);
 }
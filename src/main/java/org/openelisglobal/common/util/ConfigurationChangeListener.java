@@ -0,0 +1,18 @@
+package org.openelisglobal.common.util;
+
+import java.util.Set;
+
+import org.openelisglobal.common.util.ConfigurationProperties.Property;
+
+/**
+ * Notified when configuration properties are reloaded or set, so that values
+ * derived from them can be rebuilt
+ */
+public interface ConfigurationChangeListener {
+    /**
+     * Called after the new values can be read from ConfigurationProperties
+     *
+     * @param changedProperties the properties whose value is different
+     */
+    public void configurationChanged(Set<Property> changedProperties);
+}
@@ -17,20 +17,35 @@
 */
 package org.openelisglobal.common.util;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.validator.GenericValidator;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /*
  * This is an abstract class which represents the configuration properties of the application.  The derived
  * classes will determine how the propertiesValueMap is populated
+ *
+ * Reads are answered from an immutable snapshot of the trimmed values which is replaced whenever the values
+ * change, so they never wait on a lock.
  */
 public abstract class ConfigurationProperties {
 
     private static final Object lockObj = new Object();
-    private static ConfigurationProperties activeConcreteInstance = null;
+    private static volatile ConfigurationProperties activeConcreteInstance = null;
+    private static final List<ConfigurationChangeListener> changeListeners = new CopyOnWriteArrayList<>();
     protected Map<ConfigurationProperties.Property, String> propertiesValueMap = new HashMap<ConfigurationProperties.Property, String>();
+    // trimmed values of propertiesValueMap, blank values left out
+    private volatile Map<ConfigurationProperties.Property, String> values;
 
     // These should all be upper case. As you touch them change them
     public enum Property {
@@ -73,6 +88,9 @@ public abstract class ConfigurationProperties {
         AUTOFILL_COLLECTION_DATE("auto-fill collection date/time"),    //If true the collection date will be auto-filled with current date
         failedValidationMarker("showValidationFailureIcon"),      //If true results that failed validation will have icon next to them
         resultsResendTime("results.send.retry.time"),           //How much time between trying to resend results that failed to reach their destination
+        ORDER_INGESTION_ASYNC("order.ingestion.async"),     //If true incoming HL7 orders are queued and acknowledged before they are persisted
+        ORDER_INGESTION_WORKERS("order.ingestion.workers"),  //Number of workers persisting queued HL7 orders
+        RESULT_EVENT_DISPATCH_THREADS("result.event.dispatch.threads"),  //Number of threads delivering saved results to the result updaters
         TRACK_PATIENT_PAYMENT("trackPayment"),       //If true then patient payment status can be entered
         ALERT_FOR_INVALID_RESULTS("alertWhenInvalidResult"),   //If true then technician will get an alert for results outside of the valid range
         DEFAULT_LANG_LOCALE("default language locale"),         //Default language locale
@@ -129,19 +147,27 @@ public abstract class ConfigurationProperties {
     }
 
     public static ConfigurationProperties getInstance() {
-        synchronized (lockObj) {
-            if (activeConcreteInstance == null) {
-                activeConcreteInstance = new DefaultConfigurationProperties();
+        ConfigurationProperties instance = activeConcreteInstance;
+        if (instance == null) {
+            synchronized (lockObj) {
+                instance = activeConcreteInstance;
+                if (instance == null) {
+                    instance = new DefaultConfigurationProperties();
+                    activeConcreteInstance = instance;
+                }
             }
         }
-        return activeConcreteInstance;
+        return instance;
+    }
+
+    public static void addChangeListener(ConfigurationChangeListener listener) {
+        changeListeners.add(listener);
     }
 
     public String getPropertyValue(Property property) {
         loadIfPropertyValueNeeded(property);
 
-        return GenericValidator.isBlankOrNull(propertiesValueMap.get(property)) ? null
-                : propertiesValueMap.get(property).trim();
+        return getValues().get(property);
     }
 
     public String getPropertyValueUpperCase(Property property) {
@@ -154,8 +180,81 @@ public abstract class ConfigurationProperties {
         return value == null ? null : value.toLowerCase();
     }
 
+    /**
+     * Load the properties again and swap them in once they are all loaded. Inside
+     * a transaction this happens after it commits, so the new values are the ones
+     * that were saved.
+     */
     public static void forceReload() {
-        activeConcreteInstance = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    private static void reload() {
+        ConfigurationProperties reloaded = new DefaultConfigurationProperties();
+        reloaded.loadAll();
+        ConfigurationProperties previous;
+        synchronized (lockObj) {
+            previous = activeConcreteInstance;
+            activeConcreteInstance = reloaded;
+        }
+        if (previous != null) {
+            notifyChangeListeners(changedProperties(previous.getValues(), reloaded.getValues()));
+        }
+    }
+
+    private static Set<Property> changedProperties(Map<Property, String> before, Map<Property, String> after) {
+        Set<Property> changed = EnumSet.noneOf(Property.class);
+        for (Property property : Property.values()) {
+            if (!Objects.equals(before.get(property), after.get(property))) {
+                changed.add(property);
+            }
+        }
+        return changed;
+    }
+
+    private static void notifyChangeListeners(Set<Property> changedProperties) {
+        if (changedProperties.isEmpty()) {
+            return;
+        }
+        Set<Property> changed = Collections.unmodifiableSet(changedProperties);
+        for (ConfigurationChangeListener listener : changeListeners) {
+            listener.configurationChanged(changed);
+        }
+    }
+
+    private Map<Property, String> getValues() {
+        Map<Property, String> current = values;
+        return current == null ? publishValues() : current;
+    }
+
+    /**
+     * Make the current content of propertiesValueMap visible to readers. To be
+     * called by the derived classes when they have loaded more values.
+     */
+    protected final synchronized Map<Property, String> publishValues() {
+        Map<Property, String> trimmed = new EnumMap<>(Property.class);
+        for (Map.Entry<Property, String> entry : propertiesValueMap.entrySet()) {
+            if (!GenericValidator.isBlankOrNull(entry.getValue())) {
+                trimmed.put(entry.getKey(), entry.getValue().trim());
+            }
+        }
+        values = trimmed;
+        return trimmed;
+    }
+
+    /*
+     * Load everything that would otherwise be loaded lazily
+     */
+    protected void loadAll() {
     }
 
     /*
@@ -181,7 +280,15 @@ public abstract class ConfigurationProperties {
     }
 
     public void setPropertyValue(Property property, String value) {
-        propertiesValueMap.put(property, value);
+        loadIfPropertyValueNeeded(property);
+        Map<Property, String> before;
+        Map<Property, String> after;
+        synchronized (this) {
+            before = getValues();
+            propertiesValueMap.put(property, value);
+            after = publishValues();
+        }
+        notifyChangeListeners(changedProperties(before, after));
     }
 
     /**
@@ -32,9 +32,9 @@ public class DefaultConfigurationProperties extends ConfigurationProperties {
 
     private static String propertyFile = "/SystemConfiguration.properties";
     private java.util.Properties properties = null;
-    protected static Map<ConfigurationProperties.Property, KeyDefaultPair> propertiesFileMap;
-    protected static Map<String, ConfigurationProperties.Property> dbNamePropertiesMap;
-    private boolean databaseLoaded = false;
+    protected Map<ConfigurationProperties.Property, KeyDefaultPair> propertiesFileMap;
+    protected Map<String, ConfigurationProperties.Property> dbNamePropertiesMap;
+    private volatile boolean databaseLoaded = false;
 
     {
         // config from SystemConfiguration.properties
@@ -44,6 +44,10 @@ public class DefaultConfigurationProperties extends ConfigurationProperties {
         propertiesFileMap.put(Property.ReferingLabParentOrg,
                 new KeyDefaultPair("organization.reference.lab.parent", null));
         propertiesFileMap.put(Property.resultsResendTime, new KeyDefaultPair("results.send.retry.time", "30"));
+        propertiesFileMap.put(Property.ORDER_INGESTION_ASYNC, new KeyDefaultPair("order.ingestion.async", "false"));
+        propertiesFileMap.put(Property.ORDER_INGESTION_WORKERS, new KeyDefaultPair("order.ingestion.workers", "4"));
+        propertiesFileMap.put(Property.RESULT_EVENT_DISPATCH_THREADS,
+                new KeyDefaultPair("result.event.dispatch.threads", "4"));
 //		propertiesFileMap.put(Property. , new KeyDefaultPair() );
 
         // config from site_information table
@@ -176,7 +180,15 @@ public class DefaultConfigurationProperties extends ConfigurationProperties {
         }
     }
 
-    protected void loadFromDatabase() {
+    @Override
+    protected void loadAll() {
+        loadFromDatabase();
+    }
+
+    protected synchronized void loadFromDatabase() {
+        if (databaseLoaded) {
+            return;
+        }
         SiteInformationService siteInformationService = SpringContext.getBean(SiteInformationService.class);
         List<SiteInformation> siteInformationList = siteInformationService.getAllSiteInformation();
 
@@ -187,6 +199,7 @@ public class DefaultConfigurationProperties extends ConfigurationProperties {
             }
         }
 
+        publishValues();
         databaseLoaded = true;
     }
 
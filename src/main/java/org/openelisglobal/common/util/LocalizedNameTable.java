@@ -0,0 +1,101 @@
+package org.openelisglobal.common.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Supplier;
+
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+
+/**
+ * Display names by id for each locale in use. The tables are never changed once
+ * published, an edit publishes new ones, so lookups need no locking and always
+ * answer in the locale of the current request.
+ *
+ * Names are built with the usual localized getters, which read the locale from
+ * LocaleContextHolder, so each locale's names are built with it set to that
+ * locale.
+ */
+public final class LocalizedNameTable {
+
+    private volatile Map<Locale, Map<String, String>> namesByLocale = Collections.emptyMap();
+
+    /**
+     * @return the name in the current request's locale, or null if there is none
+     */
+    public String getName(String id) {
+        return getNames().get(id);
+    }
+
+    public Map<String, String> getNames() {
+        return getNames(LocaleContextHolder.getLocale());
+    }
+
+    public Map<String, String> getNames(Locale locale) {
+        Map<Locale, Map<String, String>> current = namesByLocale;
+        Map<String, String> names = current.get(locale);
+        if (names == null) {
+            names = current.get(Locale.forLanguageTag(locale.getLanguage()));
+        }
+        if (names == null) {
+            names = current.get(SystemConfiguration.getInstance().getDefaultLocale());
+        }
+        return names == null ? Collections.emptyMap() : names;
+    }
+
+    /**
+     * Replace every table with the names built for each of the locales
+     */
+    public synchronized void rebuild(Collection<Locale> locales, Supplier<Map<String, String>> namesBuilder) {
+        Map<Locale, Map<String, String>> rebuilt = new HashMap<>();
+        for (Locale locale : locales) {
+            rebuilt.put(locale, Collections.unmodifiableMap(new HashMap<>(inLocale(locale, namesBuilder))));
+        }
+        namesByLocale = Collections.unmodifiableMap(rebuilt);
+    }
+
+    /**
+     * @return the name built in each locale of the tables, for a later
+     *         {@link #update(String, Map)}
+     */
+    public Map<Locale, String> buildName(Supplier<String> nameBuilder) {
+        Map<Locale, String> names = new HashMap<>();
+        for (Locale locale : namesByLocale.keySet()) {
+            names.put(locale, inLocale(locale, nameBuilder));
+        }
+        return names;
+    }
+
+    /**
+     * Set the names of one entry, leaving the others as they are. A locale with a
+     * null name drops the entry from that locale's table.
+     */
+    public synchronized void update(String id, Map<Locale, String> names) {
+        Map<Locale, Map<String, String>> updated = new HashMap<>();
+        for (Entry<Locale, Map<String, String>> entry : namesByLocale.entrySet()) {
+            Map<String, String> localeNames = new HashMap<>(entry.getValue());
+            String name = names.get(entry.getKey());
+            if (name == null) {
+                localeNames.remove(id);
+            } else {
+                localeNames.put(id, name);
+            }
+            updated.put(entry.getKey(), Collections.unmodifiableMap(localeNames));
+        }
+        namesByLocale = Collections.unmodifiableMap(updated);
+    }
+
+    private static <T> T inLocale(Locale locale, Supplier<T> builder) {
+        LocaleContext previous = LocaleContextHolder.getLocaleContext();
+        LocaleContextHolder.setLocale(locale);
+        try {
+            return builder.get();
+        } finally {
+            LocaleContextHolder.setLocaleContext(previous);
+        }
+    }
+}
@@ -19,12 +19,12 @@ package org.openelisglobal.common.util;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.validator.GenericValidator;
 import org.openelisglobal.common.log.LogEvent;
@@ -43,10 +43,10 @@ public class SystemConfiguration {
         private static final SystemConfiguration INSTANCE = new SystemConfiguration();
     }
 
-    private List<LocaleChangeListener> localChangeListeners = new ArrayList<>();
+    private List<LocaleChangeListener> localChangeListeners = new CopyOnWriteArrayList<>();
 
     private Properties properties = null;
-    private Map<String, Locale> localePropertyToLocaleMap = new HashMap<>();
+    private Map<String, Locale> localePropertyToLocaleMap = new ConcurrentHashMap<>();
 
     private SystemConfiguration() {
         InputStream propertyStream = null;
@@ -67,7 +67,7 @@ public class XMLUtil {
         return "</" + makeTagName(tagName) + ">";
     }
 
-    private static String makeTagName(String tagName) {
+    public static String makeTagName(String tagName) {
         tagName = tagName.replaceAll("[^a-zA-Z0-9._-]", "");
         return tagName.replaceFirst("^[xX][mM][lL]", "");
     }
@@ -5,6 +5,7 @@ import java.util.Locale;
 import org.openelisglobal.common.util.ConfigurationProperties;
 import org.openelisglobal.common.util.ConfigurationProperties.Property;
 import org.openelisglobal.interceptor.CommonPageAttributesInterceptor;
+import org.openelisglobal.interceptor.RequestMetricsInterceptor;
 import org.openelisglobal.interceptor.UrlErrorsInterceptor;
 import org.openelisglobal.internationalization.GlobalLocaleResolver;
 import org.openelisglobal.internationalization.MessageUtil;
@@ -44,6 +45,8 @@ public class AppConfig implements WebMvcConfigurer {
     @Autowired
     CommonPageAttributesInterceptor pageAttributesInterceptor;
     @Autowired
+    RequestMetricsInterceptor requestMetricsInterceptor;
+    @Autowired
     RequestMappingHandlerMapping requestMappingHandlerMapping;
 
     @Bean
@@ -98,6 +101,7 @@ public class AppConfig implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor).addPathPatterns("/**");
         registry.addInterceptor(localeChangeInterceptor()).addPathPatterns("/**");
         registry.addInterceptor(moduleAuthenticationInterceptor).addPathPatterns("/**")
                 .excludePathPatterns(SecurityConfig.OPEN_PAGES).excludePathPatterns(SecurityConfig.RESOURCE_PAGES)
@@ -28,6 +28,9 @@ public interface ReportExternalExportDAO extends BaseDAO<ReportExternalExport, S
 
     public List<ReportExternalExport> getUnsentReportExports(String reportQueueTypeId) throws LIMSRuntimeException;
 
+    public List<ReportExternalExport> getReportExportsDueForSending(String reportQueueTypeId, Timestamp now,
+            int maxResults) throws LIMSRuntimeException;
+
     public ReportExternalExport getLatestSentReportExport(String reportQueueTypeId) throws LIMSRuntimeException;
 
     public ReportExternalExport getLatestEventReportExport(String reportQueueTypeId) throws LIMSRuntimeException;
@@ -79,6 +79,32 @@ public class ReportExternalExportDAOImpl extends BaseDAOImpl<ReportExternalExpor
 
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReportExternalExport> getReportExportsDueForSending(String reportQueueTypeId, Timestamp now,
+            int maxResults) throws LIMSRuntimeException {
+        // a report is held back while an earlier report for its patient is waiting to be
+        // tried again
+        String sql = "from ReportExternalExport rq where rq.send = true and rq.typeId = :typeId"
+                + " and (rq.nextSendTime is null or rq.nextSendTime <= :now)"
+                + " and not exists (from ReportExternalExport e where e.send = true and e.typeId = rq.typeId"
+                + " and coalesce(e.partitionKey, '') = coalesce(rq.partitionKey, '') and e.id < rq.id"
+                + " and e.nextSendTime > :now) order by rq.id";
+        try {
+            Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setInteger("typeId", Integer.parseInt(reportQueueTypeId));
+            query.setTimestamp("now", now);
+            query.setMaxResults(maxResults);
+            List<ReportExternalExport> reports = query.list();
+
+            return reports;
+        } catch (HibernateException e) {
+            handleException(e, "getReportExportsDueForSending");
+        }
+
+        return null;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public ReportExternalExport getLatestSentReportExport(String reportQueueTypeId) throws LIMSRuntimeException {
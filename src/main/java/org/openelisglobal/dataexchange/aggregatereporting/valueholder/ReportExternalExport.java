@@ -32,6 +32,10 @@ public class ReportExternalExport extends BaseObject<String> {
     private boolean send;
     private String data;
     private String bookkeepingData;
+    private String messageOutId;
+    private Integer sendAttempts = 0;
+    private Timestamp nextSendTime;
+    private String partitionKey;
 
     public String getId() {
         return id;
@@ -97,6 +101,38 @@ public class ReportExternalExport extends BaseObject<String> {
         this.bookkeepingData = bookkeepingData;
     }
 
+    public String getMessageOutId() {
+        return messageOutId;
+    }
+
+    public void setMessageOutId(String messageOutId) {
+        this.messageOutId = messageOutId;
+    }
+
+    public Integer getSendAttempts() {
+        return sendAttempts;
+    }
+
+    public void setSendAttempts(Integer sendAttempts) {
+        this.sendAttempts = sendAttempts;
+    }
+
+    public Timestamp getNextSendTime() {
+        return nextSendTime;
+    }
+
+    public void setNextSendTime(Timestamp nextSendTime) {
+        this.nextSendTime = nextSendTime;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
     public int getDataSize() {
         return data.length();
     }
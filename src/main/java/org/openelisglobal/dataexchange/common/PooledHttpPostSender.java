@@ -0,0 +1,139 @@
+package org.openelisglobal.dataexchange.common;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.validator.GenericValidator;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.openelisglobal.common.log.LogEvent;
+import org.openelisglobal.internationalization.MessageUtil;
+
+/**
+ * Posts a message through a shared, pooled client so that connections to the
+ * receiver are kept alive between messages. Responses and errors are reported
+ * the same way as {@link HttpPostSender}.
+ */
+public class PooledHttpPostSender implements IExternalSender {
+
+    private final CloseableHttpClient httpClient;
+    private String message;
+    private String url;
+    private int returnStatus = HttpServletResponse.SC_CREATED;
+    private String serviceTargetName = "";
+    private List<String> errors = new ArrayList<>();
+    private boolean connectionFailure;
+
+    public PooledHttpPostSender(CloseableHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public void setTargetName(String name) {
+        serviceTargetName = name != null ? name : "";
+    }
+
+    @Override
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public void setURI(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public int getSendResponse() {
+        return returnStatus;
+    }
+
+    /**
+     * @return true if the failure happened before the receiver answered, i.e. the
+     *         receiver could not be reached at all
+     */
+    public boolean isConnectionFailure() {
+        return connectionFailure;
+    }
+
+    @Override
+    public boolean sendMessage() {
+        errors = new ArrayList<>();
+        connectionFailure = false;
+
+        if (GenericValidator.isBlankOrNull(message) || GenericValidator.isBlankOrNull(url)) {
+            errors.add("send message The " + (message == null ? " message " : "url") + " is null");
+            errors.add("Application not configured correctly for sending results");
+            return false;
+        }
+
+        HttpPost httpPost = new HttpPost(url);
+        httpPost.setEntity(new StringEntity(message, ContentType.create("text/plain", StandardCharsets.UTF_8)));
+
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            returnStatus = response.getStatusLine().getStatusCode();
+            // the response has to be read to the end for the connection to go back to
+            // the pool
+            EntityUtils.consume(response.getEntity());
+            setPossibleErrors();
+        } catch (SocketTimeoutException | ConnectTimeoutException e) {
+            returnStatus = HttpServletResponse.SC_REQUEST_TIMEOUT;
+            connectionFailure = true;
+            errors.add(e.getMessage() + " " + url);
+            LogEvent.logError(e.toString(), e);
+        } catch (ConnectException e) {
+            returnStatus = HttpServletResponse.SC_BAD_REQUEST;
+            connectionFailure = true;
+            errors.add(MessageUtil.getMessage("http.error.noconnection") + " " + url);
+            LogEvent.logError(e.toString(), e);
+        } catch (UnknownHostException e) {
+            returnStatus = HttpServletResponse.SC_NOT_FOUND;
+            connectionFailure = true;
+            errors.add(MessageUtil.getMessage("http.error.unknownhost") + " " + url);
+            LogEvent.logError(e.toString(), e);
+        } catch (IOException e) {
+            errors.add(MessageUtil.getMessage("http.error.io") + " " + url);
+            connectionFailure = true;
+            LogEvent.logError(e.toString(), e);
+        }
+
+        return returnStatus == HttpServletResponse.SC_OK;
+    }
+
+    private void setPossibleErrors() {
+        switch (returnStatus) {
+        case HttpServletResponse.SC_UNAUTHORIZED: {
+            errors.add(MessageUtil.getMessage("http.error.authorization") + url);
+            break;
+        }
+        case HttpServletResponse.SC_INTERNAL_SERVER_ERROR: {
+            errors.add(MessageUtil.getMessage("http.error.internal") + url);
+            break;
+        }
+        case HttpServletResponse.SC_CONFLICT:
+        case HttpServletResponse.SC_OK: {
+            break; // NO-OP
+        }
+        default: {
+            errors.add(MessageUtil.getMessage("http:error.unknown.status") + url);
+        }
+        }
+    }
+}
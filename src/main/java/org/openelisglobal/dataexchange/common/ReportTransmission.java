@@ -24,6 +24,8 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -32,6 +34,7 @@ import org.exolab.castor.mapping.MappingException;
 import org.exolab.castor.xml.MarshalException;
 import org.exolab.castor.xml.Marshaller;
 import org.exolab.castor.xml.ValidationException;
+import org.exolab.castor.xml.XMLContext;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.util.resources.ResourceLocator;
@@ -43,6 +46,9 @@ import org.xml.sax.InputSource;
 import ca.uhn.hl7v2.HL7Exception;
 
 public class ReportTransmission {
+    private static final ConcurrentMap<String, XMLContext> MAPPING_CONTEXTS = new ConcurrentHashMap<>();
+    private static volatile Properties transmissionMappings;
+
     public enum HTTP_TYPE {
         GET, POST
     }
@@ -63,16 +69,9 @@ public class ReportTransmission {
             ITransmissionResponseHandler responseHandler) {
 
         String xmlString = null;
-        String castorMappingName = getCastorMappingName(castorPropertyName);
-
-        InputSource source = getSource(castorMappingName);
 
-        Mapping castorMapping = new Mapping();
         try {
-            castorMapping.loadMapping(source);
-
-            Marshaller marshaller = new Marshaller();
-            marshaller.setMapping(castorMapping);
+            Marshaller marshaller = getMappingContext(castorPropertyName).createMarshaller();
             Writer writer = new StringWriter();
             marshaller.setWriter(writer);
             marshaller.marshal(reportObject);
@@ -86,12 +85,6 @@ public class ReportTransmission {
             responseHandler.handleResponse(HttpServletResponse.SC_BAD_REQUEST, errors, xmlString);
         } catch (ValidationException | MarshalException | IOException | MappingException e) {
             LogEvent.logError(e.toString(), e);
-        } finally {
-            try {
-                source.getByteStream().close();
-            } catch (IOException e) {
-                LogEvent.logError(e);
-            }
         }
 
     }
@@ -131,7 +124,47 @@ public class ReportTransmission {
 
     }
 
-    private String getCastorMappingName(String mapping) {
+    /*
+     * Loading a mapping parses and resolves the whole mapping file, so it is done
+     * once per property name. The context can be shared between threads, the
+     * marshallers it creates can not.
+     */
+    private XMLContext getMappingContext(String castorPropertyName) throws MappingException, IOException {
+        XMLContext context = MAPPING_CONTEXTS.get(castorPropertyName);
+        if (context == null) {
+            context = loadMappingContext(castorPropertyName);
+            XMLContext existing = MAPPING_CONTEXTS.putIfAbsent(castorPropertyName, context);
+            if (existing != null) {
+                context = existing;
+            }
+        }
+        return context;
+    }
+
+    private XMLContext loadMappingContext(String castorPropertyName) throws MappingException, IOException {
+        InputSource source = getSource(getCastorMappingName(castorPropertyName));
+        try {
+            Mapping castorMapping = new Mapping();
+            castorMapping.loadMapping(source);
+
+            XMLContext context = new XMLContext();
+            context.addMapping(castorMapping);
+            return context;
+        } finally {
+            source.getByteStream().close();
+        }
+    }
+
+    private static String getCastorMappingName(String mapping) {
+        Properties transmissionMap = transmissionMappings;
+        if (transmissionMap == null) {
+            transmissionMap = loadTransmissionMappings();
+            transmissionMappings = transmissionMap;
+        }
+        return transmissionMap.getProperty(mapping);
+    }
+
+    private static Properties loadTransmissionMappings() {
         InputStream propertyStream = null;
 
         ResourceLocator resourceLocator = ResourceLocator.getInstance();
@@ -153,8 +186,7 @@ public class ReportTransmission {
             }
         }
 
-        String castorMappingName = transmissionMap.getProperty(mapping);
-        return castorMappingName;
+        return transmissionMap;
     }
 
     protected InputSource getSource(String castorMappingName) {
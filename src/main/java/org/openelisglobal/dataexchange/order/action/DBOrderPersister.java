@@ -67,8 +67,6 @@ public class DBOrderPersister implements IOrderPersister {
     @Autowired
     private PatientService patientService;
 
-    private Patient patient;
-
     @PostConstruct
     public void initializeGlobalVariables() {
         SystemUser serviceUser = systemUserService.getDataForLoginUser("serviceUser");
@@ -85,16 +83,19 @@ public class DBOrderPersister implements IOrderPersister {
         return type == null ? null : type.getId();
     }
 
-    private void persist(MessagePatient orderPatient) {
-        patient = patientService.getPatientByExternalId(orderPatient.getExternalId());
+    // orders are persisted by several ingestion workers at once, so the patient
+    // is passed along rather than kept in a field
+    private Patient persist(MessagePatient orderPatient) {
+        Patient patient = patientService.getPatientByExternalId(orderPatient.getExternalId());
         if (patient == null) {
-            createNewPatient(orderPatient);
+            patient = createNewPatient(orderPatient);
         } else {
             updatePatient(orderPatient, patient);
         }
+        return patient;
     }
 
-    private void createNewPatient(MessagePatient orderPatient) {
+    private Patient createNewPatient(MessagePatient orderPatient) {
         Person person = new Person();
         person.setFirstName(orderPatient.getFirstName());
         person.setLastName(orderPatient.getLastName());
@@ -102,7 +103,7 @@ public class DBOrderPersister implements IOrderPersister {
         person.setCity(orderPatient.getAddressVillage());
         person.setSysUserId(SERVICE_USER_ID);
 
-        patient = new Patient();
+        Patient patient = new Patient();
         patient.setBirthDateForDisplay(orderPatient.getDisplayDOB());
         patient.setGender(orderPatient.getGender());
         patient.setNationalId(orderPatient.getNationalId());
@@ -126,6 +127,7 @@ public class DBOrderPersister implements IOrderPersister {
             identity.setPatientId(patient.getId());
             identityService.insert(identity);
         }
+        return patient;
     }
 
     private void addIdentityIfAppropriate(String typeId, String value, List<PatientIdentity> identities) {
@@ -241,8 +243,7 @@ public class DBOrderPersister implements IOrderPersister {
     @Transactional
     public void persist(MessagePatient orderPatient, ElectronicOrder eOrder) {
         try {
-            persist(orderPatient);
-            eOrder.setPatient(patient);
+            eOrder.setPatient(persist(orderPatient));
             eOrderService.insert(eOrder);
         } catch (RuntimeException e) {
             LogEvent.logErrorStack(e);
@@ -27,6 +27,7 @@ import org.openelisglobal.common.util.DateUtil;
 import org.openelisglobal.test.service.TestService;
 import org.openelisglobal.test.valueholder.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
 import ca.uhn.hl7v2.HL7Exception;
@@ -40,6 +41,7 @@ import ca.uhn.hl7v2.model.v251.segment.ORC;
 import ca.uhn.hl7v2.model.v251.segment.PID;
 
 @Service
+@Scope("prototype")
 public class HL7OrderInterpreter implements IOrderInterpreter {
 
     public enum IdentityType {
@@ -0,0 +1,230 @@
+package org.openelisglobal.dataexchange.order.action;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.apache.commons.validator.GenericValidator;
+import org.openelisglobal.common.log.LogEvent;
+import org.openelisglobal.common.services.TableQueue;
+import org.openelisglobal.common.util.ConfigurationProperties;
+import org.openelisglobal.common.util.ConfigurationProperties.Property;
+import org.openelisglobal.dataexchange.order.action.OrderWorker.OrderResult;
+import org.openelisglobal.spring.util.SpringContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ca.uhn.hl7v2.DefaultHapiContext;
+import ca.uhn.hl7v2.HL7Exception;
+import ca.uhn.hl7v2.HapiContext;
+import ca.uhn.hl7v2.model.Message;
+
+/**
+ * HL7 orders that have been validated and acknowledged but not yet persisted
+ * (see liquibase order_ingestion_queue). The queue is a table so that an
+ * acknowledged order survives a restart.
+ *
+ * Only the oldest pending order of a patient is claimed, and it stays the
+ * oldest while it is being retried, so the orders of one patient are persisted
+ * one at a time in the order they were received while orders for different
+ * patients are persisted in parallel (see {@link TableQueue}). An order that
+ * fails is retried after a delay that grows with each attempt, and once it has
+ * been given up on the patient's later orders go ahead. Persisting is
+ * idempotent on the external order id: an order persisted a second time, for
+ * instance after a restart part way through, is found by the existence check
+ * and recorded as a duplicate.
+ */
+@Component
+public class OrderIngestionQueue {
+
+    private static final long POLL_DELAY = 1000;
+    private static final long ONE_DAY = 1000L * 60 * 60 * 24;
+    private static final int DEFAULT_WORKERS = 4;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_DELAY_MILLIS = 1000L * 60;
+    private static final long DONE_RETENTION_MILLIS = ONE_DAY * 30;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final HapiContext hapiContext = new DefaultHapiContext();
+    private final AtomicLong ingestedCount = new AtomicLong();
+    private final AtomicLong latencyMillisTotal = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+    private TableQueue<QueuedOrder> queue;
+    // set once nothing is left to persist after switching to synchronous ingestion
+    private volatile boolean drained;
+
+    @PostConstruct
+    public void startWorkers() {
+        queue = new TableQueue<>(dataSource, "clinlims.order_ingestion_queue", new String[] { "patient_key" },
+                "result", MAX_ATTEMPTS, RETRY_DELAY_MILLIS);
+        queue.start(TableQueue.getConfiguredThreads(Property.ORDER_INGESTION_WORKERS, DEFAULT_WORKERS));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queue.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return ConfigurationProperties.getInstance().isPropertyValueEqual(Property.ORDER_INGESTION_ASYNC, "true");
+    }
+
+    /**
+     * Queue an order that passed validation. A message that is resent while the
+     * first copy is still queued is only queued once.
+     *
+     * @throws SQLException if the order could not be queued, in which case it must
+     *                      not be acknowledged
+     */
+    public void enqueue(IOrderInterpreter interpreter, Message message) throws SQLException, HL7Exception {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "insert into clinlims.order_ingestion_queue"
+                                + " (external_id, patient_key, message, received, next_attempt)"
+                                + " values (?, ?, ?, ?, ?) on conflict (external_id, md5(message))"
+                                + " where status in ('Q', 'P') do nothing")) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            statement.setString(1, interpreter.getReferringOrderNumber());
+            statement.setString(2, getPatientKey(interpreter));
+            statement.setString(3, message.encode());
+            statement.setTimestamp(4, now);
+            statement.setTimestamp(5, now);
+            statement.executeUpdate();
+        }
+    }
+
+    @Scheduled(initialDelay = 1000 * 30, fixedDelay = POLL_DELAY)
+    public void dispatchQueuedOrders() {
+        if (isEnabled()) {
+            drained = false;
+        } else if (drained) {
+            // orders are only queued in asynchronous mode
+            return;
+        } else {
+            try {
+                drained = !queue.hasPending();
+            } catch (SQLException e) {
+                LogEvent.logError("OrderIngestionQueue", "dispatchQueuedOrders()",
+                        "unable to read order ingestion queue: " + e.getMessage());
+                return;
+            }
+            if (drained) {
+                return;
+            }
+        }
+        queue.dispatch("message, received", resultSet -> new QueuedOrder(resultSet.getString("message"),
+                resultSet.getTimestamp("received")), this::persist);
+    }
+
+    @Scheduled(initialDelay = 1000 * 60, fixedDelay = ONE_DAY)
+    public void purgeDoneOrders() {
+        queue.purgeDone(DONE_RETENTION_MILLIS);
+    }
+
+    /**
+     * @return the number of orders waiting to be persisted, including those being
+     *         persisted
+     */
+    public long getQueueDepth() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "select count(*) from clinlims.order_ingestion_queue where status in ('Q', 'P')");
+                ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * @return how long the oldest order waiting to be persisted has waited, 0 if
+     *         none are waiting
+     */
+    public long getOldestQueuedMillis() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "select min(received) from clinlims.order_ingestion_queue where status in ('Q', 'P')");
+                ResultSet resultSet = statement.executeQuery()) {
+            Timestamp oldest = resultSet.next() ? resultSet.getTimestamp(1) : null;
+            return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getTime());
+        }
+    }
+
+    /**
+     * @return the number of orders that failed every attempt to persist them
+     */
+    public long getFailedCount() throws SQLException {
+        return queue.count("F");
+    }
+
+    /**
+     * @return the number of queued orders handled since startup
+     */
+    public long getIngestedCount() {
+        return ingestedCount.get();
+    }
+
+    /**
+     * @return the total time from receiving to handling the orders counted by
+     *         {@link #getIngestedCount()}
+     */
+    public long getLatencyMillisTotal() {
+        return latencyMillisTotal.get();
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    public int getWorkerCount() {
+        return queue.getThreadCount();
+    }
+
+    private String persist(QueuedOrder order) throws HL7Exception {
+        OrderWorker worker = new OrderWorker(hapiContext.getPipeParser().parse(order.message));
+        worker.setInterpreter(SpringContext.getBean(HL7OrderInterpreter.class));
+        worker.setExistanceChecker(SpringContext.getBean(DBOrderExistanceChecker.class));
+        worker.setPersister(SpringContext.getBean(DBOrderPersister.class));
+
+        OrderResult orderResult = worker.handleOrderRequest();
+        String result = orderResult.toString();
+        if (orderResult != OrderResult.OK && worker.getExistanceCheckResult() != null) {
+            result += " : " + worker.getExistanceCheckResult().toString();
+        }
+
+        long latency = System.currentTimeMillis() - order.received.getTime();
+        ingestedCount.incrementAndGet();
+        latencyMillisTotal.addAndGet(latency);
+        maxLatencyMillis.accumulateAndGet(latency, Math::max);
+        return result;
+    }
+
+    private String getPatientKey(IOrderInterpreter interpreter) {
+        MessagePatient patient = interpreter.getMessagePatient();
+        if (patient != null && !GenericValidator.isBlankOrNull(patient.getGuid())) {
+            return patient.getGuid();
+        }
+        if (patient != null && !GenericValidator.isBlankOrNull(patient.getExternalId())) {
+            return patient.getExternalId();
+        }
+        return interpreter.getReferringOrderNumber();
+    }
+
+    private static class QueuedOrder {
+        private final String message;
+        private final Timestamp received;
+
+        private QueuedOrder(String message, Timestamp received) {
+            this.message = message;
+            this.received = received;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.openelisglobal.dataexchange.order.action;
 
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 
@@ -69,12 +70,28 @@ public class OrderServlet extends HohServlet {
             // TO DO add message signature verification for authentication of messages
 
             OrderWorker worker = new OrderWorker(message);
+            IOrderInterpreter interpreter = SpringContext.getBean(HL7OrderInterpreter.class);
 
-            worker.setInterpreter(SpringContext.getBean(HL7OrderInterpreter.class));
+            worker.setInterpreter(interpreter);
             worker.setExistanceChecker(SpringContext.getBean(DBOrderExistanceChecker.class));
             worker.setPersister(SpringContext.getBean(DBOrderPersister.class));
 
-            OrderResult orderResult = worker.handleOrderRequest();
+            OrderResult orderResult;
+            OrderIngestionQueue ingestionQueue = SpringContext.getBean(OrderIngestionQueue.class);
+            if (ingestionQueue.isEnabled()) {
+                // acknowledge as soon as the order is safely queued, duplicates and
+                // cancels that can't be done are recorded in the queue
+                orderResult = worker.validateOrderRequest();
+                if (orderResult == OrderResult.OK) {
+                    try {
+                        ingestionQueue.enqueue(interpreter, message);
+                    } catch (SQLException e) {
+                        throw new ReceivingApplicationException(e);
+                    }
+                }
+            } else {
+                orderResult = worker.handleOrderRequest();
+            }
 
             // ACK response = null;
             ORL_O22 response = null;
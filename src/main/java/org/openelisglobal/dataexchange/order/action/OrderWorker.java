@@ -85,14 +85,28 @@ public class OrderWorker {
         return checkResult;
     }
 
+    /**
+     * Interpret the message without looking for or persisting the order, so that a
+     * message can be acknowledged before it is persisted
+     *
+     * @return OK or MESSAGE_ERROR
+     */
+    public OrderResult validateOrderRequest() throws IllegalStateException {
+        if (interpreter == null) {
+            throw new IllegalStateException("Interpreter has not been set");
+        }
+
+        interpretResults = interpreter.interpret(orderMessage);
+
+        return interpretResults.get(0) == InterpreterResults.OK ? OrderResult.OK : OrderResult.MESSAGE_ERROR;
+    }
+
     public OrderResult handleOrderRequest() throws IllegalStateException {
         if (interpreter == null || persister == null || existanceChecker == null) {
             throw new IllegalStateException("Interpreter, existanceChecker or persister have not been set");
         }
 
-        interpretResults = interpreter.interpret(orderMessage);
-
-        if (interpretResults.get(0) == InterpreterResults.OK) {
+        if (validateOrderRequest() == OrderResult.OK) {
             String referringOrderNumber = interpreter.getReferringOrderNumber();
             String message = interpreter.getMessage();
             OrderType orderType = interpreter.getOrderType();
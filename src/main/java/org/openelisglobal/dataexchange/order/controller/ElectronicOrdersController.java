@@ -1,11 +1,23 @@
 package org.openelisglobal.dataexchange.order.controller;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import org.apache.commons.validator.GenericValidator;
 import org.openelisglobal.common.controller.BaseController;
+import org.openelisglobal.common.services.IStatusService;
+import org.openelisglobal.common.services.StatusService;
+import org.openelisglobal.common.services.StatusService.ExternalOrderStatus;
+import org.openelisglobal.common.util.DateUtil;
+import org.openelisglobal.common.util.IdValuePair;
 import org.openelisglobal.dataexchange.order.ElectronicOrderSortOrderCategoryConvertor;
 import org.openelisglobal.dataexchange.order.form.ElectronicOrderViewForm;
 import org.openelisglobal.dataexchange.order.valueholder.ElectronicOrder;
@@ -19,12 +31,14 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
 @Controller
 public class ElectronicOrdersController extends BaseController {
 
     private static final String[] ALLOWED_FIELDS = new String[] {};
+    private static final int PAGE_SIZE = 50;
 
     @Autowired
     private StatusOfSampleService statusOfSampleService;
@@ -45,31 +59,80 @@ public class ElectronicOrdersController extends BaseController {
         if (result.hasErrors()) {
             saveErrors(result);
             form.setSortOrder(ElectronicOrder.SortOrder.LAST_UPDATED);
-            form.setPage(1);
+            form.setAfter(null);
+            form.setBefore(null);
+            form.setStatusId(null);
+            form.setStartDate(null);
+            form.setEndDate(null);
         }
 
-        List<ElectronicOrder> eOrders = electronicOrderService.getAllElectronicOrdersOrderedBy(form.getSortOrder());
-
-        // correct for proper bounds
-        int startIndex = (form.getPage() - 1) * 50;
-        startIndex = startIndex > eOrders.size() ? 0 : startIndex;
-        int endIndex = startIndex + 50 > eOrders.size() ? eOrders.size() : startIndex + 50;
-
-        // set attributes for use in jsp
-        request.setAttribute("startIndex", startIndex);
-        request.setAttribute("endIndex", endIndex);
-        request.setAttribute("total", eOrders.size());
+        boolean backwards = !GenericValidator.isBlankOrNull(form.getBefore());
+        String boundaryId = backwards ? form.getBefore() : blankToNull(form.getAfter());
+        Timestamp updatedFrom = GenericValidator.isBlankOrNull(form.getStartDate()) ? null
+                : DateUtil.convertStringDateToTruncatedTimestamp(form.getStartDate());
+        Timestamp updatedTo = GenericValidator.isBlankOrNull(form.getEndDate()) ? null
+                : getDayAfter(DateUtil.convertStringDateToTruncatedTimestamp(form.getEndDate()));
+
+        // one extra order tells whether there is another page
+        List<ElectronicOrder> eOrders = electronicOrderService.getElectronicOrderPage(form.getSortOrder(),
+                blankToNull(form.getStatusId()), updatedFrom, updatedTo, boundaryId, backwards, PAGE_SIZE + 1);
+        boolean morePages = eOrders.size() > PAGE_SIZE;
+        if (morePages) {
+            eOrders = backwards ? eOrders.subList(1, eOrders.size()) : eOrders.subList(0, PAGE_SIZE);
+        }
+        form.setHasNextPage(backwards || morePages);
+        form.setHasPreviousPage(backwards ? morePages : boundaryId != null);
 
-        // get section of list for display on current page
-        eOrders = eOrders.subList(startIndex, endIndex);
         for (ElectronicOrder eOrder : eOrders) {
             eOrder.setStatus(statusOfSampleService.get(eOrder.getStatusId()));
         }
         form.setEOrders(eOrders);
+        form.setStatusOptions(createStatusOptions());
 
         return findForward(FWD_SUCCESS, form);
     }
 
+    /*
+     * the message of one order, which the inbox loads when it is shown
+     */
+    @RequestMapping(value = "/ElectronicOrders", method = RequestMethod.GET, params = "messageId")
+    public void showElectronicOrderMessage(@RequestParam("messageId") String messageId, HttpServletResponse response)
+            throws IOException {
+        String message = messageId.matches("^[0-9]+$") ? electronicOrderService.getElectronicOrderData(messageId)
+                : null;
+        if (message == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setContentType("text/plain; charset=UTF-8");
+        PrintWriter out = response.getWriter();
+        out.write(message);
+        out.flush();
+    }
+
+    private List<IdValuePair> createStatusOptions() {
+        IStatusService statusService = StatusService.getInstance();
+        List<IdValuePair> statusOptions = new ArrayList<>();
+        for (ExternalOrderStatus status : ExternalOrderStatus.values()) {
+            String statusId = statusService.getStatusID(status);
+            if (!"-1".equals(statusId)) {
+                statusOptions.add(new IdValuePair(statusId, statusOfSampleService.get(statusId).getLocalizedName()));
+            }
+        }
+        return statusOptions;
+    }
+
+    private Timestamp getDayAfter(Timestamp day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(day);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return new Timestamp(calendar.getTimeInMillis());
+    }
+
+    private String blankToNull(String value) {
+        return GenericValidator.isBlankOrNull(value) ? null : value;
+    }
+
     @Override
     protected String findLocalForward(String forward) {
         if (FWD_SUCCESS.equals(forward)) {
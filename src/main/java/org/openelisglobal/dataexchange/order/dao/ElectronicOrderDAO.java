@@ -16,6 +16,7 @@
 */
 package org.openelisglobal.dataexchange.order.dao;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 import org.openelisglobal.common.dao.BaseDAO;
@@ -34,4 +35,21 @@ public interface ElectronicOrderDAO extends BaseDAO<ElectronicOrder, String> {
 
     List<ElectronicOrder> getAllElectronicOrdersOrderedBy(ElectronicOrder.SortOrder order);
 
+    /**
+     * One page of orders without their messages, read with a keyset so the cost
+     * does not grow with the number of orders received.
+     *
+     * @param statusId    only orders with this status, or null for all
+     * @param updatedFrom only orders last updated at or after this, or null
+     * @param updatedTo   only orders last updated before this, or null
+     * @param boundaryId  the order the page starts after, or ends before, null
+     *                    for the first page
+     * @param before      true for the page ending before the boundary
+     */
+    List<ElectronicOrder> getElectronicOrderPage(ElectronicOrder.SortOrder order, String statusId,
+            Timestamp updatedFrom, Timestamp updatedTo, String boundaryId, boolean before, int maxResults)
+            throws LIMSRuntimeException;
+
+    String getElectronicOrderData(String id) throws LIMSRuntimeException;
+
 }
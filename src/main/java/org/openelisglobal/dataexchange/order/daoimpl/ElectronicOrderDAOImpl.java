@@ -16,6 +16,9 @@
  */
 package org.openelisglobal.dataexchange.order.daoimpl;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Vector;
 
@@ -27,6 +30,7 @@ import org.openelisglobal.common.daoimpl.BaseDAOImpl;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.dataexchange.order.dao.ElectronicOrderDAO;
 import org.openelisglobal.dataexchange.order.valueholder.ElectronicOrder;
+import org.openelisglobal.patient.valueholder.Patient;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -161,4 +165,121 @@ public class ElectronicOrderDAOImpl extends BaseDAOImpl<ElectronicOrder, String>
         return list;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ElectronicOrder> getElectronicOrderPage(ElectronicOrder.SortOrder order, String statusId,
+            Timestamp updatedFrom, Timestamp updatedTo, String boundaryId, boolean before, int maxResults)
+            throws LIMSRuntimeException {
+        // the message itself is left out, it is only read when it is shown
+        StringBuilder hql = new StringBuilder(
+                "select eo.id, eo.externalId, eo.statusId, eo.orderTimestamp, eo.lastupdated, p, per"
+                        + " from ElectronicOrder eo left join eo.patient p left join p.person per where 1 = 1");
+        String sortProperty = getSortProperty(order);
+
+        try {
+            Object[] boundary = null;
+            if (boundaryId != null) {
+                boundary = (Object[]) entityManager.unwrap(Session.class)
+                        .createQuery("select eo.externalId, eo.statusId, eo.lastupdated, eo.id"
+                                + " from ElectronicOrder eo where eo.id = :id")
+                        .setParameter("id", boundaryId).uniqueResult();
+                if (boundary == null) {
+                    return new ArrayList<>();
+                }
+            }
+
+            if (statusId != null) {
+                hql.append(" and eo.statusId = :statusId");
+            }
+            if (updatedFrom != null) {
+                hql.append(" and eo.lastupdated >= :updatedFrom");
+            }
+            if (updatedTo != null) {
+                hql.append(" and eo.lastupdated < :updatedTo");
+            }
+            if (boundary != null) {
+                // keyset on (sort property ascending, lastupdated descending, id
+                // descending), flipped when reading the page before the boundary
+                String newer = before ? ">" : "<";
+                String keyset = "(eo.lastupdated " + newer + " :boundaryUpdated or (eo.lastupdated = :boundaryUpdated"
+                        + " and eo.id " + newer + " :boundaryId))";
+                if (sortProperty != null) {
+                    keyset = "(eo." + sortProperty + (before ? " < " : " > ") + ":boundarySort or (eo." + sortProperty
+                            + " = :boundarySort and " + keyset + "))";
+                }
+                hql.append(" and ").append(keyset);
+            }
+
+            String ascending = before ? "desc" : "asc";
+            String descending = before ? "asc" : "desc";
+            hql.append(" order by ");
+            if (sortProperty != null) {
+                hql.append("eo.").append(sortProperty).append(" ").append(ascending).append(", ");
+            }
+            hql.append("eo.lastupdated ").append(descending).append(", eo.id ").append(descending);
+
+            Query query = entityManager.unwrap(Session.class).createQuery(hql.toString());
+            if (statusId != null) {
+                query.setParameter("statusId", statusId);
+            }
+            if (updatedFrom != null) {
+                query.setParameter("updatedFrom", updatedFrom);
+            }
+            if (updatedTo != null) {
+                query.setParameter("updatedTo", updatedTo);
+            }
+            if (boundary != null) {
+                query.setParameter("boundaryUpdated", boundary[2]);
+                query.setParameter("boundaryId", boundary[3]);
+                if (sortProperty != null) {
+                    query.setParameter("boundarySort", "externalId".equals(sortProperty) ? boundary[0] : boundary[1]);
+                }
+            }
+            query.setMaxResults(maxResults);
+
+            List<Object[]> rows = query.list();
+            List<ElectronicOrder> eOrders = new ArrayList<>();
+            for (Object[] row : rows) {
+                ElectronicOrder eOrder = new ElectronicOrder();
+                eOrder.setId((String) row[0]);
+                eOrder.setExternalId((String) row[1]);
+                eOrder.setStatusId((String) row[2]);
+                eOrder.setOrderTimestamp((Timestamp) row[3]);
+                eOrder.setLastupdated((Timestamp) row[4]);
+                eOrder.setPatient((Patient) row[5]);
+                eOrders.add(eOrder);
+            }
+            if (before) {
+                Collections.reverse(eOrders);
+            }
+            return eOrders;
+        } catch (HibernateException e) {
+            handleException(e, "getElectronicOrderPage");
+        }
+        return null;
+    }
+
+    private String getSortProperty(ElectronicOrder.SortOrder order) {
+        switch (order) {
+        case EXTERNAL_ID:
+            return "externalId";
+        case STATUS_ID:
+            return "statusId";
+        default:
+            return null;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getElectronicOrderData(String id) throws LIMSRuntimeException {
+        try {
+            return (String) entityManager.unwrap(Session.class)
+                    .createQuery("select eo.data from ElectronicOrder eo where eo.id = :id").setParameter("id", id)
+                    .uniqueResult();
+        } catch (HibernateException e) {
+            handleException(e, "getElectronicOrderData");
+        }
+        return null;
+    }
 }
@@ -2,26 +2,52 @@ package org.openelisglobal.dataexchange.order.form;
 
 import java.util.List;
 
-import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 
 import org.openelisglobal.common.form.BaseForm;
+import org.openelisglobal.common.util.IdValuePair;
+import org.openelisglobal.common.validator.ValidationHelper;
 import org.openelisglobal.dataexchange.order.valueholder.ElectronicOrder;
 import org.openelisglobal.dataexchange.order.valueholder.ElectronicOrder.SortOrder;
+import org.openelisglobal.validation.annotations.ValidDate;
 
 public class ElectronicOrderViewForm extends BaseForm {
     @NotNull
     private ElectronicOrder.SortOrder sortOrder = ElectronicOrder.SortOrder.LAST_UPDATED;
 
-    @Min(1)
-    private int page = 1;
+    // the id of the last order of the previous page
+    @Pattern(regexp = ValidationHelper.ID_REGEX)
+    private String after;
+
+    // the id of the first order of the next page
+    @Pattern(regexp = ValidationHelper.ID_REGEX)
+    private String before;
+
+    @Pattern(regexp = ValidationHelper.ID_REGEX)
+    private String statusId;
+
+    @ValidDate
+    private String startDate;
+
+    @ValidDate
+    private String endDate;
 
     // for display
     private List<ElectronicOrder> eOrders;
 
+    // for display
+    private boolean hasNextPage;
+
+    // for display
+    private boolean hasPreviousPage;
+
     // for display
     private SortOrder[] sortOrderOptions = ElectronicOrder.SortOrder.values();
 
+    // for display
+    private List<IdValuePair> statusOptions;
+
     public ElectronicOrderViewForm() {
         setFormName("ElectronicOrderViewForm");
     }
@@ -34,12 +60,44 @@ public class ElectronicOrderViewForm extends BaseForm {
         sortOrder = sortBy;
     }
 
-    public int getPage() {
-        return page;
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public String getBefore() {
+        return before;
+    }
+
+    public void setBefore(String before) {
+        this.before = before;
+    }
+
+    public String getStatusId() {
+        return statusId;
+    }
+
+    public void setStatusId(String statusId) {
+        this.statusId = statusId;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
     }
 
-    public void setPage(int page) {
-        this.page = page;
+    public String getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
     }
 
     public List<ElectronicOrder> getEOrders() {
@@ -50,6 +108,22 @@ public class ElectronicOrderViewForm extends BaseForm {
         this.eOrders = eOrders;
     }
 
+    public boolean getHasNextPage() {
+        return hasNextPage;
+    }
+
+    public void setHasNextPage(boolean hasNextPage) {
+        this.hasNextPage = hasNextPage;
+    }
+
+    public boolean getHasPreviousPage() {
+        return hasPreviousPage;
+    }
+
+    public void setHasPreviousPage(boolean hasPreviousPage) {
+        this.hasPreviousPage = hasPreviousPage;
+    }
+
     public SortOrder[] getSortOrderOptions() {
         return sortOrderOptions;
     }
@@ -57,4 +131,12 @@ public class ElectronicOrderViewForm extends BaseForm {
     public void setSortOrderOptions(SortOrder[] sortOrderOptions) {
         this.sortOrderOptions = sortOrderOptions;
     }
+
+    public List<IdValuePair> getStatusOptions() {
+        return statusOptions;
+    }
+
+    public void setStatusOptions(List<IdValuePair> statusOptions) {
+        this.statusOptions = statusOptions;
+    }
 }
@@ -16,47 +16,37 @@
  */
 package org.openelisglobal.dataexchange.resultreporting;
 
-import java.sql.Timestamp;
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
-import javax.servlet.http.HttpServletResponse;
-
+import org.apache.commons.validator.GenericValidator;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
-import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.util.DateUtil;
 import org.openelisglobal.dataexchange.aggregatereporting.valueholder.ReportExternalExport;
 import org.openelisglobal.dataexchange.aggregatereporting.valueholder.ReportQueueType;
-import org.openelisglobal.dataexchange.common.ITransmissionResponseHandler;
-import org.openelisglobal.dataexchange.common.ReportTransmission;
+import org.openelisglobal.dataexchange.orderresult.OrderResponseWorker;
 import org.openelisglobal.dataexchange.orderresult.OrderResponseWorker.Event;
 import org.openelisglobal.dataexchange.orderresult.valueholder.HL7MessageOut;
 import org.openelisglobal.dataexchange.resultreporting.beans.ResultReportXmit;
+import org.openelisglobal.dataexchange.resultreporting.beans.TestResultsXmit;
 import org.openelisglobal.dataexchange.service.aggregatereporting.ReportExternalExportService;
 import org.openelisglobal.dataexchange.service.aggregatereporting.ReportQueueTypeService;
-import org.openelisglobal.dataexchange.service.orderresult.HL7MessageOutService;
-import org.openelisglobal.referencetables.service.ReferenceTablesService;
-import org.openelisglobal.referencetables.valueholder.ReferenceTables;
-import org.openelisglobal.reports.service.DocumentTrackService;
-import org.openelisglobal.reports.service.DocumentTypeService;
-import org.openelisglobal.reports.valueholder.DocumentTrack;
-import org.openelisglobal.reports.valueholder.DocumentType;
 import org.openelisglobal.result.valueholder.Result;
 import org.openelisglobal.spring.util.SpringContext;
 
+import ca.uhn.hl7v2.HL7Exception;
+
+/**
+ * Puts result reports in the outbox (report_external_export) for the
+ * ResultExporter to deliver over its pooled client. The HL7 message and its
+ * outbox row are written in one transaction, the caller's if there is one, so
+ * a report can't be lost between being built and being sent.
+ */
 public class ResultReportingTransfer {
 
-    private static DocumentType DOCUMENT_TYPE;
     private static String QUEUE_TYPE_ID;
-    private static String RESULT_REFERRANCE_TABLE_ID;
 
     static {
-        DOCUMENT_TYPE = SpringContext.getBean(DocumentTypeService.class).getDocumentTypeByName("resultExport");
-        ReferenceTables referenceTable = SpringContext.getBean(ReferenceTablesService.class)
-                .getReferenceTableByName("RESULT");
-        if (referenceTable != null) {
-            RESULT_REFERRANCE_TABLE_ID = referenceTable.getId();
-        }
         ReportQueueType queueType = SpringContext.getBean(ReportQueueTypeService.class)
                 .getReportQueueTypeByName("Results");
         if (queueType != null) {
@@ -64,106 +54,79 @@ public class ResultReportingTransfer {
         }
     }
 
+    /**
+     * @param url not used, the exporter delivers to the configured result
+     *            reporting url
+     * @throws LIMSRuntimeException if the report could not be queued, so that the
+     *                              result event is tried again
+     */
     public void sendResults(ResultReportXmit resultReport, List<Result> reportingResult, String url) {
 
         if (resultReport.getTestResults() == null || resultReport.getTestResults().isEmpty()) {
             return;
         }
 
-        ITransmissionResponseHandler responseHandler = new ResultFailHandler(reportingResult);
-        new ReportTransmission().sendHL7Report(resultReport, url, responseHandler);
-    }
-
-    class ResultFailHandler implements ITransmissionResponseHandler {
-
-        private List<Result> reportingResults;
-
-        public ResultFailHandler(List<Result> reportingResults) {
-            this.reportingResults = reportingResults;
+        String message;
+        try {
+            OrderResponseWorker orWorker = SpringContext.getBean(OrderResponseWorker.class);
+            orWorker.createReport(resultReport);
+            message = orWorker.getHl7Message().encode();
+        } catch (HL7Exception | IOException e) {
+            throw new LIMSRuntimeException("Unable to create result report message", e);
         }
 
-        @Override
-        public void handleResponse(int httpReturnStatus, List<String> errors, String msg) {
-            if (httpReturnStatus == HttpServletResponse.SC_OK) {
-                markFinalResultsAsSent();
-                persistMessage(msg, true);
-            } else {
-                bufferResults(msg);
-                persistMessage(msg, false);
-            }
-        }
+        // marked as a success by the exporter once the receiver has acknowledged it
+        HL7MessageOut messageOut = new HL7MessageOut();
+        messageOut.setData(message);
+        messageOut.setStatus(HL7MessageOut.FAIL);
+
+        ReportExternalExport report = new ReportExternalExport();
+        report.setData(message);
+        report.setSysUserId("1");
+        report.setEventDate(DateUtil.getNowAsTimestamp());
+        report.setCollectionDate(DateUtil.getNowAsTimestamp());
+        report.setTypeId(QUEUE_TYPE_ID);
+        report.setBookkeepingData(getTrackedResultIds(reportingResult));
+        report.setSend(true);
+        report.setPartitionKey(getPartitionKey(resultReport));
+
+        SpringContext.getBean(ReportExternalExportService.class).bufferUnsentMessage(report, messageOut);
+    }
 
-        private void persistMessage(String msg, boolean success) {
-            HL7MessageOutService messageOutService = SpringContext.getBean(HL7MessageOutService.class);
-            HL7MessageOut messageOut = new HL7MessageOut();
-            messageOut.setData(msg);
-            if (success) {
-                messageOut.setStatus(HL7MessageOut.SUCCESS);
-            } else {
-                messageOut.setStatus(HL7MessageOut.FAIL);
+    /*
+     * the reports of one patient, or of one sample if there is no patient, are
+     * delivered in the order they were queued
+     */
+    private String getPartitionKey(ResultReportXmit resultReport) {
+        for (TestResultsXmit testResults : resultReport.getTestResults()) {
+            if (!GenericValidator.isBlankOrNull(testResults.getPatientGUID())) {
+                return "patient:" + testResults.getPatientGUID();
             }
-            messageOutService.insert(messageOut);
-        }
-
-        private void bufferResults(String msg) {
-            ReportExternalExport report = new ReportExternalExport();
-            report.setData(msg);
-            report.setSysUserId("1");
-            report.setEventDate(DateUtil.getNowAsTimestamp());
-            report.setCollectionDate(DateUtil.getNowAsTimestamp());
-            report.setTypeId(QUEUE_TYPE_ID);
-            report.setBookkeepingData(getResultIdListString() == null ? "" : getResultIdListString());
-            report.setSend(true);
-
-            try {
-                SpringContext.getBean(ReportExternalExportService.class).insert(report);
-            } catch (LIMSRuntimeException e) {
-                LogEvent.logErrorStack(e);
+            if (!GenericValidator.isBlankOrNull(testResults.getAccessionNumber())) {
+                return "sample:" + testResults.getAccessionNumber();
             }
         }
+        return "none";
+    }
 
-        private String getResultIdListString() {
-            String comma = "";
+    /*
+     * the results recorded as sent once the report is delivered, only final
+     * results and corrections are tracked
+     */
+    private String getTrackedResultIds(List<Result> reportingResults) {
+        String comma = "";
 
-            StringBuilder builder = new StringBuilder();
+        StringBuilder builder = new StringBuilder();
 
-            for (Result result : reportingResults) {
+        for (Result result : reportingResults) {
+            if (result.getResultEvent() == Event.FINAL_RESULT || result.getResultEvent() == Event.CORRECTION) {
                 builder.append(comma); // empty first time through
                 builder.append(result.getId());
 
                 comma = ",";
             }
-
-            return builder.toString();
         }
 
-        private void markFinalResultsAsSent() {
-            Timestamp now = DateUtil.getNowAsTimestamp();
-
-            List<DocumentTrack> documents = new ArrayList<>();
-
-            for (Result result : reportingResults) {
-                if (result.getResultEvent() == Event.FINAL_RESULT || result.getResultEvent() == Event.CORRECTION) {
-                    DocumentTrack document = new DocumentTrack();
-                    document.setDocumentTypeId(DOCUMENT_TYPE.getId());
-                    document.setRecordId(result.getId());
-                    document.setReportTime(now);
-                    document.setTableId(RESULT_REFERRANCE_TABLE_ID);
-                    document.setSysUserId("1");
-                    documents.add(document);
-                }
-            }
-
-            DocumentTrackService trackService = SpringContext.getBean(DocumentTrackService.class);
-
-            try {
-                trackService.insertAll(documents);
-//				for (DocumentTrack document : documents) {
-//					trackService.insert(document);
-//				}
-            } catch (LIMSRuntimeException e) {
-                LogEvent.logErrorStack(e);
-            }
-        }
+        return builder.toString();
     }
 }
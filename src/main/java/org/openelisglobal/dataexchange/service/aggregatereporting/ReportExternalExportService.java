@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.openelisglobal.common.service.BaseObjectService;
 import org.openelisglobal.dataexchange.aggregatereporting.valueholder.ReportExternalExport;
+import org.openelisglobal.dataexchange.orderresult.valueholder.HL7MessageOut;
 
 public interface ReportExternalExportService extends BaseObjectService<ReportExternalExport, String> {
 
@@ -24,6 +25,19 @@ public interface ReportExternalExportService extends BaseObjectService<ReportExt
 
     List<ReportExternalExport> getUnsentReportExports(String reportQueueTypeId);
 
+    List<ReportExternalExport> getReportExportsDueForSending(String reportQueueTypeId, Timestamp now, int maxResults);
+
+    /**
+     * Queue a report for delivery together with its message, so that the
+     * acknowledgement can find the message by id
+     */
+    void bufferUnsentMessage(ReportExternalExport report, HL7MessageOut messageOut);
+
+    /**
+     * Count a failed delivery and hold the report back before it is tried again
+     */
+    void recordFailedSend(String reportId);
+
     List<ReportExternalExport> getRecalculateReportExports(String reportQueueTypeId);
 
     ReportExternalExport loadReport(ReportExternalExport report);
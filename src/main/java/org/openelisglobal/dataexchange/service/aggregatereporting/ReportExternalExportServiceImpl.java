@@ -6,6 +6,8 @@ import java.util.List;
 import org.openelisglobal.common.service.BaseObjectServiceImpl;
 import org.openelisglobal.dataexchange.aggregatereporting.dao.ReportExternalExportDAO;
 import org.openelisglobal.dataexchange.aggregatereporting.valueholder.ReportExternalExport;
+import org.openelisglobal.dataexchange.orderresult.valueholder.HL7MessageOut;
+import org.openelisglobal.dataexchange.service.orderresult.HL7MessageOutService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,8 +15,13 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class ReportExternalExportServiceImpl extends BaseObjectServiceImpl<ReportExternalExport, String>
         implements ReportExternalExportService {
+    private static final long FIRST_RETRY_DELAY = 1000L * 60;
+    private static final long MAX_RETRY_DELAY = 1000L * 60 * 60;
+
     @Autowired
     protected ReportExternalExportDAO baseObjectDAO;
+    @Autowired
+    private HL7MessageOutService hl7MessageOutService;
 
     ReportExternalExportServiceImpl() {
         super(ReportExternalExport.class);
@@ -74,6 +81,31 @@ public class ReportExternalExportServiceImpl extends BaseObjectServiceImpl<Repor
         return getBaseObjectDAO().getUnsentReportExports(reportQueueTypeId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReportExternalExport> getReportExportsDueForSending(String reportQueueTypeId, Timestamp now,
+            int maxResults) {
+        return getBaseObjectDAO().getReportExportsDueForSending(reportQueueTypeId, now, maxResults);
+    }
+
+    @Override
+    @Transactional
+    public void bufferUnsentMessage(ReportExternalExport report, HL7MessageOut messageOut) {
+        report.setMessageOutId(hl7MessageOutService.insert(messageOut));
+        insert(report);
+    }
+
+    @Override
+    @Transactional
+    public void recordFailedSend(String reportId) {
+        ReportExternalExport report = get(reportId);
+        int attempts = report.getSendAttempts() == null ? 1 : report.getSendAttempts() + 1;
+        long delay = FIRST_RETRY_DELAY << Math.min(attempts - 1, 16);
+        report.setSendAttempts(attempts);
+        report.setNextSendTime(new Timestamp(System.currentTimeMillis() + Math.min(delay, MAX_RETRY_DELAY)));
+        update(report);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ReportExternalExport> getRecalculateReportExports(String reportQueueTypeId) {
@@ -1,5 +1,6 @@
 package org.openelisglobal.dataexchange.service.order;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 import org.openelisglobal.common.service.BaseObjectService;
@@ -11,4 +12,9 @@ public interface ElectronicOrderService extends BaseObjectService<ElectronicOrde
 
     List<ElectronicOrder> getElectronicOrdersByExternalId(String id);
 
+    List<ElectronicOrder> getElectronicOrderPage(ElectronicOrder.SortOrder order, String statusId,
+            Timestamp updatedFrom, Timestamp updatedTo, String boundaryId, boolean before, int maxResults);
+
+    String getElectronicOrderData(String id);
+
 }
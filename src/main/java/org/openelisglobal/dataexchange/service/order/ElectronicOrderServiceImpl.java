@@ -1,5 +1,6 @@
 package org.openelisglobal.dataexchange.service.order;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 import org.openelisglobal.common.service.BaseObjectServiceImpl;
@@ -37,4 +38,17 @@ public class ElectronicOrderServiceImpl extends BaseObjectServiceImpl<Electronic
         return getBaseObjectDAO().getElectronicOrdersByExternalId(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ElectronicOrder> getElectronicOrderPage(SortOrder order, String statusId, Timestamp updatedFrom,
+            Timestamp updatedTo, String boundaryId, boolean before, int maxResults) {
+        return getBaseObjectDAO().getElectronicOrderPage(order, statusId, updatedFrom, updatedTo, boundaryId, before,
+                maxResults);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getElectronicOrderData(String id) {
+        return getBaseObjectDAO().getElectronicOrderData(id);
+    }
 }
@@ -0,0 +1,426 @@
+package org.openelisglobal.history.service;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.apache.commons.lang.StringUtils;
+import org.openelisglobal.audittrail.valueholder.History;
+import org.openelisglobal.common.log.LogEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background writer that moves committed audit history from the
+ * {@link HistoryJournal} into the history table using JDBC batches. A block is
+ * only marked as written once the batch containing it has committed, so a
+ * failure at any point leaves the block in the journal to be retried.
+ *
+ * History is checked with {@link #validate(Connection, List)} before the owning
+ * transaction commits, so a block normally only fails for as long as the
+ * database can't be reached. A block the database rejects on its own is moved
+ * to the journal's dead letter file rather than being retried forever.
+ *
+ * Each batch deletes the history_commit rows of its blocks and only inserts the
+ * blocks whose row it deleted, in the same transaction. A block whose
+ * transaction never committed is dropped, and one that was already written is
+ * not written again.
+ */
+@Component
+public class HistoryBatchWriter {
+
+    private static final String INSERT_HISTORY = "insert into clinlims.history"
+            + " (id, sys_user_id, reference_id, reference_table, timestamp, activity, changes)"
+            + " values (?, ?, ?, ?, ?, ?, ?)";
+
+    // each nextval reserves a block of ids, as the hibernate mapping of history
+    // does with pooled-lo
+    private static final String RESERVE_HISTORY_IDS = "select nextval('clinlims.history_seq')"
+            + " from generate_series(1, ?)";
+    private static final int HISTORY_ID_BLOCK_SIZE = 50;
+
+    private static final int BATCH_SIZE = 500;
+    private static final long MAX_RETRY_DELAY_MS = 60000;
+    private static final long SHUTDOWN_WAIT_MS = 10000;
+
+    private static final String RECORD_COMMIT = "insert into clinlims.history_commit (transaction_id)"
+            + " values (txid_current()) returning transaction_id";
+    private static final String CLAIM_COMMITS = "delete from clinlims.history_commit"
+            + " where transaction_id = any(?) returning transaction_id";
+    private static final String RELEASE_COMMIT = "delete from clinlims.history_commit where transaction_id = ?";
+
+    // how long a transaction whose outcome is not known is given to finish before
+    // history_commit is looked at
+    private static final long UNRESOLVED_DELAY_MS = 60000;
+
+    private static final String COUNT_SYSTEM_USERS = "select count(*) from clinlims.system_user"
+            + " where id = any(?)";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private HistoryJournal historyJournal;
+
+    private final BlockingQueue<HistoryJournal.Block> queue = new LinkedBlockingQueue<>();
+    private final DelayQueue<UnresolvedBlock> unresolved = new DelayQueue<>();
+    private volatile boolean running;
+    private Thread writerThread;
+    private final AtomicLong deadLetteredBlocks = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!historyJournal.isAvailable()) {
+            return;
+        }
+        for (HistoryJournal.Block block : historyJournal.takeRecoveredBlocks()) {
+            if (block.isCommitted()) {
+                queue.add(block);
+            } else {
+                submitUnresolved(block);
+            }
+        }
+        running = true;
+        writerThread = new Thread(this::run, "history-batch-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(SHUTDOWN_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!queue.isEmpty()) {
+                LogEvent.logInfo("HistoryBatchWriter", "stop()",
+                        queue.size() + " audit block(s) left in the journal for the next start");
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLetteredBlocks.get();
+    }
+
+    public int getQueuedBlockCount() {
+        return queue.size();
+    }
+
+    /**
+     * Checks that the entries can be inserted into the history table. Called on
+     * the connection of the owning transaction before it commits, so history that
+     * could never be written rolls the change back instead of being lost after the
+     * commit.
+     *
+     * @throws IllegalArgumentException if an entry can't be written
+     */
+    public void validate(Connection connection, List<History> entries) throws SQLException {
+        Set<Integer> userIds = new HashSet<>();
+        for (History history : entries) {
+            userIds.add(toUserId(history.getSysUserId()));
+            toNumber("reference_id", history.getReferenceId());
+            toNumber("reference_table", history.getReferenceTable());
+            if (history.getTimestamp() == null) {
+                throw new IllegalArgumentException("audit history has no timestamp");
+            }
+            if (history.getActivity() == null || history.getActivity().length() != 1) {
+                throw new IllegalArgumentException("audit history activity '" + history.getActivity()
+                        + "' is not a single character");
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_SYSTEM_USERS)) {
+            statement.setArray(1, connection.createArrayOf("integer", userIds.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) != userIds.size()) {
+                    throw new IllegalArgumentException("audit history refers to a system user that does not exist");
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the commit of the current transaction in history_commit. Called on
+     * the connection of the owning transaction before it commits.
+     *
+     * @return the id of the transaction, to be kept with its journal block
+     */
+    public long recordCommit(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(RECORD_COMMIT);
+                ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * Queue a committed block for writing
+     */
+    public void submit(HistoryJournal.Block block) {
+        queue.add(block);
+    }
+
+    /**
+     * Queue a block whose transaction may or may not have committed. It is
+     * written once its transaction has had time to finish, if history_commit
+     * shows that it committed.
+     */
+    public void submitUnresolved(HistoryJournal.Block block) {
+        unresolved.add(new UnresolvedBlock(block, System.currentTimeMillis() + UNRESOLVED_DELAY_MS));
+    }
+
+    private void run() {
+        long retryDelay = 1000;
+        while (running || !queue.isEmpty()) {
+            List<HistoryJournal.Block> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                write(batch);
+                historyJournal.markWritten(batch);
+                retryDelay = 1000;
+                continue;
+            } catch (SQLException | IOException | RuntimeException e) {
+                LogEvent.logError("HistoryBatchWriter", "run()",
+                        "unable to write audit history batch, retrying block by block: " + e.getMessage());
+            }
+            // write what can be written so one bad block doesn't hold up the rest. A
+            // block the database rejects is dead lettered, anything else that fails goes
+            // to the back of the queue and stays in the journal until it is written
+            for (HistoryJournal.Block block : batch) {
+                List<HistoryJournal.Block> single = Collections.singletonList(block);
+                try {
+                    write(single);
+                    historyJournal.markWritten(single);
+                } catch (SQLException | IOException | RuntimeException e) {
+                    LogEvent.logError("HistoryBatchWriter", "run()",
+                            "unable to write audit journal block " + block.getId() + ": " + e.getMessage());
+                    if (isRejected(e)) {
+                        deadLetter(block, e);
+                    } else {
+                        queue.add(block);
+                    }
+                }
+            }
+            if (!running) {
+                // whatever is left is replayed from the journal on the next start
+                return;
+            }
+            try {
+                Thread.sleep(retryDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+        }
+    }
+
+    private List<HistoryJournal.Block> nextBatch() throws InterruptedException {
+        for (UnresolvedBlock due = unresolved.poll(); due != null; due = unresolved.poll()) {
+            queue.add(due.block);
+        }
+        List<HistoryJournal.Block> batch = new ArrayList<>();
+        HistoryJournal.Block next = queue.poll(1, TimeUnit.SECONDS);
+        int rows = 0;
+        while (next != null) {
+            batch.add(next);
+            rows += next.getEntries().size();
+            next = rows < BATCH_SIZE ? queue.poll() : null;
+        }
+        return batch;
+    }
+
+    private void write(List<HistoryJournal.Block> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_HISTORY)) {
+                Set<Long> committed = claimCommits(connection, batch);
+                int rows = 0;
+                for (HistoryJournal.Block block : batch) {
+                    if (committed.contains(block.getTransactionId())) {
+                        rows += block.getEntries().size();
+                    } else {
+                        LogEvent.logInfo("HistoryBatchWriter", "write()", "audit journal block " + block.getId()
+                                + " was never committed or is already written, dropping it");
+                    }
+                }
+                long[] idBlocks = reserveIds(connection, rows);
+                int row = 0;
+                for (HistoryJournal.Block block : batch) {
+                    if (!committed.contains(block.getTransactionId())) {
+                        continue;
+                    }
+                    for (History history : block.getEntries()) {
+                        statement.setLong(1,
+                                idBlocks[row / HISTORY_ID_BLOCK_SIZE] + row % HISTORY_ID_BLOCK_SIZE);
+                        statement.setInt(2, toUserId(history.getSysUserId()));
+                        statement.setLong(3, toNumber("reference_id", history.getReferenceId()));
+                        statement.setLong(4, toNumber("reference_table", history.getReferenceTable()));
+                        statement.setTimestamp(5, history.getTimestamp());
+                        statement.setString(6, history.getActivity());
+                        if (history.getChanges() == null) {
+                            statement.setNull(7, Types.BINARY);
+                        } else {
+                            statement.setBytes(7, history.getChanges());
+                        }
+                        statement.addBatch();
+                        row++;
+                    }
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private Set<Long> claimCommits(Connection connection, List<HistoryJournal.Block> batch) throws SQLException {
+        Long[] transactionIds = new Long[batch.size()];
+        for (int i = 0; i < transactionIds.length; i++) {
+            transactionIds[i] = batch.get(i).getTransactionId();
+        }
+        Set<Long> committed = new HashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(CLAIM_COMMITS)) {
+            statement.setArray(1, connection.createArrayOf("bigint", transactionIds));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    committed.add(resultSet.getLong(1));
+                }
+            }
+        }
+        return committed;
+    }
+
+    private long[] reserveIds(Connection connection, int rows) throws SQLException {
+        long[] idBlocks = new long[(rows + HISTORY_ID_BLOCK_SIZE - 1) / HISTORY_ID_BLOCK_SIZE];
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_HISTORY_IDS)) {
+            statement.setInt(1, idBlocks.length);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                for (int i = 0; i < idBlocks.length && resultSet.next(); i++) {
+                    idBlocks[i] = resultSet.getLong(1);
+                }
+            }
+        }
+        return idBlocks;
+    }
+
+    private void deadLetter(HistoryJournal.Block block, Exception cause) {
+        try {
+            historyJournal.markDeadLettered(block, cause.toString());
+            deadLetteredBlocks.incrementAndGet();
+        } catch (IOException e) {
+            LogEvent.logError("HistoryBatchWriter", "deadLetter()",
+                    "unable to dead letter audit journal block " + block.getId() + ": " + e.getMessage());
+            queue.add(block);
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(RELEASE_COMMIT)) {
+            statement.setLong(1, block.getTransactionId());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            LogEvent.logError("HistoryBatchWriter", "deadLetter()", "unable to remove history_commit row of block "
+                    + block.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /*
+     * data exceptions (class 22) and constraint violations (class 23) fail the
+     * same way every time, anything else, like a lost connection, may not
+     */
+    private boolean isRejected(Exception e) {
+        if (e instanceof RuntimeException) {
+            return true;
+        }
+        if (!(e instanceof SQLException)) {
+            return false;
+        }
+        for (SQLException sqlException = (SQLException) e; sqlException != null; sqlException = sqlException
+                .getNextException()) {
+            String state = sqlException.getSQLState();
+            if (state != null && (state.startsWith("22") || state.startsWith("23"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int toUserId(String value) {
+        if (StringUtils.isBlank(value)) {
+            throw new IllegalArgumentException("audit history has no sys_user_id");
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("audit history sys_user_id '" + value + "' is not a number", e);
+        }
+    }
+
+    private static long toNumber(String column, String value) {
+        if (StringUtils.isBlank(value)) {
+            throw new IllegalArgumentException("audit history has no " + column);
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("audit history " + column + " '" + value + "' is not a number", e);
+        }
+    }
+
+    private static class UnresolvedBlock implements Delayed {
+        private final HistoryJournal.Block block;
+        private final long due;
+
+        private UnresolvedBlock(HistoryJournal.Block block, long due) {
+            this.block = block;
+            this.due = due;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package org.openelisglobal.history.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.openelisglobal.audittrail.valueholder.History;
+import org.openelisglobal.common.log.LogEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only local journal for audit history that has been captured inside a
+ * transaction but not yet written to the history table.
+ *
+ * A block of history is appended and forced to disk before the owning
+ * transaction commits, then followed by a commit or rollback marker once the
+ * outcome is known. When the background writer has inserted a block it is
+ * marked as written. On startup every block that is neither written nor rolled
+ * back is handed back for writing, so a crash between the database commit and
+ * the history insert never loses an audit record.
+ *
+ * A block keeps the id of its database transaction, which the transaction also
+ * records in history_commit. The writer only inserts a block whose row is still
+ * there, so a block whose outcome was never recorded is written only if its
+ * transaction really committed, and a block written just before a crash is not
+ * written twice.
+ *
+ * A block the database will never accept is moved to a dead letter file next
+ * to the journal, one tab separated line per history row, so it can be fixed
+ * and inserted by hand without holding up the journal.
+ */
+@Component
+public class HistoryJournal {
+
+    private static final String JOURNAL_DIRECTORY = "/var/lib/openelis-global/audit/";
+    private static final String JOURNAL_DIRECTORY_PROPERTY = "org.openelisglobal.audit.journal.dir";
+    private static final String JOURNAL_FILE = "history.journal";
+    private static final String DEAD_LETTER_FILE = "history.deadletter";
+
+    private static final byte BLOCK = 'B';
+    private static final byte COMMITTED = 'C';
+    private static final byte ROLLED_BACK = 'R';
+    private static final byte WRITTEN = 'W';
+    private static final byte DEAD_LETTERED = 'D';
+
+    public static class Block {
+        private final long id;
+        private final long transactionId;
+        private final List<History> entries;
+        private volatile boolean committed;
+
+        private Block(long id, long transactionId, List<History> entries) {
+            this.id = id;
+            this.transactionId = transactionId;
+            this.entries = entries;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getTransactionId() {
+            return transactionId;
+        }
+
+        /**
+         * @return true if the commit of the block's transaction has been recorded
+         */
+        public boolean isCommitted() {
+            return committed;
+        }
+
+        public List<History> getEntries() {
+            return entries;
+        }
+    }
+
+    private FileChannel channel;
+    private File deadLetterFile;
+    private long nextBlockId = 1;
+    private final Set<Long> outstanding = new HashSet<>();
+    private List<Block> recovered = Collections.emptyList();
+
+    @PostConstruct
+    public synchronized void open() {
+        File directory = new File(System.getProperty(JOURNAL_DIRECTORY_PROPERTY, JOURNAL_DIRECTORY));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LogEvent.logError("HistoryJournal", "open()", "audit journal directory " + directory.getAbsolutePath()
+                    + " is not available, history will be written synchronously");
+            return;
+        }
+        File file = new File(directory, JOURNAL_FILE);
+        deadLetterFile = new File(directory, DEAD_LETTER_FILE);
+        try {
+            long validLength = file.exists() ? recover(file) : 0;
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            channel.truncate(validLength);
+            channel.position(validLength);
+            channel.force(true);
+        } catch (IOException e) {
+            LogEvent.logError("HistoryJournal", "open()", "unable to open audit journal " + file.getAbsolutePath()
+                    + ", history will be written synchronously: " + e.getMessage());
+            channel = null;
+            recovered = Collections.emptyList();
+            outstanding.clear();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LogEvent.logError(e);
+            }
+            channel = null;
+        }
+    }
+
+    public synchronized boolean isAvailable() {
+        return channel != null;
+    }
+
+    /**
+     * @return the blocks found on startup that still need to be written, in
+     *         journal order. The list is only returned once.
+     */
+    public synchronized List<Block> takeRecoveredBlocks() {
+        List<Block> blocks = recovered;
+        recovered = Collections.emptyList();
+        return blocks;
+    }
+
+    /**
+     * Appends the entries as one block and forces it to disk. Must be called
+     * before the owning transaction commits.
+     *
+     * @param transactionId the id the owning transaction recorded in
+     *                      history_commit
+     */
+    public synchronized Block append(List<History> entries, long transactionId) throws IOException {
+        if (channel == null) {
+            throw new IOException("audit journal is not open");
+        }
+        Block block = new Block(nextBlockId++, transactionId, new ArrayList<>(entries));
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(256 * entries.size());
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeLong(transactionId);
+        out.writeInt(entries.size());
+        for (History history : entries) {
+            writeHistory(out, history);
+        }
+        out.flush();
+        writeRecord(BLOCK, block.getId(), payload.toByteArray(), true);
+        outstanding.add(block.getId());
+        return block;
+    }
+
+    public synchronized void markCommitted(Block block) throws IOException {
+        block.committed = true;
+        writeRecord(COMMITTED, block.getId(), new byte[0], false);
+    }
+
+    public synchronized void markRolledBack(Block block) throws IOException {
+        writeRecord(ROLLED_BACK, block.getId(), new byte[0], true);
+        resolve(Collections.singleton(block.getId()));
+    }
+
+    public synchronized void markWritten(Collection<Block> blocks) throws IOException {
+        Set<Long> ids = new HashSet<>();
+        for (Block block : blocks) {
+            writeRecord(WRITTEN, block.getId(), new byte[0], false);
+            ids.add(block.getId());
+        }
+        if (channel != null) {
+            channel.force(false);
+        }
+        resolve(ids);
+    }
+
+    /**
+     * Appends the block to the dead letter file and drops it from the journal
+     */
+    public synchronized void markDeadLettered(Block block, String reason) throws IOException {
+        if (channel == null) {
+            throw new IOException("audit journal is not open");
+        }
+        try (FileOutputStream file = new FileOutputStream(deadLetterFile, true);
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# block " + block.getId() + " dead lettered " + new Timestamp(System.currentTimeMillis())
+                    + ": " + reason.replace('\n', ' '));
+            for (History history : block.getEntries()) {
+                String changes = history.getChanges() == null ? ""
+                        : Base64.getEncoder().encodeToString(history.getChanges());
+                out.println(history.getSysUserId() + "\t" + history.getReferenceId() + "\t"
+                        + history.getReferenceTable() + "\t" + history.getTimestamp() + "\t" + history.getActivity()
+                        + "\t" + changes);
+            }
+            out.flush();
+            if (out.checkError()) {
+                throw new IOException("unable to write " + deadLetterFile.getAbsolutePath());
+            }
+            file.getFD().sync();
+        }
+        writeRecord(DEAD_LETTERED, block.getId(), new byte[0], true);
+        resolve(Collections.singleton(block.getId()));
+    }
+
+    private void resolve(Set<Long> ids) throws IOException {
+        outstanding.removeAll(ids);
+        // nothing left to replay, start the file over rather than letting it grow
+        if (outstanding.isEmpty() && channel != null && channel.size() > 0) {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        }
+    }
+
+    private void writeRecord(byte type, long blockId, byte[] payload, boolean force) throws IOException {
+        if (channel == null) {
+            throw new IOException("audit journal is not open");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 4 + payload.length + 8);
+        buffer.put(type);
+        buffer.putLong(blockId);
+        buffer.putInt(payload.length);
+        buffer.put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (force) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads the journal, keeping the blocks that still need writing.
+     *
+     * @return the length of the valid part of the file, anything after that is a
+     *         torn write from a crash and is discarded
+     */
+    private long recover(File file) throws IOException {
+        Map<Long, Block> pending = new LinkedHashMap<>();
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                byte type;
+                long blockId;
+                byte[] payload;
+                try {
+                    type = in.readByte();
+                    blockId = in.readLong();
+                    int length = in.readInt();
+                    if (length < 0 || length > file.length()) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    long expected = in.readLong();
+                    ByteBuffer header = ByteBuffer.allocate(1 + 8 + 4);
+                    header.put(type).putLong(blockId).putInt(length);
+                    CRC32 crc = new CRC32();
+                    crc.update(header.array());
+                    crc.update(payload);
+                    if (crc.getValue() != expected) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                validLength += 1 + 8 + 4 + payload.length + 8;
+                nextBlockId = Math.max(nextBlockId, blockId + 1);
+
+                if (type == BLOCK) {
+                    pending.put(blockId, readBlock(blockId, payload));
+                } else if (type == COMMITTED && pending.containsKey(blockId)) {
+                    pending.get(blockId).committed = true;
+                } else if (type == ROLLED_BACK || type == WRITTEN || type == DEAD_LETTERED) {
+                    pending.remove(blockId);
+                }
+            }
+        }
+        if (validLength < file.length()) {
+            LogEvent.logWarn("HistoryJournal", "recover()",
+                    "discarding " + (file.length() - validLength) + " bytes of incomplete audit journal");
+        }
+        outstanding.addAll(pending.keySet());
+        recovered = new ArrayList<>(pending.values());
+        if (!recovered.isEmpty()) {
+            LogEvent.logInfo("HistoryJournal", "recover()",
+                    recovered.size() + " audit journal block(s) will be written to history");
+        }
+        return validLength;
+    }
+
+    private Block readBlock(long blockId, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long transactionId = in.readLong();
+        int count = in.readInt();
+        List<History> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(readHistory(in));
+        }
+        return new Block(blockId, transactionId, entries);
+    }
+
+    private void writeHistory(DataOutputStream out, History history) throws IOException {
+        writeString(out, history.getSysUserId());
+        writeString(out, history.getReferenceId());
+        writeString(out, history.getReferenceTable());
+        writeString(out, history.getActivity());
+        out.writeLong(history.getTimestamp() == null ? System.currentTimeMillis() : history.getTimestamp().getTime());
+        byte[] changes = history.getChanges();
+        out.writeInt(changes == null ? -1 : changes.length);
+        if (changes != null) {
+            out.write(changes);
+        }
+    }
+
+    private History readHistory(DataInputStream in) throws IOException {
+        History history = new History();
+        history.setSysUserId(readString(in));
+        history.setReferenceId(readString(in));
+        history.setReferenceTable(readString(in));
+        history.setActivity(readString(in));
+        history.setTimestamp(new Timestamp(in.readLong()));
+        int length = in.readInt();
+        if (length >= 0) {
+            byte[] changes = new byte[length];
+            in.readFully(changes);
+            history.setChanges(changes);
+        }
+        return history;
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -37,6 +37,13 @@ public class HistoryServiceImpl extends BaseObjectServiceImpl<History, String> i
         return baseObjectDAO.getHistoryByRefIdAndRefTableId(id, table);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<History> getHistoryByRefIdsAndRefTableId(List<String> refIds, String tableId)
+            throws LIMSRuntimeException {
+        return baseObjectDAO.getHistoryByRefIdsAndRefTableId(refIds, tableId);
+    }
+
     @Override
     public String insert(History history) {
         return baseObjectDAO.insert(history);
@@ -1,7 +1,6 @@
 package org.openelisglobal.interceptor;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 
@@ -14,8 +13,6 @@ import org.openelisglobal.common.util.SystemConfiguration;
 import org.openelisglobal.common.validator.BaseErrors;
 import org.openelisglobal.login.dao.UserModuleService;
 import org.openelisglobal.systemmodule.service.SystemModuleUrlService;
-import org.openelisglobal.systemmodule.valueholder.SystemModuleParam;
-import org.openelisglobal.systemmodule.valueholder.SystemModuleUrl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.web.DefaultRedirectStrategy;
@@ -73,39 +70,19 @@ public class ModuleAuthenticationInterceptor extends HandlerInterceptorAdapter {
     private boolean hasPermissionForUrl(HttpServletRequest request, boolean useParameters) {
         @SuppressWarnings("rawtypes")
         HashSet accessMap = (HashSet) request.getSession().getAttribute(IActionConstants.PERMITTED_ACTIONS_MAP);
-        List<SystemModuleUrl> sysModsByUrl = systemModuleUrlService.getByRequest(request);
+        List<String> moduleNames = systemModuleUrlService.getModuleNamesForRequest(request, useParameters);
 
-        if (useParameters) {
-            sysModsByUrl = filterParamMatches(request, sysModsByUrl);
-        }
-        if (sysModsByUrl.isEmpty() && REQUIRE_MODULE) {
+        if (moduleNames.isEmpty() && REQUIRE_MODULE) {
             LogEvent.logWarn("ModuleAuthenticationInterceptor", "hasPermissionForUrl()",
                     "This page has no modules assigned to it");
             return false;
         }
-        for (SystemModuleUrl sysModUrl : sysModsByUrl) {
-            if (accessMap.contains(sysModUrl.getSystemModule().getSystemModuleName())) {
+        for (String moduleName : moduleNames) {
+            if (accessMap.contains(moduleName)) {
                 return true;
             }
         }
         return false;
     }
 
-    private List<SystemModuleUrl> filterParamMatches(HttpServletRequest request, List<SystemModuleUrl> sysModsByUrl) {
-        List<SystemModuleUrl> filteredSysModsByUrl = new ArrayList<>();
-        for (SystemModuleUrl sysModUrl : sysModsByUrl) {
-            boolean matchAll = true;
-            SystemModuleParam param = sysModUrl.getParam();
-            if (param != null) {
-                if (!param.getValue().equals(request.getParameter(param.getName()))) {
-                    matchAll = false;
-                }
-            }
-            if (matchAll) {
-                filteredSysModsByUrl.add(sysModUrl);
-            }
-        }
-        return filteredSysModsByUrl;
-    }
-
 }
@@ -0,0 +1,37 @@
+package org.openelisglobal.interceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openelisglobal.metricservice.RequestMetrics;
+import org.openelisglobal.metricservice.RequestMetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+@Component
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private RequestMetricsRegistry metricsRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestMetrics.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        RequestMetrics metrics = RequestMetrics.finish();
+        if (metrics == null) {
+            return;
+        }
+        // the mapping, not the url, so that requests for different ids are counted
+        // together
+        Object mapping = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        metricsRegistry.record(mapping == null ? request.getServletPath() : mapping.toString(), metrics);
+    }
+}
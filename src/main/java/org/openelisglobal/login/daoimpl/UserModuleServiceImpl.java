@@ -241,16 +241,13 @@ public class UserModuleServiceImpl implements UserModuleService, IActionConstant
     @Transactional(readOnly = true)
     public boolean isUserAdmin(HttpServletRequest request) throws LIMSRuntimeException {
         try {
-            LoginUser login = getUserLogin(request);
-            if (login.getIsAdmin().equalsIgnoreCase(YES)) {
-                return true;
-            }
+            UserSessionData usd = (UserSessionData) request.getSession().getAttribute(USER_SESSION_DATA);
+            return loginService.isUserAdmin(usd.getLoginName());
         } catch (LIMSRuntimeException e) {
             // bugzilla 2154
             LogEvent.logError(e.toString(), e);
             throw new LIMSRuntimeException("Error in UserModuleServiceImpl isUserAdmin()", e);
         }
-        return false;
     }
 
     /**
@@ -12,6 +12,8 @@ public interface LoginUserService extends BaseObjectService<LoginUser, Integer>
 
     boolean isUserAdmin(LoginUser login) throws LIMSRuntimeException;
 
+    boolean isUserAdmin(String loginName) throws LIMSRuntimeException;
+
     int getPasswordExpiredDayNo(LoginUser login);
 
     LoginUser getUserProfile(String loginName);
@@ -5,6 +5,7 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.openelisglobal.common.action.IActionConstants;
@@ -21,6 +22,8 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class LoginUserServiceImpl extends BaseObjectServiceImpl<LoginUser, Integer> implements LoginUserService {
@@ -33,6 +36,9 @@ public class LoginUserServiceImpl extends BaseObjectServiceImpl<LoginUser, Integ
     private Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[ya]?\\$\\d\\d\\$[./0-9A-Za-z]{53}"); // make sure this
                                                                                                 // variable is current
 
+    // checked on every request, dropped whenever a login is changed
+    private final Map<String, Boolean> adminByLoginName = new ConcurrentHashMap<>();
+
     LoginUserServiceImpl() {
         super(LoginUser.class);
     }
@@ -48,6 +54,42 @@ public class LoginUserServiceImpl extends BaseObjectServiceImpl<LoginUser, Integ
         return login.getIsAdmin().equalsIgnoreCase(IActionConstants.YES);
     }
 
+    /**
+     * Whether the login is an admin, answered from memory once looked up so that
+     * the permission checks do not go to the database on every request
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isUserAdmin(String loginName) throws LIMSRuntimeException {
+        Boolean admin = adminByLoginName.get(loginName);
+        if (admin == null) {
+            LoginUser login = getUserProfile(loginName);
+            if (login == null) {
+                throw new LIMSRuntimeException("No login found for " + loginName);
+            }
+            admin = isUserAdmin(login);
+            adminByLoginName.put(loginName, admin);
+        }
+        return admin;
+    }
+
+    /*
+     * drop the admin flags now and again once the current transaction has
+     * completed, so a check made while the change is being written can not keep
+     * the old flag
+     */
+    private void evictAdminFlags() {
+        adminByLoginName.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    adminByLoginName.clear();
+                }
+            });
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public LoginUser get(Integer id) {
@@ -122,6 +164,7 @@ public class LoginUserServiceImpl extends BaseObjectServiceImpl<LoginUser, Integ
                             + " Ensure that passwords are being hashed before they are stored"
                             + " because storing encrypted or plaintext passwords is disallowed");
         }
+        evictAdminFlags();
         return super.insert(login);
     }
 
@@ -153,6 +196,26 @@ public class LoginUserServiceImpl extends BaseObjectServiceImpl<LoginUser, Integ
         return super.update(login);
     }
 
+    @Override
+    protected LoginUser update(LoginUser login, String auditTrailType) {
+        evictAdminFlags();
+        return super.update(login, auditTrailType);
+    }
+
+    @Override
+    @Transactional
+    public List<LoginUser> batchUpdate(List<LoginUser> logins) {
+        evictAdminFlags();
+        return super.batchUpdate(logins);
+    }
+
+    @Override
+    @Transactional
+    public void delete(LoginUser login) {
+        evictAdminFlags();
+        super.delete(login);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public int getPasswordExpiredDayNo(LoginUser login) {
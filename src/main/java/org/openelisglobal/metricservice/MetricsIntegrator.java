@@ -0,0 +1,42 @@
+package org.openelisglobal.metricservice;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Counts the entities hibernate loads for the current request. Registered
+ * through META-INF/services.
+ */
+public class MetricsIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+            SessionFactoryServiceRegistry serviceRegistry) {
+        serviceRegistry.getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD,
+                new EntityLoadCounter());
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory,
+            SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private static class EntityLoadCounter implements PostLoadEventListener {
+
+        private static final long serialVersionUID = 5893380546472385532L;
+
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            RequestMetrics metrics = RequestMetrics.current();
+            if (metrics != null) {
+                metrics.addEntityLoaded();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.openelisglobal.metricservice;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Created by hibernate for every session (hibernate.session.events.auto in
+ * persistence.xml) and adds the statements, flushes and connection time of the
+ * session to the request being handled, if there is one.
+ */
+public class MetricsSessionEventListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = -4000316540932958637L;
+
+    private long statementStart;
+    private long connectionStart = -1;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null) {
+            metrics.addSqlStatement(System.nanoTime() - statementStart);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null) {
+            metrics.addSqlStatement(System.nanoTime() - statementStart);
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null) {
+            metrics.addFlush(numberOfEntities);
+        }
+    }
+
+    // the connection is held from the start of a transaction to its end, so this
+    // is the time spent in transactions
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        connectionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionReleaseEnd() {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null && connectionStart >= 0) {
+            metrics.addTransaction(System.nanoTime() - connectionStart);
+        }
+        connectionStart = -1;
+    }
+}
@@ -0,0 +1,84 @@
+package org.openelisglobal.metricservice;
+
+/**
+ * Counts the persistence work done while handling one request. The counters
+ * are only touched by the thread handling the request.
+ */
+public class RequestMetrics {
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private long sqlStatements;
+    private long jdbcNanos;
+    private long entitiesLoaded;
+    private long flushes;
+    private long entitiesFlushed;
+    private long transactionNanos;
+
+    public static RequestMetrics start() {
+        RequestMetrics metrics = new RequestMetrics();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * @return the metrics of the request being handled by this thread, or null
+     *         outside of a request
+     */
+    public static RequestMetrics current() {
+        return CURRENT.get();
+    }
+
+    public static RequestMetrics finish() {
+        RequestMetrics metrics = CURRENT.get();
+        CURRENT.remove();
+        return metrics;
+    }
+
+    public long getWallNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    void addSqlStatement(long nanos) {
+        sqlStatements++;
+        jdbcNanos += nanos;
+    }
+
+    void addEntityLoaded() {
+        entitiesLoaded++;
+    }
+
+    void addFlush(int numberOfEntities) {
+        flushes++;
+        entitiesFlushed += numberOfEntities;
+    }
+
+    void addTransaction(long nanos) {
+        transactionNanos += nanos;
+    }
+
+    public long getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public long getEntitiesFlushed() {
+        return entitiesFlushed;
+    }
+
+    public long getTransactionNanos() {
+        return transactionNanos;
+    }
+}
@@ -0,0 +1,97 @@
+package org.openelisglobal.metricservice;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Totals of the request metrics for each controller mapping since startup
+ */
+@Component
+public class RequestMetricsRegistry {
+
+    private final ConcurrentMap<String, MappingTotals> totals = new ConcurrentHashMap<>();
+
+    public void record(String mapping, RequestMetrics metrics) {
+        totals.computeIfAbsent(mapping, key -> new MappingTotals()).add(metrics);
+    }
+
+    /**
+     * @return the totals sorted by mapping
+     */
+    public Map<String, MappingTotals> getTotals() {
+        return new TreeMap<>(totals);
+    }
+
+    public static class MappingTotals {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAccumulator maxWallNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder sqlStatements = new LongAdder();
+        private final LongAccumulator maxSqlStatements = new LongAccumulator(Long::max, 0);
+        private final LongAdder jdbcNanos = new LongAdder();
+        private final LongAdder entitiesLoaded = new LongAdder();
+        private final LongAdder flushes = new LongAdder();
+        private final LongAdder entitiesFlushed = new LongAdder();
+        private final LongAdder transactionNanos = new LongAdder();
+
+        private void add(RequestMetrics metrics) {
+            long wall = metrics.getWallNanos();
+            requests.increment();
+            wallNanos.add(wall);
+            maxWallNanos.accumulate(wall);
+            sqlStatements.add(metrics.getSqlStatements());
+            maxSqlStatements.accumulate(metrics.getSqlStatements());
+            jdbcNanos.add(metrics.getJdbcNanos());
+            entitiesLoaded.add(metrics.getEntitiesLoaded());
+            flushes.add(metrics.getFlushes());
+            entitiesFlushed.add(metrics.getEntitiesFlushed());
+            transactionNanos.add(metrics.getTransactionNanos());
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getWallNanos() {
+            return wallNanos.sum();
+        }
+
+        public long getMaxWallNanos() {
+            return maxWallNanos.get();
+        }
+
+        public long getSqlStatements() {
+            return sqlStatements.sum();
+        }
+
+        public long getMaxSqlStatements() {
+            return maxSqlStatements.get();
+        }
+
+        public long getJdbcNanos() {
+            return jdbcNanos.sum();
+        }
+
+        public long getEntitiesLoaded() {
+            return entitiesLoaded.sum();
+        }
+
+        public long getFlushes() {
+            return flushes.sum();
+        }
+
+        public long getEntitiesFlushed() {
+            return entitiesFlushed.sum();
+        }
+
+        public long getTransactionNanos() {
+            return transactionNanos.sum();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package org.openelisglobal.metricservice.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.ToLongFunction;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.json.simple.JSONObject;
+import org.openelisglobal.common.log.LogEvent;
+import org.openelisglobal.dataexchange.order.action.OrderIngestionQueue;
+import org.openelisglobal.history.service.HistoryBatchWriter;
+import org.openelisglobal.metricservice.RequestMetricsRegistry;
+import org.openelisglobal.metricservice.RequestMetricsRegistry.MappingTotals;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Request and persistence metrics for each controller mapping, hit counts of
+ * the second level cache regions, the state of the HL7 order ingestion queue
+ * and of the audit history writer. Returns json,
+ * or the prometheus text format when asked for with format=prometheus or an
+ * Accept of text/plain.
+ */
+@Controller
+public class MetricServicesController {
+
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    @Autowired
+    private RequestMetricsRegistry metricsRegistry;
+    @Autowired
+    private OrderIngestionQueue orderIngestionQueue;
+    @Autowired
+    private HistoryBatchWriter historyBatchWriter;
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @RequestMapping(value = "/MetricServices", method = RequestMethod.GET)
+    public void showMetrics(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Map<String, MappingTotals> totals = metricsRegistry.getTotals();
+        PrintWriter out;
+        if (wantsPrometheus(request)) {
+            response.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+            out = response.getWriter();
+            writePrometheus(out, totals);
+        } else {
+            response.setContentType("application/json; charset=UTF-8");
+            out = response.getWriter();
+            writeJson(out, totals);
+        }
+        out.flush();
+    }
+
+    private boolean wantsPrometheus(HttpServletRequest request) {
+        if ("prometheus".equals(request.getParameter("format"))) {
+            return true;
+        }
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.startsWith("text/plain");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeJson(PrintWriter out, Map<String, MappingTotals> totals) {
+        JSONObject mappings = new JSONObject();
+        for (Entry<String, MappingTotals> entry : totals.entrySet()) {
+            MappingTotals mappingTotals = entry.getValue();
+            JSONObject mapping = new JSONObject();
+            mapping.put("requests", mappingTotals.getRequests());
+            mapping.put("wallTimeMs", toMillis(mappingTotals.getWallNanos()));
+            mapping.put("maxWallTimeMs", toMillis(mappingTotals.getMaxWallNanos()));
+            mapping.put("sqlStatements", mappingTotals.getSqlStatements());
+            mapping.put("maxSqlStatements", mappingTotals.getMaxSqlStatements());
+            mapping.put("sqlTimeMs", toMillis(mappingTotals.getJdbcNanos()));
+            mapping.put("entitiesLoaded", mappingTotals.getEntitiesLoaded());
+            mapping.put("flushes", mappingTotals.getFlushes());
+            mapping.put("entitiesFlushed", mappingTotals.getEntitiesFlushed());
+            mapping.put("transactionTimeMs", toMillis(mappingTotals.getTransactionNanos()));
+            mappings.put(entry.getKey(), mapping);
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        JSONObject memory = new JSONObject();
+        memory.put("heapUsedKb", heap.getUsed() / 1024);
+        memory.put("heapMaxKb", heap.getMax() / 1024);
+
+        Statistics statistics = getStatistics();
+        JSONObject regions = new JSONObject();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(regionName);
+            if (regionStatistics != null) {
+                JSONObject region = new JSONObject();
+                region.put("hits", regionStatistics.getHitCount());
+                region.put("misses", regionStatistics.getMissCount());
+                region.put("puts", regionStatistics.getPutCount());
+                region.put("entries", regionStatistics.getElementCountInMemory());
+                regions.put(regionName, region);
+            }
+        }
+        JSONObject queryCache = new JSONObject();
+        queryCache.put("hits", statistics.getQueryCacheHitCount());
+        queryCache.put("misses", statistics.getQueryCacheMissCount());
+        queryCache.put("puts", statistics.getQueryCachePutCount());
+        JSONObject cache = new JSONObject();
+        cache.put("regions", regions);
+        cache.put("queries", queryCache);
+
+        JSONObject orderIngestion = new JSONObject();
+        orderIngestion.put("workers", orderIngestionQueue.getWorkerCount());
+        orderIngestion.put("ingested", orderIngestionQueue.getIngestedCount());
+        orderIngestion.put("latencyMs", orderIngestionQueue.getLatencyMillisTotal());
+        orderIngestion.put("maxLatencyMs", orderIngestionQueue.getMaxLatencyMillis());
+        try {
+            orderIngestion.put("queueDepth", orderIngestionQueue.getQueueDepth());
+            orderIngestion.put("oldestQueuedMs", orderIngestionQueue.getOldestQueuedMillis());
+            orderIngestion.put("failed", orderIngestionQueue.getFailedCount());
+        } catch (SQLException e) {
+            LogEvent.logError("MetricServicesController", "writeJson()",
+                    "unable to read order ingestion queue: " + e.getMessage());
+        }
+
+        JSONObject auditHistory = new JSONObject();
+        auditHistory.put("queuedBlocks", historyBatchWriter.getQueuedBlockCount());
+        auditHistory.put("deadLetteredBlocks", historyBatchWriter.getDeadLetteredCount());
+
+        JSONObject metrics = new JSONObject();
+        metrics.put("mappings", mappings);
+        metrics.put("memory", memory);
+        metrics.put("cache", cache);
+        metrics.put("orderIngestion", orderIngestion);
+        metrics.put("auditHistory", auditHistory);
+        out.print(metrics.toJSONString());
+    }
+
+    private void writePrometheus(PrintWriter out, Map<String, MappingTotals> totals) {
+        writeCounter(out, totals, "openelis_requests_total", "Requests handled", MappingTotals::getRequests);
+        writeSeconds(out, totals, "openelis_request_seconds_total", "Wall time handling requests", "counter",
+                MappingTotals::getWallNanos);
+        writeSeconds(out, totals, "openelis_request_max_seconds", "Longest request", "gauge",
+                MappingTotals::getMaxWallNanos);
+        writeCounter(out, totals, "openelis_sql_statements_total", "SQL statements and batches executed",
+                MappingTotals::getSqlStatements);
+        writeGauge(out, totals, "openelis_request_max_sql_statements", "Most SQL statements in one request",
+                MappingTotals::getMaxSqlStatements);
+        writeSeconds(out, totals, "openelis_sql_seconds_total", "Time executing SQL", "counter",
+                MappingTotals::getJdbcNanos);
+        writeCounter(out, totals, "openelis_entities_loaded_total", "Entities loaded by hibernate",
+                MappingTotals::getEntitiesLoaded);
+        writeCounter(out, totals, "openelis_flushes_total", "Hibernate session flushes", MappingTotals::getFlushes);
+        writeCounter(out, totals, "openelis_entities_flushed_total", "Entities checked in flushes",
+                MappingTotals::getEntitiesFlushed);
+        writeSeconds(out, totals, "openelis_transaction_seconds_total", "Time in database transactions", "counter",
+                MappingTotals::getTransactionNanos);
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        out.println("# HELP openelis_heap_used_bytes Heap in use");
+        out.println("# TYPE openelis_heap_used_bytes gauge");
+        out.println("openelis_heap_used_bytes " + heap.getUsed());
+
+        Statistics statistics = getStatistics();
+        writeCacheCounter(out, statistics, "openelis_cache_hits_total", "Second level cache hits",
+                CacheRegionStatistics::getHitCount);
+        writeCacheCounter(out, statistics, "openelis_cache_misses_total", "Second level cache misses",
+                CacheRegionStatistics::getMissCount);
+        writeCacheCounter(out, statistics, "openelis_cache_puts_total", "Second level cache puts",
+                CacheRegionStatistics::getPutCount);
+        writeHeader(out, "openelis_query_cache_hits_total", "Query cache hits", "counter");
+        out.println("openelis_query_cache_hits_total " + statistics.getQueryCacheHitCount());
+        writeHeader(out, "openelis_query_cache_misses_total", "Query cache misses", "counter");
+        out.println("openelis_query_cache_misses_total " + statistics.getQueryCacheMissCount());
+
+        writeOrderIngestion(out);
+
+        writeHeader(out, "openelis_audit_history_queued_blocks", "Committed audit history waiting to be written",
+                "gauge");
+        out.println("openelis_audit_history_queued_blocks " + historyBatchWriter.getQueuedBlockCount());
+        writeHeader(out, "openelis_audit_history_dead_lettered_total",
+                "Audit history blocks the database rejected, moved to the dead letter file", "counter");
+        out.println("openelis_audit_history_dead_lettered_total " + historyBatchWriter.getDeadLetteredCount());
+    }
+
+    private void writeOrderIngestion(PrintWriter out) {
+        writeHeader(out, "openelis_orders_ingested_total", "Queued HL7 orders handled", "counter");
+        out.println("openelis_orders_ingested_total " + orderIngestionQueue.getIngestedCount());
+        writeHeader(out, "openelis_order_ingestion_seconds_total",
+                "Time from receiving queued HL7 orders to handling them", "counter");
+        out.println("openelis_order_ingestion_seconds_total " + orderIngestionQueue.getLatencyMillisTotal() / 1000.0);
+        writeHeader(out, "openelis_order_ingestion_max_seconds", "Longest time from receiving to handling an order",
+                "gauge");
+        out.println("openelis_order_ingestion_max_seconds " + orderIngestionQueue.getMaxLatencyMillis() / 1000.0);
+        try {
+            long queueDepth = orderIngestionQueue.getQueueDepth();
+            long oldestQueuedMillis = orderIngestionQueue.getOldestQueuedMillis();
+            long failed = orderIngestionQueue.getFailedCount();
+            writeHeader(out, "openelis_order_queue_depth", "HL7 orders waiting to be persisted", "gauge");
+            out.println("openelis_order_queue_depth " + queueDepth);
+            writeHeader(out, "openelis_order_queue_oldest_seconds", "Age of the oldest HL7 order waiting", "gauge");
+            out.println("openelis_order_queue_oldest_seconds " + oldestQueuedMillis / 1000.0);
+            writeHeader(out, "openelis_order_queue_failed", "HL7 orders that could not be persisted", "gauge");
+            out.println("openelis_order_queue_failed " + failed);
+        } catch (SQLException e) {
+            LogEvent.logError("MetricServicesController", "writeOrderIngestion()",
+                    "unable to read order ingestion queue: " + e.getMessage());
+        }
+    }
+
+    private Statistics getStatistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void writeCacheCounter(PrintWriter out, Statistics statistics, String name, String help,
+            ToLongFunction<CacheRegionStatistics> value) {
+        writeHeader(out, name, help, "counter");
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(regionName);
+            if (regionStatistics != null) {
+                out.println(name + "{region=\"" + regionName + "\"} " + value.applyAsLong(regionStatistics));
+            }
+        }
+    }
+
+    private void writeCounter(PrintWriter out, Map<String, MappingTotals> totals, String name, String help,
+            ToLongFunction<MappingTotals> value) {
+        writeHeader(out, name, help, "counter");
+        for (Entry<String, MappingTotals> entry : totals.entrySet()) {
+            out.println(name + label(entry.getKey()) + " " + value.applyAsLong(entry.getValue()));
+        }
+    }
+
+    private void writeGauge(PrintWriter out, Map<String, MappingTotals> totals, String name, String help,
+            ToLongFunction<MappingTotals> value) {
+        writeHeader(out, name, help, "gauge");
+        for (Entry<String, MappingTotals> entry : totals.entrySet()) {
+            out.println(name + label(entry.getKey()) + " " + value.applyAsLong(entry.getValue()));
+        }
+    }
+
+    private void writeSeconds(PrintWriter out, Map<String, MappingTotals> totals, String name, String help,
+            String type, ToLongFunction<MappingTotals> nanos) {
+        writeHeader(out, name, help, type);
+        for (Entry<String, MappingTotals> entry : totals.entrySet()) {
+            out.println(name + label(entry.getKey()) + " " + nanos.applyAsLong(entry.getValue()) / NANOS_PER_SECOND);
+        }
+    }
+
+    private void writeHeader(PrintWriter out, String name, String help, String type) {
+        out.println("# HELP " + name + " " + help);
+        out.println("# TYPE " + name + " " + type);
+    }
+
+    private String label(String mapping) {
+        return "{mapping=\"" + mapping.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"}";
+    }
+
+    private long toMillis(long nanos) {
+        return nanos / 1000000;
+    }
+}
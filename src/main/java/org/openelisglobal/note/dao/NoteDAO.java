@@ -64,4 +64,6 @@ public interface NoteDAO extends BaseDAO<Note, String> {
 
     boolean duplicateNoteExists(Note note);
 
+    List<Note> getNotesChronologicallyByRefIdsAndRefTableAndType(List<String> objectIds, String tableId,
+            List<String> filter) throws LIMSRuntimeException;
 }
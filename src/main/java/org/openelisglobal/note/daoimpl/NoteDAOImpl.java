@@ -18,6 +18,7 @@
 package org.openelisglobal.note.daoimpl;
 
 import java.sql.Date;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.hibernate.HibernateException;
@@ -418,4 +419,31 @@ public class NoteDAOImpl extends BaseDAOImpl<Note, String> implements NoteDAO {
         }
         return null;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Note> getNotesChronologicallyByRefIdsAndRefTableAndType(List<String> objectIds, String tableId,
+            List<String> filter) throws LIMSRuntimeException {
+        if (objectIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> refIds = new ArrayList<>(objectIds.size());
+        for (String objectId : objectIds) {
+            refIds.add(Integer.parseInt(objectId));
+        }
+
+        String sql = "FROM Note n where n.referenceId in (:refIds) and n.referenceTableId = :tableId and n.noteType in ( :filter ) order by n.lastupdated asc";
+
+        try {
+            Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setParameterList("refIds", refIds);
+            query.setInteger("tableId", Integer.parseInt(tableId));
+            query.setParameterList("filter", filter);
+
+            return query.list();
+        } catch (HibernateException e) {
+            handleException(e, "getNotesChronologicallyByRefIdsAndRefTableAndType");
+        }
+        return null;
+    }
 }
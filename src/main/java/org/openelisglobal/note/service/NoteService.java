@@ -2,7 +2,9 @@ package org.openelisglobal.note.service;
 
 import java.sql.Date;
 import java.util.List;
+import java.util.Map;
 
+import org.openelisglobal.analysis.valueholder.Analysis;
 import org.openelisglobal.common.service.BaseObjectService;
 import org.openelisglobal.common.util.StringUtil.EncodeContext;
 import org.openelisglobal.note.service.NoteServiceImpl.NoteType;
@@ -32,6 +34,15 @@ public interface NoteService extends BaseObjectService<Note, String> {
     String getNotesAsString(NoteObject noteObject, boolean prefixType, boolean prefixTimestamp, String noteSeparator,
             NoteType[] filter, boolean excludeExternPrefix);
 
+    /**
+     * The same as getNotesAsString for each of the analyses, but reading the notes
+     * of all of them together
+     *
+     * @return the notes keyed by analysis id, null when an analysis has none
+     */
+    Map<String, String> getNotesAsStringForAnalyses(List<Analysis> analyses, boolean prefixType,
+            boolean prefixTimestamp, String noteSeparator, NoteType[] filter, boolean excludeExternPrefix);
+
     List<Note> getNotesByNoteTypeRefIdRefTable(Note note);
 
     List<Note> getNotesInDateRangeAndType(Date lowDate, Date highDate, String noteType, String referenceTableId);
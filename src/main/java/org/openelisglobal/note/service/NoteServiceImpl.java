@@ -5,8 +5,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 
@@ -138,6 +140,113 @@ public class NoteServiceImpl extends BaseObjectServiceImpl<Note, String> impleme
                 context);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, String> getNotesAsStringForAnalyses(List<Analysis> analyses, boolean prefixType,
+            boolean prefixTimestamp, String noteSeparator, NoteType[] filter, boolean excludeExternPrefix) {
+        Map<String, String> notesByAnalysis = new HashMap<>();
+        if (analyses.isEmpty()) {
+            return notesByAnalysis;
+        }
+
+        boolean includeNoneConformity = false;
+        List<String> dbFilter = new ArrayList<>(filter.length);
+        for (NoteType type : filter) {
+            if (type == NoteType.NON_CONFORMITY) {
+                includeNoneConformity = true;
+            }
+
+            dbFilter.add(type.getDBCode());
+        }
+
+        List<String> analysisIds = new ArrayList<>(analyses.size());
+        Set<String> sampleItemIds = new LinkedHashSet<>();
+        Set<String> sampleIds = new LinkedHashSet<>();
+        for (Analysis analysis : analyses) {
+            analysisIds.add(analysis.getId());
+            sampleItemIds.add(analysis.getSampleItem().getId());
+            sampleIds.add(analysis.getSampleItem().getSample().getId());
+        }
+
+        Map<String, List<Note>> analysisNotes = groupByReferenceId(
+                baseObjectDAO.getNotesChronologicallyByRefIdsAndRefTableAndType(analysisIds,
+                        AnalysisServiceImpl.getTableReferenceId(), dbFilter));
+
+        // the non conformity reasons of the parent sample items, samples and sample
+        // qa events, as getNonConformityReasons finds them one analysis at a time
+        Map<String, List<Note>> sampleItemNotes = new HashMap<>();
+        Map<String, List<Note>> sampleNotes = new HashMap<>();
+        Map<String, List<Note>> qaEventNotes = new HashMap<>();
+        Map<String, List<SampleQaEvent>> qaEventsBySample = new HashMap<>();
+        if (includeNoneConformity) {
+            List<String> nonConformityFilter = new ArrayList<>(1);
+            nonConformityFilter.add(NoteType.NON_CONFORMITY.getDBCode());
+
+            sampleItemNotes = groupByReferenceId(baseObjectDAO.getNotesChronologicallyByRefIdsAndRefTableAndType(
+                    new ArrayList<>(sampleItemIds), SampleItemServiceImpl.getSampleItemTableReferenceId(),
+                    nonConformityFilter));
+            sampleNotes = groupByReferenceId(baseObjectDAO.getNotesChronologicallyByRefIdsAndRefTableAndType(
+                    new ArrayList<>(sampleIds), SampleServiceImpl.getTableReferenceId(), nonConformityFilter));
+
+            List<String> qaEventIds = new ArrayList<>();
+            for (SampleQaEvent event : sampleQAService.getSampleQaEventsBySampleIds(new ArrayList<>(sampleIds))) {
+                qaEventsBySample.computeIfAbsent(event.getSample().getId(), k -> new ArrayList<>()).add(event);
+                qaEventIds.add(event.getId());
+            }
+            qaEventNotes = groupByReferenceId(baseObjectDAO.getNotesChronologicallyByRefIdsAndRefTableAndType(
+                    qaEventIds, QAService.TABLE_REFERENCE_ID, nonConformityFilter));
+        }
+
+        for (Analysis analysis : analyses) {
+            List<Note> noteList = new ArrayList<>(
+                    analysisNotes.getOrDefault(analysis.getId(), Collections.<Note>emptyList()));
+
+            if (includeNoneConformity) {
+                SampleItem sampleItem = analysis.getSampleItem();
+                String sampleId = sampleItem.getSample().getId();
+                List<Note> nonConformityNoteList = new ArrayList<>();
+                nonConformityNoteList
+                        .addAll(sampleItemNotes.getOrDefault(sampleItem.getId(), Collections.<Note>emptyList()));
+                nonConformityNoteList.addAll(sampleNotes.getOrDefault(sampleId, Collections.<Note>emptyList()));
+                for (SampleQaEvent event : qaEventsBySample.getOrDefault(sampleId,
+                        Collections.<SampleQaEvent>emptyList())) {
+                    if (event.getSampleItem() == null || sampleItem.getId().equals(event.getSampleItem().getId())) {
+                        nonConformityNoteList
+                                .addAll(qaEventNotes.getOrDefault(event.getId(), Collections.<Note>emptyList()));
+                        Note proxyNote = new Note();
+                        proxyNote.setNoteType(Note.NON_CONFORMITY);
+                        proxyNote.setText(event.getQaEvent().getLocalizedName());
+                        proxyNote.setLastupdated(event.getLastupdated());
+                        nonConformityNoteList.add(proxyNote);
+                    }
+                }
+
+                if (!nonConformityNoteList.isEmpty()) {
+                    noteList.addAll(nonConformityNoteList);
+                    Collections.sort(noteList, new Comparator<Note>() {
+                        @Override
+                        public int compare(Note o1, Note o2) {
+                            return o1.getLastupdated().compareTo(o2.getLastupdated());
+                        }
+                    });
+                }
+            }
+
+            notesByAnalysis.put(analysis.getId(), notesToString(analysis, prefixType, prefixTimestamp, noteSeparator,
+                    noteList, excludeExternPrefix, EncodeContext.HTML));
+        }
+
+        return notesByAnalysis;
+    }
+
+    private static Map<String, List<Note>> groupByReferenceId(List<Note> notes) {
+        Map<String, List<Note>> notesByReference = new HashMap<>();
+        for (Note note : notes) {
+            notesByReference.computeIfAbsent(note.getReferenceId(), k -> new ArrayList<>()).add(note);
+        }
+        return notesByReference;
+    }
+
     private List<Note> getNonConformityReasons(NoteObject noteObject) {
         ArrayList<Note> notes = new ArrayList<>();
 
@@ -432,4 +541,39 @@ public class NoteServiceImpl extends BaseObjectServiceImpl<Note, String> impleme
         return super.update(note);
     }
 
+    @Override
+    public List<String> batchInsert(List<Note> notes) {
+        checkForDuplicates(notes);
+        return super.batchInsert(notes);
+    }
+
+    @Override
+    public List<Note> batchUpdate(List<Note> notes) {
+        checkForDuplicates(notes);
+        return super.batchUpdate(notes);
+    }
+
+    /*
+     * none of the notes are saved yet, so besides the notes in the database each
+     * note is checked against the notes before it in the list
+     */
+    private void checkForDuplicates(List<Note> notes) {
+        Map<String, Note> accepted = new HashMap<>();
+        for (Note note : notes) {
+            Note earlier = accepted.put(getDuplicateKey(note), note);
+            boolean duplicateInList = earlier != null
+                    && (note.getId() == null || !note.getId().equals(earlier.getId()));
+            if (duplicateInList || getBaseObjectDAO().duplicateNoteExists(note)) {
+                throw new LIMSDuplicateRecordException("Duplicate record exists for " + note.getNoteType());
+            }
+        }
+    }
+
+    // the fields duplicateNoteExists compares, normalized the same way
+    private String getDuplicateKey(Note note) {
+        return note.getNoteType().toLowerCase().trim() + '\u0000' + Integer.parseInt(note.getReferenceId())
+                + '\u0000' + Integer.parseInt(note.getReferenceTableId()) + '\u0000'
+                + note.getText().toLowerCase().trim() + '\u0000' + note.getSubject().toLowerCase().trim();
+    }
+
 }
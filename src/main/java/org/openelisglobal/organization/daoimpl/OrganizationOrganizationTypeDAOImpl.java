@@ -23,6 +23,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.hibernate.Query;
+import org.hibernate.SQLQuery;
 import org.hibernate.Session;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.log.LogEvent;
@@ -45,7 +46,9 @@ public class OrganizationOrganizationTypeDAOImpl implements OrganizationOrganiza
 
         try {
             String sql = "delete from organization_organization_type where org_id = :id";
-            Query query = entityManager.unwrap(Session.class).createSQLQuery(sql);
+            SQLQuery query = entityManager.unwrap(Session.class).createSQLQuery(sql);
+            // only this table changes, without it hibernate empties every cache region
+            query.addSynchronizedQuerySpace("organization_organization_type");
             query.setInteger("id", Integer.parseInt(id));
             query.executeUpdate();
         } catch (RuntimeException e) {
@@ -60,7 +63,8 @@ public class OrganizationOrganizationTypeDAOImpl implements OrganizationOrganiza
 
         try {
             String sql = "INSERT INTO organization_organization_type(org_id, org_type_id)VALUES (:org_id, :type_id);";
-            Query query = entityManager.unwrap(Session.class).createSQLQuery(sql);
+            SQLQuery query = entityManager.unwrap(Session.class).createSQLQuery(sql);
+            query.addSynchronizedQuerySpace("organization_organization_type");
             query.setInteger("org_id", Integer.parseInt(org.getId()));
             query.setInteger("type_id", Integer.parseInt(typeId));
             query.executeUpdate();
@@ -44,4 +44,10 @@ public interface ReferralDAO extends BaseDAO<Referral, String> {
      * @return a list in the of referrals
      */
     public List<Referral> getAllReferralsByOrganization(String organizationId, Date lowDate, Date highDate);
+
+    /**
+     * @param analysisIds - the PKs of the analyses
+     * @return the referrals of all of the analyses, in the order they were made
+     */
+    public List<Referral> getReferralsByAnalysisIds(List<String> analysisIds) throws LIMSRuntimeException;
 }
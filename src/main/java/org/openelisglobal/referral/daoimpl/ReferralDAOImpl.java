@@ -191,4 +191,27 @@ public class ReferralDAOImpl extends BaseDAOImpl<Referral, String> implements Re
         return new ArrayList<>();
     }
 
-}
\ No newline at end of file
+    @Override
+    @Transactional(readOnly = true)
+    public List<Referral> getReferralsByAnalysisIds(List<String> analysisIds) throws LIMSRuntimeException {
+        if (analysisIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> ids = new ArrayList<>(analysisIds.size());
+        for (String analysisId : analysisIds) {
+            ids.add(Integer.parseInt(analysisId));
+        }
+
+        String sql = "From Referral r where r.analysis.id in (:analysisIds) order by r.id";
+
+        try {
+            Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setParameterList("analysisIds", ids);
+            return query.list();
+        } catch (HibernateException e) {
+            handleException(e, "getReferralsByAnalysisIds");
+        }
+
+        return null;
+    }
+}
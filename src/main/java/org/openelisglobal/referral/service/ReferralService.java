@@ -17,4 +17,6 @@ public interface ReferralService extends BaseObjectService<Referral, String> {
     List<Referral> getAllUncanceledOpenReferrals();
 
     List<Referral> getAllReferralsByOrganization(String organizationId, Date lowDate, Date highDate);
+
+    List<Referral> getReferralsByAnalysisIds(List<String> analysisIds);
 }
@@ -53,4 +53,10 @@ public class ReferralServiceImpl extends BaseObjectServiceImpl<Referral, String>
     public List<Referral> getAllReferralsByOrganization(String organizationId, Date lowDate, Date highDate) {
         return getBaseObjectDAO().getAllReferralsByOrganization(organizationId, lowDate, highDate);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Referral> getReferralsByAnalysisIds(List<String> analysisIds) {
+        return getBaseObjectDAO().getReferralsByAnalysisIds(analysisIds);
+    }
 }
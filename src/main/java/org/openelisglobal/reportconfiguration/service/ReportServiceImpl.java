@@ -15,6 +15,7 @@ import org.openelisglobal.reportconfiguration.dao.ReportDAO;
 import org.openelisglobal.reportconfiguration.form.ReportConfigurationForm;
 import org.openelisglobal.reportconfiguration.valueholder.Report;
 import org.openelisglobal.reportconfiguration.valueholder.ReportCategory;
+import org.openelisglobal.reports.service.JasperReportService;
 import org.openelisglobal.siteinformation.service.SiteInformationService;
 import org.openelisglobal.siteinformation.valueholder.SiteInformation;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +30,8 @@ public class ReportServiceImpl extends BaseObjectServiceImpl<Report, String> imp
     private MenuService menuService;
     @Autowired
     private SiteInformationService siteInformationService;
+    @Autowired
+    private JasperReportService jasperReportService;
 
     ReportServiceImpl() {
         super(Report.class);
@@ -131,6 +134,7 @@ public class ReportServiceImpl extends BaseObjectServiceImpl<Report, String> imp
                             File templateFile = new File(reportPath,
                                     form.getReportTemplateFile().getOriginalFilename());
                             form.getReportTemplateFile().transferTo(templateFile);
+                            jasperReportService.clearReports();
                         }
                     } catch (IOException e) {
                         LogEvent.logDebug(e);
@@ -16,6 +16,11 @@
 */
 package org.openelisglobal.reports.action.implementation;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.text.ParseException;
+
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRField;
@@ -77,4 +82,20 @@ public abstract class CSVRoutineExportReport extends Report implements JRDataSou
     public boolean next() throws JRException {
         throw new UnsupportedOperationException();
     }
-}
\ No newline at end of file
+
+    /**
+     * Unless a subclass writes the csv as it goes, it is built by runReport and
+     * written out as it is returned from there
+     *
+     * @see org.openelisglobal.reports.action.implementation.Report#writeReport(java.io.OutputStream)
+     */
+    @Override
+    public void writeReport(OutputStream out)
+            throws IOException, SQLException, IllegalStateException, JRException, ParseException {
+        if (errorFound) {
+            super.writeReport(out);
+        } else {
+            out.write(runReport());
+        }
+    }
+}
@@ -16,8 +16,10 @@
 */
 package org.openelisglobal.reports.action.implementation;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.sql.SQLException;
 import java.text.ParseException;
@@ -31,6 +33,8 @@ import net.sf.jasperreports.engine.JRException;
 
 public abstract class CSVSampleExportReport extends CSVExportReport {
 
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
     protected String lowDateStr;
     protected String highDateStr;
     protected List<Object> reportItems;
@@ -70,15 +74,41 @@ public abstract class CSVSampleExportReport extends CSVExportReport {
         }
 
         ByteArrayOutputStream buffer = new ByteArrayOutputStream(100000);
-        buffer.write(csvColumnBuilder.getColumnNamesLine().getBytes("windows-1252"));
+        writeReport(buffer);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Write the csv a row at a time as it is read from the database. If writing
+     * fails, usually because the client has gone away, the export query is
+     * stopped.
+     */
+    @Override
+    public void writeReport(OutputStream out)
+            throws IOException, SQLException, IllegalStateException, JRException, ParseException {
+        if (errorFound) {
+            super.writeReport(out);
+            return;
+        }
 
-        writeResultsToBuffer(buffer);
-        csvColumnBuilder.closeResultSet();
+        try {
+            OutputStream buffer = new BufferedOutputStream(out, WRITE_BUFFER_SIZE);
+            buffer.write(csvColumnBuilder.getColumnNamesLine().getBytes("windows-1252"));
+            writeResultsToBuffer(buffer);
+            buffer.flush();
+        } finally {
+            csvColumnBuilder.closeResultSet();
+        }
+    }
 
-        return buffer.toByteArray();
+    @Override
+    public void close() throws SQLException {
+        if (csvColumnBuilder != null) {
+            csvColumnBuilder.closeResultSet();
+        }
     }
 
-    protected void writeResultsToBuffer(ByteArrayOutputStream buffer)
+    protected void writeResultsToBuffer(OutputStream buffer)
             throws IOException, UnsupportedEncodingException, SQLException, ParseException {
         while (csvColumnBuilder.next()) {
             buffer.write(csvColumnBuilder.nextLine().getBytes("windows-1252"));
@@ -37,13 +37,14 @@ import org.openelisglobal.patient.util.PatientUtil;
 import org.openelisglobal.patient.valueholder.Patient;
 import org.openelisglobal.reports.action.implementation.reportBeans.ErrorMessages;
 import org.openelisglobal.reports.form.ReportForm;
+import org.openelisglobal.reports.service.JasperReportService;
+import org.openelisglobal.spring.util.SpringContext;
 
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.pdf.PdfCopyFields;
 import com.lowagie.text.pdf.PdfReader;
 
 import net.sf.jasperreports.engine.JRException;
-import net.sf.jasperreports.engine.JasperRunManager;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 
 public abstract class CollectionReport implements IReportCreator {
@@ -96,13 +97,19 @@ public abstract class CollectionReport implements IReportCreator {
             ErrorMessages msgs = new ErrorMessages();
             msgs.setMsgLine1(MessageUtil.getMessage("report.error.message.noPrintableItems"));
             errorMsgs.add(msgs);
-            return JasperRunManager.runReportToPdf(reportPath + "NoticeOfReportError.jasper", parameterMap,
-                    new JRBeanCollectionDataSource(errorMsgs));
+            return SpringContext.getBean(JasperReportService.class).runReportToPdf(
+                    reportPath + "NoticeOfReportError.jasper", parameterMap, new JRBeanCollectionDataSource(errorMsgs));
         } else {
             return merge(byteList);
         }
     }
 
+    @Override
+    public void writeReport(OutputStream out) throws IOException, JRException, DocumentException {
+        // the reports are merged into one pdf, which needs them all first
+        out.write(runReport());
+    }
+
     @Override
     public void setReportPath(String path) {
         reportPath = path;
@@ -160,24 +167,35 @@ public abstract class CollectionReport implements IReportCreator {
         IReportCreator reportCreator = ReportImplementationFactory.getReportCreator(reportName);
 
         if (reportCreator != null) {
-            reportCreator.setRequestedReport(requestedReport);
-            reportCreator.initializeReport(form);
-            reportCreator.setReportPath(reportPath);
-
-            @SuppressWarnings("unchecked")
-            HashMap<String, String> parameterMap = (HashMap<String, String>) reportCreator.getReportParameters();
-            parameterMap.put("SUBREPORT_DIR", reportPath);
-            handledOrders.addAll(reportCreator.getReportedOrders());
             try {
+                reportCreator.setRequestedReport(requestedReport);
+                reportCreator.initializeReport(form);
+                reportCreator.setReportPath(reportPath);
+
+                @SuppressWarnings("unchecked")
+                HashMap<String, String> parameterMap = (HashMap<String, String>) reportCreator
+                        .getReportParameters();
+                parameterMap.put("SUBREPORT_DIR", reportPath);
+                handledOrders.addAll(reportCreator.getReportedOrders());
                 return reportCreator.runReport();
             } catch (IOException | SQLException | JRException | DocumentException | ParseException e) {
                 LogEvent.logDebug(e);
+            } finally {
+                closeReport(reportCreator);
             }
         }
 
         return null;
     }
 
+    private void closeReport(IReportCreator reportCreator) {
+        try {
+            reportCreator.close();
+        } catch (SQLException e) {
+            LogEvent.logError("CollectionReport", "closeReport()", "unable to close report: " + e.getMessage());
+        }
+    }
+
     protected Patient getPatient() {
         String patientId = form.getPatientNumberDirect();
         return PatientUtil.getPatientByIdentificationNumber(patientId);
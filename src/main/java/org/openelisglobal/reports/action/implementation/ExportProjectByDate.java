@@ -18,8 +18,8 @@ package org.openelisglobal.reports.action.implementation;
 
 import static org.apache.commons.validator.GenericValidator.isBlankOrNull;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -136,7 +136,7 @@ public class ExportProjectByDate extends CSVSampleExportReport implements IRepor
     }
 
     @Override
-    protected void writeResultsToBuffer(ByteArrayOutputStream buffer) throws IOException, SQLException, ParseException {
+    protected void writeResultsToBuffer(OutputStream buffer) throws IOException, SQLException, ParseException {
 
         String currentAccessionNumber = null;
         String[] splitBase = null;
@@ -166,7 +166,7 @@ public class ExportProjectByDate extends CSVSampleExportReport implements IRepor
         }
     }
 
-    protected void writeConsolidatedBaseToBuffer(ByteArrayOutputStream buffer, String[] splitBase) throws IOException {
+    protected void writeConsolidatedBaseToBuffer(OutputStream buffer, String[] splitBase) throws IOException {
 
         if (splitBase != null) {
             int splitBaseNumChars = StringUtil.countChars(splitBase);
@@ -17,6 +17,7 @@
 package org.openelisglobal.reports.action.implementation;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.sql.SQLException;
 import java.text.ParseException;
@@ -30,7 +31,7 @@ import com.lowagie.text.DocumentException;
 
 import net.sf.jasperreports.engine.JRException;
 
-public interface IReportCreator {
+public interface IReportCreator extends AutoCloseable {
     String INCOMPLETE_PARAMS = "Incompleate parameters";
     String INVALID_PARAMS = "Invalid parameters";
     String SUCCESS = IActionConstants.FWD_SUCCESS;
@@ -48,10 +49,26 @@ public interface IReportCreator {
     byte[] runReport() throws UnsupportedEncodingException, IOException, SQLException, IllegalStateException,
             JRException, DocumentException, ParseException;
 
+    /**
+     * Write the report to the stream, for reports that can be written out as they
+     * are produced instead of being built in memory first
+     */
+    void writeReport(OutputStream out) throws UnsupportedEncodingException, IOException, SQLException,
+            IllegalStateException, JRException, DocumentException, ParseException;
+
     void setReportPath(String path);
 
     void setRequestedReport(String report);
 
     List<String> getReportedOrders();
 
+    /**
+     * Release what the report holds open between {@link #initializeReport} and
+     * writing it, like the connection of an export cursor. Must be called once the
+     * report is done with, whether or not it was written.
+     */
+    @Override
+    default void close() throws SQLException {
+    }
+
 }
@@ -19,6 +19,7 @@ package org.openelisglobal.reports.action.implementation;
 import static org.apache.commons.validator.GenericValidator.isBlankOrNull;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.sql.Date;
 import java.sql.SQLException;
@@ -39,12 +40,12 @@ import org.openelisglobal.internationalization.MessageUtil;
 import org.openelisglobal.organization.service.OrganizationService;
 import org.openelisglobal.organization.valueholder.Organization;
 import org.openelisglobal.reports.action.implementation.reportBeans.ErrorMessages;
+import org.openelisglobal.reports.service.JasperReportService;
 import org.openelisglobal.spring.util.SpringContext;
 
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
-import net.sf.jasperreports.engine.JasperRunManager;
 
 public abstract class Report implements IReportCreator {
 
@@ -219,7 +220,15 @@ public abstract class Report implements IReportCreator {
     @Override
     public byte[] runReport() throws UnsupportedEncodingException, IOException, SQLException, IllegalStateException,
             JRException, ParseException {
-        return JasperRunManager.runReportToPdf(fullReportFilename, getReportParameters(), getReportDataSource());
+        return SpringContext.getBean(JasperReportService.class).runReportToPdf(fullReportFilename,
+                getReportParameters(), getReportDataSource());
+    }
+
+    @Override
+    public void writeReport(OutputStream out) throws UnsupportedEncodingException, IOException, SQLException,
+            IllegalStateException, JRException, ParseException {
+        SpringContext.getBean(JasperReportService.class).writePdf(fullReportFilename, getReportParameters(),
+                getReportDataSource(), out);
     }
 
     public abstract JRDataSource getReportDataSource() throws IllegalStateException;
@@ -0,0 +1,78 @@
+package org.openelisglobal.reports.action.implementation.reportBeans;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.openelisglobal.common.log.LogEvent;
+import org.openelisglobal.spring.util.SpringContext;
+
+/**
+ * The rows of a csv export query, read through a forward only cursor so the
+ * database hands them over a batch at a time instead of the driver holding the
+ * whole result in memory. PostgreSQL only uses a cursor outside of autocommit,
+ * so the cursor has a connection of its own until it is closed.
+ */
+public class CSVExportCursor implements AutoCloseable {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final Connection connection;
+    private final boolean autoCommit;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private boolean exhausted;
+
+    private CSVExportCursor(Connection connection, String sql) throws SQLException {
+        this.connection = connection;
+        autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(FETCH_SIZE);
+        resultSet = statement.executeQuery();
+    }
+
+    public static CSVExportCursor open(String sql) throws SQLException {
+        Connection connection = SpringContext.getBean(DataSource.class).getConnection();
+        try {
+            return new CSVExportCursor(connection, sql);
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    public ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    public boolean next() throws SQLException {
+        exhausted = !resultSet.next();
+        return !exhausted;
+    }
+
+    /**
+     * Give the connection back. If the rows were not all read, for instance
+     * because the client went away part way through the download, the statement
+     * is cancelled so the database stops producing them.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!exhausted) {
+                statement.cancel();
+            }
+            resultSet.close();
+            statement.close();
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            LogEvent.logError("CSVExportCursor", "close()", "unable to close export cursor: " + e.getMessage());
+        } finally {
+            connection.close();
+        }
+    }
+}
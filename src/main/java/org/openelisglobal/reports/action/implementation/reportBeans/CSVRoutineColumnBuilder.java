@@ -21,7 +21,6 @@ import static org.apache.commons.validator.GenericValidator.isBlankOrNull;
 import static org.openelisglobal.reports.action.implementation.reportBeans.CSVRoutineColumnBuilder.Strategy.DICT;
 import static org.openelisglobal.reports.action.implementation.reportBeans.CSVRoutineColumnBuilder.Strategy.TEST_RESULT;
 
-import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.ParseException;
@@ -32,9 +31,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.jdbc.ReturningWork;
 import org.openelisglobal.analyte.service.AnalyteService;
 import org.openelisglobal.analyte.valueholder.Analyte;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
@@ -125,10 +121,15 @@ abstract public class CSVRoutineColumnBuilder {
 
     protected String validStatusId;
 
-    protected static final SimpleDateFormat postgresDateFormat = new SimpleDateFormat("yyyy-MM-dd");
-    private static final SimpleDateFormat postgresDateTime = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss");
+    // SimpleDateFormat is not thread safe, each thread gets its own
+    protected static final ThreadLocal<SimpleDateFormat> postgresDateFormat = ThreadLocal
+            .withInitial(() -> new SimpleDateFormat("yyyy-MM-dd"));
+    private static final ThreadLocal<SimpleDateFormat> postgresDateTime = ThreadLocal
+            .withInitial(() -> new SimpleDateFormat("yyyy-MM-dd hh:mm:ss"));
 
     protected ResultSet resultSet;
+    private CSVExportCursor cursor;
+    private final StringBuilder line = new StringBuilder();
 
     protected String eol = System.getProperty("line.separator");
 
@@ -222,40 +223,24 @@ abstract public class CSVRoutineColumnBuilder {
         // console must be wrong, so it truncates them
         // LogEvent.logInfo(this.getClass().getName(), "method unkown", "===2===\n" +
         // sql.substring(7000));
-//		Session session = HibernateUtil.getSession().getSessionFactory().openSession();
-//		PreparedStatement stmt = session.connection().prepareStatement(sql, ResultSet.TYPE_SCROLL_SENSITIVE,
-//				ResultSet.CONCUR_READ_ONLY);
-//		resultSet = stmt.executeQuery();
-        Session session = SpringContext.getBean(SessionFactory.class).openSession();
-        resultSet = session.doReturningWork(new ReturningWork<ResultSet>() {
-
-            @Override
-            public ResultSet execute(Connection connection) throws SQLException {
-                return connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY)
-                        .executeQuery();
-            }
-
-        });
+        cursor = CSVExportCursor.open(sql);
+        resultSet = cursor.getResultSet();
     }
 
-    protected synchronized String formatDateForDatabaseSql(Date date) {
-        // SimpleDateFormat is not thread safe
-        return postgresDateFormat.format(date);
+    protected String formatDateForDatabaseSql(Date date) {
+        return postgresDateFormat.get().format(date);
     }
 
-    private synchronized String formatDateTimeForDatabaseSql(Date date) {
-        // SimpleDateFormat is not thread safe
-        return postgresDateTime.format(date);
+    private String formatDateTimeForDatabaseSql(Date date) {
+        return postgresDateTime.get().format(date);
     }
 
-    protected synchronized Date parseDateForDatabaseSql(String date) throws ParseException {
-        // SimpleDateFormat is not thread safe
-        return postgresDateFormat.parse(date);
+    protected Date parseDateForDatabaseSql(String date) throws ParseException {
+        return postgresDateFormat.get().parse(date);
     }
 
-    private synchronized Date parseDateTimeForDatabaseSql(String date) throws ParseException {
-        // SimpleDateFormat is not thread safe
-        return postgresDateTime.parse(date);
+    private Date parseDateTimeForDatabaseSql(String date) throws ParseException {
+        return postgresDateTime.get().parse(date);
     }
 
     /**
@@ -690,7 +675,7 @@ abstract public class CSVRoutineColumnBuilder {
      * @throws SQLException
      */
     public String nextLine() throws SQLException, ParseException {
-        StringBuilder line = new StringBuilder();
+        line.setLength(0);
         String accessionNumber = null;
         for (CSVRoutineColumn column : columnsInOrder) {
             // OK this is a little hocky. Some of the custom translation strategies need the
@@ -710,7 +695,7 @@ abstract public class CSVRoutineColumnBuilder {
     }
 
     public boolean next() throws SQLException {
-        return resultSet.next();
+        return cursor.next();
     }
 
     /**
@@ -718,7 +703,10 @@ abstract public class CSVRoutineColumnBuilder {
      *
      */
     public void closeResultSet() throws SQLException {
-        resultSet.close();
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
         resultSet = null;
     }
 
@@ -43,7 +43,8 @@ public class ResourceTranslator<T extends BaseObject> {
      * placed on values that are not actually translated
      */
     public static final String NOT_FOUND_TAG = "%%";
-    protected Map<String, T> map = new HashMap<>();
+    // only written while constructing, so lookups need no locking
+    protected final Map<String, T> map = new HashMap<>();
 
     /**
      *
@@ -107,11 +108,15 @@ public class ResourceTranslator<T extends BaseObject> {
     }
 
     public static class GenderTranslator extends ResourceTranslator<Gender> {
-        private static GenderTranslator instance = null;
+        private static volatile GenderTranslator instance = null;
 
         public static GenderTranslator getInstance() {
             if (instance == null) {
-                instance = new GenderTranslator();
+                synchronized (GenderTranslator.class) {
+                    if (instance == null) {
+                        instance = new GenderTranslator();
+                    }
+                }
             }
             return instance;
         }
@@ -141,11 +146,15 @@ public class ResourceTranslator<T extends BaseObject> {
     }
 
     public static class DictionaryTranslator extends ResourceTranslator<Dictionary> {
-        private static DictionaryTranslator instance = null;
+        private static volatile DictionaryTranslator instance = null;
 
         public static DictionaryTranslator getInstance() {
             if (instance == null) {
-                instance = new DictionaryTranslator();
+                synchronized (DictionaryTranslator.class) {
+                    if (instance == null) {
+                        instance = new DictionaryTranslator();
+                    }
+                }
             }
             return instance;
         }
@@ -99,15 +99,17 @@ public class ReportController extends BaseController {
         IReportCreator reportCreator = ReportImplementationFactory.getReportCreator(request.getParameter("report"));
 
         if (reportCreator != null) {
-            reportCreator.setRequestedReport(request.getParameter("report"));
-            reportCreator.initializeReport(form);
-            reportCreator.setReportPath(getReportPath());
+            // initializeReport may open an export cursor with a connection of its own,
+            // which has to be closed however the rest of the request goes
+            try {
+                reportCreator.setRequestedReport(request.getParameter("report"));
+                reportCreator.initializeReport(form);
+                reportCreator.setReportPath(getReportPath());
 
-            HashMap<String, String> parameterMap = (HashMap<String, String>) reportCreator.getReportParameters();
-            parameterMap.put("SUBREPORT_DIR", getReportPath());
-            parameterMap.put("imagesPath", getImagesPath());
+                HashMap<String, String> parameterMap = (HashMap<String, String>) reportCreator.getReportParameters();
+                parameterMap.put("SUBREPORT_DIR", getReportPath());
+                parameterMap.put("imagesPath", getImagesPath());
 
-            try {
                 response.setContentType(reportCreator.getContentType());
                 String responseHeaderName = reportCreator.getResponseHeaderName();
                 String responseHeaderContent = reportCreator.getResponseHeaderContent();
@@ -116,18 +118,16 @@ public class ReportController extends BaseController {
                     response.setHeader(responseHeaderName, responseHeaderContent);
                 }
 
-                byte[] bytes = reportCreator.runReport();
-
-                response.setContentLength(bytes.length);
-
+                // written as it is exported rather than buffered, so there is no content length
                 ServletOutputStream servletOutputStream = response.getOutputStream();
-
-                servletOutputStream.write(bytes, 0, bytes.length);
+                reportCreator.writeReport(servletOutputStream);
                 servletOutputStream.flush();
                 servletOutputStream.close();
             } catch (IOException | SQLException | JRException | DocumentException | ParseException e) {
                 LogEvent.logErrorStack(e);
                 LogEvent.logDebug(e);
+            } finally {
+                closeReport(reportCreator);
             }
         }
 
@@ -140,6 +140,14 @@ public class ReportController extends BaseController {
         return null;
     }
 
+    private void closeReport(IReportCreator reportCreator) {
+        try {
+            reportCreator.close();
+        } catch (SQLException e) {
+            LogEvent.logError("ReportController", "closeReport()", "unable to close report: " + e.getMessage());
+        }
+    }
+
     private void trackReports(IReportCreator reportCreator, String reportName, ReportType type) {
         List<String> refIds = reportCreator.getReportedOrders() != null ? reportCreator.getReportedOrders()
                 : new ArrayList<>();
@@ -0,0 +1,32 @@
+package org.openelisglobal.reports.service;
+
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.util.Map;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+
+public interface JasperReportService {
+
+    /**
+     * @return the compiled report in the .jasper file, loaded once and then
+     *         shared until the file changes or the cache is cleared
+     */
+    JasperReport getReport(String reportFilePath) throws JRException;
+
+    void writePdf(String reportFilePath, Map<String, Object> parameters, JRDataSource dataSource,
+            OutputStream out) throws JRException;
+
+    void writePdf(String reportFilePath, Map<String, Object> parameters, Connection connection, OutputStream out)
+            throws JRException;
+
+    byte[] runReportToPdf(String reportFilePath, Map<String, Object> parameters, JRDataSource dataSource)
+            throws JRException;
+
+    /**
+     * Forget every loaded report, for when report files are replaced
+     */
+    void clearReports();
+}
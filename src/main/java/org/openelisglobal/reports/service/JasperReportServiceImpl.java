@@ -0,0 +1,115 @@
+package org.openelisglobal.reports.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+
+/**
+ * Fills and exports jasper reports. Compiled reports are kept once loaded,
+ * keyed by file so each locale's templates and subreports have their own
+ * entry, and are reloaded when the file on disk changes.
+ *
+ * Filling runs on the requesting thread, as the data sources may read lazily
+ * from the request's hibernate session, but only a few fills run at a time so
+ * that large reports cannot take every request thread. The export is written
+ * straight to the given stream.
+ */
+@Service
+public class JasperReportServiceImpl implements JasperReportService {
+
+    private static final int MAX_CONCURRENT_FILLS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final long FILL_WAIT_SECONDS = 120;
+
+    private final ConcurrentMap<String, LoadedReport> reports = new ConcurrentHashMap<>();
+    private final Semaphore fillPermits = new Semaphore(MAX_CONCURRENT_FILLS, true);
+
+    @Override
+    public JasperReport getReport(String reportFilePath) throws JRException {
+        File reportFile = new File(reportFilePath);
+        long lastModified = reportFile.lastModified();
+        LoadedReport loaded = reports.get(reportFile.getPath());
+        if (loaded == null || loaded.lastModified != lastModified) {
+            loaded = new LoadedReport((JasperReport) JRLoader.loadObject(reportFile), lastModified);
+            reports.put(reportFile.getPath(), loaded);
+        }
+        return loaded.report;
+    }
+
+    @Override
+    public void writePdf(String reportFilePath, Map<String, Object> parameters, JRDataSource dataSource,
+            OutputStream out) throws JRException {
+        JasperReport report = getReport(reportFilePath);
+        JasperPrint print;
+        acquireFillPermit(reportFilePath);
+        try {
+            print = JasperFillManager.fillReport(report, parameters, dataSource);
+        } finally {
+            fillPermits.release();
+        }
+        JasperExportManager.exportReportToPdfStream(print, out);
+    }
+
+    @Override
+    public void writePdf(String reportFilePath, Map<String, Object> parameters, Connection connection,
+            OutputStream out) throws JRException {
+        JasperReport report = getReport(reportFilePath);
+        JasperPrint print;
+        acquireFillPermit(reportFilePath);
+        try {
+            print = JasperFillManager.fillReport(report, parameters, connection);
+        } finally {
+            fillPermits.release();
+        }
+        JasperExportManager.exportReportToPdfStream(print, out);
+    }
+
+    @Override
+    public byte[] runReportToPdf(String reportFilePath, Map<String, Object> parameters, JRDataSource dataSource)
+            throws JRException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writePdf(reportFilePath, parameters, dataSource, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public void clearReports() {
+        reports.clear();
+    }
+
+    private void acquireFillPermit(String reportFilePath) throws JRException {
+        try {
+            if (!fillPermits.tryAcquire(FILL_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                throw new JRException("Timed out waiting to fill report " + reportFilePath);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JRException("Interrupted waiting to fill report " + reportFilePath, e);
+        }
+    }
+
+    private static final class LoadedReport {
+        private final JasperReport report;
+        private final long lastModified;
+
+        private LoadedReport(JasperReport report, long lastModified) {
+            this.report = report;
+            this.lastModified = lastModified;
+        }
+    }
+}
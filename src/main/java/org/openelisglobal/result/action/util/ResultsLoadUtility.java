@@ -74,7 +74,6 @@ import org.openelisglobal.result.valueholder.ResultInventory;
 import org.openelisglobal.result.valueholder.ResultSignature;
 import org.openelisglobal.resultlimit.service.ResultLimitService;
 import org.openelisglobal.resultlimits.valueholder.ResultLimit;
-import org.openelisglobal.sample.service.SampleService;
 import org.openelisglobal.sample.valueholder.Sample;
 import org.openelisglobal.samplehuman.service.SampleHumanService;
 import org.openelisglobal.sampleitem.service.SampleItemService;
@@ -110,6 +109,9 @@ public class ResultsLoadUtility {
     private static final String NO_PATIENT_NAME = " ";
     private static final String NO_PATIENT_INFO = " ";
 
+    private static final NoteType[] PAST_NOTE_TYPES = { NoteType.EXTERNAL, NoteType.INTERNAL,
+            NoteType.REJECTION_REASON, NoteType.NON_CONFORMITY };
+
     private List<Sample> samples;
     private String currentDate = "";
     private Sample currSample;
@@ -122,6 +124,9 @@ public class ResultsLoadUtility {
 
     private Patient currentPatient;
 
+    // only set while a worklist is being loaded by getGroupedTestsForAnalysisList
+    private ResultsWorklistPrefetch prefetch;
+
     @Autowired
     private PatientService patientService;
     @Autowired
@@ -267,31 +272,35 @@ public class ResultsLoadUtility {
 
         List<TestResultItem> selectedTestList = new ArrayList<>();
 
-        for (Analysis analysis : filteredAnalysisList) {
-            patientService = SpringContext.getBean(PatientService.class);
-            SampleService sampleService = SpringContext.getBean(SampleService.class);
-            Sample sample = analysis.getSampleItem().getSample();
-            currentPatient = sampleService.getPatient(sample);
-
-            String patientName = "";
-            String patientInfo;
-            String nationalId = patientService.getNationalId(currentPatient);
-            if (depersonalize) {
-                patientInfo = GenericValidator.isBlankOrNull(nationalId) ? patientService.getExternalId(currentPatient)
-                        : nationalId;
-            } else {
-                patientName = patientService.getLastFirstName(currentPatient);
-                patientInfo = nationalId + ", " + patientService.getGender(currentPatient) + ", "
-                        + patientService.getBirthdayForDisplay(currentPatient);
-            }
+        prefetch = new ResultsWorklistPrefetch(filteredAnalysisList, useTechSignature, supportReferrals,
+                PAST_NOTE_TYPES);
+        try {
+            // name, info and national id of each patient already seen
+            Map<String, String[]> patientDescriptions = new HashMap<>();
+
+            for (Analysis analysis : filteredAnalysisList) {
+                Sample sample = analysis.getSampleItem().getSample();
+                currentPatient = prefetch.getPatient(sample.getId());
+
+                String[] patientDescription = patientDescriptions
+                        .get(currentPatient == null ? null : currentPatient.getId());
+                if (patientDescription == null) {
+                    patientDescription = describePatient(currentPatient);
+                    if (currentPatient != null) {
+                        patientDescriptions.put(currentPatient.getId(), patientDescription);
+                    }
+                }
 
-            currSample = analysis.getSampleItem().getSample();
-            List<TestResultItem> testResultItemList = getTestResultItemFromAnalysis(analysis, patientName, patientInfo,
-                    nationalId);
+                currSample = sample;
+                List<TestResultItem> testResultItemList = getTestResultItemFromAnalysis(analysis,
+                        patientDescription[0], patientDescription[1], patientDescription[2]);
 
-            for (TestResultItem selectionItem : testResultItemList) {
-                selectedTestList.add(selectionItem);
+                for (TestResultItem selectionItem : testResultItemList) {
+                    selectedTestList.add(selectionItem);
+                }
             }
+        } finally {
+            prefetch = null;
         }
 
         if (forwardSort) {
@@ -306,6 +315,21 @@ public class ResultsLoadUtility {
         return selectedTestList;
     }
 
+    private String[] describePatient(Patient patient) {
+        String patientName = "";
+        String patientInfo;
+        String nationalId = patientService.getNationalId(patient);
+        if (depersonalize) {
+            patientInfo = GenericValidator.isBlankOrNull(nationalId) ? patientService.getExternalId(patient)
+                    : nationalId;
+        } else {
+            patientName = patientService.getLastFirstName(patient);
+            patientInfo = nationalId + ", " + patientService.getGender(patient) + ", "
+                    + patientService.getBirthdayForDisplay(patient);
+        }
+        return new String[] { patientName, patientInfo, nationalId };
+    }
+
     private void reverseSortByAccessionAndSequence(List<? extends ResultItem> selectedTest) {
         Collections.sort(selectedTest, new Comparator<ResultItem>() {
             @Override
@@ -387,7 +411,8 @@ public class ResultsLoadUtility {
         List<TestResultItem> testResultList = new ArrayList<>();
 
         SampleItem sampleItem = analysis.getSampleItem();
-        List<Result> resultList = resultService.getResultsByAnalysis(analysis);
+        List<Result> resultList = prefetch == null ? resultService.getResultsByAnalysis(analysis)
+                : prefetch.getResults(analysis);
 
         ResultInventory testKit = null;
 
@@ -418,7 +443,9 @@ public class ResultsLoadUtility {
 
             if (result != null) {
                 if (useTechSignature) {
-                    List<ResultSignature> signatures = resultSignatureService.getResultSignaturesByResults(resultList);
+                    List<ResultSignature> signatures = prefetch == null
+                            ? resultSignatureService.getResultSignaturesByResults(resultList)
+                            : prefetch.getSignatures(resultList);
 
                     for (ResultSignature signature : signatures) {
                         // we no longer use supervisor signature but there may be some in db
@@ -436,10 +463,8 @@ public class ResultsLoadUtility {
             }
 
             String initialConditions = getInitialSampleConditionString(sampleItem);
-            NoteType[] noteTypes = { NoteType.EXTERNAL, NoteType.INTERNAL, NoteType.REJECTION_REASON,
-                    NoteType.NON_CONFORMITY };
-            NoteService noteService = SpringContext.getBean(NoteService.class);
-            String notes = noteService.getNotesAsString(analysis, true, true, "<br/>", noteTypes, false);
+            String notes = prefetch == null ? SpringContext.getBean(NoteService.class).getNotesAsString(analysis,
+                    true, true, "<br/>", PAST_NOTE_TYPES, false) : prefetch.getNotes(analysis);
 
             TestResultItem resultItem = createTestResultItem(analysis, testKit, notes, sampleItem.getSortOrder(),
                     result, sampleItem.getSample().getAccessionNumber(), patientName, patientInfo, techSignature,
@@ -479,6 +504,9 @@ public class ResultsLoadUtility {
     }
 
     private ResultInventory getInventoryForResult(Result result) throws LIMSRuntimeException {
+        if (prefetch != null) {
+            return prefetch.getInventory(result);
+        }
         List<ResultInventory> inventoryList = resultInventoryService.getResultInventorysByResult(result);
 
         return inventoryList.size() > 0 ? inventoryList.get(0) : null;
@@ -613,7 +641,8 @@ public class ResultsLoadUtility {
 
         String receivedDate = currSample == null ? getCurrentDate() : currSample.getReceivedDateForDisplay();
         String testMethodName = testService.getTestMethodName(test);
-        List<TestResult> testResults = testService.getPossibleTestResults(test);
+        List<TestResult> testResults = prefetch == null ? testService.getPossibleTestResults(test)
+                : prefetch.getPossibleTestResults(test.getId());
 
         String testKitId = null;
         String testKitInventoryId = null;
@@ -648,7 +677,8 @@ public class ResultsLoadUtility {
         String referralReasonId = null;
         boolean referralCanceled = false;
         if (supportReferrals) {
-            Referral referral = referralService.getReferralByAnalysisId(analysis.getId());
+            Referral referral = prefetch == null ? referralService.getReferralByAnalysisId(analysis.getId())
+                    : prefetch.getReferral(analysis);
             if (referral != null) {
                 referralCanceled = referral.isCanceled();
                 referralId = referral.getId();
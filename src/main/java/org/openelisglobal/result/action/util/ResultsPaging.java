@@ -33,7 +33,7 @@ import org.openelisglobal.result.form.ResultsPagingForm;
 import org.openelisglobal.test.beanItems.TestResultItem;
 
 public class ResultsPaging {
-    private PagingUtility<List<TestResultItem>> paging = new PagingUtility<>();
+    private PagingUtility<TestResultItem> paging = new PagingUtility<>();
 
     private static TestItemPageHelper pagingHelper = new TestItemPageHelper();
 
@@ -0,0 +1,146 @@
+package org.openelisglobal.result.action.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openelisglobal.analysis.valueholder.Analysis;
+import org.openelisglobal.note.service.NoteService;
+import org.openelisglobal.note.service.NoteServiceImpl.NoteType;
+import org.openelisglobal.patient.valueholder.Patient;
+import org.openelisglobal.referral.service.ReferralService;
+import org.openelisglobal.referral.valueholder.Referral;
+import org.openelisglobal.result.service.ResultInventoryService;
+import org.openelisglobal.result.service.ResultService;
+import org.openelisglobal.result.service.ResultSignatureService;
+import org.openelisglobal.result.valueholder.Result;
+import org.openelisglobal.result.valueholder.ResultInventory;
+import org.openelisglobal.result.valueholder.ResultSignature;
+import org.openelisglobal.samplehuman.service.SampleHumanService;
+import org.openelisglobal.spring.util.SpringContext;
+import org.openelisglobal.testresult.service.TestResultService;
+import org.openelisglobal.testresult.valueholder.TestResult;
+
+/**
+ * Everything ResultsLoadUtility looks up for each analysis of a worklist, read
+ * for the whole worklist at once with one query per kind of data. Building
+ * the result items then only reads from these maps.
+ */
+final class ResultsWorklistPrefetch {
+
+    private final Map<String, List<Result>> resultsByAnalysis = new HashMap<>();
+    private final Map<String, List<ResultSignature>> signaturesByResult = new HashMap<>();
+    private final Map<String, ResultInventory> inventoryByResult = new HashMap<>();
+    private final Map<String, Referral> referralByAnalysis = new HashMap<>();
+    private final Map<String, List<TestResult>> testResultsByTest = new HashMap<>();
+    private final Map<String, String> notesByAnalysis;
+    private final Map<String, Patient> patientBySample;
+
+    ResultsWorklistPrefetch(List<Analysis> analyses, boolean loadSignatures, boolean loadReferrals,
+            NoteType[] noteTypes) {
+        List<Integer> analysisIds = new ArrayList<>(analyses.size());
+        List<String> analysisIdStrings = new ArrayList<>(analyses.size());
+        Set<String> sampleIds = new LinkedHashSet<>();
+        Set<String> testIds = new LinkedHashSet<>();
+        for (Analysis analysis : analyses) {
+            analysisIds.add(Integer.parseInt(analysis.getId()));
+            analysisIdStrings.add(analysis.getId());
+            sampleIds.add(analysis.getSampleItem().getSample().getId());
+            if (analysis.getTest() != null) {
+                testIds.add(analysis.getTest().getId());
+            }
+        }
+
+        List<Result> results = analysisIds.isEmpty() ? null
+                : SpringContext.getBean(ResultService.class).getResultsForAnalysisIdList(analysisIds);
+        if (results == null) {
+            results = new ArrayList<>();
+        }
+        // getResultsByAnalysis returns them in id order
+        Collections.sort(results, new Comparator<Result>() {
+            @Override
+            public int compare(Result o1, Result o2) {
+                return Integer.compare(Integer.parseInt(o1.getId()), Integer.parseInt(o2.getId()));
+            }
+        });
+        for (Result result : results) {
+            resultsByAnalysis.computeIfAbsent(result.getAnalysis().getId(), k -> new ArrayList<>()).add(result);
+        }
+
+        if (loadSignatures) {
+            for (ResultSignature signature : SpringContext.getBean(ResultSignatureService.class)
+                    .getResultSignaturesByResults(results)) {
+                signaturesByResult.computeIfAbsent(signature.getResultId(), k -> new ArrayList<>()).add(signature);
+            }
+        }
+
+        for (ResultInventory inventory : SpringContext.getBean(ResultInventoryService.class)
+                .getResultInventorysByResults(results)) {
+            inventoryByResult.putIfAbsent(inventory.getResultId(), inventory);
+        }
+
+        if (loadReferrals) {
+            // the latest referral of an analysis is the one shown
+            for (Referral referral : SpringContext.getBean(ReferralService.class)
+                    .getReferralsByAnalysisIds(analysisIdStrings)) {
+                referralByAnalysis.put(referral.getAnalysis().getId(), referral);
+            }
+        }
+
+        for (TestResult testResult : SpringContext.getBean(TestResultService.class)
+                .getActiveTestResultsByTests(new ArrayList<>(testIds))) {
+            testResultsByTest.computeIfAbsent(testResult.getTest().getId(), k -> new ArrayList<>()).add(testResult);
+        }
+
+        notesByAnalysis = SpringContext.getBean(NoteService.class).getNotesAsStringForAnalyses(analyses, true, true,
+                "<br/>", noteTypes, false);
+        patientBySample = SpringContext.getBean(SampleHumanService.class)
+                .getPatientsForSamples(new ArrayList<>(sampleIds));
+    }
+
+    /**
+     * @return a list the caller may change
+     */
+    List<Result> getResults(Analysis analysis) {
+        return new ArrayList<>(resultsByAnalysis.getOrDefault(analysis.getId(), Collections.<Result>emptyList()));
+    }
+
+    List<ResultSignature> getSignatures(List<Result> results) {
+        List<ResultSignature> signatures = new ArrayList<>();
+        for (Result result : results) {
+            if (result != null) {
+                signatures.addAll(
+                        signaturesByResult.getOrDefault(result.getId(), Collections.<ResultSignature>emptyList()));
+            }
+        }
+        return signatures;
+    }
+
+    ResultInventory getInventory(Result result) {
+        return inventoryByResult.get(result.getId());
+    }
+
+    Referral getReferral(Analysis analysis) {
+        return referralByAnalysis.get(analysis.getId());
+    }
+
+    String getNotes(Analysis analysis) {
+        return notesByAnalysis.get(analysis.getId());
+    }
+
+    Patient getPatient(String sampleId) {
+        return patientBySample.get(sampleId);
+    }
+
+    /**
+     * @return a list the caller may change
+     */
+    List<TestResult> getPossibleTestResults(String testId) {
+        return new ArrayList<>(testResultsByTest.getOrDefault(testId, Collections.<TestResult>emptyList()));
+    }
+}
@@ -312,10 +312,6 @@ public class LogbookResultsController extends LogbookResultsBaseController {
 
         }
 
-        for (IResultUpdate updater : updaters) {
-            updater.postTransactionalCommitUpdate(actionDataSet);
-        }
-
         redirectAttributes.addFlashAttribute(FWD_SUCCESS, true);
         if (GenericValidator.isBlankOrNull(form.getType())) {
             return findForward(FWD_SUCCESS_INSERT, form);
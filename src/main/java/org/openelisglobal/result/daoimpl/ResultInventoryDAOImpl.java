@@ -18,6 +18,7 @@
 package org.openelisglobal.result.daoimpl;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.beanutils.PropertyUtils;
@@ -216,4 +217,26 @@ public class ResultInventoryDAOImpl extends BaseDAOImpl<ResultInventory, String>
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResultInventory> getResultInventorysByResults(List<Result> results) throws LIMSRuntimeException {
+        if (results.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> resultIds = new ArrayList<>(results.size());
+        for (Result result : results) {
+            resultIds.add(Integer.parseInt(result.getId()));
+        }
+
+        try {
+            String sql = "from ResultInventory r where r.resultId in (:resultIds) order by r.id";
+            org.hibernate.Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setParameterList("resultIds", resultIds);
+
+            return query.list();
+        } catch (RuntimeException e) {
+            LogEvent.logError(e.toString(), e);
+            throw new LIMSRuntimeException("Error in ResultInventory getResultInventorysByResults()", e);
+        }
+    }
+}
@@ -11,6 +11,8 @@ import org.openelisglobal.analysis.valueholder.Analysis;
 import org.openelisglobal.common.services.IStatusService;
 import org.openelisglobal.common.services.ResultSaveService;
 import org.openelisglobal.common.services.StatusService.OrderStatus;
+import org.openelisglobal.common.services.registration.ResultEventBus;
+import org.openelisglobal.common.services.registration.ResultEventBus.Register;
 import org.openelisglobal.common.services.registration.interfaces.IResultUpdate;
 import org.openelisglobal.dataexchange.orderresult.OrderResponseWorker.Event;
 import org.openelisglobal.note.service.NoteService;
@@ -49,6 +51,8 @@ public class LogbookPersistServiceImpl implements LogbookResultsPersistService {
     private ReferralService referralService;
     @Autowired
     private ReferralResultService referralResultService;
+    @Autowired
+    private ResultEventBus resultEventBus;
 
     @Override
     @Transactional
@@ -113,6 +117,8 @@ public class LogbookPersistServiceImpl implements LogbookResultsPersistService {
         for (IResultUpdate updater : updaters) {
             updater.transactionalUpdate(actionDataSet);
         }
+
+        resultEventBus.publish(Register.RESULT, updaters, actionDataSet);
     }
 
     private void saveReferralsWithRequiredObjects(Referral referral, String sysUserId) {
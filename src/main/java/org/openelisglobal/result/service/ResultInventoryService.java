@@ -14,4 +14,6 @@ public interface ResultInventoryService extends BaseObjectService<ResultInventor
     List<ResultInventory> getAllResultInventoryss();
 
     List<ResultInventory> getResultInventorysByResult(Result result);
+
+    List<ResultInventory> getResultInventorysByResults(List<Result> results);
 }
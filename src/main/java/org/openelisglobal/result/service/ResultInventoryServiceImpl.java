@@ -49,4 +49,10 @@ public class ResultInventoryServiceImpl extends BaseObjectServiceImpl<ResultInve
     public List<ResultInventory> getResultInventorysByResult(Result result) {
         return getBaseObjectDAO().getResultInventorysByResult(result);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResultInventory> getResultInventorysByResults(List<Result> results) {
+        return getBaseObjectDAO().getResultInventorysByResults(results);
+    }
 }
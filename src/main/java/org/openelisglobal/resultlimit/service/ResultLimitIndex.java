@@ -0,0 +1,207 @@
+package org.openelisglobal.resultlimit.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.validator.GenericValidator;
+import org.openelisglobal.resultlimits.valueholder.ResultLimit;
+
+/**
+ * The result limits of one test compiled for lookup by patient gender and age.
+ * Every lookup the service makes is worked out once when the index is built, so
+ * finding the limit for a patient is a map lookup and a binary search over the
+ * age boundaries.
+ *
+ * Where several limits match, the one that comes first in the list the index
+ * was built from wins, the same as when the list was searched in order.
+ */
+final class ResultLimitIndex {
+
+    private final boolean empty;
+    private final ResultLimit defaultLimit;
+    // limits without a gender that have an age range
+    private final AgeBuckets noGenderAgeLimits;
+    // all limits that have an age range
+    private final AgeBuckets ageLimits;
+    private final Map<String, GenderLimits> genderLimits = new HashMap<>();
+
+    ResultLimitIndex(List<ResultLimit> resultLimits) {
+        empty = resultLimits.isEmpty();
+        ResultLimit defaultMatch = null;
+        List<ResultLimit> noGenderAged = new ArrayList<>();
+        List<ResultLimit> aged = new ArrayList<>();
+        Set<String> genders = new LinkedHashSet<>();
+        for (ResultLimit limit : resultLimits) {
+            boolean noGender = GenericValidator.isBlankOrNull(limit.getGender());
+            if (noGender && limit.ageLimitsAreDefault() && defaultMatch == null) {
+                defaultMatch = limit;
+            }
+            if (!limit.ageLimitsAreDefault()) {
+                aged.add(limit);
+                if (noGender) {
+                    noGenderAged.add(limit);
+                }
+            }
+            if (limit.getGender() != null) {
+                genders.add(limit.getGender());
+            }
+        }
+        defaultLimit = defaultMatch == null ? new ResultLimit() : defaultMatch;
+        noGenderAgeLimits = new AgeBuckets(noGenderAged);
+        ageLimits = new AgeBuckets(aged);
+        for (String gender : genders) {
+            genderLimits.put(gender, new GenderLimits(gender, resultLimits));
+        }
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return the limit for a patient without age or gender, an empty limit if
+     *         the test has none
+     */
+    ResultLimit getDefault() {
+        return defaultLimit;
+    }
+
+    ResultLimit getForAge(double ageInMonths) {
+        ResultLimit limit = noGenderAgeLimits.find(ageInMonths);
+        if (limit == null) {
+            limit = ageLimits.find(ageInMonths);
+        }
+        return limit == null ? defaultLimit : limit;
+    }
+
+    ResultLimit getForGender(String gender) {
+        GenderLimits limits = genderLimits.get(gender);
+        return limits == null || limits.genderLimit == null ? defaultLimit : limits.genderLimit;
+    }
+
+    ResultLimit getForAgeAndGender(double ageInMonths, String gender) {
+        GenderLimits limits = genderLimits.get(gender);
+        if (limits == null) {
+            ResultLimit limit = ageLimits.find(ageInMonths);
+            return limit == null ? defaultLimit : limit;
+        }
+
+        ResultLimit limit = limits.genderAgeLimits.find(ageInMonths);
+        if (limit == null) {
+            limit = limits.otherAgeLimits.find(ageInMonths);
+        }
+        if (limit == null) {
+            limit = limits.genderNoAgeLimit;
+        }
+        return limit == null ? defaultLimit : limit;
+    }
+
+    private static final class GenderLimits {
+        // limits for the gender that have an age range
+        private final AgeBuckets genderAgeLimits;
+        // limits with an age range for no or another gender
+        private final AgeBuckets otherAgeLimits;
+        // the first limit for the gender without an age range
+        private final ResultLimit genderNoAgeLimit;
+        // genderNoAgeLimit if there is one, otherwise the first for the gender
+        private final ResultLimit genderLimit;
+
+        private GenderLimits(String gender, List<ResultLimit> resultLimits) {
+            List<ResultLimit> genderAged = new ArrayList<>();
+            List<ResultLimit> otherAged = new ArrayList<>();
+            ResultLimit noAgeMatch = null;
+            ResultLimit anyMatch = null;
+            for (ResultLimit limit : resultLimits) {
+                boolean sameGender = gender.equals(limit.getGender());
+                if (limit.ageLimitsAreDefault()) {
+                    if (sameGender && noAgeMatch == null) {
+                        noAgeMatch = limit;
+                    }
+                } else if (sameGender) {
+                    genderAged.add(limit);
+                } else {
+                    otherAged.add(limit);
+                }
+                if (sameGender && anyMatch == null) {
+                    anyMatch = limit;
+                }
+            }
+            genderAgeLimits = new AgeBuckets(genderAged);
+            otherAgeLimits = new AgeBuckets(otherAged);
+            genderNoAgeLimit = noAgeMatch;
+            genderLimit = noAgeMatch == null ? anyMatch : noAgeMatch;
+        }
+    }
+
+    /**
+     * Age ranges cut the age line into pieces at their boundaries. Each boundary
+     * and each stretch between two boundaries is matched by the same limits
+     * throughout, so the first matching limit is worked out for each of them
+     * once. Boundaries are inclusive on both ends.
+     */
+    private static final class AgeBuckets {
+        private final double[] boundaries;
+        // slot 2i is the stretch below boundary i, slot 2i + 1 is boundary i
+        private final ResultLimit[] slots;
+
+        private AgeBuckets(List<ResultLimit> limits) {
+            TreeSet<Double> points = new TreeSet<>();
+            for (ResultLimit limit : limits) {
+                points.add(limit.getMinAge());
+                points.add(limit.getMaxAge());
+            }
+            boundaries = new double[points.size()];
+            int i = 0;
+            for (Double point : points) {
+                boundaries[i++] = point;
+            }
+
+            slots = new ResultLimit[2 * boundaries.length + 1];
+            for (int slot = 0; slot < slots.length; slot++) {
+                slots[slot] = firstMatch(limits, representativeAge(slot));
+            }
+        }
+
+        private double representativeAge(int slot) {
+            int boundary = slot / 2;
+            if (slot % 2 == 1) {
+                return boundaries[boundary];
+            }
+            if (boundary == 0) {
+                return boundaries.length == 0 ? 0 : boundaries[0] - 1;
+            }
+            if (boundary == boundaries.length) {
+                return boundaries[boundary - 1] + 1;
+            }
+            double lower = boundaries[boundary - 1];
+            double upper = boundaries[boundary];
+            if (Double.isInfinite(upper)) {
+                return lower + 1;
+            }
+            if (Double.isInfinite(lower)) {
+                return upper - 1;
+            }
+            return lower / 2 + upper / 2;
+        }
+
+        private static ResultLimit firstMatch(List<ResultLimit> limits, double age) {
+            for (ResultLimit limit : limits) {
+                if (age >= limit.getMinAge() && age <= limit.getMaxAge()) {
+                    return limit;
+                }
+            }
+            return null;
+        }
+
+        private ResultLimit find(double age) {
+            int position = Arrays.binarySearch(boundaries, age);
+            return slots[position >= 0 ? 2 * position + 1 : -2 * (position + 1)];
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package org.openelisglobal.resultlimit.service;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.PostConstruct;
 
@@ -28,6 +29,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @DependsOn({ "springContext" })
@@ -41,6 +44,9 @@ public class ResultLimitServiceImpl extends BaseObjectServiceImpl<ResultLimit, S
     @Autowired
     protected ResultLimitDAO baseObjectDAO;
 
+    // compiled limits by test id
+    private final ConcurrentMap<String, ResultLimitIndex> resultLimitIndexes = new ConcurrentHashMap<>();
+
     @Autowired
     private DictionaryService dictionaryService;
     @Autowired
@@ -70,141 +76,84 @@ public class ResultLimitServiceImpl extends BaseObjectServiceImpl<ResultLimit, S
         return getResultLimitForTestAndPatient(test.getId(), patient);
     }
 
+    /**
+     * The limits returned are shared by all callers and must not be modified
+     */
     @Override
     @Transactional(readOnly = true)
     public ResultLimit getResultLimitForTestAndPatient(String testId, Patient patient) {
-        List<ResultLimit> resultLimits = getResultLimits(testId);
+        ResultLimitIndex index = getResultLimitIndex(testId);
 
-        if (resultLimits.isEmpty()) {
+        if (index.isEmpty()) {
             return null;
         } else if (patient == null
                 || patient.getBirthDate() == null && GenericValidator.isBlankOrNull(patient.getGender())) {
-            return defaultResultLimit(resultLimits);
+            return index.getDefault();
         } else if (GenericValidator.isBlankOrNull(patient.getGender())) {
-            return ageBasedResultLimit(resultLimits, patient);
+            return index.getForAge(getCurrPatientAge(patient));
         } else if (patient.getBirthDate() == null) {
-            return genderBasedResultLimit(resultLimits, patient);
+            return index.getForGender(patient.getGender());
         } else {
-            return ageAndGenderBasedResultLimit(resultLimits, patient);
+            return index.getForAgeAndGender(getCurrPatientAge(patient), patient.getGender());
         }
     }
 
-    private ResultLimit defaultResultLimit(List<ResultLimit> resultLimits) {
-
-        for (ResultLimit limit : resultLimits) {
-            if (GenericValidator.isBlankOrNull(limit.getGender()) && limit.ageLimitsAreDefault()) {
-                return limit;
+    private ResultLimitIndex getResultLimitIndex(String testId) {
+        ResultLimitIndex index = resultLimitIndexes.get(testId);
+        if (index == null) {
+            index = new ResultLimitIndex(baseObjectDAO.getAllResultLimitsForTest(testId));
+            ResultLimitIndex existing = resultLimitIndexes.putIfAbsent(testId, index);
+            if (existing != null) {
+                index = existing;
             }
         }
-        return new ResultLimit();
+        return index;
     }
 
-    private ResultLimit ageBasedResultLimit(List<ResultLimit> resultLimits, Patient patient) {
-
-        ResultLimit resultLimit = null;
-
-        // First we look for a limit with no gender
-        for (ResultLimit limit : resultLimits) {
-            if (GenericValidator.isBlankOrNull(limit.getGender()) && !limit.ageLimitsAreDefault()
-                    && getCurrPatientAge(patient) >= limit.getMinAge()
-                    && getCurrPatientAge(patient) <= limit.getMaxAge()) {
-
-                resultLimit = limit;
-                break;
-            }
+    /**
+     * Drop the compiled limits of a test now and again once the current
+     * transaction has committed, so that a lookup made while the change is being
+     * written can not put the old limits back
+     */
+    private void evictResultLimitIndex(String testId) {
+        if (testId == null) {
+            resultLimitIndexes.clear();
+            return;
         }
-
-        // if none is found then drop the no gender requirement
-        if (resultLimit == null) {
-            for (ResultLimit limit : resultLimits) {
-                if (!limit.ageLimitsAreDefault() && getCurrPatientAge(patient) >= limit.getMinAge()
-                        && getCurrPatientAge(patient) <= limit.getMaxAge()) {
-
-                    resultLimit = limit;
-                    break;
+        resultLimitIndexes.remove(testId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    resultLimitIndexes.remove(testId);
                 }
-            }
+            });
         }
-
-        return resultLimit == null ? defaultResultLimit(resultLimits) : resultLimit;
     }
 
-    private ResultLimit genderBasedResultLimit(List<ResultLimit> resultLimits, Patient patient) {
-
-        ResultLimit resultLimit = null;
-
-        // First we look for a limit with no age
-        for (ResultLimit limit : resultLimits) {
-            if (limit.ageLimitsAreDefault() && patient.getGender().equals(limit.getGender())) {
-
-                resultLimit = limit;
-                break;
-            }
-        }
-
-        // drop the age limit
-        if (resultLimit == null) {
-            for (ResultLimit limit : resultLimits) {
-                if (patient.getGender().equals(limit.getGender())) {
-                    resultLimit = limit;
-                    break;
-                }
-            }
-        }
-        return resultLimit == null ? defaultResultLimit(resultLimits) : resultLimit;
+    @Override
+    @Transactional
+    public String insert(ResultLimit resultLimit) {
+        evictResultLimitIndex(resultLimit.getTestId());
+        return super.insert(resultLimit);
     }
 
-    /*
-     * We only get here if patient has age and gender
-     */
-    private ResultLimit ageAndGenderBasedResultLimit(List<ResultLimit> resultLimits, Patient patient) {
-
-        ResultLimit resultLimit = null;
-
-        List<ResultLimit> fullySpecifiedLimits = new ArrayList<>();
-        // first age and gender matter
-        for (ResultLimit limit : resultLimits) {
-            if (patient.getGender().equals(limit.getGender()) && !limit.ageLimitsAreDefault()) {
-
-                // if fully qualified don't retest for only part of the
-                // qualification
-                fullySpecifiedLimits.add(limit);
-
-                if (patientInAgeRange(patient, limit)) {
-
-                    resultLimit = limit;
-                    break;
-                }
-            }
-        }
-
-        resultLimits.removeAll(fullySpecifiedLimits);
-
-        // second only age matters
-        if (resultLimit == null) {
-            for (ResultLimit limit : resultLimits) {
-                if (!limit.ageLimitsAreDefault() && patientInAgeRange(patient, limit)) {
-
-                    resultLimit = limit;
-                    break;
-                }
-            }
-        }
-
-        // third only gender matters
-        return resultLimit == null ? genderBasedResultLimit(resultLimits, patient) : resultLimit;
+    @Override
+    @Transactional
+    public ResultLimit update(ResultLimit resultLimit) {
+        evictResultLimitIndex(resultLimit.getTestId());
+        return super.update(resultLimit);
     }
 
-    private boolean patientInAgeRange(Patient patient, ResultLimit limit) {
-        return getCurrPatientAge(patient) >= limit.getMinAge() && getCurrPatientAge(patient) <= limit.getMaxAge();
+    @Override
+    @Transactional
+    public void delete(ResultLimit resultLimit) {
+        evictResultLimitIndex(resultLimit.getTestId());
+        super.delete(resultLimit);
     }
 
     private double getCurrPatientAge(Patient patient) {
         if (patient.getBirthDate() != null) {
-
-            Calendar dob = Calendar.getInstance();
-            dob.setTime(patient.getBirthDate());
-
             return DateUtil.getAgeInMonths(patient.getBirthDate(), new Date());
         }
 
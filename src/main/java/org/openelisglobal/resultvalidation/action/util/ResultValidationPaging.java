@@ -34,7 +34,7 @@ import org.openelisglobal.resultvalidation.form.ResultValidationForm;
 
 public class ResultValidationPaging {
     public static final int VALIDATION_PAGING_SIZE = 240;
-    private PagingUtility<List<AnalysisItem>> paging = new PagingUtility<>();
+    private PagingUtility<AnalysisItem> paging = new PagingUtility<>();
     private static AnalysisItemPageHelper pagingHelper = new AnalysisItemPageHelper();
 
     public void setDatabaseResults(HttpServletRequest request, ResultValidationForm form,
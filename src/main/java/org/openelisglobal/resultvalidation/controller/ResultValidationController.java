@@ -247,11 +247,6 @@ public class ResultValidationController extends BaseResultValidationController {
             LogEvent.logErrorStack(e);
         }
 
-        for (IResultUpdate updater : updaters) {
-
-            updater.postTransactionalCommitUpdate(resultSaveService);
-        }
-
         // route save back to RetroC specific ResultValidationRetroCAction
         // if
         // (ConfigurationProperties.getInstance().isPropertyValueEqual(Property.configurationName,
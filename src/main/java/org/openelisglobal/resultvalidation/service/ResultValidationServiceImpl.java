@@ -1,7 +1,12 @@
 package org.openelisglobal.resultvalidation.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.openelisglobal.analysis.service.AnalysisService;
 import org.openelisglobal.analysis.valueholder.Analysis;
@@ -10,6 +15,8 @@ import org.openelisglobal.common.services.IStatusService;
 import org.openelisglobal.common.services.ResultSaveService;
 import org.openelisglobal.common.services.StatusService.AnalysisStatus;
 import org.openelisglobal.common.services.StatusService.OrderStatus;
+import org.openelisglobal.common.services.registration.ResultEventBus;
+import org.openelisglobal.common.services.registration.ResultEventBus.Register;
 import org.openelisglobal.common.services.registration.interfaces.IResultUpdate;
 import org.openelisglobal.note.service.NoteService;
 import org.openelisglobal.note.valueholder.Note;
@@ -29,13 +36,15 @@ public class ResultValidationServiceImpl implements ResultValidationService {
     private ResultService resultService;
     private NoteService noteService;
     private SampleService sampleService;
+    private ResultEventBus resultEventBus;
 
     public ResultValidationServiceImpl(AnalysisService analysisService, ResultService resultService,
-            NoteService noteService, SampleService sampleService) {
+            NoteService noteService, SampleService sampleService, ResultEventBus resultEventBus) {
         this.analysisService = analysisService;
         this.resultService = resultService;
         this.noteService = noteService;
         this.sampleService = sampleService;
+        this.resultEventBus = resultEventBus;
     }
 
     @Override
@@ -47,73 +56,84 @@ public class ResultValidationServiceImpl implements ResultValidationService {
         ResultSaveService.removeDeletedResultsInTransaction(deletableList, sysUserId);
 
         // update analysis
-        for (Analysis analysis : analysisUpdateList) {
-            analysisService.update(analysis);
-        }
+        analysisService.batchUpdate(analysisUpdateList);
 
+        List<Result> newResults = new ArrayList<>();
+        List<Result> modifiedResults = new ArrayList<>();
         for (Result resultUpdate : resultUpdateList) {
             if (resultUpdate.getId() != null) {
-                resultService.update(resultUpdate);
+                modifiedResults.add(resultUpdate);
             } else {
-                resultService.insert(resultUpdate);
+                newResults.add(resultUpdate);
             }
         }
+        resultService.batchUpdate(modifiedResults);
+        resultService.batchInsert(newResults);
 
         checkIfSamplesFinished(resultItemList, sampleUpdateList);
 
         // update finished samples
-        for (Sample sample : sampleUpdateList) {
-            sampleService.update(sample);
-        }
+        sampleService.batchUpdate(sampleUpdateList);
 
         // create or update notes
+        List<Note> newNotes = new ArrayList<>();
+        List<Note> modifiedNotes = new ArrayList<>();
         for (Note note : noteUpdateList) {
             if (note != null) {
                 if (note.getId() == null) {
-                    noteService.insert(note);
+                    newNotes.add(note);
                 } else {
-                    noteService.update(note);
+                    modifiedNotes.add(note);
                 }
             }
         }
+        noteService.batchInsert(newNotes);
+        noteService.batchUpdate(modifiedNotes);
 
         for (IResultUpdate updater : updaters) {
             updater.transactionalUpdate(resultSaveService);
         }
+
+        resultEventBus.publish(Register.VALIDATION, updaters, resultSaveService);
     }
 
+    /*
+     * the samples of the validated items and all of their analyses are read with
+     * one query each, a sample is finished when none of its analyses is still open
+     */
     private void checkIfSamplesFinished(List<AnalysisItem> resultItemList, List<Sample> sampleUpdateList) {
-        String currentSampleId = "";
-        boolean sampleFinished = true;
-        List<Integer> sampleFinishedStatus = getSampleFinishedStatuses();
-
+        Set<String> accessionNumbers = new LinkedHashSet<>();
         for (AnalysisItem analysisItem : resultItemList) {
+            accessionNumbers.add(analysisItem.getAccessionNumber());
+        }
+        if (accessionNumbers.isEmpty()) {
+            return;
+        }
 
-            String analysisSampleId = sampleService.getSampleByAccessionNumber(analysisItem.getAccessionNumber())
-                    .getId();
-            if (!analysisSampleId.equals(currentSampleId)) {
-
-                currentSampleId = analysisSampleId;
-
-                List<Analysis> analysisList = analysisService.getAnalysesBySampleId(currentSampleId);
-
-                for (Analysis analysis : analysisList) {
-                    if (!sampleFinishedStatus.contains(Integer.parseInt(analysis.getStatusId()))) {
-                        sampleFinished = false;
-                        break;
-                    }
-                }
-
-                if (sampleFinished) {
-                    Sample sample = sampleService.get(currentSampleId);
-                    sample.setStatusId(SpringContext.getBean(IStatusService.class).getStatusID(OrderStatus.Finished));
-                    sampleUpdateList.add(sample);
-                }
-
-                sampleFinished = true;
+        Map<String, Sample> samplesByAccessionNumber = new HashMap<>();
+        for (Sample sample : sampleService.getSamplesByAccessionNumbers(new ArrayList<>(accessionNumbers))) {
+            samplesByAccessionNumber.put(sample.getAccessionNumber(), sample);
+        }
+        List<String> sampleIds = new ArrayList<>();
+        for (Sample sample : samplesByAccessionNumber.values()) {
+            sampleIds.add(sample.getId());
+        }
 
+        Set<String> unfinishedSampleIds = new HashSet<>();
+        List<Integer> sampleFinishedStatus = getSampleFinishedStatuses();
+        for (Analysis analysis : analysisService.getAnalysesBySampleIds(sampleIds)) {
+            if (!sampleFinishedStatus.contains(Integer.parseInt(analysis.getStatusId()))) {
+                unfinishedSampleIds.add(analysis.getSampleItem().getSample().getId());
             }
+        }
 
+        String finishedStatusId = SpringContext.getBean(IStatusService.class).getStatusID(OrderStatus.Finished);
+        for (String accessionNumber : accessionNumbers) {
+            Sample sample = samplesByAccessionNumber.get(accessionNumber);
+            if (sample != null && !unfinishedSampleIds.contains(sample.getId())) {
+                sample.setStatusId(finishedStatusId);
+                sampleUpdateList.add(sample);
+            }
         }
     }
 
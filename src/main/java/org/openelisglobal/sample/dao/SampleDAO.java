@@ -38,6 +38,8 @@ public interface SampleDAO extends BaseDAO<Sample, String> {
 
     Sample getSampleByAccessionNumber(String accessionNumber) throws LIMSRuntimeException;
 
+    List<Sample> getSamplesByAccessionNumbers(List<String> accessionNumbers) throws LIMSRuntimeException;
+
 //	public boolean insertDataWithAccessionNumber(Sample sample) throws LIMSRuntimeException;
 
     List<Sample> getSamplesByStatusAndDomain(List<String> statuses, String domain) throws LIMSRuntimeException;
@@ -399,6 +399,22 @@ public class SampleDAOImpl extends BaseDAOImpl<Sample, String> implements Sample
         }
         return sample;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Sample> getSamplesByAccessionNumbers(List<String> accessionNumbers) throws LIMSRuntimeException {
+        if (accessionNumbers.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            String sql = "from Sample s where s.accessionNumber in (:accessionNumbers)";
+            Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setParameterList("accessionNumbers", accessionNumbers);
+            return query.list();
+        } catch (RuntimeException e) {
+            throw new LIMSRuntimeException("Exception occurred in getSamplesByAccessionNumbers", e);
+        }
+    }
     // ==============================================================
 
     @Override
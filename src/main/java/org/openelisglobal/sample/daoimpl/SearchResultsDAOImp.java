@@ -18,7 +18,6 @@
 package org.openelisglobal.sample.daoimpl;
 
 import java.math.BigDecimal;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,7 +29,6 @@ import org.hibernate.Session;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.provider.query.PatientSearchResults;
-import org.openelisglobal.patientidentitytype.util.PatientIdentityTypeMap;
 import org.openelisglobal.sample.dao.SearchResultsDAO;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -50,11 +48,13 @@ public class SearchResultsDAOImp implements SearchResultsDAO {
     private static final String ID_PARAM = "id";
     private static final String GUID = "guid";
 
-    private static final String ID_TYPE_FOR_ST = "stNumberId";
-    private static final String ID_TYPE_FOR_SUBJECT_NUMBER = "subjectNumberId";
-    private static final String ID_TYPE_FOR_GUID = "guidId";
+    private static final String NORMALIZE_FUNCTION = "clinlims.patient_search_normalize";
 
-    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /*
+     * Upper bound on the rows returned for one search. The patient search page
+     * is queried as the user types so the best ranked candidates are enough.
+     */
+    private static final int MAX_RESULTS = 100;
 
     @Override
     @SuppressWarnings("rawtypes")
@@ -81,29 +81,23 @@ public class SearchResultsDAOImp implements SearchResultsDAO {
 
             org.hibernate.Query query = entityManager.unwrap(Session.class).createSQLQuery(sql);
 
-            query.setInteger(ID_TYPE_FOR_ST, Integer.valueOf(PatientIdentityTypeMap.getInstance().getIDForType("ST")));
-            query.setInteger(ID_TYPE_FOR_SUBJECT_NUMBER,
-                    Integer.valueOf(PatientIdentityTypeMap.getInstance().getIDForType("SUBJECT")));
-            query.setInteger(ID_TYPE_FOR_GUID,
-                    Integer.valueOf(PatientIdentityTypeMap.getInstance().getIDForType("GUID")));
-
             if (queryFirstName) {
-                query.setString(FIRST_NAME_PARAM, firstName);
+                query.setString(FIRST_NAME_PARAM, toLikePattern(firstName));
             }
             if (queryLastName) {
-                query.setText(LAST_NAME_PARAM, lastName);
+                query.setString(LAST_NAME_PARAM, toLikePattern(lastName));
             }
             if (queryNationalId) {
-                query.setString(NATIONAL_ID_PARAM, nationalID);
+                query.setString(NATIONAL_ID_PARAM, toLikePattern(nationalID));
             }
             if (queryExternalId) {
-                query.setString(EXTERNAL_ID_PARAM, nationalID);
+                query.setString(EXTERNAL_ID_PARAM, toLikePattern(externalID));
             }
             if (querySTNumber) {
-                query.setString(ST_NUMBER_PARAM, STNumber);
+                query.setString(ST_NUMBER_PARAM, toLikePattern(STNumber));
             }
             if (querySubjectNumber) {
-                query.setString(SUBJECT_NUMBER_PARAM, subjectNumber);
+                query.setString(SUBJECT_NUMBER_PARAM, toLikePattern(subjectNumber));
             }
             if (queryPatientID) {
                 query.setInteger(ID_PARAM, Integer.valueOf(patientID));
@@ -112,6 +106,7 @@ public class SearchResultsDAOImp implements SearchResultsDAO {
             if (queryGuid) {
                 query.setString(GUID, guid);
             }
+            query.setMaxResults(MAX_RESULTS);
             queryResults = query.list();
         } catch (RuntimeException e) {
             LogEvent.logDebug(e);
@@ -132,7 +127,20 @@ public class SearchResultsDAOImp implements SearchResultsDAO {
         return results;
     }
 
+    /*
+     * '*' is accepted as a wildcard in addition to the SQL '%'
+     */
+    private String toLikePattern(String term) {
+        return term.trim().replace('*', '%');
+    }
+
     /**
+     * Builds the search against patient_search_index, which is kept current by
+     * database triggers on patient, person and patient_identity. All text
+     * columns are matched against their normalized (lower case, unaccented)
+     * form so that the trigram indexes can be used. Names are matched on the
+     * start of the name or of any word within it, identifiers as entered.
+     *
      * @param lastName
      * @param firstName
      * @param STNumber
@@ -147,79 +155,46 @@ public class SearchResultsDAOImp implements SearchResultsDAO {
 
         StringBuilder queryBuilder = new StringBuilder();
         queryBuilder.append(
-                "select p.id, pr.first_name, pr.last_name, p.gender, p.entered_birth_date, p.national_id, p.external_id, pi.identity_data as st, piSN.identity_data as subject, piGUID.identity_data as guid from patient p join person pr on p.person_id = pr.id ");
-        queryBuilder.append("left join patient_identity  pi on pi.patient_id = p.id and pi.identity_type_id = :");
-        queryBuilder.append(ID_TYPE_FOR_ST);
-        queryBuilder.append(" ");
-
-        queryBuilder.append("left join patient_identity  piSN on piSN.patient_id = p.id and piSN.identity_type_id = :");
-        queryBuilder.append(ID_TYPE_FOR_SUBJECT_NUMBER);
-        queryBuilder.append(" ");
-
-        queryBuilder.append(
-                "left join patient_identity  piGUID on piGUID.patient_id = p.id and piGUID.identity_type_id = :");
-        queryBuilder.append(ID_TYPE_FOR_GUID);
-        queryBuilder.append(" where ");
+                "select psi.patient_id, psi.first_name, psi.last_name, psi.gender, psi.entered_birth_date, psi.national_id, psi.external_id, psi.st_number as st, psi.subject_number as subject, psi.guid from patient_search_index psi where ");
 
         if (lastName) {
-            queryBuilder.append(" pr.last_name ilike :");
-            queryBuilder.append(LAST_NAME_PARAM);
+            appendNameMatch(queryBuilder, "psi.last_name_norm", LAST_NAME_PARAM);
             queryBuilder.append(" and");
         }
 
         if (firstName) {
-            queryBuilder.append(" pr.first_name ilike :");
-            queryBuilder.append(FIRST_NAME_PARAM);
+            appendNameMatch(queryBuilder, "psi.first_name_norm", FIRST_NAME_PARAM);
             queryBuilder.append(" and");
         }
 
-        if (anyID) {
-            if (nationalID) {
-                queryBuilder.append(" p.national_id ilike :");
-                queryBuilder.append(NATIONAL_ID_PARAM);
-                queryBuilder.append(" or ");
-            }
-
-            if (externalID) {
-                queryBuilder.append(" p.external_id ilike :");
-                queryBuilder.append(EXTERNAL_ID_PARAM);
-                queryBuilder.append(" or");
-            }
-        } else {
-
-            if (nationalID) {
-                queryBuilder.append(" p.national_id ilike :");
-                queryBuilder.append(NATIONAL_ID_PARAM);
-                queryBuilder.append(" or");
-            }
+        if (nationalID) {
+            appendIdMatch(queryBuilder, "psi.national_id_norm", NATIONAL_ID_PARAM);
+            queryBuilder.append(" or");
+        }
 
-            if (externalID) {
-                queryBuilder.append(" p.external_id ilike :");
-                queryBuilder.append(EXTERNAL_ID_PARAM);
-                queryBuilder.append(" or");
-            }
+        if (externalID) {
+            appendIdMatch(queryBuilder, "psi.external_id_norm", EXTERNAL_ID_PARAM);
+            queryBuilder.append(" or");
         }
 
         if (STNumber) {
-            queryBuilder.append(" pi.identity_data ilike :");
-            queryBuilder.append(ST_NUMBER_PARAM);
+            appendIdMatch(queryBuilder, "psi.st_number_norm", ST_NUMBER_PARAM);
             queryBuilder.append(" or");
         }
 
         if (subjectNumber) {
-            queryBuilder.append(" piSN.identity_data ilike :");
-            queryBuilder.append(SUBJECT_NUMBER_PARAM);
+            appendIdMatch(queryBuilder, "psi.subject_number_norm", SUBJECT_NUMBER_PARAM);
             queryBuilder.append(" or");
         }
 
         if (patientID) {
-            queryBuilder.append(" p.id = :");
+            queryBuilder.append(" psi.patient_id = :");
             queryBuilder.append(ID_PARAM);
             queryBuilder.append(" or");
         }
 
         if (guid) {
-            queryBuilder.append(" piGUID.identity_data = :");
+            queryBuilder.append(" psi.guid = :");
             queryBuilder.append(GUID);
             queryBuilder.append(" or");
         }
@@ -233,9 +208,35 @@ public class SearchResultsDAOImp implements SearchResultsDAO {
             queryBuilder.delete(lastOrIndex, queryBuilder.length());
         }
 
+        // closest names first so the result limit cuts off the weakest matches
+        queryBuilder.append(" order by ");
+        if (lastName) {
+            appendNameRank(queryBuilder, "psi.last_name_norm", LAST_NAME_PARAM);
+        }
+        if (firstName) {
+            appendNameRank(queryBuilder, "psi.first_name_norm", FIRST_NAME_PARAM);
+        }
+        queryBuilder.append("psi.last_name_norm, psi.first_name_norm, psi.patient_id");
+
         return queryBuilder.toString();
     }
 
+    private void appendNameMatch(StringBuilder queryBuilder, String column, String param) {
+        queryBuilder.append(" (").append(column).append(" like ").append(NORMALIZE_FUNCTION).append("(:")
+                .append(param).append(") || '%' or ").append(column).append(" like '% ' || ")
+                .append(NORMALIZE_FUNCTION).append("(:").append(param).append(") || '%')");
+    }
+
+    private void appendIdMatch(StringBuilder queryBuilder, String column, String param) {
+        queryBuilder.append(" ").append(column).append(" like ").append(NORMALIZE_FUNCTION).append("(:")
+                .append(param).append(")");
+    }
+
+    private void appendNameRank(StringBuilder queryBuilder, String column, String param) {
+        queryBuilder.append("similarity(").append(column).append(", ").append(NORMALIZE_FUNCTION).append("(:")
+                .append(param).append(")) desc, ");
+    }
+
     public List getNextRecord(String id, String table, Class clazz) throws LIMSRuntimeException {
         // TODO Auto-generated method stub
         return null;
@@ -17,6 +17,8 @@ import org.openelisglobal.common.services.SampleAddService.SampleTestCollection;
 import org.openelisglobal.common.services.SampleOrderService;
 import org.openelisglobal.common.services.StatusService.AnalysisStatus;
 import org.openelisglobal.common.services.StatusService.SampleStatus;
+import org.openelisglobal.common.services.registration.ResultEventBus;
+import org.openelisglobal.common.services.registration.ResultEventBus.Register;
 import org.openelisglobal.common.services.registration.ResultUpdateRegister;
 import org.openelisglobal.common.services.registration.interfaces.IResultUpdate;
 import org.openelisglobal.common.util.DateUtil;
@@ -91,6 +93,8 @@ public class SampleEditServiceImpl implements SampleEditService {
     SampleHumanService sampleHumanService;
     @Autowired
     UserRoleService userRoleService;
+    @Autowired
+    private ResultEventBus resultEventBus;
 
     @Transactional
     @Override
@@ -145,9 +149,7 @@ public class SampleEditServiceImpl implements SampleEditService {
             addExternalResultsToDeleteList(analysis, patient, updatedSample, actionDataSet);
         }
 
-        for (IResultUpdate updater : updaters) {
-            updater.postTransactionalCommitUpdate(actionDataSet);
-        }
+        resultEventBus.publish(Register.RESULT, updaters, actionDataSet);
 
         for (Analysis analysis : addAnalysisList) {
             if (analysis.getId() == null) {
@@ -52,6 +52,8 @@ public interface SampleService extends BaseObjectService<Sample, String> {
 
     Sample getSampleByAccessionNumber(String accessionNumber);
 
+    List<Sample> getSamplesByAccessionNumbers(List<String> accessionNumbers);
+
     List<Sample> getPageOfSamples(int startingRecNo);
 
     List<Sample> getSamplesForPatient(String patientID);
@@ -97,6 +97,12 @@ public class SampleServiceImpl extends BaseObjectServiceImpl<Sample, String> imp
         return getMatch("accessionNumber", labNumber).orElse(null);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Sample> getSamplesByAccessionNumbers(List<String> accessionNumbers) {
+        return getBaseObjectDAO().getSamplesByAccessionNumbers(accessionNumbers);
+    }
+
     @Override
     @Transactional
     public boolean insertDataWithAccessionNumber(Sample sample) {
@@ -16,6 +16,7 @@
 package org.openelisglobal.samplehuman.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import org.openelisglobal.common.dao.BaseDAO;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
@@ -49,4 +50,8 @@ public interface SampleHumanDAO extends BaseDAO<SampleHuman, String> {
 
     public List<Sample> getSamplesForPatient(String patientID) throws LIMSRuntimeException;
 
+    /**
+     * @return the patient of each of the samples, keyed by sample id
+     */
+    public Map<String, Patient> getPatientsForSamples(List<String> sampleIds) throws LIMSRuntimeException;
 }
@@ -18,7 +18,10 @@
 package org.openelisglobal.samplehuman.daoimpl;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.hibernate.HibernateException;
@@ -261,4 +264,32 @@ public class SampleHumanDAOImpl extends BaseDAOImpl<SampleHuman, String> impleme
 
         return samples;
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Patient> getPatientsForSamples(List<String> sampleIds) throws LIMSRuntimeException {
+        Map<String, Patient> patients = new HashMap<>();
+        if (sampleIds.isEmpty()) {
+            return patients;
+        }
+        List<Integer> ids = new ArrayList<>(sampleIds.size());
+        for (String sampleId : sampleIds) {
+            ids.add(Integer.parseInt(sampleId));
+        }
+
+        try {
+            String sql = "select sampleHuman.sampleId, patient from Patient as patient, SampleHuman as sampleHuman where sampleHuman.patientId = patient.id and sampleHuman.sampleId in (:sampleIds)";
+            Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setParameterList("sampleIds", ids);
+            List<Object[]> rows = query.list();
+            for (Object[] row : rows) {
+                patients.put(String.valueOf(row[0]), (Patient) row[1]);
+            }
+        } catch (HibernateException e) {
+            LogEvent.logError(e.toString(), e);
+            throw new LIMSRuntimeException("Error in SampleHuman getPatientsForSamples()", e);
+        }
+
+        return patients;
+    }
+}
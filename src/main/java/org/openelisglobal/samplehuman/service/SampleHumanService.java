@@ -1,6 +1,7 @@
 package org.openelisglobal.samplehuman.service;
 
 import java.util.List;
+import java.util.Map;
 
 import org.openelisglobal.common.service.BaseObjectService;
 import org.openelisglobal.patient.valueholder.Patient;
@@ -18,4 +19,6 @@ public interface SampleHumanService extends BaseObjectService<SampleHuman, Strin
     List<Sample> getSamplesForPatient(String patientID);
 
     SampleHuman getDataBySample(SampleHuman sampleHuman);
+
+    Map<String, Patient> getPatientsForSamples(List<String> sampleIds);
 }
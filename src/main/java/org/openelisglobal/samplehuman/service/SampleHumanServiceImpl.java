@@ -1,6 +1,7 @@
 package org.openelisglobal.samplehuman.service;
 
 import java.util.List;
+import java.util.Map;
 
 import org.openelisglobal.common.service.BaseObjectServiceImpl;
 import org.openelisglobal.patient.valueholder.Patient;
@@ -57,4 +58,9 @@ public class SampleHumanServiceImpl extends BaseObjectServiceImpl<SampleHuman, S
         return getBaseObjectDAO().getSamplesForPatient(patientID);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Patient> getPatientsForSamples(List<String> sampleIds) {
+        return getBaseObjectDAO().getPatientsForSamples(sampleIds);
+    }
 }
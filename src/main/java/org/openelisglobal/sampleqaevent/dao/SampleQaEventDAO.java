@@ -54,4 +54,5 @@ public interface SampleQaEventDAO extends BaseDAO<SampleQaEvent, String> {
 
     SampleQaEvent getData(String sampleQaEventId) throws LIMSRuntimeException;
 
+    List<SampleQaEvent> getSampleQaEventsBySampleIds(List<String> sampleIds) throws LIMSRuntimeException;
 }
@@ -304,4 +304,25 @@ public class SampleQaEventDAOImpl extends BaseDAOImpl<SampleQaEvent, String> imp
         return null;
     }
 
-}
\ No newline at end of file
+    @Override
+    @Transactional(readOnly = true)
+    public List<SampleQaEvent> getSampleQaEventsBySampleIds(List<String> sampleIds) throws LIMSRuntimeException {
+        if (sampleIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> ids = new ArrayList<>(sampleIds.size());
+        for (String sampleId : sampleIds) {
+            ids.add(Integer.parseInt(sampleId));
+        }
+
+        try {
+            String sql = "from SampleQaEvent sqe where sqe.sample.id in (:sampleIds) order by sqe.id";
+            Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setParameterList("sampleIds", ids);
+            return query.list();
+        } catch (RuntimeException e) {
+            LogEvent.logError(e.toString(), e);
+            throw new LIMSRuntimeException("Error in SampleQaEventDAO getSampleQaEventsBySampleIds()", e);
+        }
+    }
+}
@@ -21,4 +21,6 @@ public interface SampleQaEventService extends BaseObjectService<SampleQaEvent, S
     List<SampleQaEvent> getSampleQaEventsByUpdatedDate(Date lowDate, Date highDate);
 
     SampleQaEvent getSampleQaEventBySampleAndQaEvent(SampleQaEvent sampleQaEvent);
+
+    List<SampleQaEvent> getSampleQaEventsBySampleIds(List<String> sampleIds);
 }
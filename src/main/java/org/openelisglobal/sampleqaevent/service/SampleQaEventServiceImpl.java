@@ -68,4 +68,10 @@ public class SampleQaEventServiceImpl extends BaseObjectServiceImpl<SampleQaEven
     public SampleQaEvent getSampleQaEventBySampleAndQaEvent(SampleQaEvent sampleQaEvent) {
         return getBaseObjectDAO().getSampleQaEventBySampleAndQaEvent(sampleQaEvent);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SampleQaEvent> getSampleQaEventsBySampleIds(List<String> sampleIds) {
+        return getBaseObjectDAO().getSampleQaEventsBySampleIds(sampleIds);
+    }
 }
@@ -0,0 +1,55 @@
+package org.openelisglobal.scheduler.independentthreads;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Calendar;
+
+import javax.sql.DataSource;
+
+import org.openelisglobal.common.log.LogEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a partition ready for this year and next year when the history table is
+ * partitioned (see liquibase history_partitioning), so that audit rows only
+ * land in the default partition if this job has not run for a year.
+ */
+@Component
+public class HistoryPartitionMaintainer {
+
+    private static final long ONE_DAY = 1000L * 60 * 60 * 24;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Scheduled(initialDelay = 1000 * 60, fixedDelay = ONE_DAY)
+    public void ensurePartitions() {
+        int year = Calendar.getInstance().get(Calendar.YEAR);
+        try (Connection connection = dataSource.getConnection()) {
+            if (!isPartitioned(connection)) {
+                return;
+            }
+            try (PreparedStatement statement = connection
+                    .prepareStatement("select clinlims.history_ensure_partitions(?, ?)")) {
+                statement.setInt(1, year);
+                statement.setInt(2, year + 1);
+                statement.execute();
+            }
+        } catch (SQLException e) {
+            LogEvent.logError("HistoryPartitionMaintainer", "ensurePartitions()",
+                    "unable to create history partitions: " + e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection
+                .prepareStatement("select to_regclass('clinlims.history_default') is not null");
+                ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+}
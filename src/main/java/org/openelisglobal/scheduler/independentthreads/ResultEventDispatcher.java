@@ -0,0 +1,94 @@
+package org.openelisglobal.scheduler.independentthreads;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.json.simple.parser.ParseException;
+import org.openelisglobal.common.services.TableQueue;
+import org.openelisglobal.common.services.registration.ResultEventBus;
+import org.openelisglobal.common.services.registration.ResultEventBus.Register;
+import org.openelisglobal.common.services.registration.interfaces.IResultUpdate;
+import org.openelisglobal.common.util.ConfigurationProperties.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers the result events published on the {@link ResultEventBus} to their
+ * result updater. An updater gets one patient's events one at a time in the
+ * order they were published (see {@link TableQueue}). An event whose updater
+ * throws is tried again later, waiting longer after each failure, and is given
+ * up on after MAX_ATTEMPTS.
+ */
+@Component
+public class ResultEventDispatcher {
+
+    private static final long POLL_DELAY = 1000;
+    private static final long ONE_DAY = 1000L * 60 * 60 * 24;
+    private static final int DEFAULT_DISPATCH_THREADS = 4;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long RETRY_DELAY_MILLIS = 1000L * 60;
+    private static final long DELIVERED_RETENTION_MILLIS = ONE_DAY * 7;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private ResultEventBus resultEventBus;
+
+    private TableQueue<QueuedEvent> queue;
+
+    @PostConstruct
+    public void startDispatchThreads() {
+        queue = new TableQueue<>(dataSource, "clinlims.result_event", new String[] { "subscriber", "partition_key" },
+                "last_error", MAX_ATTEMPTS, RETRY_DELAY_MILLIS);
+        queue.start(TableQueue.getConfiguredThreads(Property.RESULT_EVENT_DISPATCH_THREADS,
+                DEFAULT_DISPATCH_THREADS));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queue.shutdown();
+    }
+
+    @Scheduled(initialDelay = 1000 * 30, fixedDelay = POLL_DELAY)
+    public void dispatchEvents() {
+        queue.dispatch("register, payload", resultSet -> new QueuedEvent(resultSet.getString("register"),
+                resultSet.getString("subscriber"), resultSet.getString("payload")), this::deliver);
+    }
+
+    @Scheduled(initialDelay = 1000 * 60, fixedDelay = ONE_DAY)
+    public void purgeDeliveredEvents() {
+        queue.purgeDone(DELIVERED_RETENTION_MILLIS);
+    }
+
+    private String deliver(QueuedEvent event) throws ParseException {
+        IResultUpdate updater = findUpdater(event);
+        // an updater that has been switched off since has nothing to do
+        if (updater != null) {
+            updater.postTransactionalCommitUpdate(resultEventBus.readPayload(event.payload));
+        }
+        return null;
+    }
+
+    private IResultUpdate findUpdater(QueuedEvent event) {
+        for (IResultUpdate updater : Register.valueOf(event.register).getRegisteredUpdaters()) {
+            if (updater.getClass().getName().equals(event.subscriber)) {
+                return updater;
+            }
+        }
+        return null;
+    }
+
+    private static class QueuedEvent {
+        private final String register;
+        private final String subscriber;
+        private final String payload;
+
+        private QueuedEvent(String register, String subscriber, String payload) {
+            this.register = register;
+            this.subscriber = subscriber;
+            this.payload = payload;
+        }
+    }
+}
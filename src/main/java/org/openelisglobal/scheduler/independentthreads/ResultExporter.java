@@ -16,14 +16,27 @@
  */
 package org.openelisglobal.scheduler.independentthreads;
 
+import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.validator.GenericValidator;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.util.ConfigurationProperties;
@@ -31,8 +44,7 @@ import org.openelisglobal.common.util.ConfigurationProperties.Property;
 import org.openelisglobal.common.util.DateUtil;
 import org.openelisglobal.dataexchange.aggregatereporting.valueholder.ReportExternalExport;
 import org.openelisglobal.dataexchange.common.IRowTransmissionResponseHandler;
-import org.openelisglobal.dataexchange.common.ReportTransmission;
-import org.openelisglobal.dataexchange.common.ReportTransmission.HTTP_TYPE;
+import org.openelisglobal.dataexchange.common.PooledHttpPostSender;
 import org.openelisglobal.dataexchange.orderresult.valueholder.HL7MessageOut;
 import org.openelisglobal.dataexchange.service.aggregatereporting.ReportExternalExportService;
 import org.openelisglobal.dataexchange.service.aggregatereporting.ReportQueueTypeService;
@@ -66,29 +78,111 @@ public class ResultExporter {
     @Autowired
     private ReportExternalExportService reportExternalExportService;
 
+    private static final int DELIVERY_THREADS = 8;
+    private static final long DELIVERY_POLL_DELAY = 5000;
+    private static final int MAX_REPORTS_PER_RUN = 5000;
+    private static final int CONNECT_TIMEOUT = 10000;
+    private static final int SOCKET_TIMEOUT = 60000;
+
     private String resultReportTypeId;
+    private CloseableHttpClient httpClient;
+    private ExecutorService deliveryExecutor;
 
     @PostConstruct
     public void setupGlobalVariables() {
         resultReportTypeId = reportQueueTypeService.getReportQueueTypeByName("Results").getId();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(DELIVERY_THREADS);
+        connectionManager.setDefaultMaxPerRoute(DELIVERY_THREADS);
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(CONNECT_TIMEOUT)
+                .setConnectionRequestTimeout(CONNECT_TIMEOUT).setSocketTimeout(SOCKET_TIMEOUT).build();
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig).evictIdleConnections(60, TimeUnit.SECONDS).build();
+        deliveryExecutor = Executors.newFixedThreadPool(DELIVERY_THREADS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LogEvent.logError(e);
+        }
     }
 
-    @Scheduled(fixedRateString = "#{resultsResendTime}")
+    /**
+     * Delivers the queued results that are due over kept alive connections. Every
+     * result report is queued before it is sent, so new reports go out on the next
+     * run. Several patients are delivered at a time but the reports of one patient
+     * are sent one after the other in the order they were queued. A report that
+     * fails is held back for longer after each failure, and the later reports of
+     * its patient are held back with it. If the receiver can't be reached at all
+     * the rest of the run is skipped rather than counting a failure against every
+     * queued report.
+     */
+    @Scheduled(initialDelay = 1000 * 30, fixedDelay = DELIVERY_POLL_DELAY)
     private void exportResults() {
         if (shouldReportResults()) {
             List<ReportExternalExport> reportList = reportExternalExportService
-                    .getUnsentReportExports(resultReportTypeId);
+                    .getReportExportsDueForSending(resultReportTypeId, DateUtil.getNowAsTimestamp(),
+                            MAX_REPORTS_PER_RUN);
 
-            ReportTransmission transmitter = new ReportTransmission();
             String url = ConfigurationProperties.getInstance().getPropertyValue(Property.resultReportingURL);
-            boolean sendAsychronously = false;
+            AtomicBoolean receiverUnreachable = new AtomicBoolean(false);
 
+            Map<String, List<ReportExternalExport>> reportsByKey = new LinkedHashMap<>();
             for (ReportExternalExport report : reportList) {
+                String key = report.getPartitionKey() == null ? "" : report.getPartitionKey();
+                reportsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(report);
+            }
+
+            List<Callable<Void>> deliveries = new ArrayList<>(reportsByKey.size());
+            for (List<ReportExternalExport> reports : reportsByKey.values()) {
+                deliveries.add(() -> {
+                    for (ReportExternalExport report : reports) {
+                        // a later report must not overtake one that failed
+                        if (receiverUnreachable.get() || !deliver(report, url, receiverUnreachable)) {
+                            break;
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            try {
+                // wait so that the next run never overlaps this one
+                deliveryExecutor.invokeAll(deliveries);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return true if the report was delivered
+     */
+    private boolean deliver(ReportExternalExport report, String url, AtomicBoolean receiverUnreachable) {
+        PooledHttpPostSender sender = new PooledHttpPostSender(httpClient);
+        sender.setURI(url);
+        sender.setMessage(report.getData());
+        try {
+            if (sender.sendMessage()) {
                 IRowTransmissionResponseHandler responseHandler = SpringContext.getBean("successReportHandler");
                 responseHandler.setRowId(report.getId());
-                transmitter.sendRawReport(report.getData(), url, sendAsychronously, responseHandler, HTTP_TYPE.POST);
+                responseHandler.handleResponse(sender.getSendResponse(), sender.getErrors(), report.getData());
+                return true;
+            } else {
+                if (sender.isConnectionFailure()) {
+                    receiverUnreachable.set(true);
+                }
+                reportExternalExportService.recordFailedSend(report.getId());
             }
+        } catch (RuntimeException e) {
+            LogEvent.logError(e.toString(), e);
         }
+        return false;
     }
 
     private boolean shouldReportResults() {
@@ -123,7 +217,11 @@ public class ResultExporter {
                 List<DocumentTrack> documents = getSentDocuments(report.getBookkeepingData());
 
                 try {
-                    HL7MessageOut hl7Message = hl7MessageService.getByData(msg);
+                    // reports queued before messages were linked by id still need the lookup by
+                    // content
+                    HL7MessageOut hl7Message = GenericValidator.isBlankOrNull(report.getMessageOutId())
+                            ? hl7MessageService.getByData(msg)
+                            : hl7MessageService.get(report.getMessageOutId());
                     if (hl7Message != null) {
                         hl7Message.setStatus(HL7MessageOut.SUCCESS);
                         hl7MessageService.update(hl7Message);
@@ -5,12 +5,15 @@ import org.openelisglobal.systemmodule.dao.SystemModuleParamDAO;
 import org.openelisglobal.systemmodule.valueholder.SystemModuleParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class SystemModuleParamServiceImpl extends BaseObjectServiceImpl<SystemModuleParam, String>
         implements SystemModuleParamService {
     @Autowired
     protected SystemModuleParamDAO baseObjectDAO;
+    @Autowired
+    private SystemModuleUrlService systemModuleUrlService;
 
     SystemModuleParamServiceImpl() {
         super(SystemModuleParam.class);
@@ -20,4 +23,18 @@ public class SystemModuleParamServiceImpl extends BaseObjectServiceImpl<SystemMo
     protected SystemModuleParamDAO getBaseObjectDAO() {
         return baseObjectDAO;
     }
+
+    @Override
+    @Transactional
+    public SystemModuleParam update(SystemModuleParam systemModuleParam) {
+        systemModuleUrlService.refreshUrlMatcher();
+        return super.update(systemModuleParam);
+    }
+
+    @Override
+    @Transactional
+    public void delete(SystemModuleParam systemModuleParam) {
+        systemModuleUrlService.refreshUrlMatcher();
+        super.delete(systemModuleParam);
+    }
 }
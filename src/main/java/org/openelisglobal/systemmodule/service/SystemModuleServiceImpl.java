@@ -15,6 +15,8 @@ public class SystemModuleServiceImpl extends BaseObjectServiceImpl<SystemModule,
         implements SystemModuleService {
     @Autowired
     protected SystemModuleDAO baseObjectDAO;
+    @Autowired
+    private SystemModuleUrlService systemModuleUrlService;
 
     SystemModuleServiceImpl() {
         super(SystemModule.class);
@@ -77,6 +79,15 @@ public class SystemModuleServiceImpl extends BaseObjectServiceImpl<SystemModule,
         if (getBaseObjectDAO().duplicateSystemModuleExists(systemModule)) {
             throw new LIMSDuplicateRecordException("Duplicate record exists for " + systemModule.getSystemModuleName());
         }
+        // the url matcher holds module names
+        systemModuleUrlService.refreshUrlMatcher();
         return super.update(systemModule);
     }
+
+    @Override
+    @Transactional
+    public void delete(SystemModule systemModule) {
+        systemModuleUrlService.refreshUrlMatcher();
+        super.delete(systemModule);
+    }
 }
@@ -0,0 +1,68 @@
+package org.openelisglobal.systemmodule.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.openelisglobal.systemmodule.valueholder.SystemModuleParam;
+import org.openelisglobal.systemmodule.valueholder.SystemModuleUrl;
+
+/**
+ * The system module urls compiled by path. It is never changed once built, a
+ * new one replaces it when the urls or modules are edited.
+ */
+final class SystemModuleUrlMatcher {
+
+    private final Map<String, UrlRule[]> rulesByPath;
+
+    SystemModuleUrlMatcher(List<SystemModuleUrl> systemModuleUrls) {
+        Map<String, List<UrlRule>> rules = new HashMap<>();
+        for (SystemModuleUrl systemModuleUrl : systemModuleUrls) {
+            rules.computeIfAbsent(systemModuleUrl.getUrlPath(), path -> new ArrayList<>())
+                    .add(new UrlRule(systemModuleUrl));
+        }
+        rulesByPath = new HashMap<>();
+        for (Map.Entry<String, List<UrlRule>> entry : rules.entrySet()) {
+            rulesByPath.put(entry.getKey(), entry.getValue().toArray(new UrlRule[entry.getValue().size()]));
+        }
+    }
+
+    /**
+     * @param useParameters if false the parameters of the urls are not checked
+     * @return the names of the modules whose url and parameter match the request
+     */
+    List<String> getModuleNames(String path, HttpServletRequest request, boolean useParameters) {
+        UrlRule[] rules = rulesByPath.get(path);
+        if (rules == null) {
+            return Collections.emptyList();
+        }
+        List<String> moduleNames = new ArrayList<>(rules.length);
+        for (UrlRule rule : rules) {
+            if (!useParameters || rule.matches(request)) {
+                moduleNames.add(rule.moduleName);
+            }
+        }
+        return moduleNames;
+    }
+
+    private static final class UrlRule {
+        private final String moduleName;
+        private final String paramName;
+        private final String paramValue;
+
+        private UrlRule(SystemModuleUrl systemModuleUrl) {
+            moduleName = systemModuleUrl.getSystemModule().getSystemModuleName();
+            SystemModuleParam param = systemModuleUrl.getParam();
+            paramName = param == null ? null : param.getName();
+            paramValue = param == null ? null : param.getValue();
+        }
+
+        private boolean matches(HttpServletRequest request) {
+            return paramName == null || paramValue.equals(request.getParameter(paramName));
+        }
+    }
+}
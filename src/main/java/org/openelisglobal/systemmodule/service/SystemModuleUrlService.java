@@ -11,4 +11,8 @@ public interface SystemModuleUrlService extends BaseObjectService<SystemModuleUr
     List<SystemModuleUrl> getByUrlPath(String urlPath);
 
     List<SystemModuleUrl> getByRequest(HttpServletRequest request);
+
+    List<String> getModuleNamesForRequest(HttpServletRequest request, boolean useParameters);
+
+    void refreshUrlMatcher();
 }
@@ -5,11 +5,14 @@ import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 
 import org.openelisglobal.common.service.BaseObjectServiceImpl;
+import org.openelisglobal.common.util.URLUtil;
 import org.openelisglobal.systemmodule.dao.SystemModuleUrlDAO;
 import org.openelisglobal.systemmodule.valueholder.SystemModuleUrl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class SystemModuleUrlServiceImpl extends BaseObjectServiceImpl<SystemModuleUrl, String>
@@ -17,6 +20,9 @@ public class SystemModuleUrlServiceImpl extends BaseObjectServiceImpl<SystemModu
     @Autowired
     protected SystemModuleUrlDAO baseObjectDAO;
 
+    // built on first use, dropped when the urls, params or modules change
+    private volatile SystemModuleUrlMatcher urlMatcher;
+
     SystemModuleUrlServiceImpl() {
         super(SystemModuleUrl.class);
     }
@@ -37,4 +43,58 @@ public class SystemModuleUrlServiceImpl extends BaseObjectServiceImpl<SystemModu
     public List<SystemModuleUrl> getByUrlPath(String urlPath) {
         return getBaseObjectDAO().getByUrlPath(urlPath);
     }
+
+    /**
+     * The modules the request belongs to, answered from memory so that checking
+     * permissions does not go to the database on every request
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> getModuleNamesForRequest(HttpServletRequest request, boolean useParameters) {
+        SystemModuleUrlMatcher matcher = urlMatcher;
+        if (matcher == null) {
+            matcher = new SystemModuleUrlMatcher(getBaseObjectDAO().getAll());
+            urlMatcher = matcher;
+        }
+        return matcher.getModuleNames(URLUtil.getReourcePathFromRequest(request), request, useParameters);
+    }
+
+    /**
+     * Drop the compiled urls now and again once the current transaction has
+     * completed, so a request checked while the change is being written can not
+     * keep the old urls
+     */
+    @Override
+    public void refreshUrlMatcher() {
+        urlMatcher = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    urlMatcher = null;
+                }
+            });
+        }
+    }
+
+    @Override
+    @Transactional
+    public String insert(SystemModuleUrl systemModuleUrl) {
+        refreshUrlMatcher();
+        return super.insert(systemModuleUrl);
+    }
+
+    @Override
+    @Transactional
+    public SystemModuleUrl update(SystemModuleUrl systemModuleUrl) {
+        refreshUrlMatcher();
+        return super.update(systemModuleUrl);
+    }
+
+    @Override
+    @Transactional
+    public void delete(SystemModuleUrl systemModuleUrl) {
+        refreshUrlMatcher();
+        super.delete(systemModuleUrl);
+    }
 }
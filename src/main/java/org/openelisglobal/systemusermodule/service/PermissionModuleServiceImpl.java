@@ -204,6 +204,13 @@ public class PermissionModuleServiceImpl implements PermissionModuleService<Perm
         return getActivePermissionModule().insertAll(baseObjects);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    @Transactional
+    public List<String> batchInsert(List<PermissionModule> baseObjects) {
+        return getActivePermissionModule().batchInsert(baseObjects);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     @Transactional
@@ -233,6 +240,13 @@ public class PermissionModuleServiceImpl implements PermissionModuleService<Perm
         return getActivePermissionModule().updateAll(baseObjects);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    @Transactional
+    public List<PermissionModule> batchUpdate(List<PermissionModule> baseObjects) {
+        return getActivePermissionModule().batchUpdate(baseObjects);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     @Transactional
@@ -36,4 +36,6 @@ public interface TestSectionService extends BaseObjectService<TestSection, Strin
     String getUserLocalizedTesSectionName(TestSection testSection);
 
     void refreshNames();
+
+    void refreshTestSectionName(String testSectionId);
 }
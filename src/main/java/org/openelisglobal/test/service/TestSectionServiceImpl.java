@@ -3,6 +3,7 @@ package org.openelisglobal.test.service;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
@@ -10,7 +11,9 @@ import javax.annotation.PostConstruct;
 import org.openelisglobal.common.exception.LIMSDuplicateRecordException;
 import org.openelisglobal.common.service.BaseObjectServiceImpl;
 import org.openelisglobal.common.util.LocaleChangeListener;
+import org.openelisglobal.common.util.LocalizedNameTable;
 import org.openelisglobal.common.util.SystemConfiguration;
+import org.openelisglobal.localization.service.LocalizationService;
 import org.openelisglobal.systemusersection.service.SystemUserSectionService;
 import org.openelisglobal.systemusersection.valueholder.SystemUserSection;
 import org.openelisglobal.test.dao.TestSectionDAO;
@@ -20,18 +23,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @DependsOn({ "springContext" })
 public class TestSectionServiceImpl extends BaseObjectServiceImpl<TestSection, String>
         implements TestSectionService, LocaleChangeListener {
 
-    private Map<String, String> testUnitIdToNameMap;
+    private final LocalizedNameTable testSectionNames = new LocalizedNameTable();
 
     @Autowired
     private TestSectionDAO baseObjectDAO;
     @Autowired
     private SystemUserSectionService systemUserSectionService;
+    @Autowired
+    private LocalizationService localizationService;
 
     @PostConstruct
     private void initializeGlobalVariables() {
@@ -68,6 +75,19 @@ public class TestSectionServiceImpl extends BaseObjectServiceImpl<TestSection, S
         testNamesChanged();
     }
 
+    /**
+     * Recompute the names of one test section, for when only its localization has
+     * been changed
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void refreshTestSectionName(String testSectionId) {
+        TestSection testSection = get(testSectionId);
+        if (testSection != null) {
+            refreshTestSectionNameOnCommit(testSection);
+        }
+    }
+
     public void testNamesChanged() {
         createTestIdToNameMap();
     }
@@ -86,19 +106,52 @@ public class TestSectionServiceImpl extends BaseObjectServiceImpl<TestSection, S
         return getUserLocalizedTestSectionName(testSection.getId());
     }
 
-    public synchronized String getUserLocalizedTestSectionName(String testSectionId) {
-        String name = testUnitIdToNameMap.get(testSectionId);
+    public String getUserLocalizedTestSectionName(String testSectionId) {
+        String name = testSectionNames.getName(testSectionId);
         return name == null ? "" : name;
     }
 
-    private synchronized void createTestIdToNameMap() {
-        testUnitIdToNameMap = new HashMap<>();
+    private void createTestIdToNameMap() {
+        testSectionNames.rebuild(localizationService.getAllActiveLocales(), this::createTestSectionIdToNameMap);
+    }
+
+    private Map<String, String> createTestSectionIdToNameMap() {
+        Map<String, String> testSectionIdToNameMap = new HashMap<>();
 
         List<TestSection> testSections = baseObjectDAO.getAllTestSections();
 
         for (TestSection testSection : testSections) {
-            testUnitIdToNameMap.put(testSection.getId(), buildTestSectionName(testSection).replace("\n", " "));
+            testSectionIdToNameMap.put(testSection.getId(), buildTestSectionName(testSection).replace("\n", " "));
         }
+        return testSectionIdToNameMap;
+    }
+
+    /**
+     * Recompute the names of one test section once its transaction commits. The
+     * names are built before the commit while the localization can still be read.
+     */
+    private void refreshTestSectionNameOnCommit(TestSection testSection) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            testSectionNames.update(testSection.getId(), buildTestSectionNames(testSection));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            private Map<Locale, String> names;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                names = buildTestSectionNames(testSection);
+            }
+
+            @Override
+            public void afterCommit() {
+                testSectionNames.update(testSection.getId(), names);
+            }
+        });
+    }
+
+    private Map<Locale, String> buildTestSectionNames(TestSection testSection) {
+        return testSectionNames.buildName(() -> buildTestSectionName(testSection).replace("\n", " "));
     }
 
     private String buildTestSectionName(TestSection testSection) {
@@ -197,7 +250,9 @@ public class TestSectionServiceImpl extends BaseObjectServiceImpl<TestSection, S
         if (duplicateTestSectionExists(testSection)) {
             throw new LIMSDuplicateRecordException("Duplicate record exists for " + testSection.getTestSectionName());
         }
-        return super.insert(testSection);
+        String id = super.insert(testSection);
+        refreshTestSectionNameOnCommit(testSection);
+        return id;
     }
 
     @Override
@@ -216,6 +271,13 @@ public class TestSectionServiceImpl extends BaseObjectServiceImpl<TestSection, S
         return super.update(testSection);
     }
 
+    @Override
+    protected TestSection update(TestSection testSection, String auditTrailType) {
+        TestSection updatedTestSection = super.update(testSection, auditTrailType);
+        refreshTestSectionNameOnCommit(updatedTestSection);
+        return updatedTestSection;
+    }
+
     private boolean duplicateTestSectionExists(TestSection testSection) {
         return baseObjectDAO.duplicateTestSectionExists(testSection);
     }
@@ -78,6 +78,8 @@ public interface TestService extends BaseObjectService<Test, String> {
 
     void refreshTestNames();
 
+    void refreshTestName(String testId);
+
     String getTestMethodName(Test test);
 
     List<TestResult> getPossibleTestResults(Test test);
@@ -1,11 +1,14 @@
 package org.openelisglobal.test.service;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.Vector;
 
 import javax.annotation.PostConstruct;
@@ -16,8 +19,11 @@ import org.openelisglobal.common.exception.LIMSDuplicateRecordException;
 import org.openelisglobal.common.exception.LIMSRuntimeException;
 import org.openelisglobal.common.log.LogEvent;
 import org.openelisglobal.common.service.BaseObjectServiceImpl;
+import org.openelisglobal.common.util.ConfigurationChangeListener;
 import org.openelisglobal.common.util.ConfigurationProperties;
+import org.openelisglobal.common.util.ConfigurationProperties.Property;
 import org.openelisglobal.common.util.LocaleChangeListener;
+import org.openelisglobal.common.util.LocalizedNameTable;
 import org.openelisglobal.common.util.SystemConfiguration;
 import org.openelisglobal.localization.service.LocalizationService;
 import org.openelisglobal.localization.valueholder.Localization;
@@ -44,10 +50,13 @@ import org.openelisglobal.typeoftestresult.service.TypeOfTestResultServiceImpl;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @DependsOn({ "springContext" })
-public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> implements TestService, LocaleChangeListener {
+public class TestServiceImpl extends BaseObjectServiceImpl<Test, String>
+        implements TestService, LocaleChangeListener, ConfigurationChangeListener {
 
     public enum Entity {
         TEST_NAME, TEST_AUGMENTED_NAME, TEST_REPORTING_NAME
@@ -58,7 +67,14 @@ public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> impleme
     private static String VARIABLE_TYPE_OF_SAMPLE_ID;
 //    private static String LANGUAGE_LOCALE = ConfigurationProperties.getInstance()
 //            .getPropertyValue(ConfigurationProperties.Property.DEFAULT_LANG_LOCALE);
-    private static Map<Entity, Map<String, String>> entityToMap;
+    private static final Map<Entity, LocalizedNameTable> entityToNames = new EnumMap<>(Entity.class);
+
+    static {
+        for (Entity entity : Entity.values()) {
+            entityToNames.put(entity, new LocalizedNameTable());
+        }
+    }
+    private static volatile boolean namesBuilt;
 
     protected static TestDAO baseObjectDAO = SpringContext.getBean(TestDAO.class);
 
@@ -75,25 +91,19 @@ public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> impleme
     @PostConstruct
     private void initialize() {
         SystemConfiguration.getInstance().addLocalChangeListener(this);
+        ConfigurationProperties.addChangeListener(this);
     }
 
     private synchronized void initializeGlobalVariables() {
         TypeOfSample variableTypeOfSample = typeOfSampleService.getTypeOfSampleByLocalAbbrevAndDomain("Variable", "H");
         VARIABLE_TYPE_OF_SAMPLE_ID = variableTypeOfSample == null ? "-1" : variableTypeOfSample.getId();
 
-        if (entityToMap == null) {
-            createEntityMap();
+        if (!namesBuilt) {
+            refreshTestNames();
+            namesBuilt = true;
         }
     }
 
-    private synchronized void createEntityMap() {
-        entityToMap = new HashMap<>();
-        entityToMap.put(Entity.TEST_NAME, createTestIdToNameMap());
-        entityToMap.put(Entity.TEST_AUGMENTED_NAME, createTestIdToAugmentedNameMap());
-        entityToMap.put(Entity.TEST_REPORTING_NAME, createTestIdToReportingNameMap());
-
-    }
-
     public TestServiceImpl() {
         super(Test.class);
         initializeGlobalVariables();
@@ -110,15 +120,82 @@ public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> impleme
 
     @Override
     public void localeChanged(String locale) {
-//        LANGUAGE_LOCALE = locale;
+        // names are kept for every active locale, rebuilding picks up any locale
+        // that has become active since
         refreshTestNames();
     }
 
+    @Override
+    public void configurationChanged(Set<Property> changedProperties) {
+        if (changedProperties.contains(Property.TEST_NAME_AUGMENTED)) {
+            entityToNames.get(Entity.TEST_AUGMENTED_NAME).rebuild(localizationService.getAllActiveLocales(),
+                    this::createTestIdToAugmentedNameMap);
+        }
+    }
+
     @Override
     public void refreshTestNames() {
-        entityToMap.put(Entity.TEST_NAME, createTestIdToNameMap());
-        entityToMap.put(Entity.TEST_AUGMENTED_NAME, createTestIdToAugmentedNameMap());
-        entityToMap.put(Entity.TEST_REPORTING_NAME, createTestIdToReportingNameMap());
+        List<Locale> locales = localizationService.getAllActiveLocales();
+        entityToNames.get(Entity.TEST_NAME).rebuild(locales, TestServiceImpl::createTestIdToNameMap);
+        entityToNames.get(Entity.TEST_AUGMENTED_NAME).rebuild(locales, this::createTestIdToAugmentedNameMap);
+        entityToNames.get(Entity.TEST_REPORTING_NAME).rebuild(locales,
+                TestServiceImpl::createTestIdToReportingNameMap);
+    }
+
+    /**
+     * Recompute the names of one test, for when only its localizations have been
+     * changed
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void refreshTestName(String testId) {
+        Test test = get(testId);
+        if (test != null) {
+            refreshTestNamesOnCommit(test);
+        }
+    }
+
+    /**
+     * Recompute the names of one test once its transaction commits, instead of
+     * rebuilding the names of every test. The names are built before the commit
+     * while the test's localizations can still be read.
+     */
+    private void refreshTestNamesOnCommit(Test test) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updateTestNames(test.getId(), buildTestNames(test));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            private Map<Entity, Map<Locale, String>> names;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                names = buildTestNames(test);
+            }
+
+            @Override
+            public void afterCommit() {
+                updateTestNames(test.getId(), names);
+            }
+        });
+    }
+
+    private Map<Entity, Map<Locale, String>> buildTestNames(Test test) {
+        Map<Entity, Map<Locale, String>> names = new EnumMap<>(Entity.class);
+        names.put(Entity.TEST_NAME,
+                entityToNames.get(Entity.TEST_NAME).buildName(() -> buildTestName(test).replace("\n", " ")));
+        names.put(Entity.TEST_AUGMENTED_NAME, entityToNames.get(Entity.TEST_AUGMENTED_NAME)
+                .buildName(() -> buildAugmentedTestName(test).replace("\n", " ")));
+        // only active tests have a reporting name
+        names.put(Entity.TEST_REPORTING_NAME, entityToNames.get(Entity.TEST_REPORTING_NAME)
+                .buildName(() -> test.isActive() ? buildReportingTestName(test) : null));
+        return names;
+    }
+
+    private static void updateTestNames(String testId, Map<Entity, Map<Locale, String>> names) {
+        for (Entry<Entity, Map<Locale, String>> entry : names.entrySet()) {
+            entityToNames.get(entry.getKey()).update(testId, entry.getValue());
+        }
     }
 
     @Override
@@ -232,7 +309,7 @@ public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> impleme
     }
 
     public static Map<String, String> getMap(Entity entiy) {
-        return entityToMap.get(entiy);
+        return entityToNames.get(entiy).getNames();
     }
 
     public static String getUserLocalizedTestName(Test test) {
@@ -244,7 +321,7 @@ public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> impleme
     }
 
     public static String getUserLocalizedReportingTestName(String testId) {
-        String name = entityToMap.get(Entity.TEST_REPORTING_NAME).get(testId);
+        String name = entityToNames.get(Entity.TEST_REPORTING_NAME).getName(testId);
         return name == null ? "" : name;
     }
 
@@ -257,7 +334,7 @@ public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> impleme
     }
 
     public static String getUserLocalizedTestName(String testId) {
-        String name = entityToMap.get(Entity.TEST_NAME).get(testId);
+        String name = entityToNames.get(Entity.TEST_NAME).getName(testId);
         return name == null ? "" : name;
     }
 
@@ -288,7 +365,7 @@ public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> impleme
      * @return The test name or the augmented test name
      */
     public static String getLocalizedTestNameWithType(String testId) {
-        String description = entityToMap.get(Entity.TEST_AUGMENTED_NAME).get(testId);
+        String description = entityToNames.get(Entity.TEST_AUGMENTED_NAME).getName(testId);
         return description == null ? "" : description;
     }
 
@@ -586,7 +663,16 @@ public class TestServiceImpl extends BaseObjectServiceImpl<Test, String> impleme
         if (test.getIsActive().equals(IActionConstants.YES) && getBaseObjectDAO().duplicateTestExists(test)) {
             throw new LIMSDuplicateRecordException("Duplicate record exists for " + test.getDescription());
         }
-        return super.insert(test);
+        String id = super.insert(test);
+        refreshTestNamesOnCommit(test);
+        return id;
+    }
+
+    @Override
+    protected Test update(Test test, String auditTrailType) {
+        Test updatedTest = super.update(test, auditTrailType);
+        refreshTestNamesOnCommit(updatedTest);
+        return updatedTest;
     }
 
     private List<Test> filterOnlyFullSetup(boolean onlyTestsFullySetup, List<Test> list) {
@@ -78,8 +78,6 @@ public class TestAddController extends BaseController {
     private TestAddService testAddService;
     @Autowired
     private TestSectionService testSectionService;
-    @Autowired
-    private TestService testService;
 
     @InitBinder
     public void initBinder(WebDataBinder binder) {
@@ -141,7 +139,9 @@ public class TestAddController extends BaseController {
             LogEvent.logDebug(e);
         }
 
-        testService.refreshTestNames();
+        // the test names were refreshed as the tests were saved
+        DisplayListService.getInstance().refreshList(DisplayListService.ListType.ALL_TESTS);
+        DisplayListService.getInstance().refreshList(DisplayListService.ListType.ORDERABLE_TESTS);
         SpringContext.getBean(TypeOfSampleService.class).clearCache();
 
         return findForward(FWD_SUCCESS_INSERT, form);
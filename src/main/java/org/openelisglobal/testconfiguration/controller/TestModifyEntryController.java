@@ -454,7 +454,9 @@ public class TestModifyEntryController extends BaseController {
             return findForward(FWD_FAIL_INSERT, form);
         }
 
-        testService.refreshTestNames();
+        // the test names were refreshed as the tests were saved
+        DisplayListService.getInstance().refreshList(DisplayListService.ListType.ALL_TESTS);
+        DisplayListService.getInstance().refreshList(DisplayListService.ListType.ORDERABLE_TESTS);
         SpringContext.getBean(TypeOfSampleService.class).clearCache();
 
         return findForward(FWD_SUCCESS_INSERT, form);
@@ -111,8 +111,9 @@ public class TestRenameEntryController extends BaseController {
         }
 
         // Refresh test names
-        DisplayListService.getInstance().getFreshList(DisplayListService.ListType.ALL_TESTS);
-        DisplayListService.getInstance().getFreshList(DisplayListService.ListType.ORDERABLE_TESTS);
+        testService.refreshTestName(testId);
+        DisplayListService.getInstance().refreshList(DisplayListService.ListType.ALL_TESTS);
+        DisplayListService.getInstance().refreshList(DisplayListService.ListType.ORDERABLE_TESTS);
     }
 
     @Override
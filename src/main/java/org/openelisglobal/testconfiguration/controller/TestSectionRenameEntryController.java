@@ -97,7 +97,8 @@ public class TestSectionRenameEntryController extends BaseController {
         }
 
         // Refresh Test Section names
-        DisplayListService.getInstance().getFreshList(DisplayListService.ListType.TEST_SECTION);
+        testSectionService.refreshTestSectionName(testSectionId);
+        DisplayListService.getInstance().refreshList(DisplayListService.ListType.TEST_SECTION);
     }
 
     @Override
@@ -3,7 +3,6 @@ package org.openelisglobal.testconfiguration.service;
 import java.util.List;
 import java.util.Locale;
 
-import org.openelisglobal.common.services.DisplayListService;
 import org.openelisglobal.localization.service.LocalizationService;
 import org.openelisglobal.localization.valueholder.Localization;
 import org.openelisglobal.panelitem.service.PanelItemService;
@@ -20,6 +19,7 @@ import org.openelisglobal.typeofsample.service.TypeOfSampleTestService;
 import org.openelisglobal.typeofsample.valueholder.TypeOfSampleTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class TestModifyServiceImpl implements TestModifyService {
@@ -38,6 +38,7 @@ public class TestModifyServiceImpl implements TestModifyService {
     private LocalizationService localizationService;
 
     @Override
+    @Transactional
     public void updateTestSets(List<TestSet> testSets, TestAddParams testAddParams, Localization nameLocalization,
             Localization reportingNameLocalization, String currentUserId) {
         List<TypeOfSampleTest> typeOfSampleTest = typeOfSampleTestService
@@ -135,9 +136,9 @@ public class TestModifyServiceImpl implements TestModifyService {
 
         }
 
-        // Refresh test names
-        DisplayListService.getInstance().getFreshList(DisplayListService.ListType.ALL_TESTS);
-        DisplayListService.getInstance().getFreshList(DisplayListService.ListType.ORDERABLE_TESTS);
+        // Refresh test names, the lists built from them are refreshed once this has
+        // committed
+        testService.refreshTestName(testId);
     }
 
 }
@@ -58,4 +58,9 @@ public interface TestResultDAO extends BaseDAO<TestResult, String> {
 
     List<TestResult> getActiveTestResultsByTest(String testId) throws LIMSRuntimeException;
 
+    /*
+     * The active test results of all of the tests, in test order and then in the
+     * order of getAllActiveTestResultsPerTest
+     */
+    List<TestResult> getActiveTestResultsByTests(List<String> testIds) throws LIMSRuntimeException;
 }
@@ -336,4 +336,26 @@ public class TestResultDAOImpl extends BaseDAOImpl<TestResult, String> implement
         return null;
     }
 
-}
\ No newline at end of file
+    @Override
+    @Transactional(readOnly = true)
+    public List<TestResult> getActiveTestResultsByTests(List<String> testIds) throws LIMSRuntimeException {
+        if (testIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> ids = new ArrayList<>(testIds.size());
+        for (String testId : testIds) {
+            ids.add(Integer.parseInt(testId));
+        }
+
+        try {
+            String sql = "from TestResult t where t.test.id in (:testIds) and t.isActive = true order by t.test.id, t.resultGroup, t.id asc";
+            org.hibernate.Query query = entityManager.unwrap(Session.class).createQuery(sql);
+            query.setParameterList("testIds", ids);
+
+            return query.list();
+        } catch (RuntimeException e) {
+            LogEvent.logError(e.toString(), e);
+            throw new LIMSRuntimeException("Error in TestResult getActiveTestResultsByTests()", e);
+        }
+    }
+}
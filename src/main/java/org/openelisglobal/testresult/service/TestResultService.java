@@ -25,4 +25,6 @@ public interface TestResultService extends BaseObjectService<TestResult, String>
     List<TestResult> getTestResultsByTestAndResultGroup(TestAnalyte testAnalyte);
 
     List<TestResult> getAllSortedTestResults();
+
+    List<TestResult> getActiveTestResultsByTests(List<String> testIds);
 }
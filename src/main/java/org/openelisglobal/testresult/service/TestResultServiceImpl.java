@@ -118,4 +118,10 @@ public class TestResultServiceImpl extends BaseObjectServiceImpl<TestResult, Str
         });
         return testResults;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TestResult> getActiveTestResultsByTests(List<String> testIds) {
+        return getBaseObjectDAO().getActiveTestResultsByTests(testIds);
+    }
 }
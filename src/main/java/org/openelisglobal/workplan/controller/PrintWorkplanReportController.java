@@ -11,6 +11,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.openelisglobal.common.controller.BaseController;
 import org.openelisglobal.common.log.LogEvent;
+import org.openelisglobal.reports.service.JasperReportService;
 import org.openelisglobal.test.service.TestServiceImpl;
 import org.openelisglobal.workplan.form.WorkplanForm;
 import org.openelisglobal.workplan.form.WorkplanForm.PrintWorkplan;
@@ -18,6 +19,7 @@ import org.openelisglobal.workplan.reports.ElisaWorkplanReport;
 import org.openelisglobal.workplan.reports.IWorkplanReport;
 import org.openelisglobal.workplan.reports.TestSectionWorkplanReport;
 import org.openelisglobal.workplan.reports.TestWorkplanReport;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
@@ -29,7 +31,6 @@ import org.springframework.web.bind.annotation.RequestMethod;
 
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
-import net.sf.jasperreports.engine.JasperRunManager;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 
 @Controller
@@ -39,6 +40,9 @@ public class PrintWorkplanReportController extends BaseController {
             "testSectionId", "testName", "workplanTests[*].accessionNumber", "workplanTests[*].patientInfo",
             "workplanTests[*].receivedDate", "workplanTests[*].testName", "workplanTests[*].notIncludedInWorkplan" };
 
+    @Autowired
+    private JasperReportService jasperReportService;
+
     @InitBinder
     public void initBinder(WebDataBinder binder) {
         binder.setAllowedFields(ALLOWED_FIELDS);
@@ -83,18 +87,15 @@ public class PrintWorkplanReportController extends BaseController {
 
         try {
 
-            byte[] bytes = null;
-
             JRDataSource dataSource = createReportDataSource(workplanRows);
-            bytes = JasperRunManager.runReportToPdf(reportFile.getAbsolutePath(), parameterMap, dataSource);
 
-            ServletOutputStream servletOutputStream = response.getOutputStream();
             response.setContentType("application/pdf");
-            response.setContentLength(bytes.length);
             String downloadFilename = "WorkplanReport";
             response.setHeader("Content-Disposition", "filename=\"" + downloadFilename + ".pdf\"");
+            ServletOutputStream servletOutputStream = response.getOutputStream();
 
-            servletOutputStream.write(bytes, 0, bytes.length);
+            jasperReportService.writePdf(reportFile.getAbsolutePath(), parameterMap, dataSource,
+                    servletOutputStream);
             servletOutputStream.flush();
             servletOutputStream.close();
 
@@ -4,39 +4,48 @@
 <%@ taglib prefix="form" uri="http://www.springframework.org/tags/form"%>
 <%@ taglib prefix="spring" uri="http://www.springframework.org/tags"%>
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core"%>
+<%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions"%>
 
 <%@ taglib prefix="ajax" uri="/tags/ajaxtags" %> 
 
 <script type="text/javascript">
-var pageNumber = ${(startIndex / 50) + 1};
-var firstPage = pageNumber == 1;
-var lastPage = ${total == endIndex};
-	
-function sortBy(sortOption) {
-	const params = new URLSearchParams({
-		"sortOrder": sortOption,
+var firstPage = ${not form.hasPreviousPage};
+var lastPage = ${not form.hasNextPage};
+var firstOrderId = "${form.EOrders[0].id}";
+var lastOrderId = "${form.EOrders[fn:length(form.EOrders) - 1].id}";
+
+function searchParams() {
+	return new URLSearchParams({
+		"sortOrder": jQuery("#sortSelect").val(),
+		"statusId": jQuery("#statusSelect").val(),
+		"startDate": jQuery("#startDate").val(),
+		"endDate": jQuery("#endDate").val(),
 		});
-	window.location.href = "ElectronicOrders.do?" + params.toString();
+}
+
+function sortBy(sortOption) {
+	window.location.href = "ElectronicOrders.do?" + searchParams().toString();
 }
 
 function nextPage() {
-	var sortOption = jQuery("#sortSelect").val();
-	const params = new URLSearchParams({
-		"sortOrder": sortOption,
-		"page": (pageNumber + 1),
-		});
+	const params = searchParams();
+	params.append("after", lastOrderId);
 	window.location.href = "ElectronicOrders.do?" + params.toString();
 }
 
 function prevPage() {
-	var sortOption = jQuery("#sortSelect").val();
-	const params = new URLSearchParams({
-		"sortOrder": sortOption,
-		"page": (pageNumber -1),
-		});
+	const params = searchParams();
+	params.append("before", firstOrderId);
 	window.location.href = "ElectronicOrders.do?" + params.toString();
 }
 
+function showMessage(button, orderId) {
+	jQuery.get("ElectronicOrders.do", {"messageId": orderId}, function(message) {
+		jQuery("#message_" + orderId).text(message).show();
+		jQuery(button).hide();
+	}, "text");
+}
+
 jQuery(window).load(function(){	
 	jQuery('button.prevButton').each(function(){
 		jQuery(this).prop('disabled', firstPage);
@@ -51,14 +60,23 @@ jQuery(window).load(function(){
 <form:select path="sortOrder" id="sortSelect" onchange="sortBy(this.value)">
 	<form:options items="${form.sortOrderOptions}" itemValue="value" itemLabel="label" />
 </form:select>
-<form:hidden path="page"/>
+<spring:message code="eorder.status"/>:
+<form:select path="statusId" id="statusSelect">
+	<form:option value=""></form:option>
+	<form:options items="${form.statusOptions}" itemValue="id" itemLabel="value" />
+</form:select>
+<spring:message code="eorder.lastupdated"/>:
+<form:input path="startDate" id="startDate" size="10" maxlength="10"/>
+-
+<form:input path="endDate" id="endDate" size="10" maxlength="10"/>
+<button onClick="sortBy(); return false;"><spring:message code="label.button.search"/></button>
 
 <c:if test="${empty form.EOrders}">
 	<h2><spring:message code="eorder.noresults"/></h2>
 </c:if>
 <c:if test="${not empty form.EOrders}">
 	<h2>
-		<spring:message code="eorder.results"/> ${startIndex + 1} -  ${endIndex} <spring:message code="eorder.of"/> ${total}
+		<spring:message code="eorder.results"/>
 		<button class="prevButton" onClick="prevPage(); return false;"><spring:message code="label.button.previous"/></button>
 		<button class="nextButton" onClick="nextPage(); return false;"><spring:message code="label.button.next"/></button>
 	</h2>
@@ -92,8 +110,9 @@ jQuery(window).load(function(){
 						</tr>
 						</table>
 						<b><spring:message code="eorder.status"/>: </b> <spring:message code="${eOrder.status.nameKey}"/><br>
-						<b><spring:message code="eorder.message"/>: </b><br> 
-						<div class="colorFill message" style="white-space:pre;padding:5px;"><c:out value="${eOrder.data}"/></div>
+						<b><spring:message code="eorder.message"/>: </b>
+						<button onClick="showMessage(this, '${eOrder.id}'); return false;"><spring:message code="eorder.message.show"/></button><br>
+						<div id="message_${eOrder.id}" class="colorFill message" style="white-space:pre;padding:5px;display:none;"></div>
 					</div>
 					<hr>
 				</c:forEach>
@@ -102,7 +121,7 @@ jQuery(window).load(function(){
 		</tr>
 	</table>
 	<h2>
-		<spring:message code="eorder.results"/> ${startIndex + 1} -  ${endIndex} <spring:message code="eorder.of"/> ${total}
+		<spring:message code="eorder.results"/>
 		<button class="prevButton" onClick="prevPage(); return false;"><spring:message code="label.button.previous"/></button>
 		<button class="nextButton" onClick="nextPage(); return false;"><spring:message code="label.button.next"/></button>
 	</h2>